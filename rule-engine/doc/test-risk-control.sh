@@ -27,25 +27,28 @@ curl -X POST http://localhost:9090/api/risk-control/check \
 echo -e "\n\n"
 
 # 测试频繁交易
+# 交易次数由 riskControl 组的事件流会话按最近24小时滑动窗口统计，连续提交51笔订单，第51笔应被拒绝
 echo "Testing frequent trading..."
-curl -X POST http://localhost:9090/api/risk-control/check \
-  -H "Content-Type: application/json" \
-  -d '{
-    "order": {
-      "orderId": "O002",
-      "accountId": "A002",
-      "stockCode": "000001",
-      "type": "BUY",
-      "price": 50.0,
-      "quantity": 100
-    },
-    "account": {
-      "id": "A002",
-      "level": "普通账户",
-      "balance": 1000000.0,
-      "dailyTradeCount": 51,
-      "stockPositions": {
-        "000001": 0.1
+for i in $(seq -w 1 51); do
+  curl -s -X POST http://localhost:9090/api/risk-control/check \
+    -H "Content-Type: application/json" \
+    -d '{
+      "order": {
+        "orderId": "O002-'"$i"'",
+        "accountId": "A002",
+        "stockCode": "000001",
+        "type": "BUY",
+        "price": 50.0,
+        "quantity": 100
+      },
+      "account": {
+        "id": "A002",
+        "level": "普通账户",
+        "balance": 1000000.0,
+        "stockPositions": {
+          "000001": 0.1
+        }
       }
-    }
-  }' 
\ No newline at end of file
+    }'
+  echo
+done
\ No newline at end of file
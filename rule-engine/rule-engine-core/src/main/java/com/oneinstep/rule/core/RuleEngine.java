@@ -0,0 +1,378 @@
+package com.oneinstep.rule.core;
+
+import com.oneinstep.rule.core.config.RuleConfigConstants;
+import com.oneinstep.rule.core.config.RuleLogProperties;
+import com.oneinstep.rule.core.config.loader.DecisionTableRuleLoader;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.decisiontable.DecisionTableRegistry;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
+import com.oneinstep.rule.core.executor.RuleExecutor;
+import com.oneinstep.rule.core.loader.RuleFileLoader;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleExecutionContext;
+import com.oneinstep.rule.core.model.RuleExecutionResult;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import com.oneinstep.rule.core.service.RuleExecutionLogService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.LOCAL_RULES_PATH;
+
+/**
+ * 不依赖 Spring 容器的嵌入式规则引擎
+ * 用与 Spring 应用相同的 {@link DynamicRuleLoader}、{@link RuleExecutor}、{@link RuleExecutionLogService} 组装，
+ * 不连接 Nacos，不做预热和影子评估。规则组在首次执行时才加载和编译，适合批处理任务和命令行工具等短生命周期进程。
+ * <p>
+ * 用法示例:
+ * <pre>
+ * try (RuleEngine engine = RuleEngine.builder()
+ *         .rulesFrom(Path.of("rules"))
+ *         .logging(Path.of("logs"))
+ *         .build()) {
+ *     RuleExecutionResult result = engine.execute("riskControl", List.of(order, account, result));
+ * }
+ * </pre>
+ * 规则目录下每个子目录为一个规则组，包含 .drl 规则文件、决策表(.csv/.xls/.xlsx)和可选的 kbase.properties。
+ * <p>
+ * 首个规则组的编译包含 Drools 编译器的初始化，耗时主要在类加载和解释执行上，
+ * 短生命周期进程可以加 -XX:TieredStopAtLevel=1 启动 JVM 以减少这部分开销。
+ */
+@Slf4j
+public class RuleEngine implements AutoCloseable {
+
+    // 只有索引化决策表的规则组使用的空规则
+    private static final String EMPTY_RULE_ID = "_empty";
+
+    private final GroupSource source;
+
+    @Getter
+    private final DynamicRuleLoader ruleLoader;
+
+    @Getter
+    private final DecisionTableRegistry decisionTables;
+
+    private final DecisionTableRuleLoader decisionTableLoader;
+
+    // 执行日志服务，未配置日志时为空
+    private final RuleExecutionLogService logService;
+
+    private final RuleExecutor executor;
+
+    // 已加载的规则组
+    private final Set<String> loadedGroups = ConcurrentHashMap.newKeySet();
+
+    private RuleEngine(Builder builder) {
+        this.source = builder.source;
+        this.ruleLoader = new DynamicRuleLoader(RuleEngine::onRuleUpdate);
+        this.decisionTables = new DecisionTableRegistry();
+        this.decisionTableLoader = new DecisionTableRuleLoader(decisionTables);
+        this.logService = builder.logProperties != null ? new RuleExecutionLogService(builder.logProperties) : null;
+        this.executor = new RuleExecutor(logService, ruleLoader);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 执行规则，规则组未加载时先加载和编译
+     *
+     * @param context 规则执行上下文
+     * @return 规则执行结果
+     * @throws IllegalArgumentException 规则组不存在
+     * @throws IllegalStateException    规则编译失败
+     */
+    public RuleExecutionResult execute(RuleExecutionContext context) {
+        load(context.getRuleGroup());
+        return executor.execute(context);
+    }
+
+    /**
+     * 执行规则
+     *
+     * @param group 规则组
+     * @param facts 事实对象
+     * @return 规则执行结果
+     */
+    public RuleExecutionResult execute(String group, List<Object> facts) {
+        return execute(RuleExecutionContext.builder()
+                .ruleGroup(group)
+                .facts(new ArrayList<>(facts))
+                .build());
+    }
+
+    /**
+     * 预先加载规则组，已加载的规则组跳过
+     *
+     * @param groups 规则组
+     */
+    public void load(String... groups) {
+        for (String group : groups) {
+            if (!loadedGroups.contains(group)) {
+                loadGroup(group);
+            }
+        }
+    }
+
+    /**
+     * 规则组是否已加载
+     */
+    public boolean isLoaded(String group) {
+        return loadedGroups.contains(group);
+    }
+
+    /**
+     * 落盘执行日志
+     */
+    @Override
+    public void close() {
+        if (logService != null) {
+            logService.close();
+        }
+    }
+
+    private synchronized void loadGroup(String group) {
+        if (loadedGroups.contains(group)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<RuleDefinition> rules = new ArrayList<>(source.rules(group));
+        int indexedTables = 0;
+        for (Map.Entry<String, byte[]> table : source.decisionTables(group).entrySet()) {
+            RuleDefinition rule = decisionTableLoader.load(table.getKey(), table.getValue());
+            if (rule != null) {
+                rules.add(rule);
+            } else {
+                indexedTables++;
+            }
+        }
+        if (rules.isEmpty() && indexedTables == 0) {
+            throw new IllegalArgumentException("No rules found for group: " + group);
+        }
+
+        int compiledRules = rules.size();
+        if (rules.isEmpty()) {
+            // 只有索引化决策表时没有需要编译的规则，编译只有包声明的空模块，执行时不触发规则
+            rules.add(RuleDefinition.builder()
+                    .ruleId(EMPTY_RULE_ID)
+                    .ruleName(EMPTY_RULE_ID)
+                    .ruleContent("package " + LOCAL_RULES_PATH + "." + group + ";\n")
+                    .ruleGroup(group)
+                    .build());
+        }
+
+        ruleLoader.updateDescriptor(group, source.descriptor(group));
+        ruleLoader.updateRules(rules);
+        loadedGroups.add(group);
+        log.info("Loaded rule group: {}, rules: {}, indexed decision tables: {}, elapsed: {}ms", group,
+                compiledRules, indexedTables, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 没有监听器处理更新事件，编译失败已通过异常抛出，这里只记录日志
+     */
+    private static void onRuleUpdate(Object event) {
+        if (event instanceof RuleUpdateEvent updateEvent) {
+            RuleUpdateLog updateLog = updateEvent.getUpdateLog();
+            log.debug("Rule group {} updated, version: {}, success: {}", updateEvent.getRuleGroup(),
+                    updateLog.getVersion(), updateLog.isSuccess());
+        }
+    }
+
+    /**
+     * 规则组来源
+     */
+    private interface GroupSource {
+
+        /**
+         * 规则组的 DRL 规则
+         */
+        List<RuleDefinition> rules(String group);
+
+        /**
+         * 规则组的决策表 key: 相对路径，例如 rules/riskControl/trade_limit.csv
+         */
+        Map<String, byte[]> decisionTables(String group);
+
+        /**
+         * 规则组的 KieBase 配置描述
+         */
+        KieBaseDescriptor descriptor(String group);
+    }
+
+    /**
+     * 从目录加载，目录下每个子目录为一个规则组
+     */
+    private record DirectorySource(Path dir) implements GroupSource {
+
+        @Override
+        public List<RuleDefinition> rules(String group) {
+            Path groupDir = dir.resolve(group);
+            if (!Files.isDirectory(groupDir)) {
+                return List.of();
+            }
+            try {
+                return RuleFileLoader.loadRules(groupDir, group);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read rules: " + groupDir, e);
+            }
+        }
+
+        @Override
+        public Map<String, byte[]> decisionTables(String group) {
+            Path groupDir = dir.resolve(group);
+            if (!Files.isDirectory(groupDir)) {
+                return Map.of();
+            }
+            try (Stream<Path> files = Files.list(groupDir)) {
+                List<Path> tables = files.filter(RuleEngine::isDecisionTable).toList();
+                Map<String, byte[]> result = new HashMap<>();
+                for (Path table : tables) {
+                    result.put(String.join("/", LOCAL_RULES_PATH, group, table.getFileName().toString()),
+                            Files.readAllBytes(table));
+                }
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read decision tables: " + groupDir, e);
+            }
+        }
+
+        @Override
+        public KieBaseDescriptor descriptor(String group) {
+            Path file = dir.resolve(group).resolve(KieBaseDescriptor.FILE_NAME);
+            try {
+                return Files.exists(file) ? KieBaseDescriptor.parse(Files.readString(file)) : KieBaseDescriptor.DEFAULT;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read kbase descriptor: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * 从 classpath 的 rules 目录加载，与 Spring 应用的本地规则位置相同
+     */
+    private record ClasspathSource() implements GroupSource {
+
+        @Override
+        public List<RuleDefinition> rules(String group) {
+            return RuleFileLoader.loadLocalRules(LOCAL_RULES_PATH + "/" + group).entrySet().stream()
+                    .map(entry -> {
+                        String fileName = entry.getKey().substring(entry.getKey().lastIndexOf('/') + 1);
+                        String ruleId = fileName.replace(RuleConfigConstants.DRL_EXTENSION, "");
+                        return new RuleDefinition(ruleId, ruleId, entry.getValue(), group);
+                    })
+                    .toList();
+        }
+
+        @Override
+        public Map<String, byte[]> decisionTables(String group) {
+            return RuleFileLoader.loadLocalDecisionTables(LOCAL_RULES_PATH + "/" + group);
+        }
+
+        @Override
+        public KieBaseDescriptor descriptor(String group) {
+            return KieBaseDescriptor.fromClasspath(group);
+        }
+    }
+
+    /**
+     * 内存中的规则，不支持决策表和配置描述
+     */
+    private record RuleListSource(Map<String, List<RuleDefinition>> rulesByGroup) implements GroupSource {
+
+        @Override
+        public List<RuleDefinition> rules(String group) {
+            return rulesByGroup.getOrDefault(group, List.of());
+        }
+
+        @Override
+        public Map<String, byte[]> decisionTables(String group) {
+            return Map.of();
+        }
+
+        @Override
+        public KieBaseDescriptor descriptor(String group) {
+            return KieBaseDescriptor.DEFAULT;
+        }
+    }
+
+    private static boolean isDecisionTable(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(RuleConfigConstants.CSV_EXTENSION) || name.endsWith(RuleConfigConstants.XLS_EXTENSION)
+                || name.endsWith(RuleConfigConstants.XLSX_EXTENSION);
+    }
+
+    /**
+     * 规则引擎构建器
+     */
+    public static class Builder {
+
+        private GroupSource source = new ClasspathSource();
+
+        private RuleLogProperties logProperties;
+
+        private Builder() {
+        }
+
+        /**
+         * 从目录加载规则，目录下每个子目录为一个规则组
+         */
+        public Builder rulesFrom(Path dir) {
+            this.source = new DirectorySource(dir);
+            return this;
+        }
+
+        /**
+         * 从 classpath 的 rules 目录加载规则，默认方式
+         */
+        public Builder rulesFromClasspath() {
+            this.source = new ClasspathSource();
+            return this;
+        }
+
+        /**
+         * 使用给定的规则定义
+         */
+        public Builder rules(Collection<RuleDefinition> rules) {
+            this.source = new RuleListSource(rules.stream()
+                    .collect(Collectors.groupingBy(RuleDefinition::getRuleGroup)));
+            return this;
+        }
+
+        /**
+         * 记录执行日志到指定目录，日志格式与 Spring 应用相同，可用于重放
+         */
+        public Builder logging(Path logDir) {
+            RuleLogProperties properties = new RuleLogProperties();
+            properties.setLogDir(logDir.toString());
+            return logging(properties);
+        }
+
+        /**
+         * 按配置记录执行日志，默认不记录
+         */
+        public Builder logging(RuleLogProperties logProperties) {
+            this.logProperties = logProperties;
+            return this;
+        }
+
+        public RuleEngine build() {
+            return new RuleEngine(this);
+        }
+    }
+}
@@ -14,5 +14,11 @@ public class RuleConfigConstants {
     public static final String RULE_GROUP = "RULE_GROUP";
     public static final String LOCAL_RULES_PATH = "rules";
     public static final String DRL_EXTENSION = ".drl";
+    /**
+     * 决策表文件扩展名
+     */
+    public static final String CSV_EXTENSION = ".csv";
+    public static final String XLS_EXTENSION = ".xls";
+    public static final String XLSX_EXTENSION = ".xlsx";
 
 }
\ No newline at end of file
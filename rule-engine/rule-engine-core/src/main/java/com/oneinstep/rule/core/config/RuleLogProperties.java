@@ -23,4 +23,38 @@ public class RuleLogProperties {
      * 规则更新日志文件名
      */
     private String updateLogFile = "rule-update.log";
+
+    /**
+     * 分段日志存储配置
+     */
+    private Store store = new Store();
+
+    @Data
+    public static class Store {
+
+        /**
+         * 存储目录，为空时使用 日志文件目录/store
+         */
+        private String dir;
+
+        /**
+         * 分段轮转周期(分钟)
+         */
+        private long rotationMinutes = 60;
+
+        /**
+         * 分段保留时长(小时)
+         */
+        private long retentionHours = 72;
+
+        /**
+         * 每个压缩数据块的记录数
+         */
+        private int blockSize = 512;
+
+        /**
+         * 未满数据块的定时落盘间隔(毫秒)
+         */
+        private long flushIntervalMs = 1000;
+    }
 }
\ No newline at end of file
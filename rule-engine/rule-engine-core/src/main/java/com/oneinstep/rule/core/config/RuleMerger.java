@@ -35,8 +35,8 @@ public class RuleMerger {
                 .collect(Collectors.toMap(
                         RuleDefinition::getRuleId,
                         rule -> rule,
-                        // 如果有重复，使用后加载的规则
-                        (existing, replacement) -> replacement));
+                        // 如果有重复，保留优先级高的加载器(先加载)的规则
+                        (existing, replacement) -> existing));
 
         // 返回合并后的规则列表
         return mergedRules.values().stream().toList();
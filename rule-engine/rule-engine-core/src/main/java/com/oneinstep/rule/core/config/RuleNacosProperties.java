@@ -0,0 +1,26 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.nacos")
+public class RuleNacosProperties {
+
+    /**
+     * 单个规则配置拉取超时时间(毫秒)
+     */
+    private long fetchTimeoutMs = 5000;
+
+    /**
+     * 启动时等待 Nacos 返回的最长时间(毫秒)，超时后直接使用本地快照启动，并在后台继续同步
+     */
+    private long startupWaitMs = 1000;
+
+    /**
+     * 规则快照目录，保存最近一次从 Nacos 成功获取的规则内容
+     */
+    private String snapshotDir = "./rule-snapshot";
+}
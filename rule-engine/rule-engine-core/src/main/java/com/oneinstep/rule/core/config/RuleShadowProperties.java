@@ -0,0 +1,76 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.shadow")
+public class RuleShadowProperties {
+
+    /**
+     * 是否启用影子模式，启用后规则更新先编译为候选版本，不直接替换生效版本
+     */
+    private boolean enabled = false;
+
+    /**
+     * 启用影子模式的规则组，为空表示全部规则组
+     */
+    private List<String> groups = new ArrayList<>();
+
+    /**
+     * 采样比例(0~1)，被采样的执行会异步在候选版本上重放
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * 影子执行线程数
+     */
+    private int threads = 2;
+
+    /**
+     * 影子执行队列容量，队列满时丢弃采样
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * 是否在满足阈值后自动提升候选版本
+     */
+    private boolean autoPromote = false;
+
+    /**
+     * 提升前至少需要的采样数
+     */
+    private int minSamples = 200;
+
+    /**
+     * 允许的最大结果差异比例(0~1)
+     */
+    private double maxDiffRate = 0.0;
+
+    /**
+     * 允许的最大延迟退化比例，0.2 表示候选版本平均耗时不超过生效版本的 1.2 倍
+     */
+    private double maxLatencyRegression = 0.2;
+
+    /**
+     * 比较结果时忽略的属性名，例如规则中写入的当前时间
+     */
+    private List<String> ignoredProperties = new ArrayList<>();
+
+    /**
+     * 保留的最近差异样本数
+     */
+    private int recentDiffs = 20;
+
+    /**
+     * 规则组是否启用影子模式
+     */
+    public boolean isShadowGroup(String group) {
+        return enabled && (groups.isEmpty() || groups.contains(group));
+    }
+}
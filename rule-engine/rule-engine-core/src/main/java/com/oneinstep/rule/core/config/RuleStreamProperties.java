@@ -0,0 +1,39 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.stream")
+public class RuleStreamProperties {
+
+    /**
+     * 以事件流方式运行的规则组，每组维护一个长期存在的 stream 模式会话
+     * 规则组的 KieBase 描述需配置 drools.eventProcessingMode=stream
+     */
+    private List<String> groups = new ArrayList<>();
+
+    /**
+     * 会话时钟类型 realtime / pseudo，pseudo 时钟只随 advanceTime 推进，用于测试
+     */
+    private String clockType = "realtime";
+
+    /**
+     * 是否以事件流方式运行规则组
+     */
+    public boolean isStreamGroup(String group) {
+        return groups.contains(group);
+    }
+
+    /**
+     * 是否使用伪时钟
+     */
+    public boolean isPseudoClock() {
+        return "pseudo".equalsIgnoreCase(clockType);
+    }
+}
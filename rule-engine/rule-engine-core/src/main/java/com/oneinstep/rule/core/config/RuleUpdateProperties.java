@@ -0,0 +1,21 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.update")
+public class RuleUpdateProperties {
+
+    /**
+     * 更新合并窗口(毫秒)，窗口内同组的更新合并为一次编译
+     */
+    private long coalesceWindowMs = 500;
+
+    /**
+     * 最长合并延迟(毫秒)，持续有更新时也保证在该时间内完成编译
+     */
+    private long maxCoalesceDelayMs = 5000;
+}
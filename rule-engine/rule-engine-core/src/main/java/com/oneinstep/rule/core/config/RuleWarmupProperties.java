@@ -0,0 +1,31 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.warmup")
+public class RuleWarmupProperties {
+
+    /**
+     * 是否在新容器生效前进行预热
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个规则组的预热执行次数
+     */
+    private int iterations = 500;
+
+    /**
+     * 单个规则组预热的最长时间(毫秒)，超时后提前结束预热
+     */
+    private long maxDurationMs = 10000;
+
+    /**
+     * 预热数据所在位置，规则组的预热数据为 location/规则组/warmup.json
+     */
+    private String location = "classpath:rules";
+}
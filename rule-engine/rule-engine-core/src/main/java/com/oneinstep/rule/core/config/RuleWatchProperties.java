@@ -0,0 +1,21 @@
+package com.oneinstep.rule.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rule.watch")
+public class RuleWatchProperties {
+
+    /**
+     * 是否监听本地规则目录，启用后目录中的规则覆盖 classpath 中的同名规则，文件变更后自动热加载
+     */
+    private boolean enabled = false;
+
+    /**
+     * 监听的规则目录，目录下每个子目录为一个规则组，例如 ./rules/riskControl/*.drl
+     */
+    private String dir = "./rules";
+}
@@ -0,0 +1,97 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.decisiontable.DecisionTableRegistry;
+import com.oneinstep.rule.core.decisiontable.IndexedDecisionTable;
+import com.oneinstep.rule.core.loader.RuleFileLoader;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import lombok.extern.slf4j.Slf4j;
+import org.drools.decisiontable.InputType;
+import org.drools.decisiontable.SpreadsheetCompiler;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.CSV_EXTENSION;
+import static com.oneinstep.rule.core.config.RuleConfigConstants.LOCAL_RULES_PATH;
+
+/**
+ * 决策表加载器
+ * 从本地 resources/rules 目录加载 .csv/.xls/.xlsx 决策表：
+ * 条件都是等值或区间判断的决策表编译为索引化的查找结构，注册到 {@link DecisionTableRegistry}，不进入 Rete；
+ * 其余决策表生成 DRL，作为普通规则加载。
+ */
+@Component
+@Slf4j
+public class DecisionTableRuleLoader implements RuleLoader {
+
+    private final DecisionTableRegistry registry;
+
+    public DecisionTableRuleLoader(DecisionTableRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public List<RuleDefinition> loadRules() {
+        Map<String, byte[]> tableFiles = RuleFileLoader.loadLocalDecisionTables(LOCAL_RULES_PATH);
+
+        List<RuleDefinition> rules = new ArrayList<>();
+        int indexed = 0;
+        for (Map.Entry<String, byte[]> entry : tableFiles.entrySet()) {
+            String tableFile = entry.getKey();
+            try {
+                RuleDefinition rule = load(tableFile, entry.getValue());
+                if (rule == null) {
+                    indexed++;
+                } else {
+                    rules.add(rule);
+                }
+            } catch (Exception e) {
+                log.error("Failed to load decision table: {}", tableFile, e);
+            }
+        }
+
+        log.info("Successfully loaded {} decision tables, indexed: {}, compiled to DRL: {}",
+                indexed + rules.size(), indexed, rules.size());
+        return rules;
+    }
+
+    /**
+     * 加载一个决策表
+     *
+     * @param tableFile 相对路径，例如 rules/riskControl/trade_limit.csv
+     * @param content   文件内容
+     * @return 生成 DRL 的规则定义，决策表被索引化时返回 null
+     */
+    public RuleDefinition load(String tableFile, byte[] content) {
+        String[] parts = tableFile.split("/");
+        String fileName = parts[parts.length - 1];
+        String ruleGroup = parts.length > 2 ? parts[parts.length - 2] : "";
+        InputType inputType = fileName.endsWith(CSV_EXTENSION) ? InputType.CSV : InputType.XLS;
+
+        IndexedDecisionTable table = IndexedDecisionTable.compile(ruleGroup, content, inputType,
+                getClass().getClassLoader());
+        if (table != null) {
+            registry.register(table);
+            return null;
+        }
+
+        String drl = new SpreadsheetCompiler().compile(new ByteArrayInputStream(content), inputType);
+        String ruleId = fileName.substring(0, fileName.lastIndexOf('.'));
+        log.info("Compiled decision table {} to DRL", tableFile);
+        return RuleDefinition.builder()
+                .ruleId(ruleId)
+                .ruleName(ruleId)
+                .ruleContent(drl)
+                .ruleGroup(ruleGroup)
+                .build();
+    }
+
+    @Override
+    public int getOrder() {
+        // 优先级低于本地 DRL，规则ID重复时以 DRL 为准
+        return 110;
+    }
+}
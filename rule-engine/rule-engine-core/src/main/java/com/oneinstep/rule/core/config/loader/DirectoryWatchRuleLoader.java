@@ -0,0 +1,272 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.config.RuleWatchProperties;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.DRL_EXTENSION;
+import static com.oneinstep.rule.core.config.RuleConfigConstants.LOCAL_RULES_PATH;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * 本地目录规则加载器
+ * 启动时加载 rule.watch.dir 下各规则组子目录中的 .drl 文件，覆盖 classpath 中的同名规则，
+ * 之后通过 {@link WatchService} 监听目录，只读取变更的文件，按内容摘要去重后提交到 {@link RuleUpdateCoalescer}。
+ * 不依赖配置中心，适用于规则开发和无法访问 Nacos 的环境。
+ * <p>
+ * 编辑器保存文件时通常产生多个事件，可能读到写了一半的内容，由合并器的窗口保证只编译最后一个版本。
+ * 删除规则文件不会从已生效的规则组中移除规则，需要重启后生效。
+ */
+@Component
+@Slf4j
+public class DirectoryWatchRuleLoader implements RuleLoader {
+
+    private final DynamicRuleLoader dynamicRuleLoader;
+    private final RuleUpdateCoalescer ruleUpdateCoalescer;
+    private final RuleWatchProperties watchProperties;
+
+    // 已加载文件的内容摘要 key: 文件路径
+    private final Map<Path, String> contentHashes = new ConcurrentHashMap<>();
+    // 已注册监听的目录
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    private Path rootDir;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public DirectoryWatchRuleLoader(DynamicRuleLoader dynamicRuleLoader,
+                                    RuleUpdateCoalescer ruleUpdateCoalescer,
+                                    RuleWatchProperties watchProperties) {
+        this.dynamicRuleLoader = dynamicRuleLoader;
+        this.ruleUpdateCoalescer = ruleUpdateCoalescer;
+        this.watchProperties = watchProperties;
+    }
+
+    @Override
+    public List<RuleDefinition> loadRules() {
+        if (!watchProperties.isEnabled()) {
+            return List.of();
+        }
+        rootDir = Path.of(watchProperties.getDir()).toAbsolutePath().normalize();
+        if (!Files.isDirectory(rootDir)) {
+            log.warn("Rule watch directory does not exist: {}", rootDir);
+            return List.of();
+        }
+
+        List<RuleDefinition> rules = new ArrayList<>();
+        try {
+            // 先注册监听再读取文件，读取期间的变更会在监听线程启动后按摘要对账
+            watchService = rootDir.getFileSystem().newWatchService();
+            register(rootDir);
+            for (Path groupDir : listGroupDirs()) {
+                register(groupDir);
+                rules.addAll(scan(groupDir));
+            }
+        } catch (IOException e) {
+            log.error("Failed to watch rule directory: {}", rootDir, e);
+            shutdown();
+            return List.of();
+        }
+
+        // 规则组初始化后才能增量更新，之前的事件保留在 WatchService 中
+        dynamicRuleLoader.whenInitialized().thenRun(this::startWatching);
+        log.info("Successfully loaded {} rules from directory: {}", rules.size(), rootDir);
+        return rules;
+    }
+
+    @Override
+    public int getOrder() {
+        // 本地目录优先于 classpath 和决策表，低于 Nacos
+        return 50;
+    }
+
+    /**
+     * 停止监听
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Failed to close rule watch service", e);
+            }
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    private synchronized void startWatching() {
+        if (watchThread != null) {
+            return;
+        }
+        watchThread = new Thread(this::watch, "rule-dir-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("Watching rule directory: {}", rootDir);
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watchedDirs.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    try {
+                        handleEvent(dir, event);
+                    } catch (Exception e) {
+                        log.error("Failed to process rule file event: {} {}", event.kind(), event.context(), e);
+                    }
+                }
+            }
+            if (!key.reset()) {
+                // 目录已删除
+                watchedDirs.remove(key);
+            }
+        }
+    }
+
+    private void handleEvent(Path dir, WatchEvent<?> event) throws IOException {
+        if (event.kind() == OVERFLOW) {
+            // 事件丢失，重新扫描，未变化的文件按摘要跳过
+            log.warn("Rule watch events overflowed, rescanning: {}", dir);
+            if (dir.equals(rootDir)) {
+                for (Path groupDir : listGroupDirs()) {
+                    submit(scan(groupDir));
+                }
+            } else {
+                submit(scan(dir));
+            }
+            return;
+        }
+
+        Path file = dir.resolve((Path) event.context());
+        if (dir.equals(rootDir)) {
+            // 新增的规则组
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+                register(file);
+                submit(scan(file));
+            }
+            return;
+        }
+        if (!isRuleFile(file)) {
+            return;
+        }
+        if (event.kind() == ENTRY_DELETE) {
+            contentHashes.remove(file);
+            log.warn("Rule file deleted, the rule stays active until restart: {}", file);
+            return;
+        }
+        RuleDefinition rule = read(file);
+        if (rule != null) {
+            submit(List.of(rule));
+        }
+    }
+
+    private void submit(List<RuleDefinition> rules) {
+        for (RuleDefinition rule : rules) {
+            log.info("Rule file changed: {}/{}", rule.getRuleGroup(), rule.getRuleId());
+            ruleUpdateCoalescer.submit(rule);
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        watchedDirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+    }
+
+    private List<Path> listGroupDirs() throws IOException {
+        try (Stream<Path> files = Files.list(rootDir)) {
+            return files.filter(Files::isDirectory).sorted().toList();
+        }
+    }
+
+    /**
+     * 读取规则组目录中内容发生变化的规则
+     */
+    private List<RuleDefinition> scan(Path groupDir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(groupDir)) {
+            files = stream.filter(DirectoryWatchRuleLoader::isRuleFile).sorted().toList();
+        }
+        List<RuleDefinition> rules = new ArrayList<>();
+        for (Path file : files) {
+            RuleDefinition rule = read(file);
+            if (rule != null) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * 读取规则文件
+     *
+     * @param file 规则文件
+     * @return 规则定义，文件不存在或内容与上次读取时相同时返回 null
+     */
+    private RuleDefinition read(Path file) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (content.length == 0) {
+            // 编辑器截断后尚未写入
+            return null;
+        }
+        String hash = sha256(content);
+        if (hash.equals(contentHashes.put(file, hash))) {
+            return null;
+        }
+        String ruleFile = String.join("/", LOCAL_RULES_PATH, file.getParent().getFileName().toString(),
+                file.getFileName().toString());
+        return parseRuleDefinition(ruleFile, new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static boolean isRuleFile(Path file) {
+        String name = file.getFileName().toString();
+        // 跳过编辑器的隐藏临时文件
+        return name.endsWith(DRL_EXTENSION) && !name.startsWith(".");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.oneinstep.rule.core.config.loader;
 
 import com.alibaba.fastjson2.JSON;
+import com.oneinstep.rule.core.config.RuleShadowProperties;
 import com.oneinstep.rule.core.event.RuleUpdateEvent;
 import com.oneinstep.rule.core.model.RuleDefinition;
 import com.oneinstep.rule.core.model.RuleUpdateLog;
@@ -10,18 +11,25 @@ import org.apache.commons.lang3.StringUtils;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieBuilder;
 import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.KieModule;
 import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
 import org.kie.api.runtime.KieContainer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -32,24 +40,141 @@ import java.util.stream.Collectors;
 @Component
 public class DynamicRuleLoader {
 
+    // 规则 KieModule 的 groupId，artifactId 为规则组
+    private static final String RELEASE_GROUP_ID = "com.oneinstep.rule";
+    // 规则 KieModule 的版本号前缀，后接组内递增版本
+    private static final String RELEASE_VERSION_PREFIX = "1.0.";
+
     private final ApplicationEventPublisher eventPublisher;
 
+    // 规则预热器，为空时不预热
+    private final RuleWarmer ruleWarmer;
+
+    // 影子模式配置，为空时不启用影子模式
+    private final RuleShadowProperties shadowProperties;
+
     // KieContainer 缓存 key: group , value: KieContainer
     private final Map<String, KieContainer> ruleCache = new ConcurrentHashMap<>();
 
-    private volatile boolean init = false;
+    // 按描述配置的 KieBase key: group
+    private final Map<String, GroupKieBase> kieBases = new ConcurrentHashMap<>();
+
+    // KieBase 配置描述 key: group
+    private final Map<String, KieBaseDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    // 当前生效版本的编译时间 key: group
+    private final Map<String, LocalDateTime> compileTimes = new ConcurrentHashMap<>();
+
+    // 当前生效的 ReleaseId key: group
+    private final Map<String, ReleaseId> releaseIds = new ConcurrentHashMap<>();
+
+    // 组版本号 key: group
+    private final Map<String, Long> groupVersions = new ConcurrentHashMap<>();
+
+    // 当前生效的规则定义 key: group , value: (ruleId -> RuleDefinition)
+    private final Map<String, Map<String, RuleDefinition>> groupRules = new ConcurrentHashMap<>();
+
+    // 影子候选版本 key: group
+    private final Map<String, ShadowCandidate> candidates = new ConcurrentHashMap<>();
+
+    // 首次加载完成信号
+    private final CompletableFuture<Void> initialized = new CompletableFuture<>();
 
     public DynamicRuleLoader(ApplicationEventPublisher eventPublisher) {
+        this(eventPublisher, null, null);
+    }
+
+    @Autowired
+    public DynamicRuleLoader(ApplicationEventPublisher eventPublisher, RuleWarmer ruleWarmer,
+                             RuleShadowProperties shadowProperties) {
         this.eventPublisher = eventPublisher;
+        this.ruleWarmer = ruleWarmer;
+        this.shadowProperties = shadowProperties;
     }
 
     public KieContainer getContainer(String ruleGroup) {
-        if (!init) {
+        if (!initialized.isDone()) {
             throw new IllegalStateException("Not init.");
         }
         return ruleCache.get(ruleGroup);
     }
 
+    /**
+     * 获取规则组当前生效的、按描述配置的 KieBase
+     */
+    public GroupKieBase getKieBase(String ruleGroup) {
+        if (!initialized.isDone()) {
+            throw new IllegalStateException("Not init.");
+        }
+        return kieBases.get(ruleGroup);
+    }
+
+    /**
+     * 获取规则组配置的 KieBase 描述，未单独配置时从 classpath 加载，不存在时为默认配置
+     * 生效版本使用的描述见 {@link GroupKieBase#descriptor()}
+     */
+    public KieBaseDescriptor getDescriptor(String ruleGroup) {
+        return descriptors.computeIfAbsent(ruleGroup, KieBaseDescriptor::fromClasspath);
+    }
+
+    /**
+     * 更新规则组的 KieBase 配置描述
+     * 规则组已加载时按新描述重新编译并替换生效版本
+     *
+     * @param group      规则组
+     * @param descriptor 配置描述
+     */
+    public synchronized void updateDescriptor(String group, KieBaseDescriptor descriptor) {
+        KieBaseDescriptor previous = descriptors.put(group, descriptor);
+        log.info("Updated kbase descriptor for group: {}, {} -> {}", group, previous, descriptor);
+        Map<String, RuleDefinition> current = groupRules.get(group);
+        if (current != null) {
+            updateGroup(group, new ArrayList<>(current.values()), List.of(), 1, 0);
+        }
+    }
+
+    /**
+     * 获取已加载的规则组
+     */
+    public Set<String> getGroups() {
+        return Set.copyOf(ruleCache.keySet());
+    }
+
+    /**
+     * 获取规则组当前生效版本的编译时间
+     */
+    public LocalDateTime getCompileTime(String ruleGroup) {
+        return compileTimes.get(ruleGroup);
+    }
+
+    /**
+     * 获取规则组当前生效的 ReleaseId
+     */
+    public ReleaseId getReleaseId(String ruleGroup) {
+        return releaseIds.get(ruleGroup);
+    }
+
+    /**
+     * 获取规则组当前生效的规则定义 key: ruleId，规则组未加载时返回空
+     */
+    public Map<String, RuleDefinition> getRules(String ruleGroup) {
+        return Collections.unmodifiableMap(groupRules.getOrDefault(ruleGroup, Map.of()));
+    }
+
+    /**
+     * 获取规则组的影子候选版本，没有候选版本时返回 null
+     */
+    public ShadowCandidate getCandidate(String ruleGroup) {
+        return candidates.get(ruleGroup);
+    }
+
+    /**
+     * 首次加载完成后完成的 Future，用于延后执行依赖已初始化规则的后台任务
+     */
+    public CompletableFuture<Void> whenInitialized() {
+        return initialized;
+    }
+
     /**
      * 更新规则
      */
@@ -67,58 +192,203 @@ public class DynamicRuleLoader {
                 .collect(Collectors.groupingBy(RuleDefinition::getRuleGroup));
 
         // 更新每个组的规则
-        groupedRules.forEach(this::updateGroup);
+        groupedRules.forEach((group, groupRuleList) -> updateGroup(group, groupRuleList,
+                groupRuleList.stream().map(RuleDefinition::getRuleId).toList(), 1, 0));
+
+        initialized.complete(null);
+    }
+
+    /**
+     * 增量应用组内规则变更
+     * 变更与组内当前规则合并后整体编译一次，内容未变化的规则不计入更新。
+     * 规则组启用影子模式时，变更编译为候选版本，不替换生效版本
+     *
+     * @param group          规则组
+     * @param changes        变更的规则
+     * @param coalescedCount 合并到本次编译的更新通知数
+     * @param skippedCount   已被跳过的更新通知数(窗口内被后续版本覆盖)
+     */
+    public synchronized void applyChanges(String group, Collection<RuleDefinition> changes,
+                                          int coalescedCount, int skippedCount) {
+        if (StringUtils.isBlank(group) || CollectionUtils.isEmpty(changes)) {
+            return;
+        }
+        boolean shadow = shadowProperties != null && shadowProperties.isShadowGroup(group)
+                && ruleCache.containsKey(group);
+        ShadowCandidate candidate = shadow ? candidates.get(group) : null;
+
+        // 影子模式下在已有候选版本的基础上继续变更
+        Map<String, RuleDefinition> merged = new LinkedHashMap<>(candidate != null
+                ? candidate.getRules() : groupRules.getOrDefault(group, Map.of()));
+        List<String> changedRuleIds = new ArrayList<>();
+        int skipped = skippedCount;
+        for (RuleDefinition change : changes) {
+            RuleDefinition current = merged.get(change.getRuleId());
+            if (current != null && Objects.equals(current.getRuleContent(), change.getRuleContent())) {
+                // 内容未变化，跳过
+                skipped++;
+                continue;
+            }
+            merged.put(change.getRuleId(), change);
+            changedRuleIds.add(change.getRuleId());
+        }
+
+        if (changedRuleIds.isEmpty()) {
+            log.info("No rule content changed for group: {}, skipped {} updates", group, skipped);
+            eventPublisher.publishEvent(new RuleUpdateEvent(this, group, RuleUpdateLog.builder()
+                    .id(UUID.randomUUID().toString())
+                    .ruleGroup(group)
+                    .updatedRuleIds(changedRuleIds)
+                    .operator("NACOS")
+                    .updateTime(LocalDateTime.now())
+                    .success(true)
+                    .coalescedCount(coalescedCount)
+                    .skippedCount(skipped)
+                    .shadow(shadow)
+                    .build()));
+            return;
+        }
+
+        if (shadow) {
+            List<String> candidateRuleIds = new ArrayList<>(candidate != null ? candidate.getUpdatedRuleIds() : List.of());
+            changedRuleIds.stream().filter(ruleId -> !candidateRuleIds.contains(ruleId)).forEach(candidateRuleIds::add);
+            stageCandidate(group, merged, candidateRuleIds, changedRuleIds, coalescedCount, skipped);
+            return;
+        }
 
-        this.init = true;
+        updateGroup(group, new ArrayList<>(merged.values()), changedRuleIds, coalescedCount, skipped);
+    }
+
+    /**
+     * 提升影子候选版本为生效版本
+     *
+     * @param group     规则组
+     * @param releaseId 期望提升的候选版本，为空时提升当前候选版本
+     * @return 是否提升成功，候选版本不存在或已被新版本替换时返回 false
+     */
+    public synchronized boolean promoteCandidate(String group, ReleaseId releaseId) {
+        ShadowCandidate candidate = candidates.get(group);
+        if (candidate == null || (releaseId != null && !releaseId.equals(candidate.getReleaseId()))) {
+            return false;
+        }
+        candidates.remove(group);
+        activate(KieServices.Factory.get(), group, candidate.getReleaseId(), candidate.getContainer(),
+                candidate.getKieBase(), candidate.getRules(), candidate.getCreateTime());
+        log.info("Promoted shadow candidate {} for group: {}", candidate.getReleaseId(), group);
+
+        eventPublisher.publishEvent(new RuleUpdateEvent(this, group, RuleUpdateLog.builder()
+                .id(UUID.randomUUID().toString())
+                .ruleGroup(group)
+                .updatedRuleIds(candidate.getUpdatedRuleIds())
+                .operator("SHADOW")
+                .updateTime(LocalDateTime.now())
+                .success(true)
+                .version(candidate.getReleaseId().getVersion())
+                .build()));
+        return true;
+    }
+
+    /**
+     * 丢弃影子候选版本
+     *
+     * @param group 规则组
+     * @return 是否存在候选版本
+     */
+    public synchronized boolean discardCandidate(String group) {
+        ShadowCandidate candidate = candidates.remove(group);
+        if (candidate == null) {
+            return false;
+        }
+        retire(KieServices.Factory.get(), candidate.getContainer(), candidate.getReleaseId());
+        log.info("Discarded shadow candidate {} for group: {}", candidate.getReleaseId(), group);
+        return true;
+    }
+
+    /**
+     * 编译影子候选版本，替换该组之前的候选版本
+     */
+    private void stageCandidate(String group, Map<String, RuleDefinition> rules, List<String> candidateRuleIds,
+                                List<String> updatedRuleIds, int coalescedCount, int skippedCount) {
+        RuleUpdateLog updateLog = null;
+        try {
+            KieServices kieServices = KieServices.Factory.get();
+            ReleaseId releaseId = nextReleaseId(kieServices, group);
+            KieContainer container = compile(kieServices, releaseId, group, rules.values());
+            GroupKieBase kieBase = warmUp(group, container, getDescriptor(group));
+
+            ShadowCandidate previous = candidates.put(group, new ShadowCandidate(group, releaseId, container,
+                    kieBase, rules, candidateRuleIds, LocalDateTime.now()));
+            if (previous != null) {
+                retire(kieServices, previous.getContainer(), previous.getReleaseId());
+            }
+            log.info("Staged shadow candidate {} for group: {}, updated rules: {}", releaseId, group, candidateRuleIds);
+
+            updateLog = RuleUpdateLog.builder()
+                    .id(UUID.randomUUID().toString())
+                    .ruleGroup(group)
+                    .updatedRuleIds(updatedRuleIds)
+                    .operator("NACOS")
+                    .updateTime(LocalDateTime.now())
+                    .success(true)
+                    .coalescedCount(coalescedCount)
+                    .skippedCount(skippedCount)
+                    .version(releaseId.getVersion())
+                    .shadow(true)
+                    .build();
+        } catch (Exception e) {
+            updateLog = RuleUpdateLog.builder()
+                    .id(UUID.randomUUID().toString())
+                    .ruleGroup(group)
+                    .updatedRuleIds(updatedRuleIds)
+                    .operator("SYSTEM")
+                    .updateTime(LocalDateTime.now())
+                    .success(false)
+                    .coalescedCount(coalescedCount)
+                    .skippedCount(skippedCount)
+                    .shadow(true)
+                    .errorMessage(e.getMessage())
+                    .build();
+
+            throw e;
+        } finally {
+            eventPublisher.publishEvent(new RuleUpdateEvent(this, group, updateLog));
+        }
     }
 
     /**
      * 更新组内规则
+     *
+     * @param group          规则组
+     * @param rules          组内全部规则
+     * @param updatedRuleIds 本次变更的规则ID
+     * @param coalescedCount 合并到本次编译的更新通知数
+     * @param skippedCount   被跳过的更新通知数
      */
-    private void updateGroup(String group, List<RuleDefinition> rules) {
+    private void updateGroup(String group, List<RuleDefinition> rules, List<String> updatedRuleIds,
+                             int coalescedCount, int skippedCount) {
         if (StringUtils.isBlank(group) || CollectionUtils.isEmpty(rules)) {
             return;
         }
-        List<String> updatedRuleIds = new ArrayList<>();
 
         RuleUpdateLog updateLog = null;
 
         try {
             // 获取KieServices实例
             KieServices kieServices = KieServices.Factory.get();
-            // 创建KieFileSystem实例
-            KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-
-            // 添加规则到文件系统
-            rules.forEach(rule -> {
-                // 构建规则文件路径
-                String path = String.join(File.separator, "src", "main", "resources", "rules", group, rule.getRuleId() + ".drl");
-                // 将规则内容写入文件系统
-                kieFileSystem.write(path, rule.getRuleContent());
-                // 记录规则ID
-                updatedRuleIds.add(rule.getRuleId());
-            });
-
-            // 编译规则
-            KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-            // 编译所有规则
-            kieBuilder.buildAll();
-
-            // 检查编译错误
-            if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
-                throw new IllegalStateException("规则编译错误:\n" + kieBuilder.getResults().toString());
-            }
+            ReleaseId releaseId = nextReleaseId(kieServices, group);
+            KieContainer newContainer = compile(kieServices, releaseId, group, rules);
+            LocalDateTime compileTime = LocalDateTime.now();
+            GroupKieBase kieBase = warmUp(group, newContainer, getDescriptor(group));
 
-            // 更新容器
-            KieModule kieModule = kieBuilder.getKieModule();
-            // 创建新的KieContainer实例
-            KieContainer newContainer = kieServices.newKieContainer(kieModule.getReleaseId());
+            // 记录当前生效的规则定义
+            Map<String, RuleDefinition> current = new LinkedHashMap<>();
+            rules.forEach(rule -> current.put(rule.getRuleId(), rule));
+            activate(kieServices, group, releaseId, newContainer, kieBase, current, compileTime);
 
-            // 替换旧容器
-            KieContainer oldContainer = ruleCache.put(group, newContainer);
-            // 如果旧容器存在，则销毁
-            if (oldContainer != null) {
-                oldContainer.dispose();
+            // 全量更新后之前的候选版本已过时
+            ShadowCandidate staleCandidate = candidates.remove(group);
+            if (staleCandidate != null) {
+                retire(kieServices, staleCandidate.getContainer(), staleCandidate.getReleaseId());
             }
 
             // 记录更新日志
@@ -129,10 +399,11 @@ public class DynamicRuleLoader {
                     .operator("NACOS")
                     .updateTime(LocalDateTime.now())
                     .success(true)
+                    .coalescedCount(coalescedCount)
+                    .skippedCount(skippedCount)
+                    .version(releaseId.getVersion())
                     .build();
 
-            // 输出缓存统计
-
         } catch (Exception e) {
             // 记录失败日志
             updateLog = RuleUpdateLog.builder()
@@ -142,6 +413,8 @@ public class DynamicRuleLoader {
                     .operator("SYSTEM")
                     .updateTime(LocalDateTime.now())
                     .success(false)
+                    .coalescedCount(coalescedCount)
+                    .skippedCount(skippedCount)
                     .errorMessage(e.getMessage())
                     .build();
 
@@ -154,5 +427,82 @@ public class DynamicRuleLoader {
         }
     }
 
+    /**
+     * 生成规则组的下一个 ReleaseId
+     * 每个组、每个版本使用独立的 ReleaseId，避免各组共用默认 ReleaseId
+     */
+    private ReleaseId nextReleaseId(KieServices kieServices, String group) {
+        return kieServices.newReleaseId(RELEASE_GROUP_ID, group,
+                RELEASE_VERSION_PREFIX + groupVersions.merge(group, 1L, Long::sum));
+    }
+
+    /**
+     * 编译规则并创建容器
+     */
+    private KieContainer compile(KieServices kieServices, ReleaseId releaseId, String group,
+                               Collection<RuleDefinition> rules) {
+        // 创建KieFileSystem实例
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(releaseId);
+
+        // 添加规则到文件系统
+        rules.forEach(rule -> {
+            // 构建规则文件路径
+            String path = String.join(File.separator, "src", "main", "resources", "rules", group, rule.getRuleId() + ".drl");
+            // 将规则内容写入文件系统
+            kieFileSystem.write(path, rule.getRuleContent());
+        });
+
+        // 编译规则
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
+        // 编译所有规则
+        kieBuilder.buildAll();
+
+        // 检查编译错误
+        if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
+            throw new IllegalStateException("规则编译错误:\n" + kieBuilder.getResults().toString());
+        }
+
+        // 创建新的KieContainer实例
+        return kieServices.newKieContainer(releaseId);
+    }
+
+    /**
+     * 按描述创建 KieBase 并预热
+     */
+    private GroupKieBase warmUp(String group, KieContainer container, KieBaseDescriptor descriptor) {
+        GroupKieBase kieBase = new GroupKieBase(descriptor.newKieBase(container), descriptor);
+        // 生效前预热，启动时首次加载完成前应用不会就绪
+        if (ruleWarmer != null) {
+            ruleWarmer.warmUp(group, kieBase);
+        }
+        return kieBase;
+    }
+
+    /**
+     * 将容器设为规则组的生效版本，并销毁旧版本
+     */
+    private void activate(KieServices kieServices, String group, ReleaseId releaseId, KieContainer container,
+                          GroupKieBase kieBase, Map<String, RuleDefinition> rules, LocalDateTime compileTime) {
+        // 替换旧容器
+        kieBases.put(group, kieBase);
+        compileTimes.put(group, compileTime);
+        KieContainer oldContainer = ruleCache.put(group, container);
+        ReleaseId oldReleaseId = releaseIds.put(group, releaseId);
+        groupRules.put(group, rules);
+        retire(kieServices, oldContainer, oldReleaseId);
+    }
+
+    /**
+     * 销毁已退役的容器，并从全局 KieRepository 中移除其 KieModule，避免热更新时仓库无限增长
+     */
+    private void retire(KieServices kieServices, KieContainer container, ReleaseId releaseId) {
+        if (container != null) {
+            container.dispose();
+        }
+        if (releaseId != null) {
+            kieServices.getRepository().removeKieModule(releaseId);
+        }
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.oneinstep.rule.core.config.loader;
+
+import org.kie.api.KieBase;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.runtime.rule.AgendaFilter;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 规则组的 KieBase 及创建它时使用的配置描述
+ * 两者一起发布，执行时不会出现新描述配上旧 KieBase 的情况
+ *
+ * @param kieBase    按描述配置的 KieBase
+ * @param descriptor 配置描述
+ */
+public record GroupKieBase(KieBase kieBase, KieBaseDescriptor descriptor) {
+
+    /**
+     * 按描述的会话类型执行一次规则
+     *
+     * @param facts        事实对象
+     * @param globals      全局变量
+     * @param agendaFilter 议程过滤器，可为空
+     * @param listener     议程事件监听器，可为空
+     * @return 触发的规则数
+     */
+    public int execute(Collection<?> facts, Map<String, Object> globals, AgendaFilter agendaFilter,
+                       AgendaEventListener listener) {
+        return descriptor.execute(kieBase, facts, globals, agendaFilter, listener);
+    }
+}
@@ -0,0 +1,252 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.fact.FactDecomposer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.drools.core.event.DefaultAgendaEventListener;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.LOCAL_RULES_PATH;
+
+/**
+ * 规则组的 KieBase 配置描述
+ * 放在 rules/规则组/kbase.properties，或 Nacos 的 规则组.kbase 中(优先)，例如：
+ * <pre>
+ * # 会话类型 stateful / stateless
+ * rule.session=stateless
+ * # 执行前将事实中标记了 @Decompose 的集合字段拆分为独立事实
+ * rule.decompose=true
+ * # 顺序模式，只适用于无状态会话
+ * drools.sequential=true
+ * # 事实插入按 identity 或 equality 判断重复
+ * drools.equalityBehavior=identity
+ * # 事件处理模式 cloud / stream
+ * drools.eventProcessingMode=cloud
+ * # Phreak 议程求值方式 sequential / dynamic，以及是否强制立即求值(关闭惰性求值)
+ * drools.sequential.agenda=sequential
+ * drools.forceEagerActivation=false
+ * # 约束被求值多少次后编译为字节码
+ * drools.jittingThreshold=20
+ * </pre>
+ * drools.* 配置原样传给 KieBaseConfiguration 和 KieSessionConfiguration。
+ * 规则模块由 {@link DynamicRuleLoader} 通过 KieFileSystem 动态编译，不包含 kmodule.xml，
+ * 默认 KieBase 使用默认配置，因此按描述创建配置后通过 {@link KieContainer#newKieBase} 应用。
+ */
+@Slf4j
+@Getter
+public class KieBaseDescriptor {
+
+    /**
+     * 描述文件名
+     */
+    public static final String FILE_NAME = "kbase.properties";
+
+    static final String SESSION_KEY = "rule.session";
+    static final String DECOMPOSE_KEY = "rule.decompose";
+    static final String SEQUENTIAL_KEY = "drools.sequential";
+    static final String EVENT_PROCESSING_MODE_KEY = "drools.eventProcessingMode";
+    static final String DROOLS_PREFIX = "drools.";
+
+    /**
+     * 默认配置：有状态会话，使用 Drools 默认选项
+     */
+    public static final KieBaseDescriptor DEFAULT = new KieBaseDescriptor(SessionType.STATEFUL, false, new Properties());
+
+    /**
+     * 会话类型
+     */
+    private final SessionType sessionType;
+
+    /**
+     * 执行前是否拆分事实，见 {@link FactDecomposer}
+     */
+    private final boolean decomposeFacts;
+
+    /**
+     * drools.* 配置
+     */
+    private final Properties properties;
+
+    private KieBaseDescriptor(SessionType sessionType, boolean decomposeFacts, Properties properties) {
+        this.sessionType = sessionType;
+        this.decomposeFacts = decomposeFacts;
+        this.properties = properties;
+    }
+
+    /**
+     * 解析描述内容
+     *
+     * @param content properties 格式的描述内容
+     * @return 描述，内容为空时返回默认配置
+     */
+    public static KieBaseDescriptor parse(String content) {
+        if (StringUtils.isBlank(content)) {
+            return DEFAULT;
+        }
+        Properties source = new Properties();
+        try {
+            source.load(new StringReader(content));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid kbase descriptor", e);
+        }
+
+        SessionType sessionType = SessionType.STATEFUL;
+        boolean decomposeFacts = false;
+        Properties properties = new Properties();
+        for (String key : source.stringPropertyNames()) {
+            String value = source.getProperty(key).trim();
+            if (SESSION_KEY.equals(key)) {
+                sessionType = SessionType.valueOf(value.toUpperCase());
+            } else if (DECOMPOSE_KEY.equals(key)) {
+                decomposeFacts = Boolean.parseBoolean(value);
+            } else if (key.startsWith(DROOLS_PREFIX)) {
+                properties.setProperty(key, value);
+            } else {
+                throw new IllegalArgumentException("Unknown kbase descriptor property: " + key);
+            }
+        }
+
+        // 顺序模式的 KieBase 不能创建有状态会话
+        if (Boolean.parseBoolean(properties.getProperty(SEQUENTIAL_KEY)) && sessionType != SessionType.STATELESS) {
+            throw new IllegalArgumentException(SEQUENTIAL_KEY + "=true requires " + SESSION_KEY + "=stateless");
+        }
+        return new KieBaseDescriptor(sessionType, decomposeFacts, properties);
+    }
+
+    /**
+     * 从 classpath 加载规则组的描述
+     *
+     * @param group 规则组
+     * @return 描述，不存在时返回默认配置
+     */
+    public static KieBaseDescriptor fromClasspath(String group) {
+        String path = String.join("/", LOCAL_RULES_PATH, group, FILE_NAME);
+        try (InputStream inputStream = KieBaseDescriptor.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                return DEFAULT;
+            }
+            KieBaseDescriptor descriptor = parse(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            log.info("Loaded kbase descriptor for group: {}, {}", group, descriptor);
+            return descriptor;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read kbase descriptor: " + path, e);
+        }
+    }
+
+    /**
+     * 是否使用默认的 KieBase 和会话配置，不考虑事实拆分
+     */
+    public boolean isDefault() {
+        return sessionType == SessionType.STATEFUL && properties.isEmpty();
+    }
+
+    /**
+     * 是否为 stream 事件处理模式
+     */
+    public boolean isStreamMode() {
+        return "stream".equalsIgnoreCase(properties.getProperty(EVENT_PROCESSING_MODE_KEY));
+    }
+
+    /**
+     * 按描述从容器创建 KieBase，默认配置直接使用容器的默认 KieBase
+     */
+    public KieBase newKieBase(KieContainer container) {
+        if (isDefault()) {
+            return container.getKieBase();
+        }
+        return container.newKieBase(KieServices.Factory.get().newKieBaseConfiguration(properties));
+    }
+
+    /**
+     * 按会话类型执行一次规则
+     *
+     * @param kieBase      由本描述创建的 KieBase
+     * @param facts        事实对象，配置了 rule.decompose 时拆分后插入
+     * @param globals      全局变量
+     * @param agendaFilter 议程过滤器，可为空，无状态会话不支持
+     * @param listener     议程事件监听器，可为空
+     * @return 触发的规则数
+     */
+    public int execute(KieBase kieBase, Collection<?> facts, Map<String, Object> globals,
+                       AgendaFilter agendaFilter, AgendaEventListener listener) {
+        Collection<?> sessionFacts = decomposeFacts ? FactDecomposer.decompose(facts) : facts;
+        if (sessionType == SessionType.STATELESS) {
+            if (agendaFilter != null) {
+                throw new IllegalStateException("Agenda filter is not supported by stateless rule groups");
+            }
+            StatelessKieSession session = kieBase.newStatelessKieSession(newSessionConfiguration());
+            AtomicInteger fired = new AtomicInteger();
+            session.addEventListener(new DefaultAgendaEventListener() {
+                @Override
+                public void afterMatchFired(AfterMatchFiredEvent event) {
+                    fired.incrementAndGet();
+                }
+            });
+            if (listener != null) {
+                session.addEventListener(listener);
+            }
+            globals.forEach(session::setGlobal);
+            session.execute(sessionFacts);
+            return fired.get();
+        }
+
+        try (KieSession kieSession = newKieSession(kieBase)) {
+            if (listener != null) {
+                kieSession.addEventListener(listener);
+            }
+            globals.forEach(kieSession::setGlobal);
+            sessionFacts.forEach(kieSession::insert);
+            return kieSession.fireAllRules(agendaFilter);
+        }
+    }
+
+    /**
+     * 按描述创建有状态会话，默认配置直接使用 KieBase 的默认会话配置
+     * 无状态规则组每次执行时内部也创建同样配置的会话；顺序模式的 KieBase 不能创建有状态会话
+     */
+    public KieSession newKieSession(KieBase kieBase) {
+        return isDefault() ? kieBase.newKieSession() : kieBase.newKieSession(newSessionConfiguration(), null);
+    }
+
+    private KieSessionConfiguration newSessionConfiguration() {
+        return KieServices.Factory.get().newKieSessionConfiguration(properties);
+    }
+
+    @Override
+    public String toString() {
+        return "KieBaseDescriptor{sessionType=" + sessionType + ", decomposeFacts=" + decomposeFacts
+                + ", properties=" + properties + "}";
+    }
+
+    /**
+     * 会话类型
+     */
+    public enum SessionType {
+        /**
+         * 有状态会话
+         */
+        STATEFUL,
+        /**
+         * 无状态会话
+         */
+        STATELESS
+    }
+}
@@ -2,15 +2,33 @@ package com.oneinstep.rule.core.config.loader;
 
 import com.alibaba.nacos.api.config.ConfigService;
 import com.alibaba.nacos.api.config.listener.AbstractListener;
+import com.oneinstep.rule.core.config.RuleNacosProperties;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
 import com.oneinstep.rule.core.loader.RuleFileLoader;
 import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.oneinstep.rule.core.config.RuleConfigConstants.LOCAL_RULES_PATH;
 import static com.oneinstep.rule.core.config.RuleConfigConstants.RULE_GROUP;
@@ -18,18 +36,38 @@ import static com.oneinstep.rule.core.config.RuleConfigConstants.RULE_GROUP;
 /**
  * Nacos规则加载器
  * 从Nacos加载规则 会覆盖本地规则
+ * 启动时并发拉取所有规则，Nacos 较慢或不可用时使用本地快照启动，并在后台对账
+ * 规则组的 KieBase 描述使用 dataId 规则组.kbase，与规则一起拉取和监听
+ * 从 Nacos 拉取的内容在规则组编译生效后才写入快照，编译失败的内容不会成为下次启动的快照
  */
 @Component
 @Slf4j
 public class NacosRuleLoader implements RuleLoader {
 
+    // KieBase 描述的 dataId 后缀
+    private static final String DESCRIPTOR_SUFFIX = ".kbase";
+
     private final ConfigService configService;
     private final DynamicRuleLoader dynamicRuleLoader;
+    private final RuleUpdateCoalescer ruleUpdateCoalescer;
+    private final RuleNacosProperties nacosProperties;
+    private final RuleSnapshotStore snapshotStore;
+    // 规则拉取线程，Nacos 调用以阻塞 IO 为主，使用虚拟线程
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // 等待生效后写入快照的规则 key: group , value: (dataId -> RuleDefinition)
+    private final Map<String, Map<String, RuleDefinition>> pendingRules = new ConcurrentHashMap<>();
+    // 等待生效后写入快照的 KieBase 描述 key: group
+    private final Map<String, PendingDescriptor> pendingDescriptors = new ConcurrentHashMap<>();
 
     public NacosRuleLoader(ConfigService configService,
-                           DynamicRuleLoader dynamicRuleLoader) {
+                           DynamicRuleLoader dynamicRuleLoader,
+                           RuleUpdateCoalescer ruleUpdateCoalescer,
+                           RuleNacosProperties nacosProperties) {
         this.configService = configService;
         this.dynamicRuleLoader = dynamicRuleLoader;
+        this.ruleUpdateCoalescer = ruleUpdateCoalescer;
+        this.nacosProperties = nacosProperties;
+        this.snapshotStore = new RuleSnapshotStore(nacosProperties.getSnapshotDir());
     }
 
     private void handleRuleUpdate(String ruleFile, String newConfig) {
@@ -37,59 +75,235 @@ public class NacosRuleLoader implements RuleLoader {
             log.info("Received rule configuration update: {}", newConfig);
             // 将配置信息转换为规则定义列表
             RuleDefinition ruleDefinition = parseRuleDefinition(ruleFile, newConfig);
-            // 更新规则管理服务
-            dynamicRuleLoader.updateRules(Collections.singletonList(ruleDefinition));
+            // 编译生效后刷新快照
+            addPendingRule(convertToDataId(ruleFile), ruleDefinition);
+            // 提交到合并器，突发更新合并为一次编译
+            ruleUpdateCoalescer.submit(ruleDefinition);
         } catch (Exception e) {
             log.error("Failed to process rule configuration update", e);
         }
     }
 
+    /**
+     * 处理 KieBase 描述更新，内容为空时恢复为 classpath 中的描述
+     *
+     * @param group   规则组
+     * @param content 描述内容
+     */
+    private void handleDescriptorUpdate(String group, String content) {
+        log.info("Received kbase descriptor update for group: {}", group);
+        applyDescriptor(group, content, true);
+    }
+
+    /**
+     * 应用 KieBase 描述
+     *
+     * @param group    规则组
+     * @param content  描述内容，为空时使用 classpath 中的描述
+     * @param snapshot 规则组按该描述编译生效后是否写入快照
+     */
+    private void applyDescriptor(String group, String content, boolean snapshot) {
+        PendingDescriptor pending = null;
+        try {
+            KieBaseDescriptor descriptor = StringUtils.isNotBlank(content)
+                    ? KieBaseDescriptor.parse(content) : KieBaseDescriptor.fromClasspath(group);
+            if (snapshot && StringUtils.isNotBlank(content)) {
+                // 已加载的规则组在 updateDescriptor 中重新编译并发布更新事件，需在此之前记录
+                pending = new PendingDescriptor(content, descriptor);
+                pendingDescriptors.put(group, pending);
+            }
+            dynamicRuleLoader.updateDescriptor(group, descriptor);
+        } catch (Exception e) {
+            if (pending != null) {
+                pendingDescriptors.remove(group, pending);
+            }
+            log.error("Failed to apply kbase descriptor for group: {}", group, e);
+        }
+    }
+
+    /**
+     * 规则组编译生效后，将与生效版本一致的待写入内容写入快照
+     * 影子候选版本和编译失败不写入，候选版本提升时再写入
+     *
+     * @param event 规则更新事件
+     */
+    @EventListener
+    public void onRuleUpdate(RuleUpdateEvent event) {
+        RuleUpdateLog updateLog = event.getUpdateLog();
+        if (updateLog == null || !updateLog.isSuccess() || updateLog.isShadow()) {
+            return;
+        }
+        String group = event.getRuleGroup();
+        Map<String, RuleDefinition> pending = pendingRules.get(group);
+        if (pending != null) {
+            Map<String, RuleDefinition> active = dynamicRuleLoader.getRules(group);
+            pending.forEach((dataId, rule) -> {
+                RuleDefinition current = active.get(rule.getRuleId());
+                // 尚未生效或已被其他内容替换的保留，等待后续更新
+                if (current != null && Objects.equals(current.getRuleContent(), rule.getRuleContent())
+                        && pending.remove(dataId, rule)) {
+                    snapshotStore.write(dataId, rule.getRuleContent());
+                }
+            });
+        }
+        PendingDescriptor descriptor = pendingDescriptors.get(group);
+        if (descriptor != null && descriptor.descriptor() == dynamicRuleLoader.getDescriptor(group)
+                && pendingDescriptors.remove(group, descriptor)) {
+            snapshotStore.write(group + DESCRIPTOR_SUFFIX, descriptor.content());
+        }
+    }
+
+    /**
+     * 记录等待生效后写入快照的规则
+     */
+    private void addPendingRule(String dataId, RuleDefinition rule) {
+        pendingRules.computeIfAbsent(rule.getRuleGroup(), g -> new ConcurrentHashMap<>()).put(dataId, rule);
+    }
+
     @Override
     public List<RuleDefinition> loadRules() {
 
         // 从本地资源加载规则文件
         Map<String, String> ruleFiles = RuleFileLoader.loadLocalRules(LOCAL_RULES_PATH);
 
+        // 并发拉取所有 dataId，避免启动耗时随规则文件数线性增长
+        Map<String, CompletableFuture<String>> fetches = new LinkedHashMap<>();
+        for (String ruleFile : ruleFiles.keySet()) {
+            String dataId = convertToDataId(ruleFile);
+            fetches.put(ruleFile, CompletableFuture.supplyAsync(() -> fetchConfig(dataId,
+                    newConfig -> handleRuleUpdate(ruleFile, newConfig)), fetchExecutor));
+        }
+
+        // 规则组的 KieBase 描述与规则一起拉取，需在规则编译前生效
+        Set<String> groups = new LinkedHashSet<>();
+        ruleFiles.keySet().forEach(ruleFile -> groups.add(convertToDataId(ruleFile).split("\\.")[0]));
+        Map<String, CompletableFuture<String>> descriptorFetches = new LinkedHashMap<>();
+        for (String group : groups) {
+            descriptorFetches.put(group, CompletableFuture.supplyAsync(() -> fetchConfig(group + DESCRIPTOR_SUFFIX,
+                    newConfig -> handleDescriptorUpdate(group, newConfig)), fetchExecutor));
+        }
+
+        // 等待 Nacos 返回，超时后剩余的规则使用本地快照
+        try {
+            CompletableFuture.allOf(Stream.concat(fetches.values().stream(), descriptorFetches.values().stream())
+                            .toArray(CompletableFuture[]::new))
+                    .get(nacosProperties.getStartupWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Nacos did not respond within {}ms, falling back to local snapshots",
+                    nacosProperties.getStartupWaitMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 单个 dataId 的失败在下面逐个处理
+        }
+
         List<RuleDefinition> rules = new ArrayList<>();
 
-        //
-        for (Map.Entry<String, String> entry : ruleFiles.entrySet()) {
+        for (Map.Entry<String, CompletableFuture<String>> entry : fetches.entrySet()) {
             String ruleFile = entry.getKey();
-
             String dataId = convertToDataId(ruleFile);
-            try {
-                String content = configService.getConfig(
-                        dataId,
-                        RULE_GROUP,
-                        5000
-                );
-
-                if (content != null && !content.trim().isEmpty()) {
-                    log.info("get rule from dataId: {} from nacos: {}", dataId, content);
-                    // 使用Nacos配置覆盖本地配置
-                    // 从文件路径解析规则信息
-                    RuleDefinition rule = parseRuleDefinition(ruleFile, content);
-
-                    rules.add(rule);
-                    log.info("Loaded rule from Nacos: {}", dataId);
-                } else {
-                    // 使用本地配置
-                    log.info("Using local rule for: {}", ruleFile);
-                }
+            CompletableFuture<String> fetch = entry.getValue();
 
-                // 添加配置监听
-                addConfigListener(dataId, ruleFile);
+            String content = fetch.isDone() && !fetch.isCompletedExceptionally() ? fetch.join() : null;
+            boolean fromNacos = StringUtils.isNotBlank(content);
+            if (!fromNacos) {
+                content = snapshotStore.read(dataId);
+            }
 
-            } catch (Exception e) {
-                log.error("Failed to load rule from Nacos: {}", dataId, e);
+            if (StringUtils.isNotBlank(content)) {
+                // 使用Nacos配置(或其快照)覆盖本地配置
+                RuleDefinition rule = parseRuleDefinition(ruleFile, content);
+                if (fromNacos) {
+                    // 启动编译成功后写入快照
+                    addPendingRule(dataId, rule);
+                }
+                rules.add(rule);
+                log.info("Loaded rule from {}: {}", fromNacos ? "Nacos" : "snapshot", dataId);
+            } else {
+                // 使用本地配置
+                log.info("Using local rule for: {}", ruleFile);
+            }
 
+            // Nacos 尚未返回的规则，在后台与启动时使用的内容进行对账
+            if (!fetch.isDone()) {
+                String bootContent = content;
+                fetch.thenAcceptBoth(dynamicRuleLoader.whenInitialized(),
+                        (latest, ignored) -> reconcile(ruleFile, bootContent, latest));
             }
         }
 
-        log.info("Successfully loaded {} rules from local resources", rules.size());
+        for (Map.Entry<String, CompletableFuture<String>> entry : descriptorFetches.entrySet()) {
+            String group = entry.getKey();
+            CompletableFuture<String> fetch = entry.getValue();
+            String content = fetch.isDone() && !fetch.isCompletedExceptionally() ? fetch.join() : null;
+            boolean fromNacos = StringUtils.isNotBlank(content);
+            if (!fromNacos) {
+                content = snapshotStore.read(group + DESCRIPTOR_SUFFIX);
+            }
+            if (StringUtils.isNotBlank(content)) {
+                // 启动编译成功后写入快照
+                applyDescriptor(group, content, fromNacos);
+            }
+            if (!fetch.isDone()) {
+                String bootContent = content;
+                fetch.thenAcceptBoth(dynamicRuleLoader.whenInitialized(), (latest, ignored) -> {
+                    if (StringUtils.isNotBlank(latest) && !latest.equals(bootContent)) {
+                        handleDescriptorUpdate(group, latest);
+                    }
+                });
+            }
+        }
+
+        log.info("Successfully loaded {} rules from Nacos", rules.size());
         return rules;
     }
 
+    /**
+     * 拉取单个配置并注册监听
+     *
+     * @param dataId   数据ID
+     * @param listener 配置变更回调
+     * @return 配置内容，获取失败时返回 null
+     */
+    private String fetchConfig(String dataId, Consumer<String> listener) {
+        String content = null;
+        try {
+            content = configService.getConfig(dataId, RULE_GROUP, nacosProperties.getFetchTimeoutMs());
+            if (StringUtils.isNotBlank(content)) {
+                log.info("get rule from dataId: {} from nacos: {}", dataId, content);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load rule from Nacos: {}", dataId, e);
+        }
+
+        // 添加配置监听
+        addConfigListener(dataId, listener);
+        return content;
+    }
+
+    /**
+     * 后台对账：Nacos 返回的内容与启动时使用的内容不一致时，按规则更新处理
+     *
+     * @param ruleFile      规则文件
+     * @param bootContent   启动时使用的内容
+     * @param latestContent Nacos 最新内容
+     */
+    private void reconcile(String ruleFile, String bootContent, String latestContent) {
+        if (StringUtils.isBlank(latestContent) || latestContent.equals(bootContent)) {
+            return;
+        }
+        log.info("Reconciling rule with late Nacos response: {}", ruleFile);
+        handleRuleUpdate(ruleFile, latestContent);
+    }
+
+    /**
+     * 关闭拉取线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
     @Override
     public int getOrder() {
         // Nacos 优先级最高
@@ -100,17 +314,17 @@ public class NacosRuleLoader implements RuleLoader {
      * 添加Nacos配置监听
      *
      * @param dataId   数据ID
-     * @param ruleFile 规则文件
+     * @param listener 配置变更回调
      */
-    private void addConfigListener(String dataId, String ruleFile) {
+    private void addConfigListener(String dataId, Consumer<String> listener) {
         try {
             configService.addListener(dataId, RULE_GROUP, new AbstractListener() {
                 @Override
                 public void receiveConfigInfo(String newConfig) {
-                    handleRuleUpdate(ruleFile, newConfig);
+                    listener.accept(newConfig);
                 }
             });
-            log.debug("Added listener for rule: {} -> {}", dataId, ruleFile);
+            log.debug("Added listener for dataId: {}", dataId);
         } catch (Exception e) {
             log.error("Failed to add listener for rule: {}", dataId, e);
         }
@@ -129,4 +343,13 @@ public class NacosRuleLoader implements RuleLoader {
         path = path.replace(".drl", "");
         return path.replace('/', '.');
     }
+
+    /**
+     * 等待规则组编译生效的 KieBase 描述
+     *
+     * @param content    描述内容
+     * @param descriptor 应用的描述，与规则组生效时使用的描述为同一实例时写入快照
+     */
+    private record PendingDescriptor(String content, KieBaseDescriptor descriptor) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.oneinstep.rule.core.config.loader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.DRL_EXTENSION;
+
+/**
+ * 规则快照存储
+ * 以 dataId 为文件名，将最近一次成功获取的规则内容保存到本地目录
+ */
+@Slf4j
+public class RuleSnapshotStore {
+
+    private final Path snapshotDir;
+
+    public RuleSnapshotStore(String snapshotDir) {
+        this.snapshotDir = Path.of(snapshotDir);
+    }
+
+    /**
+     * 读取快照
+     *
+     * @param dataId 数据ID
+     * @return 快照内容，不存在时返回 null
+     */
+    public String read(String dataId) {
+        Path file = resolve(dataId);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to read rule snapshot: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入快照
+     * 先写临时文件再原子替换，避免进程中断时留下不完整的快照
+     *
+     * @param dataId  数据ID
+     * @param content 规则内容
+     */
+    public void write(String dataId, String content) {
+        Path file = resolve(dataId);
+        try {
+            Files.createDirectories(snapshotDir);
+            Path tmp = Files.createTempFile(snapshotDir, dataId, ".tmp");
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write rule snapshot: {}", file, e);
+        }
+    }
+
+    private Path resolve(String dataId) {
+        return snapshotDir.resolve(dataId + DRL_EXTENSION);
+    }
+}
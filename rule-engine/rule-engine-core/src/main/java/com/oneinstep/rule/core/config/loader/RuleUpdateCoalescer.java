@@ -0,0 +1,121 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.config.RuleUpdateProperties;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则更新合并器
+ * 位于规则加载器与 {@link DynamicRuleLoader} 之间，对同组的突发更新进行防抖，
+ * 窗口内的多次更新合并为一次编译
+ */
+@Slf4j
+@Component
+public class RuleUpdateCoalescer {
+
+    private final DynamicRuleLoader dynamicRuleLoader;
+    private final RuleUpdateProperties updateProperties;
+
+    // 待合并的更新 key: group
+    private final Map<String, PendingUpdate> pending = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rule-update-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RuleUpdateCoalescer(DynamicRuleLoader dynamicRuleLoader, RuleUpdateProperties updateProperties) {
+        this.dynamicRuleLoader = dynamicRuleLoader;
+        this.updateProperties = updateProperties;
+    }
+
+    /**
+     * 提交规则更新
+     * 同一窗口内同一规则的多次更新只保留最后一次
+     *
+     * @param rule 规则定义
+     */
+    public void submit(RuleDefinition rule) {
+        String group = rule.getRuleGroup();
+        synchronized (pending) {
+            long now = System.currentTimeMillis();
+            PendingUpdate update = pending.computeIfAbsent(group, g -> new PendingUpdate(now));
+            if (update.rules.put(rule.getRuleId(), rule) != null) {
+                // 被窗口内的新版本覆盖
+                update.skipped++;
+            }
+            update.received++;
+
+            // 重新计算刷新时间：窗口内无新更新或达到最长延迟
+            if (update.flushTask != null) {
+                update.flushTask.cancel(false);
+            }
+            long delay = Math.min(updateProperties.getCoalesceWindowMs(),
+                    update.firstReceivedAt + updateProperties.getMaxCoalesceDelayMs() - now);
+            update.flushTask = scheduler.schedule(() -> flush(group), Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        }
+        log.debug("Queued rule update: {}/{}", group, rule.getRuleId());
+    }
+
+    /**
+     * 刷新指定组的待合并更新
+     *
+     * @param group 规则组
+     */
+    private void flush(String group) {
+        PendingUpdate update;
+        synchronized (pending) {
+            update = pending.remove(group);
+        }
+        if (update == null) {
+            return;
+        }
+        log.info("Applying {} coalesced updates for group: {}, skipped: {}", update.received, group, update.skipped);
+        try {
+            dynamicRuleLoader.applyChanges(group, new ArrayList<>(update.rules.values()),
+                    update.received, update.skipped);
+        } catch (Exception e) {
+            log.error("Failed to apply coalesced rule updates for group: {}", group, e);
+        }
+    }
+
+    /**
+     * 关闭调度线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 单个规则组的待合并更新
+     */
+    private static class PendingUpdate {
+        // 首次收到更新的时间
+        private final long firstReceivedAt;
+        // 窗口内的规则 key: ruleId
+        private final Map<String, RuleDefinition> rules = new LinkedHashMap<>();
+        // 收到的更新通知数
+        private int received;
+        // 被覆盖的更新通知数
+        private int skipped;
+        // 刷新任务
+        private ScheduledFuture<?> flushTask;
+
+        private PendingUpdate(long firstReceivedAt) {
+            this.firstReceivedAt = firstReceivedAt;
+        }
+    }
+}
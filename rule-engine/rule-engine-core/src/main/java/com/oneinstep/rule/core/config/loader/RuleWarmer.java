@@ -0,0 +1,144 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.oneinstep.rule.core.config.RuleWarmupProperties;
+import com.oneinstep.rule.core.model.RuleWarmupResult;
+import com.oneinstep.rule.core.model.TypedFact;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则预热器
+ * 新容器生效前使用预置的事实数据执行若干次规则，让约束的 JIT 编译、MVEL 优化和类加载
+ * 发生在预热阶段而不是线上流量中。
+ * <p>
+ * 预热数据文件为 rules/规则组/warmup.json，与规则文件放在一起，格式如下：
+ * <pre>
+ * {
+ *   "factSets": [
+ *     [
+ *       {"type": "com.example.Order", "value": {"orderId": "1", "price": 10.0}},
+ *       {"type": "com.example.Account", "value": {"id": "A1"}}
+ *     ]
+ *   ]
+ * }
+ * </pre>
+ * 每次执行依次取一组事实，按类型反序列化为新的对象后按规则组的会话类型执行。
+ */
+@Slf4j
+@Component
+public class RuleWarmer {
+
+    static final String WARMUP_FILE = "warmup.json";
+
+    private final RuleWarmupProperties properties;
+
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    public RuleWarmer(RuleWarmupProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 预热规则容器
+     * 预热失败只记录日志，不影响容器生效
+     *
+     * @param group   规则组
+     * @param kieBase 待生效的 KieBase
+     * @return 预热结果，未启用或没有预热数据时返回 null
+     */
+    public RuleWarmupResult warmUp(String group, GroupKieBase kieBase) {
+        if (!properties.isEnabled() || properties.getIterations() <= 0) {
+            return null;
+        }
+        try {
+            List<List<TypedFact.Template>> factSets = loadFactSets(group);
+            if (factSets.isEmpty()) {
+                log.debug("No warm-up data for group: {}", group);
+                return null;
+            }
+            return execute(group, kieBase, factSets);
+        } catch (Exception e) {
+            log.warn("Warm-up failed for group: {}, publishing container without warm-up", group, e);
+            return null;
+        }
+    }
+
+    private RuleWarmupResult execute(String group, GroupKieBase kieBase, List<List<TypedFact.Template>> factSets) {
+        int iterations = properties.getIterations();
+        long[] latencies = new long[iterations];
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(properties.getMaxDurationMs());
+
+        int executions = 0;
+        while (executions < iterations && System.nanoTime() < deadline) {
+            // 每次执行使用新的事实对象，避免规则修改事实后影响下一次执行
+            List<Object> facts = new ArrayList<>();
+            for (TypedFact.Template template : factSets.get(executions % factSets.size())) {
+                facts.add(template.newInstance());
+            }
+
+            long executeStart = System.nanoTime();
+            kieBase.execute(facts, Map.of(), null, null);
+            latencies[executions++] = System.nanoTime() - executeStart;
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 取最后 10% 的执行作为预热后的耗时
+        int warmCount = Math.max(1, executions / 10);
+        long warmTotal = 0;
+        for (int i = executions - warmCount; i < executions; i++) {
+            warmTotal += latencies[i];
+        }
+
+        RuleWarmupResult result = RuleWarmupResult.builder()
+                .ruleGroup(group)
+                .executions(executions)
+                .durationMs(durationMs)
+                .coldLatencyMicros(TimeUnit.NANOSECONDS.toMicros(latencies[0]))
+                .warmLatencyMicros(TimeUnit.NANOSECONDS.toMicros(warmTotal / warmCount))
+                .build();
+        log.info("Warm-up completed for group: {}, executions: {}, duration: {}ms, cold latency: {}us, warm latency: {}us",
+                group, executions, durationMs, result.getColdLatencyMicros(), result.getWarmLatencyMicros());
+        return result;
+    }
+
+    private List<List<TypedFact.Template>> loadFactSets(String group) throws IOException, ClassNotFoundException {
+        Resource resource = resourceLoader.getResource(
+                String.join("/", properties.getLocation(), group, WARMUP_FILE));
+        if (!resource.exists()) {
+            return List.of();
+        }
+
+        String content;
+        try (InputStream inputStream = resource.getInputStream()) {
+            content = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        }
+
+        List<List<TypedFact.Template>> factSets = new ArrayList<>();
+        JSONArray sets = JSON.parseObject(content).getJSONArray("factSets");
+        if (sets == null) {
+            return factSets;
+        }
+        for (int i = 0; i < sets.size(); i++) {
+            List<TypedFact.Template> factSet = TypedFact.parse(JSON.toJSONString(sets.getJSONArray(i)));
+            if (!factSet.isEmpty()) {
+                factSets.add(factSet);
+            }
+        }
+        return factSets;
+    }
+}
@@ -0,0 +1,48 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.model.RuleDefinition;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 影子候选版本
+ * 与生效版本并行编译，只接收采样重放的流量，提升后替换生效版本
+ */
+@Getter
+@AllArgsConstructor
+public class ShadowCandidate {
+    /**
+     * 规则组
+     */
+    private final String ruleGroup;
+    /**
+     * 候选版本的 ReleaseId
+     */
+    private final ReleaseId releaseId;
+    /**
+     * 候选版本容器
+     */
+    private final KieContainer container;
+    /**
+     * 候选版本按描述配置的 KieBase
+     */
+    private final GroupKieBase kieBase;
+    /**
+     * 候选版本的全部规则定义 key: ruleId
+     */
+    private final Map<String, RuleDefinition> rules;
+    /**
+     * 相对生效版本变更的规则ID
+     */
+    private final List<String> updatedRuleIds;
+    /**
+     * 编译完成时间
+     */
+    private final LocalDateTime createTime;
+}
@@ -0,0 +1,45 @@
+package com.oneinstep.rule.core.decisiontable;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 索引化决策表注册表
+ * 决策表加载器把可索引的决策表注册到这里，调用方在组装事实时按规则组和表名查找并执行
+ */
+@Slf4j
+@Component
+public class DecisionTableRegistry {
+
+    // key: 规则组/表名
+    private final Map<String, IndexedDecisionTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 注册决策表，同名的表被替换
+     */
+    public void register(IndexedDecisionTable table) {
+        IndexedDecisionTable previous = tables.put(key(table.getRuleGroup(), table.getName()), table);
+        if (previous != null) {
+            log.info("Replaced decision table {} in group {}", table.getName(), table.getRuleGroup());
+        }
+    }
+
+    /**
+     * 查找决策表
+     *
+     * @param group 规则组
+     * @param name  决策表名
+     * @return 决策表，不存在时为空
+     */
+    public Optional<IndexedDecisionTable> find(String group, String name) {
+        return Optional.ofNullable(tables.get(key(group, name)));
+    }
+
+    private static String key(String group, String name) {
+        return group + "/" + name;
+    }
+}
@@ -0,0 +1,101 @@
+package com.oneinstep.rule.core.decisiontable;
+
+import org.drools.decisiontable.InputType;
+import org.drools.template.parser.DataListener;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 决策表原始单元格
+ * 使用 Drools 的 CSV/Excel 解析器读取第一个工作表，合并单元格的值复制到被合并的各列
+ */
+class DecisionTableSheet implements DataListener {
+
+    private final List<List<String>> rows = new ArrayList<>();
+
+    private boolean finished;
+
+    private DecisionTableSheet() {
+    }
+
+    /**
+     * 读取决策表
+     *
+     * @param content 文件内容
+     * @param type    文件类型
+     * @return 原始单元格
+     */
+    static DecisionTableSheet read(byte[] content, InputType type) {
+        DecisionTableSheet sheet = new DecisionTableSheet();
+        type.createParser(sheet).parseFile(new ByteArrayInputStream(content));
+        return sheet;
+    }
+
+    /**
+     * 获取单元格内容，超出范围时返回空字符串
+     */
+    String cell(int row, int column) {
+        if (row < 0 || row >= rows.size()) {
+            return "";
+        }
+        List<String> cells = rows.get(row);
+        return column < cells.size() && cells.get(column) != null ? cells.get(column).trim() : "";
+    }
+
+    int rowCount() {
+        return rows.size();
+    }
+
+    int columnCount(int row) {
+        return row < rows.size() ? rows.get(row).size() : 0;
+    }
+
+    /**
+     * 整行是否为空
+     */
+    boolean isBlankRow(int row) {
+        for (int column = 0; column < columnCount(row); column++) {
+            if (!cell(row, column).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void startSheet(String name) {
+        // 只读取第一个工作表
+    }
+
+    @Override
+    public void finishSheet() {
+        finished = true;
+    }
+
+    @Override
+    public void newRow(int rowNumber, int columns) {
+        // 行号可能不连续(Excel 中跳过的空行)，补齐空行
+        while (!finished && rows.size() <= rowNumber) {
+            rows.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void newCell(int row, int column, String value, int mergedColStart) {
+        if (finished) {
+            return;
+        }
+        newRow(row, column + 1);
+        List<String> cells = rows.get(row);
+        while (cells.size() <= column) {
+            cells.add("");
+        }
+        String text = value != null ? value : "";
+        if (mergedColStart != DataListener.NON_MERGED && mergedColStart < column && text.isEmpty()) {
+            text = cells.get(mergedColStart);
+        }
+        cells.set(column, text);
+    }
+}
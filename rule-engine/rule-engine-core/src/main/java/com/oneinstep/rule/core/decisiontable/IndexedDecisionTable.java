@@ -0,0 +1,604 @@
+package com.oneinstep.rule.core.decisiontable;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.drools.decisiontable.InputType;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 索引化的决策表
+ * 条件列都是对同一个事实的等值或区间判断、动作列都是对该事实的 setter 时，决策表不必编译为规则进入 Rete，
+ * 而是编译为查找结构：等值列按哈希索引，第一个区间列按区间(基本区间 + 二分查找)索引，其余区间列逐行校验。
+ * <p>
+ * 支持的条件模板：
+ * <pre>
+ * level == "$param"              等值
+ * amount >= $param               单边区间，同样支持 &gt; &lt;= &lt;
+ * amount >= $1, amount &lt; $2      区间，单元格内容为 "下界,上界"
+ * </pre>
+ * 支持的动作模板：<code>$绑定变量.setXxx($param);</code>
+ * <p>
+ * 条件单元格为空表示不限，动作单元格为空表示不设置。多行匹配时取最上面的一行，
+ * 与 Sequential=true 且设置 ACTIVATION-GROUP 时生成的 DRL 一致，行之间互斥时两者没有区别。
+ * 不满足以上形式的决策表由调用方回退为生成 DRL。
+ */
+@Slf4j
+public final class IndexedDecisionTable {
+
+    private static final Pattern RULE_TABLE = Pattern.compile("^RuleTable\\s+(.+)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern OBJECT_TYPE = Pattern.compile("^(?:\\$(\\w+)\\s*:\\s*)?([\\w.]+)(?:\\(\\s*\\))?$");
+    private static final Pattern EQUAL = Pattern.compile("^(\\w+)\\s*==\\s*(\"?)\\$param\\2$");
+    private static final Pattern BOUND = Pattern.compile("^(\\w+)\\s*(>=|>|<=|<)\\s*\\$param$");
+    private static final Pattern RANGE = Pattern.compile("^(\\w+)\\s*(>=|>)\\s*\\$1\\s*,\\s*(\\w+)\\s*(<=|<)\\s*\\$2$");
+    private static final Pattern SETTER = Pattern.compile("^\\$(\\w+)\\.(set\\w+)\\(\\s*(\"?)\\$param\\3\\s*\\);?$");
+    private static final Pattern NUMBER = Pattern.compile("^[-+]?\\d+(\\.\\d+)?$");
+
+    // RuleTable 之后依次为列类型、对象类型、条件/动作模板、列说明，之后为数据行
+    private static final int DATA_ROW_OFFSET = 5;
+
+    /**
+     * 规则组
+     */
+    @Getter
+    private final String ruleGroup;
+
+    /**
+     * 决策表名，即 RuleTable 后的名称
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 条件和动作作用的事实类型
+     */
+    @Getter
+    private final Class<?> factType;
+
+    private final Condition[] conditions;
+    private final Action[] actions;
+    private final Row[] rows;
+    private final List<MaskIndex> indexes;
+
+    // 第一个区间条件，作为区间索引的维度，没有区间条件时为 -1
+    private final int primaryRange;
+
+    private IndexedDecisionTable(String ruleGroup, String name, Class<?> factType, Condition[] conditions,
+                                 Action[] actions, Row[] rows) {
+        this.ruleGroup = ruleGroup;
+        this.name = name;
+        this.factType = factType;
+        this.conditions = conditions;
+        this.actions = actions;
+        this.rows = rows;
+
+        int primary = -1;
+        for (int i = 0; i < conditions.length && primary < 0; i++) {
+            if (conditions[i].range) {
+                primary = i;
+            }
+        }
+        this.primaryRange = primary;
+        this.indexes = buildIndexes();
+    }
+
+    /**
+     * 尝试将决策表编译为查找结构
+     *
+     * @param ruleGroup   规则组
+     * @param content     决策表文件内容
+     * @param type        文件类型
+     * @param classLoader 加载事实类型的类加载器
+     * @return 查找结构，不满足索引条件时返回 null，由调用方回退为生成 DRL
+     */
+    public static IndexedDecisionTable compile(String ruleGroup, byte[] content, InputType type,
+                                               ClassLoader classLoader) {
+        DecisionTableSheet sheet = DecisionTableSheet.read(content, type);
+        try {
+            return compile(ruleGroup, sheet, classLoader);
+        } catch (IllegalArgumentException e) {
+            log.info("Decision table in group {} is not indexable: {}", ruleGroup, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 在事实上查找匹配的行并执行动作
+     *
+     * @param fact 事实对象
+     * @return 是否有匹配的行
+     */
+    public boolean apply(Object fact) {
+        int rowIndex = match(fact);
+        if (rowIndex < 0) {
+            return false;
+        }
+        Object[] args = rows[rowIndex].actionArgs;
+        for (int i = 0; i < actions.length; i++) {
+            if (args[i] != null) {
+                invoke(actions[i].setter, fact, args[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找匹配的行
+     *
+     * @param fact 事实对象
+     * @return 匹配的数据行序号(从 0 开始)，没有匹配时返回 -1
+     */
+    public int match(Object fact) {
+        if (!factType.isInstance(fact)) {
+            throw new IllegalArgumentException("Decision table " + name + " expects " + factType.getName()
+                    + " but got " + (fact == null ? null : fact.getClass().getName()));
+        }
+        Object[] values = new Object[conditions.length];
+        for (int i = 0; i < conditions.length; i++) {
+            values[i] = invoke(conditions[i].getter, fact);
+        }
+        double primaryValue = primaryRange >= 0 ? toDouble(values[primaryRange]) : Double.NaN;
+
+        int best = -1;
+        for (MaskIndex index : indexes) {
+            Bucket bucket = index.buckets.get(index.key(values));
+            if (bucket == null) {
+                continue;
+            }
+            for (Row row : bucket.candidates(primaryValue)) {
+                if (best >= 0 && row.order >= best) {
+                    break;
+                }
+                if (matchesRanges(row, values)) {
+                    best = row.order;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 数据行数
+     */
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    private boolean matchesRanges(Row row, Object[] values) {
+        for (int i = 0; i < conditions.length; i++) {
+            if (conditions[i].range && row.values[i] != null
+                    && !((Interval) row.values[i]).contains(toDouble(values[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按行中指定了值的等值列组合分组，每组一个哈希索引
+     */
+    private List<MaskIndex> buildIndexes() {
+        Map<List<Integer>, List<Row>> rowsByMask = new LinkedHashMap<>();
+        for (Row row : rows) {
+            List<Integer> mask = new ArrayList<>();
+            for (int i = 0; i < conditions.length; i++) {
+                if (!conditions[i].range && row.values[i] != null) {
+                    mask.add(i);
+                }
+            }
+            rowsByMask.computeIfAbsent(mask, key -> new ArrayList<>()).add(row);
+        }
+
+        List<MaskIndex> result = new ArrayList<>();
+        rowsByMask.forEach((mask, maskRows) -> {
+            int[] columns = mask.stream().mapToInt(Integer::intValue).toArray();
+            Map<List<String>, List<Row>> rowsByKey = new HashMap<>();
+            for (Row row : maskRows) {
+                List<String> key = new ArrayList<>(columns.length);
+                for (int column : columns) {
+                    key.add((String) row.values[column]);
+                }
+                rowsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+            Map<List<String>, Bucket> buckets = new HashMap<>();
+            rowsByKey.forEach((key, keyRows) -> buckets.put(key, new Bucket(keyRows, primaryRange)));
+            result.add(new MaskIndex(columns, buckets));
+        });
+        return result;
+    }
+
+    private static IndexedDecisionTable compile(String ruleGroup, DecisionTableSheet sheet, ClassLoader classLoader) {
+        List<String> imports = new ArrayList<>();
+        int tableRow = -1;
+        String name = null;
+        for (int row = 0; row < sheet.rowCount(); row++) {
+            String first = sheet.cell(row, 0);
+            if ("Import".equalsIgnoreCase(first)) {
+                Arrays.stream(sheet.cell(row, 1).split(",")).map(String::trim).forEach(imports::add);
+            }
+            Matcher matcher = RULE_TABLE.matcher(first);
+            if (matcher.matches()) {
+                if (tableRow >= 0) {
+                    throw new IllegalArgumentException("multiple RuleTables");
+                }
+                tableRow = row;
+                name = matcher.group(1).trim();
+            }
+        }
+        if (tableRow < 0) {
+            throw new IllegalArgumentException("no RuleTable");
+        }
+
+        int typeRow = tableRow + 1;
+        int objectRow = tableRow + 2;
+        int templateRow = tableRow + 3;
+
+        List<Integer> conditionColumns = new ArrayList<>();
+        List<Integer> actionColumns = new ArrayList<>();
+        String objectCell = null;
+        for (int column = 0; column < sheet.columnCount(typeRow); column++) {
+            String columnType = sheet.cell(typeRow, column).toUpperCase();
+            switch (columnType) {
+                case "", "NAME", "DESCRIPTION", "N", "I" -> {
+                    // 名称、说明列不影响查找
+                }
+                case "CONDITION", "C" -> {
+                    String cell = sheet.cell(objectRow, column);
+                    if (objectCell != null && !objectCell.equals(cell)) {
+                        throw new IllegalArgumentException("conditions on more than one pattern");
+                    }
+                    objectCell = cell;
+                    conditionColumns.add(column);
+                }
+                case "ACTION", "A" -> {
+                    if (!sheet.cell(objectRow, column).isEmpty()) {
+                        throw new IllegalArgumentException("action column with object type");
+                    }
+                    actionColumns.add(column);
+                }
+                default -> throw new IllegalArgumentException("unsupported column type " + columnType);
+            }
+        }
+        if (conditionColumns.isEmpty() || actionColumns.isEmpty()) {
+            throw new IllegalArgumentException("no conditions or no actions");
+        }
+
+        Matcher objectMatcher = OBJECT_TYPE.matcher(objectCell);
+        if (!objectMatcher.matches()) {
+            throw new IllegalArgumentException("unsupported pattern " + objectCell);
+        }
+        String binding = objectMatcher.group(1);
+        Class<?> factType = resolveType(objectMatcher.group(2), imports, classLoader);
+
+        Condition[] conditions = new Condition[conditionColumns.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = parseCondition(sheet.cell(templateRow, conditionColumns.get(i)), factType);
+        }
+        Action[] actions = new Action[actionColumns.size()];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = parseAction(sheet.cell(templateRow, actionColumns.get(i)), binding, factType);
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (int row = tableRow + DATA_ROW_OFFSET; row < sheet.rowCount() && !sheet.isBlankRow(row); row++) {
+            Object[] values = new Object[conditions.length];
+            for (int i = 0; i < conditions.length; i++) {
+                String cell = sheet.cell(row, conditionColumns.get(i));
+                values[i] = cell.isEmpty() ? null : conditions[i].parse(cell);
+            }
+            Object[] args = new Object[actions.length];
+            for (int i = 0; i < actions.length; i++) {
+                String cell = sheet.cell(row, actionColumns.get(i));
+                args[i] = cell.isEmpty() ? null : convert(cell, actions[i].setter.getParameterTypes()[0]);
+            }
+            rows.add(new Row(rows.size(), values, args));
+        }
+
+        IndexedDecisionTable table = new IndexedDecisionTable(ruleGroup, name, factType, conditions, actions,
+                rows.toArray(new Row[0]));
+        log.info("Compiled decision table {} in group {} into lookup index, rows: {}, indexes: {}",
+                name, ruleGroup, rows.size(), table.indexes.size());
+        return table;
+    }
+
+    private static Class<?> resolveType(String typeName, List<String> imports, ClassLoader classLoader) {
+        String className = typeName.contains(".") ? typeName : imports.stream()
+                .filter(imported -> imported.endsWith("." + typeName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("type " + typeName + " is not imported"));
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("type " + className + " not found");
+        }
+    }
+
+    private static Condition parseCondition(String template, Class<?> factType) {
+        Matcher matcher = EQUAL.matcher(template);
+        if (matcher.matches()) {
+            return new Condition(getter(factType, matcher.group(1)), false, null, null);
+        }
+        matcher = BOUND.matcher(template);
+        if (matcher.matches()) {
+            String operator = matcher.group(2);
+            return operator.startsWith(">")
+                    ? new Condition(getter(factType, matcher.group(1)), true, operator, null)
+                    : new Condition(getter(factType, matcher.group(1)), true, null, operator);
+        }
+        matcher = RANGE.matcher(template);
+        if (matcher.matches() && matcher.group(1).equals(matcher.group(3))) {
+            return new Condition(getter(factType, matcher.group(1)), true, matcher.group(2), matcher.group(4));
+        }
+        throw new IllegalArgumentException("unsupported condition " + template);
+    }
+
+    private static Action parseAction(String template, String binding, Class<?> factType) {
+        Matcher matcher = SETTER.matcher(template);
+        if (!matcher.matches() || !matcher.group(1).equals(binding)) {
+            throw new IllegalArgumentException("unsupported action " + template);
+        }
+        for (Method method : factType.getMethods()) {
+            if (method.getName().equals(matcher.group(2)) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return new Action(method);
+            }
+        }
+        throw new IllegalArgumentException("setter " + matcher.group(2) + " not found");
+    }
+
+    private static Method getter(Class<?> factType, String property) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String prefix : List.of("get", "is")) {
+            try {
+                Method method = factType.getMethod(prefix + suffix);
+                if (method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // 尝试下一个前缀
+            }
+        }
+        throw new IllegalArgumentException("getter for " + property + " not found");
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to invoke " + method.getName(), e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(String cell, Class<?> type) {
+        String value = unquote(cell);
+        if (type == String.class) {
+            return value;
+        }
+        if (type == double.class || type == Double.class) {
+            return Double.valueOf(value);
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == long.class || type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == float.class || type == Float.class) {
+            return Float.valueOf(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class) type, value.substring(value.lastIndexOf('.') + 1));
+        }
+        throw new IllegalArgumentException("unsupported action parameter type " + type.getName());
+    }
+
+    /**
+     * 等值比较使用的规范化值，数字按数值比较，枚举按名称比较
+     */
+    private static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+        return NUMBER.matcher(text).matches() ? new BigDecimal(text).stripTrailingZeros().toPlainString() : text;
+    }
+
+    private static String unquote(String text) {
+        return text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")
+                ? text.substring(1, text.length() - 1) : text;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value != null && NUMBER.matcher(value.toString()).matches()) {
+            return Double.parseDouble(value.toString());
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 条件列
+     *
+     * @param getter  读取事实属性
+     * @param range   是否为区间条件
+     * @param lowerOp 下界运算符(&gt;= 或 &gt;)，没有下界时为空
+     * @param upperOp 上界运算符(&lt;= 或 &lt;)，没有上界时为空
+     */
+    private record Condition(Method getter, boolean range, String lowerOp, String upperOp) {
+
+        /**
+         * 解析单元格，等值条件返回规范化值，区间条件返回 Interval
+         */
+        Object parse(String cell) {
+            if (!range) {
+                String value = unquote(cell);
+                // 未加引号的枚举常量，例如 OrderStatus.PENDING
+                if (!NUMBER.matcher(value).matches() && value.equals(cell) && value.contains(".")) {
+                    value = value.substring(value.lastIndexOf('.') + 1);
+                }
+                return normalize(value);
+            }
+            double lower = Double.NEGATIVE_INFINITY;
+            double upper = Double.POSITIVE_INFINITY;
+            if (lowerOp != null && upperOp != null) {
+                String[] bounds = cell.split(",");
+                if (bounds.length != 2) {
+                    throw new IllegalArgumentException("range cell must be lower,upper: " + cell);
+                }
+                lower = Double.parseDouble(bounds[0].trim());
+                upper = Double.parseDouble(bounds[1].trim());
+            } else if (lowerOp != null) {
+                lower = Double.parseDouble(cell);
+            } else {
+                upper = Double.parseDouble(cell);
+            }
+            return new Interval(lower, !">".equals(lowerOp), upper, !"<".equals(upperOp));
+        }
+    }
+
+    /**
+     * 动作列
+     *
+     * @param setter 设置事实属性
+     */
+    private record Action(Method setter) {
+    }
+
+    /**
+     * 数据行
+     *
+     * @param order      行序号，越小优先级越高
+     * @param values     条件值，等值条件为规范化值，区间条件为 Interval，空表示不限
+     * @param actionArgs 动作参数，空表示不设置
+     */
+    private record Row(int order, Object[] values, Object[] actionArgs) {
+    }
+
+    /**
+     * 区间
+     */
+    private record Interval(double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+
+        boolean contains(double value) {
+            if (Double.isNaN(value)) {
+                return false;
+            }
+            boolean aboveLower = lowerInclusive ? value >= lower : value > lower;
+            boolean belowUpper = upperInclusive ? value <= upper : value < upper;
+            return aboveLower && belowUpper;
+        }
+    }
+
+    /**
+     * 同一组等值列的哈希索引
+     */
+    private record MaskIndex(int[] columns, Map<List<String>, Bucket> buckets) {
+
+        List<String> key(Object[] values) {
+            List<String> key = new ArrayList<>(columns.length);
+            for (int column : columns) {
+                key.add(normalize(values[column]));
+            }
+            return key;
+        }
+    }
+
+    /**
+     * 等值列相同的行，按主区间列划分为基本区间，每个基本区间预先计算按行序排列的候选行
+     */
+    private static final class Bucket {
+        // 区间端点，升序去重
+        private final double[] points;
+        // 基本区间的候选行：下标 2i 为 (points[i-1], points[i])，2i+1 为 [points[i], points[i]]
+        private final Row[][] slots;
+        // 主区间列不限的行，事实属性不是数字时使用
+        private final Row[] wildcardRows;
+
+        Bucket(List<Row> rows, int primary) {
+            if (primary < 0) {
+                this.points = new double[0];
+                this.slots = new Row[][]{rows.toArray(new Row[0])};
+                this.wildcardRows = slots[0];
+                return;
+            }
+            TreeSet<Double> boundaries = new TreeSet<>();
+            List<Row> wildcards = new ArrayList<>();
+            for (Row row : rows) {
+                Interval interval = (Interval) row.values[primary];
+                if (interval == null) {
+                    wildcards.add(row);
+                    continue;
+                }
+                if (!Double.isInfinite(interval.lower)) {
+                    boundaries.add(interval.lower);
+                }
+                if (!Double.isInfinite(interval.upper)) {
+                    boundaries.add(interval.upper);
+                }
+            }
+            this.points = boundaries.stream().mapToDouble(Double::doubleValue).toArray();
+            this.wildcardRows = wildcards.toArray(new Row[0]);
+            this.slots = new Row[points.length * 2 + 1][];
+            for (int slot = 0; slot < slots.length; slot++) {
+                double representative = representative(slot);
+                List<Row> candidates = new ArrayList<>();
+                for (Row row : rows) {
+                    Interval interval = (Interval) row.values[primary];
+                    if (interval == null || interval.contains(representative)) {
+                        candidates.add(row);
+                    }
+                }
+                slots[slot] = candidates.toArray(new Row[0]);
+            }
+        }
+
+        Row[] candidates(double value) {
+            if (Double.isNaN(value)) {
+                return wildcardRows;
+            }
+            int index = Arrays.binarySearch(points, value);
+            return slots[index >= 0 ? index * 2 + 1 : (-index - 1) * 2];
+        }
+
+        /**
+         * 基本区间内的代表值，区间内任意值相对所有端点的位置都相同
+         */
+        private double representative(int slot) {
+            if (points.length == 0) {
+                return 0;
+            }
+            if (slot % 2 == 1) {
+                return points[slot / 2];
+            }
+            int index = slot / 2;
+            if (index == 0) {
+                return points[0] - 1;
+            }
+            if (index == points.length) {
+                return points[points.length - 1] + 1;
+            }
+            return (points[index - 1] + points[index]) / 2;
+        }
+    }
+}
@@ -5,9 +5,8 @@ import com.oneinstep.rule.core.listener.RuleExecutionEventListener;
 import com.oneinstep.rule.core.model.RuleExecutionContext;
 import com.oneinstep.rule.core.model.RuleExecutionResult;
 import com.oneinstep.rule.core.service.RuleExecutionLogService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.kie.api.runtime.KieSession;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,10 +14,24 @@ import org.springframework.stereotype.Component;
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class RuleExecutor {
+    // 执行日志服务，为空时不记录执行日志
     private final RuleExecutionLogService logService;
     private final DynamicRuleLoader ruleLoader;
+    // 影子评估器，为空时不采样
+    private final ShadowEvaluator shadowEvaluator;
+
+    public RuleExecutor(RuleExecutionLogService logService, DynamicRuleLoader ruleLoader) {
+        this(logService, ruleLoader, null);
+    }
+
+    @Autowired
+    public RuleExecutor(RuleExecutionLogService logService, DynamicRuleLoader ruleLoader,
+                        ShadowEvaluator shadowEvaluator) {
+        this.logService = logService;
+        this.ruleLoader = ruleLoader;
+        this.shadowEvaluator = shadowEvaluator;
+    }
 
     /**
      * 执行规则
@@ -31,19 +44,15 @@ public class RuleExecutor {
 
         RuleExecutionResult result = new RuleExecutionResult();
 
-        // 创建有状态的KieSession
-        try (KieSession kieSession = ruleLoader.getContainer(context.getRuleGroup()).newKieSession()) {
-            // 添加规则执行监听器
-            kieSession.addEventListener(new RuleExecutionEventListener(context, logService));
+        // 影子采样需在规则修改事实之前进行
+        ShadowEvaluator.ShadowSample shadowSample = shadowEvaluator != null ? shadowEvaluator.sample(context) : null;
+        long start = System.nanoTime();
 
-            // 设置全局变量
-            context.getGlobals().forEach(kieSession::setGlobal);
-
-            // 插入所有事实对象
-            context.getFacts().forEach(kieSession::insert);
-
-            // 执行规则
-            int rulesExecuted = kieSession.fireAllRules(context.getAgendaFilter());
+        try {
+            // 按规则组的 KieBase 描述创建有状态或无状态会话，设置全局变量、插入事实并执行规则
+            int rulesExecuted = ruleLoader.getKieBase(context.getRuleGroup()).execute(context.getFacts(),
+                    context.getGlobals(), context.getAgendaFilter(),
+                    logService != null ? new RuleExecutionEventListener(context, logService) : null);
             log.debug("Executed {} rules", rulesExecuted);
 
             // 设置执行结果
@@ -59,6 +68,10 @@ public class RuleExecutor {
             result.setErrorMessage(e.getMessage());
         }
 
+        if (shadowSample != null) {
+            shadowEvaluator.submit(shadowSample, context, result, System.nanoTime() - start);
+        }
+
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,336 @@
+package com.oneinstep.rule.core.executor;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.filter.PropertyFilter;
+import com.oneinstep.rule.core.config.RuleShadowProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.ShadowCandidate;
+import com.oneinstep.rule.core.model.RuleExecutionContext;
+import com.oneinstep.rule.core.model.RuleExecutionResult;
+import com.oneinstep.rule.core.model.ShadowDiff;
+import com.oneinstep.rule.core.model.ShadowReport;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.builder.ReleaseId;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 影子评估器
+ * 按比例采样生效版本的执行，在请求线程之外用事实和全局变量的副本重放到候选版本上，
+ * 记录结果差异和延迟变化，满足阈值后自动或通过接口提升候选版本。
+ */
+@Slf4j
+@Component
+public class ShadowEvaluator {
+
+    private final DynamicRuleLoader ruleLoader;
+    private final RuleShadowProperties properties;
+    private final ThreadPoolExecutor shadowExecutor;
+
+    // 比较结果时忽略的属性，例如规则中写入的当前时间
+    private final PropertyFilter outputFilter;
+
+    // 候选版本统计 key: group
+    private final Map<String, ShadowStats> stats = new ConcurrentHashMap<>();
+
+    public ShadowEvaluator(DynamicRuleLoader ruleLoader, RuleShadowProperties properties) {
+        this.ruleLoader = ruleLoader;
+        this.properties = properties;
+        this.outputFilter = (object, name, value) -> !properties.getIgnoredProperties().contains(name);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.shadowExecutor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()), r -> {
+            Thread thread = new Thread(r, "rule-shadow-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 在生效版本执行前采样
+     * 事实对象和全局变量会被规则修改，因此在执行前序列化保存输入，
+     * 不能序列化的全局变量(例如服务对象)不采样
+     *
+     * @param context 规则执行上下文
+     * @return 采样，未被采样或没有候选版本时返回 null
+     */
+    public ShadowSample sample(RuleExecutionContext context) {
+        String group = context.getRuleGroup();
+        if (!properties.isShadowGroup(group)) {
+            return null;
+        }
+        ShadowCandidate candidate = ruleLoader.getCandidate(group);
+        if (candidate == null || ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return null;
+        }
+        try {
+            List<Class<?>> types = new ArrayList<>();
+            List<String> inputs = new ArrayList<>();
+            for (Object fact : context.getFacts()) {
+                types.add(fact.getClass());
+                inputs.add(JSON.toJSONString(fact));
+            }
+            Map<String, Class<?>> globalTypes = new LinkedHashMap<>();
+            Map<String, String> globalInputs = new LinkedHashMap<>();
+            context.getGlobals().forEach((name, value) -> {
+                if (value != null) {
+                    globalTypes.put(name, value.getClass());
+                    globalInputs.put(name, JSON.toJSONString(value));
+                }
+            });
+            return new ShadowSample(candidate, types, inputs, globalTypes, globalInputs, LocalDateTime.now());
+        } catch (Exception e) {
+            log.debug("Failed to sample execution for group: {}", group, e);
+            return null;
+        }
+    }
+
+    /**
+     * 生效版本执行完成后，异步在候选版本上重放采样
+     *
+     * @param sample       采样，为空时忽略
+     * @param context      规则执行上下文
+     * @param activeResult 生效版本执行结果
+     * @param activeNanos  生效版本执行耗时(纳秒)
+     */
+    public void submit(ShadowSample sample, RuleExecutionContext context, RuleExecutionResult activeResult,
+                       long activeNanos) {
+        if (sample == null || !activeResult.isSuccess()) {
+            return;
+        }
+        // 调用方返回后可能继续修改事实，生效版本的输出在当前线程序列化
+        String activeOutput = JSON.toJSONString(activeResult.getFacts(), outputFilter);
+        try {
+            shadowExecutor.execute(() -> evaluate(sample, context, activeOutput,
+                    activeResult.getRulesExecuted(), activeNanos));
+        } catch (RejectedExecutionException e) {
+            ShadowStats candidateStats = currentStats(sample.candidate());
+            if (candidateStats != null) {
+                candidateStats.dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * 获取规则组的影子评估报告
+     *
+     * @param group 规则组
+     * @return 报告，没有候选版本时返回 null
+     */
+    public ShadowReport getReport(String group) {
+        ShadowCandidate candidate = ruleLoader.getCandidate(group);
+        if (candidate == null) {
+            return null;
+        }
+        ShadowStats candidateStats = currentStats(candidate);
+        if (candidateStats == null) {
+            return null;
+        }
+        ReleaseId activeReleaseId = ruleLoader.getReleaseId(group);
+        return ShadowReport.builder()
+                .ruleGroup(group)
+                .activeVersion(activeReleaseId != null ? activeReleaseId.getVersion() : null)
+                .candidateVersion(candidate.getReleaseId().getVersion())
+                .updatedRuleIds(candidate.getUpdatedRuleIds())
+                .candidateTime(candidate.getCreateTime())
+                .samples(candidateStats.samples.sum())
+                .diffs(candidateStats.diffs.sum())
+                .errors(candidateStats.errors.sum())
+                .dropped(candidateStats.dropped.sum())
+                .activeAvgMicros(TimeUnit.NANOSECONDS.toMicros(candidateStats.activeAvgNanos()))
+                .candidateAvgMicros(TimeUnit.NANOSECONDS.toMicros(candidateStats.candidateAvgNanos()))
+                .promotable(candidateStats.isPromotable())
+                .recentDiffs(candidateStats.recentDiffs())
+                .build();
+    }
+
+    /**
+     * 提升候选版本
+     *
+     * @param group 规则组
+     * @param force 是否忽略阈值强制提升
+     * @return 是否提升成功
+     */
+    public boolean promote(String group, boolean force) {
+        ShadowCandidate candidate = ruleLoader.getCandidate(group);
+        if (candidate == null) {
+            throw new IllegalStateException("No shadow candidate for group: " + group);
+        }
+        ShadowStats candidateStats = currentStats(candidate);
+        if (!force && (candidateStats == null || !candidateStats.isPromotable())) {
+            throw new IllegalStateException("Shadow candidate " + candidate.getReleaseId().getVersion()
+                    + " does not meet promotion thresholds");
+        }
+        return ruleLoader.promoteCandidate(group, candidate.getReleaseId());
+    }
+
+    /**
+     * 丢弃候选版本
+     *
+     * @param group 规则组
+     * @return 是否存在候选版本
+     */
+    public boolean discard(String group) {
+        stats.remove(group);
+        return ruleLoader.discardCandidate(group);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shadowExecutor.shutdownNow();
+    }
+
+    private void evaluate(ShadowSample sample, RuleExecutionContext context, String activeOutput,
+                          int activeRulesExecuted, long activeNanos) {
+        ShadowCandidate candidate = sample.candidate();
+        ShadowStats candidateStats = currentStats(candidate);
+        if (candidateStats == null) {
+            // 候选版本已被提升或替换
+            return;
+        }
+
+        List<Object> facts = new ArrayList<>();
+        Map<String, Object> globals = new HashMap<>();
+        int rulesExecuted = 0;
+        String errorMessage = null;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < sample.types().size(); i++) {
+                facts.add(JSON.parseObject(sample.inputs().get(i), sample.types().get(i)));
+            }
+            // 使用全局变量的副本，不修改生效版本执行使用的对象
+            sample.globalInputs().forEach((name, input) ->
+                    globals.put(name, JSON.parseObject(input, sample.globalTypes().get(name))));
+            start = System.nanoTime();
+            rulesExecuted = candidate.getKieBase().execute(facts, globals, context.getAgendaFilter(), null);
+        } catch (Exception e) {
+            errorMessage = e.getMessage();
+        }
+        long candidateNanos = System.nanoTime() - start;
+
+        String candidateOutput = errorMessage == null ? JSON.toJSONString(facts, outputFilter) : null;
+        boolean diff = errorMessage != null || rulesExecuted != activeRulesExecuted
+                || !activeOutput.equals(candidateOutput);
+        candidateStats.record(activeNanos, candidateNanos, diff, errorMessage != null);
+        if (diff) {
+            candidateStats.addDiff(ShadowDiff.builder()
+                    .sampleTime(sample.sampleTime())
+                    .inputData(String.join(", ", sample.inputs()))
+                    .activeOutput(activeOutput)
+                    .candidateOutput(candidateOutput)
+                    .activeRulesExecuted(activeRulesExecuted)
+                    .candidateRulesExecuted(rulesExecuted)
+                    .errorMessage(errorMessage)
+                    .build());
+        }
+
+        if (properties.isAutoPromote() && candidateStats.isPromotable()
+                && ruleLoader.promoteCandidate(candidate.getRuleGroup(), candidate.getReleaseId())) {
+            log.info("Auto promoted shadow candidate {} for group: {} after {} samples",
+                    candidate.getReleaseId(), candidate.getRuleGroup(), candidateStats.samples.sum());
+        }
+    }
+
+    /**
+     * 获取候选版本的统计，候选版本已不是当前候选时返回 null
+     */
+    private ShadowStats currentStats(ShadowCandidate candidate) {
+        if (ruleLoader.getCandidate(candidate.getRuleGroup()) != candidate) {
+            return null;
+        }
+        return stats.compute(candidate.getRuleGroup(), (group, current) ->
+                current != null && current.releaseId.equals(candidate.getReleaseId())
+                        ? current : new ShadowStats(candidate.getReleaseId()));
+    }
+
+    /**
+     * 影子采样，保存采样时的事实、全局变量的类型和序列化内容
+     */
+    public record ShadowSample(ShadowCandidate candidate, List<Class<?>> types, List<String> inputs,
+                               Map<String, Class<?>> globalTypes, Map<String, String> globalInputs,
+                               LocalDateTime sampleTime) {
+    }
+
+    /**
+     * 单个候选版本的统计
+     */
+    private class ShadowStats {
+        private final ReleaseId releaseId;
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder diffs = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder activeNanos = new LongAdder();
+        private final LongAdder candidateNanos = new LongAdder();
+        private final Deque<ShadowDiff> recent = new ArrayDeque<>();
+
+        ShadowStats(ReleaseId releaseId) {
+            this.releaseId = releaseId;
+        }
+
+        void record(long active, long candidate, boolean diff, boolean error) {
+            activeNanos.add(active);
+            candidateNanos.add(candidate);
+            if (diff) {
+                diffs.increment();
+            }
+            if (error) {
+                errors.increment();
+            }
+            samples.increment();
+        }
+
+        synchronized void addDiff(ShadowDiff diff) {
+            recent.addLast(diff);
+            while (recent.size() > properties.getRecentDiffs()) {
+                recent.removeFirst();
+            }
+        }
+
+        synchronized List<ShadowDiff> recentDiffs() {
+            return new ArrayList<>(recent);
+        }
+
+        long activeAvgNanos() {
+            long count = samples.sum();
+            return count == 0 ? 0 : activeNanos.sum() / count;
+        }
+
+        long candidateAvgNanos() {
+            long count = samples.sum();
+            return count == 0 ? 0 : candidateNanos.sum() / count;
+        }
+
+        /**
+         * 采样数、差异比例和延迟退化都满足阈值
+         */
+        boolean isPromotable() {
+            long count = samples.sum();
+            if (count < properties.getMinSamples()) {
+                return false;
+            }
+            if ((double) diffs.sum() / count > properties.getMaxDiffRate()) {
+                return false;
+            }
+            return candidateAvgNanos() <= activeAvgNanos() * (1 + properties.getMaxLatencyRegression());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.oneinstep.rule.core.executor;
+
+import com.oneinstep.rule.core.config.RuleStreamProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.GroupKieBase;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.drools.core.common.InternalFactHandle;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.runtime.rule.QueryResultsRow;
+import org.kie.api.time.SessionPseudoClock;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 事件流会话管理器
+ * 为以事件流方式运行的规则组维护一个长期存在的 stream 模式会话，事件插入到规则中声明的 entry point，
+ * 滑动窗口等聚合由规则在引擎内增量维护，调用方通过查询读取。
+ * <p>
+ * 规则组热更新后，首次访问时用新的 KieBase 创建会话，并把旧会话中的事件迁移过去，窗口内的聚合随之重建。
+ * 会话不是线程安全的，同一规则组的插入和查询串行执行。
+ */
+@Slf4j
+@Component
+public class StreamSessionManager {
+
+    private final DynamicRuleLoader ruleLoader;
+    private final RuleStreamProperties properties;
+
+    // 事件流会话 key: group
+    private final Map<String, StreamSession> sessions = new ConcurrentHashMap<>();
+
+    public StreamSessionManager(DynamicRuleLoader ruleLoader, RuleStreamProperties properties) {
+        this.ruleLoader = ruleLoader;
+        this.properties = properties;
+    }
+
+    /**
+     * 是否以事件流方式运行规则组
+     */
+    public boolean isStreamGroup(String group) {
+        return properties.isStreamGroup(group);
+    }
+
+    /**
+     * 插入事件并执行规则
+     *
+     * @param group      规则组
+     * @param entryPoint 规则中声明的 entry point
+     * @param event      事件对象
+     */
+    public void insert(String group, String entryPoint, Object event) {
+        withSession(group, kieSession -> {
+            EntryPoint target = kieSession.getEntryPoint(entryPoint);
+            if (target == null) {
+                throw new IllegalArgumentException("Unknown entry point: " + entryPoint + " in group: " + group);
+            }
+            target.insert(event);
+            return kieSession.fireAllRules();
+        });
+    }
+
+    /**
+     * 执行规则中定义的查询
+     * 查询前先执行规则，使时间推进后过期的窗口数据生效。
+     * 结果行只能在 mapper 中读取，mapper 应复制需要的数据，不要持有会话中的对象
+     *
+     * @param group     规则组
+     * @param queryName 查询名
+     * @param mapper    结果行转换
+     * @param args      查询参数
+     * @return 转换后的结果
+     */
+    public <R> List<R> query(String group, String queryName, Function<QueryResultsRow, R> mapper, Object... args) {
+        return withSession(group, kieSession -> {
+            kieSession.fireAllRules();
+            List<R> results = new ArrayList<>();
+            kieSession.getQueryResults(queryName, args).forEach(row -> results.add(mapper.apply(row)));
+            return results;
+        });
+    }
+
+    /**
+     * 推进伪时钟并执行规则，只在使用伪时钟时可用
+     *
+     * @param group  规则组
+     * @param amount 时长
+     * @param unit   时间单位
+     */
+    public void advanceTime(String group, long amount, TimeUnit unit) {
+        if (!properties.isPseudoClock()) {
+            throw new IllegalStateException("advanceTime requires rule.stream.clock-type=pseudo");
+        }
+        withSession(group, kieSession -> {
+            ((SessionPseudoClock) kieSession.getSessionClock()).advanceTime(amount, unit);
+            return kieSession.fireAllRules();
+        });
+    }
+
+    /**
+     * 获取规则组会话的当前时间(毫秒)
+     */
+    public long getCurrentTime(String group) {
+        return withSession(group, kieSession -> kieSession.getSessionClock().getCurrentTime());
+    }
+
+    /**
+     * 持有会话锁检查规则组的事件流会话，会话尚未创建时返回 null
+     * 不会因 KieBase 变化而创建或迁移会话
+     *
+     * @param group     规则组
+     * @param inspector 检查逻辑，不要持有会话
+     * @return 检查结果
+     */
+    public <R> R inspect(String group, Function<KieSession, R> inspector) {
+        StreamSession session = sessions.get(group);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return session.disposed ? null : inspector.apply(session.kieSession);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(StreamSession::dispose);
+        sessions.clear();
+    }
+
+    /**
+     * 持有会话锁执行操作，会话在等待期间被替换时改用新会话
+     */
+    private <R> R withSession(String group, Function<KieSession, R> action) {
+        while (true) {
+            StreamSession session = currentSession(group);
+            synchronized (session) {
+                if (!session.disposed) {
+                    return action.apply(session.kieSession);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取规则组当前 KieBase 对应的会话，KieBase 变化时创建新会话并迁移事件
+     */
+    private StreamSession currentSession(String group) {
+        if (!properties.isStreamGroup(group)) {
+            throw new IllegalArgumentException("Rule group is not configured as stream group: " + group);
+        }
+        GroupKieBase kieBase = ruleLoader.getKieBase(group);
+        if (kieBase == null) {
+            throw new IllegalStateException("Rule group not loaded: " + group);
+        }
+        StreamSession current = sessions.get(group);
+        if (current != null && current.kieBase == kieBase) {
+            return current;
+        }
+        synchronized (sessions) {
+            current = sessions.get(group);
+            if (current != null && current.kieBase == kieBase) {
+                return current;
+            }
+            StreamSession created = new StreamSession(kieBase, newKieSession(group, kieBase));
+            if (current != null) {
+                migrate(group, current, created);
+            }
+            sessions.put(group, created);
+            return created;
+        }
+    }
+
+    private KieSession newKieSession(String group, GroupKieBase kieBase) {
+        if (!kieBase.descriptor().isStreamMode()) {
+            throw new IllegalStateException("Rule group " + group
+                    + " requires drools.eventProcessingMode=stream in its kbase descriptor");
+        }
+        KieSessionConfiguration configuration = KieServices.Factory.get()
+                .newKieSessionConfiguration(kieBase.descriptor().getProperties());
+        if (properties.isPseudoClock()) {
+            configuration.setOption(ClockTypeOption.PSEUDO);
+        }
+        KieSession kieSession = kieBase.kieBase().newKieSession(configuration, null);
+        log.info("Created stream session for group: {}, clock: {}", group, properties.getClockType());
+        return kieSession;
+    }
+
+    /**
+     * 将旧会话中的事件迁移到新会话，派生的事实由新规则重新计算
+     */
+    private void migrate(String group, StreamSession from, StreamSession to) {
+        synchronized (from) {
+            if (properties.isPseudoClock()) {
+                SessionPseudoClock clock = to.kieSession.getSessionClock();
+                clock.advanceTime(from.kieSession.getSessionClock().getCurrentTime() - clock.getCurrentTime(),
+                        TimeUnit.MILLISECONDS);
+            }
+            int migrated = 0;
+            for (EntryPoint source : from.kieSession.getEntryPoints()) {
+                EntryPoint target = to.kieSession.getEntryPoint(source.getEntryPointId());
+                for (FactHandle handle : source.getFactHandles()) {
+                    if (!((InternalFactHandle) handle).isEvent()) {
+                        continue;
+                    }
+                    if (target == null) {
+                        log.warn("Entry point {} removed from group: {}, dropping event", source.getEntryPointId(), group);
+                        continue;
+                    }
+                    target.insert(source.getObject(handle));
+                    migrated++;
+                }
+            }
+            to.kieSession.fireAllRules();
+            from.dispose();
+            log.info("Migrated {} events to new stream session for group: {}", migrated, group);
+        }
+    }
+
+    /**
+     * 规则组的事件流会话及创建它的 KieBase
+     */
+    private static class StreamSession {
+        private final GroupKieBase kieBase;
+        private final KieSession kieSession;
+        private boolean disposed;
+
+        StreamSession(GroupKieBase kieBase, KieSession kieSession) {
+            this.kieBase = kieBase;
+            this.kieSession = kieSession;
+        }
+
+        synchronized void dispose() {
+            if (!disposed) {
+                disposed = true;
+                kieSession.dispose();
+            }
+        }
+    }
+}
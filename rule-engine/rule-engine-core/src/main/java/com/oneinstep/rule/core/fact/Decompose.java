@@ -0,0 +1,22 @@
+package com.oneinstep.rule.core.fact;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要拆分为独立事实的集合字段
+ * 规则组的 kbase.properties 配置 rule.decompose=true 时，执行前由 {@link FactDecomposer} 展开：
+ * 字段中的每个元素生成一个 {@link FactEntry}，元素是普通对象(非数字、字符串等值类型)时本身也作为事实插入。
+ * 支持 Map、Collection 和数组字段
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Decompose {
+
+    /**
+     * 生成的 {@link FactEntry#getName()}，默认为字段名
+     */
+    String value() default "";
+}
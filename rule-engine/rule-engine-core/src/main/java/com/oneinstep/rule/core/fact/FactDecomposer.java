@@ -0,0 +1,130 @@
+package com.oneinstep.rule.core.fact;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 事实拆分器
+ * 将根事实中标记了 {@link Decompose} 的集合字段展开为独立事实，与根事实一起插入会话。
+ * 规则可以直接匹配集合元素并按属性连接，而不是在 eval 中对每次激活调用方法，后者不能被 Rete 网络索引。
+ * <p>
+ * 拆分出的对象元素会继续按其标记的字段拆分；同一个对象只插入一次。
+ * 字段按类缓存，没有标记字段的类型只有一次查找的开销。
+ */
+@Slf4j
+public final class FactDecomposer {
+
+    // 类及其父类中标记了 @Decompose 的字段
+    private static final ClassValue<List<Field>> DECOMPOSED_FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class;
+                 current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Decompose.class) && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    private FactDecomposer() {
+    }
+
+    /**
+     * 拆分事实
+     *
+     * @param facts 根事实
+     * @return 根事实及拆分出的事实，没有需要拆分的字段时返回原集合
+     */
+    public static Collection<?> decompose(Collection<?> facts) {
+        List<Object> result = null;
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Object fact : facts) {
+            if (fact == null || DECOMPOSED_FIELDS.get(fact.getClass()).isEmpty()) {
+                continue;
+            }
+            if (result == null) {
+                result = new ArrayList<>(facts);
+                visited.addAll(facts);
+            }
+            decompose(fact, result, visited);
+        }
+        return result != null ? result : facts;
+    }
+
+    private static void decompose(Object owner, List<Object> result, Set<Object> visited) {
+        for (Field field : DECOMPOSED_FIELDS.get(owner.getClass())) {
+            Object value;
+            try {
+                value = field.get(owner);
+            } catch (IllegalAccessException e) {
+                // 已检查过可访问性，忽略
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            String name = field.getAnnotation(Decompose.class).value();
+            if (name.isEmpty()) {
+                name = field.getName();
+            }
+
+            if (value instanceof Map<?, ?> map) {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    add(owner, name, entry.getKey(), entry.getValue(), result, visited);
+                }
+            } else if (value instanceof List<?> list) {
+                for (int i = 0; i < list.size(); i++) {
+                    add(owner, name, i, list.get(i), result, visited);
+                }
+            } else if (value instanceof Collection<?> collection) {
+                for (Object element : collection) {
+                    add(owner, name, null, element, result, visited);
+                }
+            } else if (value.getClass().isArray()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    add(owner, name, i, Array.get(value, i), result, visited);
+                }
+            } else {
+                log.warn("Field {}.{} marked with @Decompose is not a collection",
+                        owner.getClass().getSimpleName(), field.getName());
+            }
+        }
+    }
+
+    private static void add(Object owner, String name, Object key, Object element,
+                            List<Object> result, Set<Object> visited) {
+        if (element == null) {
+            return;
+        }
+        result.add(new FactEntry(owner, name, key, element));
+        if (!isValue(element) && visited.add(element)) {
+            result.add(element);
+            decompose(element, result, visited);
+        }
+    }
+
+    /**
+     * 值类型只通过 {@link FactEntry} 匹配，不单独插入
+     */
+    private static boolean isValue(Object element) {
+        return element instanceof Number || element instanceof CharSequence || element instanceof Boolean
+                || element instanceof Character || element instanceof Enum<?> || element instanceof Temporal
+                || element instanceof Date;
+    }
+}
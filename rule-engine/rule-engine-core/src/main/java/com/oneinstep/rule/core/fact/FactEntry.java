@@ -0,0 +1,44 @@
+package com.oneinstep.rule.core.fact;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 集合元素拆分出的事实，保留所属对象的引用
+ * 规则通过 owner、name、key 连接到所属对象和其他事实，这些约束可以被 Rete 网络索引，例如：
+ * <pre>
+ * $account: Account(id == $order.accountId)
+ * FactEntry(owner == $account, name == "stockPositions", key == $order.stockCode, value > 0.3)
+ * </pre>
+ * 按引用判断相等，同一个元素在不同执行中生成的是不同事实
+ */
+@Getter
+@AllArgsConstructor
+public class FactEntry {
+
+    /**
+     * 所属对象
+     */
+    private final Object owner;
+
+    /**
+     * 名称，默认为字段名
+     */
+    private final String name;
+
+    /**
+     * Map 的键、List 和数组的下标，其他集合为 null
+     */
+    private final Object key;
+
+    /**
+     * 元素
+     */
+    private final Object value;
+
+    @Override
+    public String toString() {
+        return "FactEntry{owner=" + owner.getClass().getSimpleName() + ", name=" + name
+                + ", key=" + key + ", value=" + value + "}";
+    }
+}
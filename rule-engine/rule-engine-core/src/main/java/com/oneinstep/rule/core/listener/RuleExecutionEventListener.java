@@ -3,6 +3,7 @@ package com.oneinstep.rule.core.listener;
 import com.alibaba.fastjson2.JSON;
 import com.oneinstep.rule.core.model.RuleExecutionContext;
 import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.model.TypedFact;
 import com.oneinstep.rule.core.service.RuleExecutionLogService;
 import lombok.extern.slf4j.Slf4j;
 import org.drools.core.event.DefaultAgendaEventListener;
@@ -38,12 +39,25 @@ public class RuleExecutionEventListener extends DefaultAgendaEventListener {
      * 开始时间
      */
     private final LocalDateTime startTime;
+    /**
+     * 执行ID
+     */
+    private final String executionId;
+    /**
+     * 执行前的事实快照
+     */
+    private final String inputData;
 
+    /**
+     * 需在插入事实、执行规则之前创建，以记录规则修改前的输入
+     */
     public RuleExecutionEventListener(RuleExecutionContext context, RuleExecutionLogService logService) {
         this.ruleGroup = context.getRuleGroup();
         this.facts = context.getFacts();
         this.logService = logService;
         this.startTime = LocalDateTime.now();
+        this.executionId = UUID.randomUUID().toString();
+        this.inputData = serializeInput(facts);
     }
 
     @Override
@@ -58,13 +72,14 @@ public class RuleExecutionEventListener extends DefaultAgendaEventListener {
             // 记录执行日志
             RuleExecutionLog executionLog = RuleExecutionLog.builder()
                     .id(UUID.randomUUID().toString())
+                    .executionId(executionId)
                     .ruleId(ruleId)
                     .ruleName(ruleName)
                     .ruleGroup(ruleGroup)
                     .executeTime(startTime)
                     .executeDuration(Duration.between(startTime, LocalDateTime.now()).toMillis())
                     .success(true)
-                    .inputData(serializeToJson(facts))
+                    .inputData(inputData)
                     .outputData(serializeToJson(facts))
                     .build();
 
@@ -85,6 +100,7 @@ public class RuleExecutionEventListener extends DefaultAgendaEventListener {
         try {
             RuleExecutionLog errorLog = RuleExecutionLog.builder()
                     .id(UUID.randomUUID().toString())
+                    .executionId(executionId)
                     .ruleId(ruleId)
                     .ruleName(ruleName)
                     .ruleGroup(ruleGroup)
@@ -92,7 +108,7 @@ public class RuleExecutionEventListener extends DefaultAgendaEventListener {
                     .executeDuration(Duration.between(startTime, LocalDateTime.now()).toMillis())
                     .success(false)
                     .errorMessage(error.getMessage())
-                    .inputData(serializeToJson(facts))
+                    .inputData(inputData)
                     .build();
 
             logService.logExecution(errorLog);
@@ -102,6 +118,17 @@ public class RuleExecutionEventListener extends DefaultAgendaEventListener {
         }
     }
 
+    /**
+     * 序列化带类型的输入快照，失败时退化为普通 JSON
+     */
+    private String serializeInput(List<Object> input) {
+        try {
+            return TypedFact.toJson(input);
+        } catch (Exception e) {
+            return serializeToJson(input);
+        }
+    }
+
     /**
      * 安全地序列化对象到JSON
      */
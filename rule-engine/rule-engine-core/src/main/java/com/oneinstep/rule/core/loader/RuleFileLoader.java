@@ -1,6 +1,7 @@
 package com.oneinstep.rule.core.loader;
 
 import com.oneinstep.rule.core.config.RuleConfigConstants;
+import com.oneinstep.rule.core.model.RuleDefinition;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -8,9 +9,15 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.util.StreamUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Slf4j
 public class RuleFileLoader {
@@ -40,4 +47,49 @@ public class RuleFileLoader {
         }
         return ruleFiles;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 加载本地决策表文件(csv/xls/xlsx)，决策表可能是二进制格式，按字节返回
+     *
+     * @param basePath 规则根目录
+     * @return key: 相对路径，例如 rules/riskControl/trade_limit.csv
+     */
+    public static Map<String, byte[]> loadLocalDecisionTables(String basePath) {
+        Map<String, byte[]> tableFiles = new HashMap<>();
+        for (String extension : List.of(RuleConfigConstants.CSV_EXTENSION,
+                RuleConfigConstants.XLS_EXTENSION, RuleConfigConstants.XLSX_EXTENSION)) {
+            try {
+                Resource[] resources = resourceResolver.getResources("classpath:" + basePath + "/**/*" + extension);
+                for (Resource resource : resources) {
+                    String path = resource.getURL().getPath();
+                    String relativePath = path.substring(path.indexOf(basePath));
+                    try (InputStream inputStream = resource.getInputStream()) {
+                        tableFiles.put(relativePath, StreamUtils.copyToByteArray(inputStream));
+                    }
+                    log.info("Loaded local decision table: {}", relativePath);
+                }
+            } catch (IOException e) {
+                log.error("Failed to load local decision tables: {}", extension, e);
+            }
+        }
+        return tableFiles;
+    }
+
+    /**
+     * 从文件系统目录加载规则组的规则文件，规则ID为文件名
+     *
+     * @param dir   规则组目录
+     * @param group 规则组
+     * @return 规则定义
+     */
+    public static List<RuleDefinition> loadRules(Path dir, String group) throws IOException {
+        List<RuleDefinition> rules = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(RuleConfigConstants.DRL_EXTENSION)).toList()) {
+                String ruleId = file.getFileName().toString().replace(RuleConfigConstants.DRL_EXTENSION, "");
+                rules.add(new RuleDefinition(ruleId, ruleId, Files.readString(file), group));
+            }
+        }
+        return rules;
+    }
+}
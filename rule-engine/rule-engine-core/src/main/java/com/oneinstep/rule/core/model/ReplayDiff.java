@@ -0,0 +1,44 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 重放结果差异
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayDiff {
+    /**
+     * 记录的执行ID
+     */
+    private String executionId;
+    /**
+     * 输入数据
+     */
+    private String inputData;
+    /**
+     * 记录的输出
+     */
+    private String recordedOutput;
+    /**
+     * 重放的输出
+     */
+    private String replayOutput;
+    /**
+     * 记录的触发规则数
+     */
+    private int recordedRulesExecuted;
+    /**
+     * 重放的触发规则数
+     */
+    private int replayRulesExecuted;
+    /**
+     * 重放错误信息
+     */
+    private String errorMessage;
+}
@@ -0,0 +1,83 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重放报告
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayReport {
+    /**
+     * 规则组
+     */
+    private String ruleGroup;
+    /**
+     * 可重放的执行记录数
+     */
+    private int records;
+    /**
+     * 无法重放被跳过的记录数(旧格式输入或类型不存在)
+     */
+    private int skipped;
+    /**
+     * 重放线程数
+     */
+    private int threads;
+    /**
+     * 总执行次数
+     */
+    private long executions;
+    /**
+     * 执行出错次数
+     */
+    private long errors;
+    /**
+     * 结果与记录不一致的记录数
+     */
+    private long diffs;
+    /**
+     * 总耗时(毫秒)
+     */
+    private long durationMs;
+    /**
+     * 吞吐量(次/秒)
+     */
+    private double throughput;
+    /**
+     * 延迟 P50(微秒)
+     */
+    private long p50Micros;
+    /**
+     * 延迟 P90(微秒)
+     */
+    private long p90Micros;
+    /**
+     * 延迟 P99(微秒)
+     */
+    private long p99Micros;
+    /**
+     * 最大延迟(微秒)
+     */
+    private long maxMicros;
+    /**
+     * 差异样本
+     */
+    @Builder.Default
+    private List<ReplayDiff> diffSamples = new ArrayList<>();
+
+    /**
+     * 是否没有差异和错误，可作为发布前的检查门禁
+     */
+    public boolean isClean() {
+        return diffs == 0 && errors == 0;
+    }
+}
@@ -19,6 +19,10 @@ public class RuleExecutionLog {
      * 日志ID
      */
     private String id;
+    /**
+     * 执行ID，同一次执行触发的多条规则日志共享
+     */
+    private String executionId;
     /**
      * 规则ID
      */
@@ -53,7 +57,7 @@ public class RuleExecutionLog {
      */
     private String errorMessage;
     /**
-     * 输入数据
+     * 输入数据，规则执行前的事实快照，带类型以便重放
      */
     private String inputData;
     /**
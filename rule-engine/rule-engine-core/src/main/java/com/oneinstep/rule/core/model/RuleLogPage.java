@@ -0,0 +1,36 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则日志分页结果，按时间倒序
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleLogPage<T> {
+    /**
+     * 当前页记录
+     */
+    @Builder.Default
+    private List<T> items = new ArrayList<>();
+    /**
+     * 页码
+     */
+    private int page;
+    /**
+     * 每页条数
+     */
+    private int size;
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+}
@@ -0,0 +1,48 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 规则日志查询条件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleLogQuery {
+    /**
+     * 规则组
+     */
+    private String ruleGroup;
+    /**
+     * 规则ID
+     */
+    private String ruleId;
+    /**
+     * 是否成功，为空时不过滤
+     */
+    private Boolean success;
+    /**
+     * 开始时间(包含)
+     */
+    private LocalDateTime from;
+    /**
+     * 结束时间(包含)
+     */
+    private LocalDateTime to;
+    /**
+     * 页码，从0开始
+     */
+    @Builder.Default
+    private int page = 0;
+    /**
+     * 每页条数
+     */
+    @Builder.Default
+    private int size = 50;
+}
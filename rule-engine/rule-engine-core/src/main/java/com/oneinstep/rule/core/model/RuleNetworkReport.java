@@ -0,0 +1,80 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 规则组的 Rete 网络与内存占用报告
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleNetworkReport {
+    /**
+     * 规则组
+     */
+    private String ruleGroup;
+    /**
+     * 生效版本
+     */
+    private String version;
+    /**
+     * 生效版本编译时间
+     */
+    private LocalDateTime compileTime;
+    /**
+     * KieBase 配置描述
+     */
+    private String descriptor;
+    /**
+     * 规则数
+     */
+    private int ruleCount;
+    /**
+     * 网络节点数，包括入口节点和终端节点
+     */
+    private int nodeCount;
+    /**
+     * 按类型统计的节点数 key: 节点类型，例如 AlphaNode、JoinNode、RuleTerminalNode
+     */
+    private Map<String, Integer> nodeCountByType;
+    /**
+     * 被多条规则共享的节点数
+     */
+    private int sharedNodeCount;
+    /**
+     * 平均每个节点关联的规则数，越大说明节点共享越充分
+     */
+    private double sharingRatio;
+    /**
+     * 关联节点最多的规则 key: 规则名, value: 关联的节点数，按节点数降序
+     */
+    private Map<String, Integer> largestRules;
+    /**
+     * KieBase 估算占用(字节)，包括网络节点、编译后的规则类和元数据
+     */
+    private long kieBaseBytes;
+    /**
+     * 新建空会话的估算占用(字节)，即每次执行的会话初始开销，不包括事实和按需创建的节点内存
+     * 顺序模式等不能创建有状态会话的规则组为空
+     */
+    private Long sessionBytes;
+    /**
+     * 长期存在的事件流会话的估算占用(字节)，包括会话中的事件和节点内存，非事件流规则组或会话尚未创建时为空
+     */
+    private Long streamSessionBytes;
+    /**
+     * 事件流会话中的事实数
+     */
+    private Long streamSessionFactCount;
+    /**
+     * 本次统计耗时(毫秒)
+     */
+    private long inspectMillis;
+}
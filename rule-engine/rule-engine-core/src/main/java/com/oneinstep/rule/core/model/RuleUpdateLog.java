@@ -44,4 +44,20 @@ public class RuleUpdateLog {
      * 错误信息
      */
     private String errorMessage;
+    /**
+     * 合并到本次编译的更新通知数
+     */
+    private int coalescedCount;
+    /**
+     * 跳过的更新通知数(窗口内被后续版本覆盖或内容未变化)
+     */
+    private int skippedCount;
+    /**
+     * 编译出的规则版本
+     */
+    private String version;
+    /**
+     * 是否为影子候选版本(编译后未生效)
+     */
+    private boolean shadow;
 } 
\ No newline at end of file
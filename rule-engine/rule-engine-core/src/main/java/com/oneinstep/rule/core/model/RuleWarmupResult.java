@@ -0,0 +1,36 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 规则预热结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleWarmupResult {
+    /**
+     * 规则组
+     */
+    private String ruleGroup;
+    /**
+     * 预热执行次数
+     */
+    private int executions;
+    /**
+     * 预热耗时(毫秒)
+     */
+    private long durationMs;
+    /**
+     * 首次执行耗时(微秒)
+     */
+    private long coldLatencyMicros;
+    /**
+     * 预热末段的平均执行耗时(微秒)
+     */
+    private long warmLatencyMicros;
+}
@@ -0,0 +1,46 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 影子执行结果差异
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShadowDiff {
+    /**
+     * 采样时间
+     */
+    private LocalDateTime sampleTime;
+    /**
+     * 输入事实
+     */
+    private String inputData;
+    /**
+     * 生效版本输出
+     */
+    private String activeOutput;
+    /**
+     * 候选版本输出
+     */
+    private String candidateOutput;
+    /**
+     * 生效版本触发规则数
+     */
+    private int activeRulesExecuted;
+    /**
+     * 候选版本触发规则数
+     */
+    private int candidateRulesExecuted;
+    /**
+     * 候选版本错误信息
+     */
+    private String errorMessage;
+}
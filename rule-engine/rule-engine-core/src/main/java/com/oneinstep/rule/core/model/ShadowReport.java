@@ -0,0 +1,73 @@
+package com.oneinstep.rule.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 影子评估报告
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShadowReport {
+    /**
+     * 规则组
+     */
+    private String ruleGroup;
+    /**
+     * 生效版本
+     */
+    private String activeVersion;
+    /**
+     * 候选版本
+     */
+    private String candidateVersion;
+    /**
+     * 候选版本变更的规则ID
+     */
+    private List<String> updatedRuleIds;
+    /**
+     * 候选版本编译时间
+     */
+    private LocalDateTime candidateTime;
+    /**
+     * 已完成的采样数
+     */
+    private long samples;
+    /**
+     * 结果不一致的采样数
+     */
+    private long diffs;
+    /**
+     * 候选版本执行出错的采样数
+     */
+    private long errors;
+    /**
+     * 队列满被丢弃的采样数
+     */
+    private long dropped;
+    /**
+     * 生效版本平均耗时(微秒)
+     */
+    private long activeAvgMicros;
+    /**
+     * 候选版本平均耗时(微秒)
+     */
+    private long candidateAvgMicros;
+    /**
+     * 是否满足提升阈值
+     */
+    private boolean promotable;
+    /**
+     * 最近的差异样本
+     */
+    @Builder.Default
+    private List<ShadowDiff> recentDiffs = new ArrayList<>();
+}
@@ -0,0 +1,73 @@
+package com.oneinstep.rule.core.model;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带类型的事实，用于记录可重放的规则输入
+ * 序列化格式与预热数据一致: [{"type": "com.example.Order", "value": {...}}, ...]
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypedFact {
+    /**
+     * 事实类型
+     */
+    private String type;
+    /**
+     * 事实内容
+     */
+    private Object value;
+
+    /**
+     * 将事实列表序列化为带类型的 JSON
+     */
+    public static String toJson(List<Object> facts) {
+        List<TypedFact> typedFacts = new ArrayList<>(facts.size());
+        for (Object fact : facts) {
+            typedFacts.add(new TypedFact(fact.getClass().getName(), fact));
+        }
+        return JSON.toJSONString(typedFacts);
+    }
+
+    /**
+     * 解析带类型的 JSON，返回各事实的类型和内容，由调用方按需创建对象
+     *
+     * @param json 带类型的 JSON
+     * @return 类型和 JSON 内容，格式不符时返回空列表
+     */
+    public static List<Template> parse(String json) throws ClassNotFoundException {
+        List<Template> templates = new ArrayList<>();
+        if (json == null || !json.startsWith("[")) {
+            return templates;
+        }
+        JSONArray array = JSON.parseArray(json);
+        for (int i = 0; i < array.size(); i++) {
+            if (!(array.get(i) instanceof JSONObject fact) || fact.getString("type") == null) {
+                return new ArrayList<>();
+            }
+            Class<?> clazz = Class.forName(fact.getString("type"), true,
+                    Thread.currentThread().getContextClassLoader());
+            templates.add(new Template(clazz, JSON.toJSONString(fact.get("value"))));
+        }
+        return templates;
+    }
+
+    /**
+     * 事实模板，每次调用 newInstance 创建新对象
+     */
+    public record Template(Class<?> type, String json) {
+
+        public Object newInstance() {
+            return JSON.parseObject(json, type);
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.oneinstep.rule.core.replay;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.GroupKieBase;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.loader.RuleFileLoader;
+import com.oneinstep.rule.core.model.ReplayDiff;
+import com.oneinstep.rule.core.model.ReplayReport;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.model.TypedFact;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.runtime.KieContainer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 规则重放工具
+ * 从执行日志中读取真实执行的输入，使用指定版本的规则在多个线程中全速重放，
+ * 统计吞吐量、延迟分位数以及与记录结果的差异，可作为规则发布前的回归检查。
+ * 日志边读边按批重放，内存中只保留未结束的执行、正在重放的批次、计数器和有限的差异样本，
+ * 日志规模不受内存限制。
+ * <p>
+ * 用法示例:
+ * <pre>
+ * ReplayReport report = RuleReplayHarness.builder()
+ *         .ruleGroup("riskControl")
+ *         .rules(RuleFileLoader.loadRules(Path.of("rules/riskControl"), "riskControl"))
+ *         .threads(8)
+ *         .iterations(10)
+ *         .build()
+ *         .replay(Path.of("logs/rule-execution.log"));
+ * </pre>
+ * 也可以通过 main 方法在命令行运行，事实类型需在 classpath 中。
+ */
+@Slf4j
+@Builder
+public class RuleReplayHarness {
+
+    private static final String DETAILS_MARKER = ", Details: {";
+
+    /**
+     * 规则组，只重放该组的执行记录
+     */
+    private final String ruleGroup;
+
+    /**
+     * 待验证的规则版本，与 container 二选一
+     */
+    private final Collection<RuleDefinition> rules;
+
+    /**
+     * 已编译的规则容器，优先于 rules
+     */
+    private final KieContainer container;
+
+    /**
+     * KieBase 配置描述，为空时 container 使用默认配置，rules 使用 classpath 中规则组的描述
+     */
+    private final KieBaseDescriptor descriptor;
+
+    /**
+     * 重放线程数
+     */
+    @Builder.Default
+    private final int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每条记录的重放次数
+     */
+    @Builder.Default
+    private final int iterations = 1;
+
+    /**
+     * 全局变量
+     */
+    @Builder.Default
+    private final Map<String, Object> globals = Map.of();
+
+    /**
+     * 比较结果时忽略的属性名，例如规则中写入的当前时间
+     */
+    @Builder.Default
+    private final Set<String> ignoredProperties = Set.of();
+
+    /**
+     * 报告中保留的差异样本数
+     */
+    @Builder.Default
+    private final int maxDiffSamples = 20;
+
+    /**
+     * 每批重放的执行记录数
+     */
+    @Builder.Default
+    private final int batchSize = 256;
+
+    /**
+     * 读取日志时同时保留的未结束执行数
+     * 并发执行的日志在文件中交错排列，超过该数量时最早出现的执行视为已结束并开始重放
+     */
+    @Builder.Default
+    private final int maxOpenExecutions = 10_000;
+
+    /**
+     * 重放执行日志文件
+     *
+     * @param logFile 规则执行日志文件
+     * @return 重放报告
+     */
+    public ReplayReport replay(Path logFile) throws IOException, InterruptedException {
+        try (Stream<String> lines = Files.lines(logFile, StandardCharsets.UTF_8)) {
+            return replay(lines.map(RuleReplayHarness::parseLogLine));
+        }
+    }
+
+    /**
+     * 重放执行日志，例如从分段日志存储中查询出的记录
+     *
+     * @param logs 执行日志，同一次执行的多条日志按触发顺序排列
+     * @return 重放报告
+     */
+    public ReplayReport replay(Stream<RuleExecutionLog> logs) throws InterruptedException {
+        try (ReplayRun run = new ReplayRun()) {
+            // 按执行ID合并同一次执行触发的多条规则日志
+            Map<String, List<RuleExecutionLog>> open = new LinkedHashMap<>();
+            Iterator<RuleExecutionLog> iterator = logs.iterator();
+            while (iterator.hasNext()) {
+                RuleExecutionLog executionLog = iterator.next();
+                if (executionLog == null || !ruleGroup.equals(executionLog.getRuleGroup())) {
+                    continue;
+                }
+                String executionId = executionLog.getExecutionId() != null
+                        ? executionLog.getExecutionId() : executionLog.getId();
+                open.computeIfAbsent(executionId, key -> new ArrayList<>()).add(executionLog);
+                if (open.size() > maxOpenExecutions) {
+                    Iterator<Map.Entry<String, List<RuleExecutionLog>>> eldest = open.entrySet().iterator();
+                    Map.Entry<String, List<RuleExecutionLog>> entry = eldest.next();
+                    eldest.remove();
+                    run.submit(toRecord(entry.getKey(), entry.getValue()));
+                }
+            }
+            for (Map.Entry<String, List<RuleExecutionLog>> entry : open.entrySet()) {
+                run.submit(toRecord(entry.getKey(), entry.getValue()));
+            }
+            return run.finish();
+        }
+    }
+
+    /**
+     * 命令行入口
+     * 参数: --log=日志文件 --group=规则组 --rules=规则目录 [--threads=N] [--iterations=N] [--ignore=属性1,属性2]
+     * 规则目录中存在 kbase.properties 时按其配置 KieBase，有差异或错误时以非零状态退出
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (arg.startsWith("--") && index > 0) {
+                options.put(arg.substring(2, index), arg.substring(index + 1));
+            }
+        }
+        if (!options.containsKey("log") || !options.containsKey("group") || !options.containsKey("rules")) {
+            System.err.println("Usage: --log=<file> --group=<group> --rules=<dir> "
+                    + "[--threads=N] [--iterations=N] [--ignore=prop1,prop2]");
+            System.exit(2);
+        }
+
+        String group = options.get("group");
+        Path rulesDir = Path.of(options.get("rules"));
+        Path descriptorFile = rulesDir.resolve(KieBaseDescriptor.FILE_NAME);
+        RuleReplayHarness harness = RuleReplayHarness.builder()
+                .ruleGroup(group)
+                .rules(RuleFileLoader.loadRules(rulesDir, group))
+                .descriptor(Files.exists(descriptorFile)
+                        ? KieBaseDescriptor.parse(Files.readString(descriptorFile)) : null)
+                .threads(Integer.parseInt(options.getOrDefault("threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))))
+                .iterations(Integer.parseInt(options.getOrDefault("iterations", "1")))
+                .ignoredProperties(options.containsKey("ignore")
+                        ? Set.of(options.get("ignore").split(",")) : Set.of())
+                .build();
+        ReplayReport report = harness.replay(Path.of(options.get("log")));
+        System.out.println(JSON.toJSONString(report, JSONWriter.Feature.PrettyFormat));
+        System.exit(report.isClean() ? 0 : 1);
+    }
+
+    private KieBaseDescriptor resolveDescriptor() {
+        return descriptor != null ? descriptor : KieBaseDescriptor.DEFAULT;
+    }
+
+    private GroupKieBase compile() {
+        if (rules == null || rules.isEmpty()) {
+            throw new IllegalStateException("Either rules or container must be provided");
+        }
+        DynamicRuleLoader loader = new DynamicRuleLoader(event -> {
+        });
+        if (descriptor != null) {
+            loader.updateDescriptor(ruleGroup, descriptor);
+        }
+        loader.updateRules(new ArrayList<>(rules));
+        return loader.getKieBase(ruleGroup);
+    }
+
+    private ReplayDiff compare(ReplayRecord record, List<Object> facts, int rulesExecuted, String errorMessage) {
+        String replayOutput = errorMessage == null ? JSON.toJSONString(facts) : null;
+        boolean same = errorMessage == null && rulesExecuted == record.rulesExecuted()
+                && (record.output() == null || record.output().equals(normalize(replayOutput)));
+        if (same) {
+            return null;
+        }
+        return ReplayDiff.builder()
+                .executionId(record.executionId())
+                .inputData(record.inputData())
+                .recordedOutput(record.rawOutput())
+                .replayOutput(replayOutput)
+                .recordedRulesExecuted(record.rulesExecuted())
+                .replayRulesExecuted(rulesExecuted)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private ReplayRecord toRecord(String executionId, List<RuleExecutionLog> logs) {
+        RuleExecutionLog first = logs.getFirst();
+        try {
+            List<TypedFact.Template> templates = TypedFact.parse(first.getInputData());
+            if (templates.isEmpty()) {
+                return null;
+            }
+            // 最后一条规则触发后的事实即为本次执行的最终输出
+            String rawOutput = logs.getLast().getOutputData();
+            return new ReplayRecord(executionId, first.getInputData(), templates, logs.size(),
+                    rawOutput, normalize(rawOutput));
+        } catch (Exception e) {
+            log.debug("Skip execution {} that cannot be replayed: {}", executionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析输出为 JSON 数组并移除忽略的属性，无法解析时返回 null 表示不比较输出
+     */
+    private JSONArray normalize(String output) {
+        if (output == null || !output.startsWith("[")) {
+            return null;
+        }
+        try {
+            JSONArray array = JSON.parseArray(output);
+            for (Object item : array) {
+                if (item instanceof JSONObject object) {
+                    ignoredProperties.forEach(object::remove);
+                }
+            }
+            return array;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析执行日志文件中的一行，非日志行返回 null
+     */
+    static RuleExecutionLog parseLogLine(String line) {
+        int index = line.indexOf(DETAILS_MARKER);
+        if (index < 0) {
+            return null;
+        }
+        try {
+            return JSON.parseObject(line.substring(index + DETAILS_MARKER.length() - 1), RuleExecutionLog.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一次重放的运行状态
+     * 执行记录攒满一批后提交到线程池，每轮迭代作为一个任务，只在第一轮比较结果，
+     * 正在重放的批次数受限，读取速度超过重放速度时阻塞读取线程
+     */
+    private class ReplayRun implements AutoCloseable {
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        private final Semaphore inFlight = new Semaphore(threads * 2);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder diffs = new LongAdder();
+        private final List<ReplayDiff> diffSamples = Collections.synchronizedList(new ArrayList<>());
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private List<ReplayRecord> batch = new ArrayList<>();
+        private GroupKieBase kieBase;
+        private int records;
+        private int skipped;
+        private long start;
+
+        /**
+         * 提交一条执行记录
+         *
+         * @param record 执行记录，无法重放时为 null
+         */
+        void submit(ReplayRecord record) throws InterruptedException {
+            if (record == null) {
+                skipped++;
+                return;
+            }
+            records++;
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                dispatch();
+            }
+        }
+
+        /**
+         * 等待所有批次完成并生成报告
+         */
+        ReplayReport finish() throws InterruptedException {
+            log.info("Loaded {} executions for group: {}, skipped: {}", records, ruleGroup, skipped);
+            if (records == 0) {
+                return ReplayReport.builder().ruleGroup(ruleGroup).skipped(skipped).threads(threads).build();
+            }
+            dispatch();
+            inFlight.acquire(threads * 2);
+            long durationNanos = System.nanoTime() - start;
+            if (failure.get() != null) {
+                throw new IllegalStateException("Replay worker failed", failure.get());
+            }
+
+            long total = executions.sum();
+            ReplayReport report = ReplayReport.builder()
+                    .ruleGroup(ruleGroup)
+                    .records(records)
+                    .skipped(skipped)
+                    .threads(threads)
+                    .executions(total)
+                    .errors(errors.sum())
+                    .diffs(diffs.sum())
+                    .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                    .throughput(total * 1_000_000_000.0 / durationNanos)
+                    .p50Micros(latencies.percentileMicros(0.50))
+                    .p90Micros(latencies.percentileMicros(0.90))
+                    .p99Micros(latencies.percentileMicros(0.99))
+                    .maxMicros(latencies.maxMicros())
+                    .diffSamples(new ArrayList<>(diffSamples))
+                    .build();
+            log.info("Replayed {} executions for group: {} in {}ms, throughput: {}/s, p50: {}us, p99: {}us, diffs: {}, errors: {}",
+                    total, ruleGroup, report.getDurationMs(), String.format("%.1f", report.getThroughput()),
+                    report.getP50Micros(), report.getP99Micros(), report.getDiffs(), report.getErrors());
+            return report;
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+        private void dispatch() throws InterruptedException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (kieBase == null) {
+                kieBase = container != null
+                        ? new GroupKieBase(resolveDescriptor().newKieBase(container), resolveDescriptor()) : compile();
+                start = System.nanoTime();
+            }
+            List<ReplayRecord> current = batch;
+            batch = new ArrayList<>(batchSize);
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                boolean compare = iteration == 0;
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        replayBatch(current, compare);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        private void replayBatch(List<ReplayRecord> records, boolean compare) {
+            for (ReplayRecord record : records) {
+                List<Object> facts = record.newFacts();
+
+                int rulesExecuted = 0;
+                String errorMessage = null;
+                long executeStart = System.nanoTime();
+                try {
+                    rulesExecuted = kieBase.execute(facts, globals, null, null);
+                } catch (Exception e) {
+                    errors.increment();
+                    errorMessage = e.getMessage();
+                }
+                latencies.record(System.nanoTime() - executeStart);
+                executions.increment();
+
+                // 只在第一轮比较结果，后续轮次只用于压测
+                if (compare) {
+                    ReplayDiff diff = RuleReplayHarness.this.compare(record, facts, rulesExecuted, errorMessage);
+                    if (diff != null) {
+                        diffs.increment();
+                        synchronized (diffSamples) {
+                            if (diffSamples.size() < maxDiffSamples) {
+                                diffSamples.add(diff);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 延迟直方图
+     * 每个 2 的幂区间再分为 16 个子区间，分位数取所在子区间的上界，相对误差不超过 1/16
+     */
+    private static final class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            counts.incrementAndGet(index(value));
+            max.accumulate(value);
+        }
+
+        long percentileMicros(double percentile) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            long target = Math.max((long) Math.ceil(percentile * total), 1);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return TimeUnit.NANOSECONDS.toMicros(Math.min(upperBound(i), max.get()));
+                }
+            }
+            return maxMicros();
+        }
+
+        long maxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(max.get());
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+            long subBucket = index & (SUB_BUCKETS - 1);
+            return ((1L << exponent) | ((subBucket + 1) << (exponent - SUB_BUCKET_BITS))) - 1;
+        }
+    }
+
+    /**
+     * 可重放的执行记录
+     */
+    private record ReplayRecord(String executionId, String inputData, List<TypedFact.Template> templates,
+                                int rulesExecuted, String rawOutput, JSONArray output) {
+
+        List<Object> newFacts() {
+            List<Object> facts = new ArrayList<>(templates.size());
+            templates.forEach(template -> facts.add(template.newInstance()));
+            return facts;
+        }
+    }
+}
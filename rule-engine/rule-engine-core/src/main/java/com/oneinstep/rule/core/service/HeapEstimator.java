@@ -0,0 +1,214 @@
+package com.oneinstep.rule.core.service;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 对象图占用内存估算
+ * 按 64 位 JVM、开启压缩指针估算对象大小，沿实例字段遍历对象图，累计从根对象可达、且之前未统计过的对象。
+ * 同一个估算器依次估算多个根对象时，后面的结果不包含前面已统计的对象，即增量占用。
+ * <p>
+ * JDK 内部类的字段不能反射访问，只计算对象本身；其中 Map、Collection 通过公开接口遍历元素，
+ * 并按 HashMap/ArrayList 的结构估算内部数组和节点。结果是估算值，用于比较和容量规划，不是精确的堆占用。
+ */
+final class HeapEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    // HashMap.Node: 头 + hash + key + value + next
+    private static final int HASH_NODE = 32;
+    // LinkedList.Node: 头 + item + next + prev
+    private static final int LINKED_NODE = 24;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // 遍历边界，满足条件的对象(根对象除外)及其引用的对象不计入
+    private final Predicate<Object> boundary;
+
+    HeapEstimator(Predicate<Object> boundary) {
+        this.boundary = boundary;
+    }
+
+    /**
+     * 估算从根对象可达、且之前未统计过的对象的占用
+     *
+     * @param root 根对象
+     * @return 估算字节数
+     */
+    long estimate(Object root) {
+        long total = 0;
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            if (object != root && (skip(object) || boundary.test(object))) {
+                continue;
+            }
+            if (!visited.add(object)) {
+                continue;
+            }
+            total += visit(object, pending);
+        }
+        return total;
+    }
+
+    private static boolean skip(Object object) {
+        // 类元数据和共享的单例不属于任何对象图
+        return object instanceof Class<?> || object instanceof Enum<?> || object instanceof ClassValue<?>;
+    }
+
+    private long visit(Object object, Deque<Object> pending) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(object);
+            Class<?> component = type.getComponentType();
+            if (component.isPrimitive()) {
+                return align(ARRAY_HEADER + (long) length * primitiveSize(component));
+            }
+            for (Object element : (Object[]) object) {
+                if (element != null) {
+                    pending.push(element);
+                }
+            }
+            return align(ARRAY_HEADER + (long) length * REFERENCE);
+        }
+
+        Layout layout = LAYOUTS.get(type);
+        for (Field field : layout.references) {
+            try {
+                Object value = field.get(object);
+                if (value != null) {
+                    pending.push(value);
+                }
+            } catch (IllegalAccessException e) {
+                // 已检查过可访问性，忽略
+            }
+        }
+        long size = layout.shallowSize;
+        if (layout.opaque) {
+            size += visitOpaque(object, pending);
+        }
+        return size;
+    }
+
+    /**
+     * 字段不可访问的对象，按公开接口估算内部结构
+     */
+    private long visitOpaque(Object object, Deque<Object> pending) {
+        try {
+            if (object instanceof CharSequence text && object instanceof Comparable<?>) {
+                // String 等，内部 byte[] 按 Latin-1 估算
+                return align(ARRAY_HEADER + text.length());
+            }
+            if (object instanceof Map<?, ?> map) {
+                int size = 0;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    push(pending, entry.getKey());
+                    push(pending, entry.getValue());
+                    size++;
+                }
+                return hashTable(size);
+            }
+            if (object instanceof Collection<?> collection) {
+                int size = 0;
+                for (Object element : collection) {
+                    push(pending, element);
+                    size++;
+                }
+                if (collection instanceof Set<?>) {
+                    return hashTable(size);
+                }
+                return collection instanceof RandomAccess
+                        ? align(ARRAY_HEADER + (long) size * REFERENCE)
+                        : (long) size * LINKED_NODE;
+            }
+        } catch (RuntimeException e) {
+            // 并发修改等，只计算已遍历的部分
+        }
+        return 0;
+    }
+
+    private static void push(Deque<Object> pending, Object value) {
+        if (value != null) {
+            pending.push(value);
+        }
+    }
+
+    private static long hashTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+        return (long) size * HASH_NODE + align(ARRAY_HEADER + (long) capacity * REFERENCE);
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * 类的实例布局
+     *
+     * @param shallowSize 对象本身大小
+     * @param references  可访问的引用字段
+     * @param opaque      是否存在不可访问的引用字段
+     */
+    private record Layout(long shallowSize, List<Field> references, boolean opaque) {
+
+        static Layout of(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> references = new ArrayList<>();
+            boolean opaque = false;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    if (fieldType.isPrimitive()) {
+                        size += primitiveSize(fieldType);
+                        continue;
+                    }
+                    size += REFERENCE;
+                    if (field.trySetAccessible()) {
+                        references.add(field);
+                    } else {
+                        opaque = true;
+                    }
+                }
+            }
+            return new Layout(align(size), List.copyOf(references), opaque);
+        }
+    }
+}
@@ -3,6 +3,11 @@ package com.oneinstep.rule.core.service;
 import com.alibaba.fastjson2.JSON;
 import com.oneinstep.rule.core.config.RuleLogProperties;
 import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.model.RuleLogPage;
+import com.oneinstep.rule.core.model.RuleLogQuery;
+import com.oneinstep.rule.core.store.LogRecordIndexer;
+import com.oneinstep.rule.core.store.SegmentedLogStore;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -11,6 +16,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -29,6 +35,8 @@ public class RuleExecutionLogService {
     private final Map<String, Long> ruleExecutionStats;
     // 日志文件路径
     private final String logFilePath;
+    // 分段日志存储，支持按时间、规则组、规则ID查询
+    private final SegmentedLogStore<RuleExecutionLog> logStore;
 
     public RuleExecutionLogService(RuleLogProperties logProperties) {
         this.logQueue = new LinkedBlockingQueue<>(10000);
@@ -42,6 +50,13 @@ public class RuleExecutionLogService {
 
         this.logFilePath = new File(logDir, logProperties.getExecutionLogFile()).getPath();
         log.info("Rule execution log file path: {}", this.logFilePath);
+
+        this.logStore = SegmentedLogStore.create(logProperties, "execution", RuleExecutionLog.class,
+                LogRecordIndexer.of(
+                        executionLog -> executionLog.getExecuteTime() != null
+                                ? SegmentedLogStore.toEpochMillis(executionLog.getExecuteTime()) : 0L,
+                        RuleExecutionLog::getRuleGroup,
+                        executionLog -> Collections.singletonList(executionLog.getRuleId())));
     }
 
     /**
@@ -63,6 +78,8 @@ public class RuleExecutionLogService {
 
             // 写入文件日志
             writeToFile(executionLog);
+            // 写入分段存储
+            logStore.append(executionLog);
 
         } catch (Exception e) {
             log.error("Failed to log rule execution", e);
@@ -107,6 +124,25 @@ public class RuleExecutionLogService {
         }
     }
 
+    /**
+     * 分页查询规则执行日志，按执行时间倒序
+     *
+     * @param query 查询条件
+     * @return 分页结果
+     */
+    public RuleLogPage<RuleExecutionLog> query(RuleLogQuery query) {
+        return logStore.query(query,
+                executionLog -> query.getSuccess() == null || query.getSuccess() == executionLog.isSuccess());
+    }
+
+    /**
+     * 落盘并关闭分段存储
+     */
+    @PreDestroy
+    public void close() {
+        logStore.close();
+    }
+
     /**
      * 获取规则组平均执行时间
      *
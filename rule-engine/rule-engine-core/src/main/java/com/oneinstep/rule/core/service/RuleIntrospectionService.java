@@ -0,0 +1,201 @@
+package com.oneinstep.rule.core.service;
+
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.GroupKieBase;
+import com.oneinstep.rule.core.executor.StreamSessionManager;
+import com.oneinstep.rule.core.model.RuleNetworkReport;
+import lombok.extern.slf4j.Slf4j;
+import org.drools.base.common.NetworkNode;
+import org.drools.core.common.BaseNode;
+import org.drools.core.impl.InternalRuleBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieRepository;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 规则网络检查服务
+ * 遍历 {@link DynamicRuleLoader} 中各规则组生效的 KieBase，统计 Rete 网络的节点数、节点共享情况，
+ * 并估算 KieBase、每次执行新建的会话以及长期存在的事件流会话的内存占用，用于堆容量规划和发现使网络膨胀的规则。
+ * <p>
+ * 统计需要遍历整个对象图，只应按需调用，不要放在执行路径上。
+ */
+@Slf4j
+@Service
+public class RuleIntrospectionService {
+
+    // 报告中列出的关联节点最多的规则数
+    private static final int LARGEST_RULES = 10;
+
+    private final DynamicRuleLoader ruleLoader;
+
+    // 事件流会话管理器，为空时不统计事件流会话
+    private final StreamSessionManager streamSessionManager;
+
+    public RuleIntrospectionService(DynamicRuleLoader ruleLoader) {
+        this(ruleLoader, null);
+    }
+
+    @Autowired
+    public RuleIntrospectionService(DynamicRuleLoader ruleLoader, StreamSessionManager streamSessionManager) {
+        this.ruleLoader = ruleLoader;
+        this.streamSessionManager = streamSessionManager;
+    }
+
+    /**
+     * 统计所有已加载的规则组，按规则组名排序
+     */
+    public List<RuleNetworkReport> inspectAll() {
+        return ruleLoader.getGroups().stream()
+                .sorted()
+                .map(this::inspect)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * 统计规则组当前生效的版本
+     *
+     * @param group 规则组
+     * @return 报告，规则组未加载时返回 null
+     */
+    public RuleNetworkReport inspect(String group) {
+        if (!ruleLoader.getGroups().contains(group)) {
+            return null;
+        }
+        GroupKieBase kieBase = ruleLoader.getKieBase(group);
+        if (kieBase == null) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        InternalRuleBase ruleBase = (InternalRuleBase) kieBase.kieBase();
+
+        RuleNetworkReport report = RuleNetworkReport.builder()
+                .ruleGroup(group)
+                .version(ruleLoader.getReleaseId(group) != null ? ruleLoader.getReleaseId(group).getVersion() : null)
+                .compileTime(ruleLoader.getCompileTime(group))
+                .descriptor(kieBase.descriptor().toString())
+                .ruleCount(ruleBase.getKiePackages().stream().mapToInt(kiePackage -> kiePackage.getRules().size()).sum())
+                .build();
+        inspectNetwork(ruleBase, report);
+        inspectMemory(group, kieBase, report);
+        report.setInspectMillis(System.currentTimeMillis() - start);
+
+        log.info("Inspected rule group: {}, version: {}, nodes: {}, kieBase bytes: {}, inspect millis: {}",
+                group, report.getVersion(), report.getNodeCount(), report.getKieBaseBytes(), report.getInspectMillis());
+        return report;
+    }
+
+    /**
+     * 从入口节点开始遍历网络，统计节点类型、共享情况和各规则关联的节点数
+     */
+    private void inspectNetwork(InternalRuleBase ruleBase, RuleNetworkReport report) {
+        Set<BaseNode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<BaseNode> pending = new ArrayDeque<>(ruleBase.getRete().getEntryPointNodes().values());
+        Map<String, Integer> nodeCountByType = new TreeMap<>();
+        Map<String, Integer> nodesByRule = new HashMap<>();
+        int sharedNodes = 0;
+        int associatedNodes = 0;
+        long associations = 0;
+
+        while (!pending.isEmpty()) {
+            BaseNode node = pending.pop();
+            if (!nodes.add(node)) {
+                continue;
+            }
+            nodeCountByType.merge(node.getClass().getSimpleName(), 1, Integer::sum);
+
+            int associationsSize = node.getAssociationsSize();
+            if (associationsSize > 0) {
+                associatedNodes++;
+                associations += associationsSize;
+                for (Rule rule : node.getAssociatedRules()) {
+                    nodesByRule.merge(rule.getName(), 1, Integer::sum);
+                }
+            }
+            if (associationsSize > 1) {
+                sharedNodes++;
+            }
+
+            NetworkNode[] sinks = node.getSinks();
+            if (sinks != null) {
+                for (NetworkNode sink : sinks) {
+                    if (sink instanceof BaseNode baseNode) {
+                        pending.push(baseNode);
+                    }
+                }
+            }
+        }
+
+        Map<String, Integer> largestRules = new LinkedHashMap<>();
+        nodesByRule.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(LARGEST_RULES)
+                .forEach(entry -> largestRules.put(entry.getKey(), entry.getValue()));
+
+        report.setNodeCount(nodes.size());
+        report.setNodeCountByType(nodeCountByType);
+        report.setSharedNodeCount(sharedNodes);
+        report.setSharingRatio(associatedNodes == 0 ? 0 : (double) associations / associatedNodes);
+        report.setLargestRules(largestRules);
+    }
+
+    /**
+     * 依次估算 KieBase、新建会话、事件流会话的占用，后者不重复计算前者已统计的对象(例如网络节点)
+     */
+    private void inspectMemory(String group, GroupKieBase kieBase, RuleNetworkReport report) {
+        HeapEstimator estimator = new HeapEstimator(RuleIntrospectionService::isBoundary);
+        report.setKieBaseBytes(estimator.estimate(kieBase.kieBase()));
+
+        try (KieSession session = kieBase.descriptor().newKieSession(kieBase.kieBase())) {
+            report.setSessionBytes(estimator.estimate(session));
+        } catch (RuntimeException e) {
+            log.debug("Cannot create stateful session for group: {}, {}", group, e.getMessage());
+        }
+
+        if (streamSessionManager != null && streamSessionManager.isStreamGroup(group)) {
+            streamSessionManager.inspect(group, session -> {
+                report.setStreamSessionBytes(estimator.estimate(session));
+                report.setStreamSessionFactCount(session.getEntryPoints().stream()
+                        .mapToLong(EntryPoint::getFactCount)
+                        .sum());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 遍历边界：会话、容器、仓库等由多个对象共享或单独统计的对象，以及线程和日志等全局对象
+     */
+    private static boolean isBoundary(Object object) {
+        return object instanceof KieSession
+                || object instanceof StatelessKieSession
+                || object instanceof KieContainer
+                || object instanceof KieRepository
+                || object instanceof KieServices
+                || object instanceof Thread
+                || object instanceof ExecutorService
+                || object instanceof Logger;
+    }
+}
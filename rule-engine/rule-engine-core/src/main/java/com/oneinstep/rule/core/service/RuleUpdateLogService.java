@@ -2,7 +2,12 @@ package com.oneinstep.rule.core.service;
 
 import com.alibaba.fastjson2.JSON;
 import com.oneinstep.rule.core.config.RuleLogProperties;
+import com.oneinstep.rule.core.model.RuleLogPage;
+import com.oneinstep.rule.core.model.RuleLogQuery;
 import com.oneinstep.rule.core.model.RuleUpdateLog;
+import com.oneinstep.rule.core.store.LogRecordIndexer;
+import com.oneinstep.rule.core.store.SegmentedLogStore;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -30,6 +35,8 @@ public class RuleUpdateLogService {
     private final List<RuleUpdateLog> recentLogs;
     // 日志文件路径
     private final String logFilePath;
+    // 分段日志存储，支持按时间、规则组、规则ID查询
+    private final SegmentedLogStore<RuleUpdateLog> logStore;
     // 最大最近更新日志数量
     private static final int MAX_RECENT_LOGS = 100;
 
@@ -45,6 +52,13 @@ public class RuleUpdateLogService {
 
         this.logFilePath = new File(logDir, logProperties.getUpdateLogFile()).getPath();
         log.info("Rule update log file path: {}", this.logFilePath);
+
+        this.logStore = SegmentedLogStore.create(logProperties, "update", RuleUpdateLog.class,
+                LogRecordIndexer.of(
+                        updateLog -> updateLog.getUpdateTime() != null
+                                ? SegmentedLogStore.toEpochMillis(updateLog.getUpdateTime()) : 0L,
+                        RuleUpdateLog::getRuleGroup,
+                        RuleUpdateLog::getUpdatedRuleIds));
     }
 
     /**
@@ -69,6 +83,8 @@ public class RuleUpdateLogService {
 
             // 写入文件日志
             writeToFile(updateLog);
+            // 写入分段存储
+            logStore.append(updateLog);
 
         } catch (Exception e) {
             log.error("Failed to log rule update", e);
@@ -81,11 +97,15 @@ public class RuleUpdateLogService {
     private void writeToFile(RuleUpdateLog updateLog) {
         try (PrintWriter writer = new PrintWriter(new FileWriter(logFilePath, true))) {
             // 写入日志
-            String logEntry = String.format("[%s] Group: %s, Rules: %s, Operator: %s, Success: %s%s",
+            String logEntry = String.format("[%s] Group: %s, Rules: %s, Operator: %s, Coalesced: %d, Skipped: %d, Version: %s, Shadow: %s, Success: %s%s",
                     DATE_FORMATTER.format(updateLog.getUpdateTime()),
                     updateLog.getRuleGroup(),
                     JSON.toJSONString(updateLog.getUpdatedRuleIds()),
                     updateLog.getOperator(),
+                    updateLog.getCoalescedCount(),
+                    updateLog.getSkippedCount(),
+                    updateLog.getVersion(),
+                    updateLog.isShadow(),
                     updateLog.isSuccess(),
                     updateLog.isSuccess() ? "" : ", Error: " + updateLog.getErrorMessage());
             writer.println(logEntry);
@@ -103,6 +123,25 @@ public class RuleUpdateLogService {
         }
     }
 
+    /**
+     * 分页查询规则更新日志，按更新时间倒序
+     *
+     * @param query 查询条件
+     * @return 分页结果
+     */
+    public RuleLogPage<RuleUpdateLog> query(RuleLogQuery query) {
+        return logStore.query(query,
+                updateLog -> query.getSuccess() == null || query.getSuccess() == updateLog.isSuccess());
+    }
+
+    /**
+     * 落盘并关闭分段存储
+     */
+    @PreDestroy
+    public void close() {
+        logStore.close();
+    }
+
     /**
      * 获取日志文件路径
      */
@@ -0,0 +1,61 @@
+package com.oneinstep.rule.core.store;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 数据块稀疏索引
+ * 每个压缩数据块对应一条索引，记录块位置及块内记录的时间范围、规则组和规则ID
+ */
+@Data
+@NoArgsConstructor
+public class BlockIndex {
+    /**
+     * 块在分段数据文件中的偏移量
+     */
+    private long offset;
+    /**
+     * 压缩后长度
+     */
+    private int length;
+    /**
+     * 压缩前长度
+     */
+    private int rawLength;
+    /**
+     * 记录数
+     */
+    private int count;
+    /**
+     * 最早记录时间
+     */
+    private long minTime;
+    /**
+     * 最晚记录时间
+     */
+    private long maxTime;
+    /**
+     * 块内规则组
+     */
+    private Set<String> groups = new HashSet<>();
+    /**
+     * 块内规则ID
+     */
+    private Set<String> ruleIds = new HashSet<>();
+
+    /**
+     * 判断块是否可能包含满足条件的记录
+     */
+    boolean mayContain(long from, long to, String group, String ruleId) {
+        if (maxTime < from || minTime > to) {
+            return false;
+        }
+        if (group != null && !groups.contains(group)) {
+            return false;
+        }
+        return ruleId == null || ruleIds.contains(ruleId);
+    }
+}
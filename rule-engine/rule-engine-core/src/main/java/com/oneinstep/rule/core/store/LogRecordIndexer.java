@@ -0,0 +1,50 @@
+package com.oneinstep.rule.core.store;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 日志记录索引字段提取器
+ * 分段存储按时间、规则组和规则ID建立稀疏索引
+ *
+ * @param <T> 日志记录类型
+ */
+public interface LogRecordIndexer<T> {
+
+    /**
+     * 记录时间(毫秒时间戳)
+     */
+    long timeMillis(T logRecord);
+
+    /**
+     * 规则组
+     */
+    String group(T logRecord);
+
+    /**
+     * 涉及的规则ID
+     */
+    Collection<String> ruleIds(T logRecord);
+
+    static <T> LogRecordIndexer<T> of(ToLongFunction<T> timeMillis,
+                                      Function<T, String> group,
+                                      Function<T, Collection<String>> ruleIds) {
+        return new LogRecordIndexer<>() {
+            @Override
+            public long timeMillis(T logRecord) {
+                return timeMillis.applyAsLong(logRecord);
+            }
+
+            @Override
+            public String group(T logRecord) {
+                return group.apply(logRecord);
+            }
+
+            @Override
+            public Collection<String> ruleIds(T logRecord) {
+                return ruleIds.apply(logRecord);
+            }
+        };
+    }
+}
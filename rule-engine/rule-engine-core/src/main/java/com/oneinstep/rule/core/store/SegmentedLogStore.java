@@ -0,0 +1,647 @@
+package com.oneinstep.rule.core.store;
+
+import com.alibaba.fastjson2.JSONB;
+import com.oneinstep.rule.core.config.RuleLogProperties;
+import com.oneinstep.rule.core.model.RuleLogPage;
+import com.oneinstep.rule.core.model.RuleLogQuery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 分段日志存储
+ * <p>
+ * 存储结构：
+ * - 按时间轮转分段，每个分段包含数据文件(.seg)和索引文件(.idx)
+ * - 数据文件由压缩数据块组成，块内记录使用 fastjson2 JSONB 编码
+ * - 索引文件为每个数据块记录一条稀疏索引：位置、时间范围、规则组、规则ID
+ * <p>
+ * 查询时按时间倒序遍历分段和数据块，通过稀疏索引跳过不可能命中的数据块，只解压候选块
+ * <p>
+ * 记录在追加时序列化，之后修改原对象不影响日志内容。
+ * 攒满的数据块在锁内交给落盘线程，压缩和写文件不占用追加的锁
+ *
+ * @param <T> 日志记录类型
+ */
+@Slf4j
+public class SegmentedLogStore<T> implements Closeable {
+
+    private static final String DATA_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    // 分段文件名格式，即分段开始时间
+    private static final DateTimeFormatter SEGMENT_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmm");
+
+    private final Path dir;
+    private final Class<T> type;
+    private final LogRecordIndexer<T> indexer;
+    private final long rotationMillis;
+    private final long retentionMillis;
+    private final int blockSize;
+    private final LongSupplier clock;
+    // 落盘线程，压缩写入数据块和定时刷新
+    private final ScheduledExecutorService flusher;
+    // 保证数据块按顺序写入，与追加使用的锁分开
+    private final Object sealLock = new Object();
+
+    // 所有分段 key: 分段开始时间
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // 当前写入分段
+    private Segment active;
+    // 尚未攒满数据块的记录
+    private List<PendingRecord> pendingRecords = new ArrayList<>();
+    // 等待落盘的数据块，写入完成后移除，写入前仍可查询
+    private final Deque<SealTask> sealQueue = new ArrayDeque<>();
+
+    /**
+     * @param dir           存储目录
+     * @param type          日志记录类型
+     * @param indexer       索引字段提取器
+     * @param rotation      分段轮转周期
+     * @param retention     保留时长
+     * @param blockSize     每个数据块的记录数
+     * @param flushInterval 未满数据块的定时落盘间隔
+     */
+    public SegmentedLogStore(Path dir, Class<T> type, LogRecordIndexer<T> indexer,
+                             Duration rotation, Duration retention, int blockSize, Duration flushInterval) {
+        this(dir, type, indexer, rotation, retention, blockSize, flushInterval, System::currentTimeMillis);
+    }
+
+    /**
+     * 按日志配置创建分段存储
+     *
+     * @param logProperties 日志配置
+     * @param name          存储名称，作为存储目录下的子目录
+     * @param type          日志记录类型
+     * @param indexer       索引字段提取器
+     */
+    public static <T> SegmentedLogStore<T> create(RuleLogProperties logProperties, String name, Class<T> type,
+                                                  LogRecordIndexer<T> indexer) {
+        RuleLogProperties.Store store = logProperties.getStore() != null
+                ? logProperties.getStore() : new RuleLogProperties.Store();
+        Path baseDir = store.getDir() != null ? Path.of(store.getDir()) : Path.of(logProperties.getLogDir(), "store");
+        return new SegmentedLogStore<>(baseDir.resolve(name), type, indexer,
+                Duration.ofMinutes(store.getRotationMinutes()), Duration.ofHours(store.getRetentionHours()),
+                store.getBlockSize(), Duration.ofMillis(store.getFlushIntervalMs()));
+    }
+
+    SegmentedLogStore(Path dir, Class<T> type, LogRecordIndexer<T> indexer,
+                      Duration rotation, Duration retention, int blockSize, Duration flushInterval,
+                      LongSupplier clock) {
+        this.dir = dir;
+        this.type = type;
+        this.indexer = indexer;
+        this.rotationMillis = rotation.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.blockSize = blockSize;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.error("Failed to create log store directory: {}", dir, e);
+        }
+        loadSegments();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-store-flusher-" + dir.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushInterval != null) {
+            long interval = flushInterval.toMillis();
+            this.flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 追加日志记录
+     * 记录序列化后进入内存缓冲，攒满一个数据块或定时刷新时由落盘线程压缩落盘
+     */
+    public void append(T logRecord) {
+        PendingRecord pendingRecord = toPendingRecord(logRecord);
+        boolean write = false;
+        synchronized (this) {
+            long segmentStart = segmentStart(clock.getAsLong());
+            if (active == null || active.start != segmentStart) {
+                rotate(segmentStart);
+                write = true;
+            }
+            pendingRecords.add(pendingRecord);
+            if (pendingRecords.size() >= blockSize) {
+                write |= sealPending();
+            }
+        }
+        if (write) {
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * 将缓冲中的记录落盘，并检查是否需要轮转
+     * 返回时调用前追加的记录均已写入文件
+     */
+    public void flush() {
+        try {
+            synchronized (this) {
+                long segmentStart = segmentStart(clock.getAsLong());
+                if (active != null && active.start != segmentStart) {
+                    rotate(segmentStart);
+                } else {
+                    sealPending();
+                }
+            }
+            writeSealed();
+        } catch (Exception e) {
+            log.error("Failed to flush log store: {}", dir, e);
+        }
+    }
+
+    /**
+     * 按查询条件分页查询，结果按时间倒序
+     *
+     * @param query  查询条件
+     * @param filter 查询条件之外的过滤条件
+     * @return 分页结果
+     */
+    public RuleLogPage<T> query(RuleLogQuery query, Predicate<T> filter) {
+        long from = query.getFrom() != null ? toEpochMillis(query.getFrom()) : Long.MIN_VALUE;
+        long to = query.getTo() != null ? toEpochMillis(query.getTo()) : Long.MAX_VALUE;
+        return query(from, to, query.getRuleGroup(), query.getRuleId(), filter,
+                Math.max(query.getPage(), 0), Math.max(query.getSize(), 1));
+    }
+
+    /**
+     * 分页查询，结果按时间倒序
+     *
+     * @param from   开始时间(毫秒，包含)
+     * @param to     结束时间(毫秒，包含)
+     * @param group  规则组，为空时不过滤
+     * @param ruleId 规则ID，为空时不过滤
+     * @param filter 其他过滤条件
+     * @param page   页码，从0开始
+     * @param size   每页条数
+     * @return 分页结果
+     */
+    public RuleLogPage<T> query(long from, long to, String group, String ruleId,
+                                Predicate<T> filter, int page, int size) {
+        List<PendingRecord> pending = new ArrayList<>();
+        List<Map.Entry<Path, List<BlockIndex>>> candidates = new ArrayList<>();
+        synchronized (this) {
+            // 等待落盘的数据块早于缓冲中的记录
+            sealQueue.forEach(task -> pending.addAll(task.records()));
+            pending.addAll(pendingRecords);
+            for (Segment segment : segments.descendingMap().values()) {
+                List<BlockIndex> blocks = new ArrayList<>();
+                for (int i = segment.blocks.size() - 1; i >= 0; i--) {
+                    BlockIndex block = segment.blocks.get(i);
+                    if (block.mayContain(from, to, group, ruleId)) {
+                        blocks.add(block);
+                    }
+                }
+                if (!blocks.isEmpty()) {
+                    candidates.add(Map.entry(segment.dataFile, blocks));
+                }
+            }
+        }
+
+        PageCollector<T> collector = new PageCollector<>(page, size);
+        Predicate<T> matcher = logRecord -> matches(logRecord, from, to, group, ruleId) && filter.test(logRecord);
+
+        // 先查未落盘的记录，再按时间倒序查询已落盘的数据块
+        List<T> unsealed = new ArrayList<>();
+        for (PendingRecord pendingRecord : pending) {
+            if (pendingRecord.mayMatch(from, to, group, ruleId)) {
+                unsealed.add(JSONB.parseObject(pendingRecord.bytes(), type));
+            }
+        }
+        if (collector.offerReversed(unsealed, matcher)) {
+            return collector.toPage();
+        }
+        for (Map.Entry<Path, List<BlockIndex>> candidate : candidates) {
+            for (BlockIndex block : candidate.getValue()) {
+                try {
+                    if (collector.offerReversed(readBlock(candidate.getKey(), block), matcher)) {
+                        return collector.toPage();
+                    }
+                } catch (IOException | DataFormatException e) {
+                    log.warn("Failed to read log block at {} from {}", block.getOffset(), candidate.getKey(), e);
+                }
+            }
+        }
+        return collector.toPage();
+    }
+
+    /**
+     * 停止定时刷新，并将缓冲中的记录落盘
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (this) {
+            sealPending();
+        }
+        writeSealed();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Log store flusher did not terminate in time: {}", dir);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 转换为毫秒时间戳
+     */
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // ====== 内部方法 ======
+
+    private long segmentStart(long timeMillis) {
+        return timeMillis - Math.floorMod(timeMillis, rotationMillis);
+    }
+
+    private boolean matches(T logRecord, long from, long to, String group, String ruleId) {
+        long time = indexer.timeMillis(logRecord);
+        if (time < from || time > to) {
+            return false;
+        }
+        if (group != null && !group.equals(indexer.group(logRecord))) {
+            return false;
+        }
+        if (ruleId == null) {
+            return true;
+        }
+        Collection<String> ruleIds = indexer.ruleIds(logRecord);
+        return ruleIds != null && ruleIds.contains(ruleId);
+    }
+
+    /**
+     * 轮转到新分段，旧分段的缓冲记录先加入落盘队列，过期分段在落盘后清理
+     */
+    private void rotate(long segmentStart) {
+        sealPending();
+        active = segments.computeIfAbsent(segmentStart, this::newSegment);
+    }
+
+    /**
+     * 删除超过保留时长且没有等待落盘数据块的分段
+     */
+    private void purgeExpired() {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (this) {
+            long expireBefore = clock.getAsLong() - retentionMillis;
+            while (!segments.isEmpty()) {
+                Segment oldest = segments.firstEntry().getValue();
+                if (oldest == active || oldest.start + rotationMillis > expireBefore
+                        || sealQueue.stream().anyMatch(task -> task.segment() == oldest)) {
+                    break;
+                }
+                expired.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Segment oldest : expired) {
+            try {
+                Files.deleteIfExists(oldest.dataFile);
+                Files.deleteIfExists(oldest.indexFile);
+                log.info("Purged expired log segment: {}", oldest.dataFile);
+            } catch (IOException e) {
+                log.warn("Failed to purge log segment: {}", oldest.dataFile, e);
+            }
+        }
+    }
+
+    /**
+     * 将缓冲中的记录作为一个数据块加入落盘队列，调用方持有锁
+     *
+     * @return 是否加入了数据块
+     */
+    private boolean sealPending() {
+        if (pendingRecords.isEmpty() || active == null) {
+            return false;
+        }
+        sealQueue.addLast(new SealTask(active, pendingRecords));
+        pendingRecords = new ArrayList<>();
+        return true;
+    }
+
+    /**
+     * 由落盘线程写入等待落盘的数据块，已关闭时在当前线程写入
+     */
+    private void scheduleWrite() {
+        try {
+            flusher.execute(this::writeSealed);
+        } catch (RejectedExecutionException e) {
+            writeSealed();
+        }
+    }
+
+    /**
+     * 按顺序写入等待落盘的数据块，写完后清理过期分段
+     */
+    private void writeSealed() {
+        synchronized (sealLock) {
+            while (true) {
+                SealTask task;
+                synchronized (this) {
+                    task = sealQueue.peekFirst();
+                }
+                if (task == null) {
+                    purgeExpired();
+                    return;
+                }
+                BlockIndex block = writeBlock(task.segment(), task.records());
+                synchronized (this) {
+                    if (block != null) {
+                        task.segment().blocks.add(block);
+                    }
+                    sealQueue.pollFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * 将记录压缩为一个数据块写入分段
+     *
+     * @return 数据块索引，写入失败时返回 null
+     */
+    private BlockIndex writeBlock(Segment segment, List<PendingRecord> records) {
+        try {
+            BlockIndex block = new BlockIndex();
+            block.setCount(records.size());
+            block.setMinTime(Long.MAX_VALUE);
+            block.setMaxTime(Long.MIN_VALUE);
+
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(records.size() * 256);
+            DataOutputStream out = new DataOutputStream(raw);
+            for (PendingRecord pendingRecord : records) {
+                out.writeInt(pendingRecord.bytes().length);
+                out.write(pendingRecord.bytes());
+
+                block.setMinTime(Math.min(block.getMinTime(), pendingRecord.time()));
+                block.setMaxTime(Math.max(block.getMaxTime(), pendingRecord.time()));
+                if (pendingRecord.group() != null) {
+                    block.getGroups().add(pendingRecord.group());
+                }
+                block.getRuleIds().addAll(pendingRecord.ruleIds());
+            }
+            byte[] compressed = deflate(raw.toByteArray());
+            block.setRawLength(raw.size());
+            block.setLength(compressed.length);
+            block.setOffset(Files.exists(segment.dataFile) ? Files.size(segment.dataFile) : 0L);
+
+            Files.write(segment.dataFile, compressed, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            byte[] indexBytes = JSONB.toBytes(block);
+            ByteBuffer indexEntry = ByteBuffer.allocate(Integer.BYTES + indexBytes.length)
+                    .putInt(indexBytes.length)
+                    .put(indexBytes);
+            Files.write(segment.indexFile, indexEntry.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return block;
+        } catch (IOException e) {
+            log.error("Failed to write log block to {}, {} records dropped", segment.dataFile, records.size(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 序列化记录并提取索引字段
+     */
+    private PendingRecord toPendingRecord(T logRecord) {
+        Collection<String> ruleIds = indexer.ruleIds(logRecord);
+        return new PendingRecord(JSONB.toBytes(logRecord), indexer.timeMillis(logRecord), indexer.group(logRecord),
+                ruleIds != null ? ruleIds.stream().filter(Objects::nonNull).toList() : List.of());
+    }
+
+    private List<T> readBlock(Path dataFile, BlockIndex block) throws IOException, DataFormatException {
+        byte[] compressed = new byte[block.getLength()];
+        try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "r")) {
+            file.seek(block.getOffset());
+            file.readFully(compressed);
+        }
+        byte[] raw = inflate(compressed, block.getRawLength());
+
+        List<T> records = new ArrayList<>(block.getCount());
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        while (buffer.remaining() >= Integer.BYTES) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            records.add(JSONB.parseObject(bytes, type));
+        }
+        return records;
+    }
+
+    private Segment newSegment(long start) {
+        String name = LocalDateTime.ofInstant(Instant.ofEpochMilli(start), ZoneId.systemDefault())
+                .format(SEGMENT_NAME_FORMATTER);
+        return new Segment(start, dir.resolve(name + DATA_SUFFIX), dir.resolve(name + INDEX_SUFFIX));
+    }
+
+    /**
+     * 启动时加载已有分段的索引
+     */
+    private void loadSegments() {
+        try (DirectoryStream<Path> indexFiles = Files.newDirectoryStream(dir, "*" + INDEX_SUFFIX)) {
+            for (Path indexFile : indexFiles) {
+                String name = indexFile.getFileName().toString().replace(INDEX_SUFFIX, "");
+                long start;
+                try {
+                    start = LocalDateTime.parse(name, SEGMENT_NAME_FORMATTER)
+                            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    log.warn("Ignoring unrecognized log segment: {}", indexFile);
+                    continue;
+                }
+                Segment segment = newSegment(start);
+                segment.blocks.addAll(readIndex(indexFile, segment.dataFile));
+                segments.put(start, segment);
+            }
+        } catch (IOException e) {
+            log.error("Failed to load log segments from {}", dir, e);
+        }
+    }
+
+    /**
+     * 读取分段索引，忽略进程中断时写了一半的尾部记录
+     */
+    private List<BlockIndex> readIndex(Path indexFile, Path dataFile) throws IOException {
+        List<BlockIndex> blocks = new ArrayList<>();
+        long dataSize = Files.exists(dataFile) ? Files.size(dataFile) : 0L;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(indexFile))) {
+            while (true) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                BlockIndex block = JSONB.parseObject(bytes, BlockIndex.class);
+                if (block.getOffset() + block.getLength() > dataSize) {
+                    break;
+                }
+                if (block.getGroups() == null) {
+                    block.setGroups(new HashSet<>());
+                }
+                if (block.getRuleIds() == null) {
+                    block.setRuleIds(new HashSet<>());
+                }
+                blocks.add(block);
+            }
+        } catch (EOFException e) {
+            // 读取到文件末尾
+        }
+        return blocks;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(raw.length / 4, 64));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 日志分段
+     */
+    private static class Segment {
+        private final long start;
+        private final Path dataFile;
+        private final Path indexFile;
+        private final List<BlockIndex> blocks = new ArrayList<>();
+
+        private Segment(long start, Path dataFile, Path indexFile) {
+            this.start = start;
+            this.dataFile = dataFile;
+            this.indexFile = indexFile;
+        }
+    }
+
+    /**
+     * 已序列化、未落盘的记录
+     *
+     * @param bytes   JSONB 编码的记录
+     * @param time    记录时间(毫秒)
+     * @param group   规则组
+     * @param ruleIds 规则ID
+     */
+    private record PendingRecord(byte[] bytes, long time, String group, List<String> ruleIds) {
+
+        private boolean mayMatch(long from, long to, String group, String ruleId) {
+            return time >= from && time <= to
+                    && (group == null || group.equals(this.group))
+                    && (ruleId == null || ruleIds.contains(ruleId));
+        }
+    }
+
+    /**
+     * 等待写入分段的数据块
+     */
+    private record SealTask(Segment segment, List<PendingRecord> records) {
+    }
+
+    /**
+     * 分页收集器
+     */
+    private static class PageCollector<T> {
+        private final int size;
+        private int toSkip;
+        private final List<T> items = new ArrayList<>();
+        private boolean hasMore;
+        private final int page;
+
+        private PageCollector(int page, int size) {
+            this.page = page;
+            this.size = size;
+            this.toSkip = page * size;
+        }
+
+        /**
+         * 倒序遍历记录
+         *
+         * @return 当前页已满且确认还有下一页时返回 true
+         */
+        private boolean offerReversed(List<T> records, Predicate<T> matcher) {
+            for (int i = records.size() - 1; i >= 0; i--) {
+                T logRecord = records.get(i);
+                if (!matcher.test(logRecord)) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                } else if (items.size() < size) {
+                    items.add(logRecord);
+                } else {
+                    hasMore = true;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private RuleLogPage<T> toPage() {
+            return RuleLogPage.<T>builder()
+                    .items(items)
+                    .page(page)
+                    .size(size)
+                    .hasMore(hasMore)
+                    .build();
+        }
+    }
+}
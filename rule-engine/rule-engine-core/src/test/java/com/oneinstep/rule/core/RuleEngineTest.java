@@ -0,0 +1,132 @@
+package com.oneinstep.rule.core;
+
+import com.oneinstep.rule.core.config.loader.FeeQuote;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.model.RuleExecutionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleEngineTest {
+
+    private static final String GROUP = "feeGroup";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 测试从目录加载
+     * 验证:
+     * 1. 规则组在首次执行时才加载
+     * 2. 按 kbase.properties 配置会话类型，可索引的决策表注册到注册表
+     * 3. 执行日志写入指定目录
+     */
+    @Test
+    void shouldLoadGroupFromDirectoryOnFirstUse() throws IOException {
+        Path groupDir = Files.createDirectories(tempDir.resolve("rules").resolve(GROUP));
+        Files.writeString(groupDir.resolve("minimum_fee.drl"), """
+                package rules.feeGroup;
+
+                import com.oneinstep.rule.core.config.loader.FeeQuote;
+
+                rule "minimum_fee"
+                when
+                    $fee: FeeQuote(minimum == 0)
+                then
+                    $fee.setMinimum(5);
+                end
+                """);
+        Files.writeString(groupDir.resolve(KieBaseDescriptor.FILE_NAME), "rule.session=stateless\n");
+        Files.writeString(groupDir.resolve("market_fee.csv"), """
+                RuleSet,rules.feeGroup
+                Import,com.oneinstep.rule.core.config.loader.FeeQuote
+
+                RuleTable market_fee
+                CONDITION,ACTION
+                $fee: FeeQuote,
+                "market == \"\"$param\"\"",$fee.setRate($param);
+                市场,费率
+                SH,0.003
+                """);
+        Path logDir = tempDir.resolve("logs");
+
+        try (RuleEngine engine = RuleEngine.builder()
+                .rulesFrom(tempDir.resolve("rules"))
+                .logging(logDir)
+                .build()) {
+            assertFalse(engine.isLoaded(GROUP));
+
+            FeeQuote quote = new FeeQuote("SH", 1000, 10);
+            RuleExecutionResult result = engine.execute(GROUP, List.of(quote));
+
+            assertTrue(result.isSuccess());
+            assertEquals(1, result.getRulesExecuted());
+            assertEquals(5, quote.getMinimum());
+            assertTrue(engine.isLoaded(GROUP));
+            assertEquals(KieBaseDescriptor.SessionType.STATELESS,
+                    engine.getRuleLoader().getKieBase(GROUP).descriptor().getSessionType());
+
+            assertTrue(engine.getDecisionTables().find(GROUP, "market_fee").orElseThrow().apply(quote));
+            assertEquals(0.003, quote.getRate());
+
+            assertThrows(IllegalArgumentException.class, () -> engine.execute("missingGroup", List.of()));
+        }
+        assertTrue(Files.readString(logDir.resolve("rule-execution.log")).contains("minimum_fee"));
+    }
+
+    /**
+     * 测试只有可索引决策表的规则组
+     * 验证:
+     * 1. 规则组编译为空的 KieBase，执行成功且不触发规则
+     * 2. 决策表注册到注册表
+     */
+    @Test
+    void shouldLoadGroupWithOnlyIndexedDecisionTables() throws IOException {
+        Path groupDir = Files.createDirectories(tempDir.resolve("rules").resolve(GROUP));
+        Files.writeString(groupDir.resolve("market_fee.csv"), """
+                RuleSet,rules.feeGroup
+                Import,com.oneinstep.rule.core.config.loader.FeeQuote
+
+                RuleTable market_fee
+                CONDITION,ACTION
+                $fee: FeeQuote,
+                "market == \"\"$param\"\"",$fee.setRate($param);
+                市场,费率
+                SH,0.003
+                """);
+
+        try (RuleEngine engine = RuleEngine.builder()
+                .rulesFrom(tempDir.resolve("rules"))
+                .build()) {
+            FeeQuote quote = new FeeQuote("SH", 1000, 10);
+            RuleExecutionResult result = engine.execute(GROUP, List.of(quote));
+
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            assertEquals(0, result.getRulesExecuted());
+            assertTrue(engine.isLoaded(GROUP));
+
+            assertTrue(engine.getDecisionTables().find(GROUP, "market_fee").orElseThrow().apply(quote));
+            assertEquals(0.003, quote.getRate());
+        }
+    }
+
+    /**
+     * 测试默认从 classpath 加载，只编译用到的规则组
+     */
+    @Test
+    void shouldLoadGroupFromClasspath() {
+        try (RuleEngine engine = RuleEngine.builder().build()) {
+            RuleExecutionResult result = engine.execute("testGroup", List.of("rule_a", "rule_b"));
+
+            assertTrue(result.isSuccess());
+            assertEquals(2, result.getRulesExecuted());
+            assertEquals(1, engine.getRuleLoader().getGroups().size());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.oneinstep.rule.core.config;
+
+import com.oneinstep.rule.core.config.loader.DecisionTableRuleLoader;
+import com.oneinstep.rule.core.config.loader.DirectoryWatchRuleLoader;
+import com.oneinstep.rule.core.config.loader.LocalResourceRuleLoader;
+import com.oneinstep.rule.core.config.loader.NacosRuleLoader;
+import com.oneinstep.rule.core.config.loader.RuleLoader;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RuleMergerTest {
+
+    /**
+     * 测试规则ID重复时的优先级：Nacos > 本地目录 > classpath DRL > 决策表
+     */
+    @Test
+    void shouldKeepRuleFromHigherPriorityLoader() {
+        RuleLoader nacos = loader(NacosRuleLoader.class, "nacos", "all", "nacosAndDir");
+        RuleLoader directory = loader(DirectoryWatchRuleLoader.class, "directory",
+                "all", "nacosAndDir", "dirAndLocal");
+        RuleLoader local = loader(LocalResourceRuleLoader.class, "local",
+                "all", "dirAndLocal", "localAndTable");
+        RuleLoader table = loader(DecisionTableRuleLoader.class, "table",
+                "all", "localAndTable", "tableOnly");
+
+        // 注入顺序与优先级无关
+        Map<String, String> merged = new RuleMerger(List.of(table, local, directory, nacos)).mergeRules().stream()
+                .collect(Collectors.toMap(RuleDefinition::getRuleId, RuleDefinition::getRuleContent));
+
+        assertEquals(Map.of(
+                "all", "nacos",
+                "nacosAndDir", "nacos",
+                "dirAndLocal", "directory",
+                "localAndTable", "local",
+                "tableOnly", "table"), merged);
+    }
+
+    /**
+     * 模拟加载器，使用加载器本身的优先级，规则内容为加载器名称
+     */
+    private static <T extends RuleLoader> T loader(Class<T> type, String name, String... ruleIds) {
+        T loader = mock(type);
+        when(loader.getOrder()).thenCallRealMethod();
+        when(loader.loadRules()).thenReturn(Arrays.stream(ruleIds)
+                .map(ruleId -> new RuleDefinition(ruleId, ruleId, name, "testGroup"))
+                .toList());
+        return loader;
+    }
+}
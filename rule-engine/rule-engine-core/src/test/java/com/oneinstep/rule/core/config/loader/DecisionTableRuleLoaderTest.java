@@ -0,0 +1,131 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.decisiontable.DecisionTableRegistry;
+import com.oneinstep.rule.core.decisiontable.IndexedDecisionTable;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.drools.decisiontable.InputType;
+import org.drools.decisiontable.SpreadsheetCompiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class DecisionTableRuleLoaderTest {
+
+    private static final String GROUP = "tableGroup";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DecisionTableRegistry registry;
+
+    private DecisionTableRuleLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new DecisionTableRegistry();
+        loader = new DecisionTableRuleLoader(registry);
+    }
+
+    /**
+     * 测试加载决策表
+     * 验证:
+     * 1. 等值/区间条件的决策表被索引化，注册到注册表，不生成规则
+     * 2. 其余决策表生成 DRL，并能编译执行
+     */
+    @Test
+    void shouldIndexSimpleTablesAndCompileOthersToDrl() {
+        List<RuleDefinition> rules = loader.loadRules();
+
+        assertTrue(registry.find(GROUP, "fee_table").isPresent());
+        assertTrue(registry.find(GROUP, "tier_fee").isPresent());
+        assertEquals(1, rules.size());
+        RuleDefinition formula = rules.getFirst();
+        assertEquals("fee_formula", formula.getRuleId());
+        assertEquals(GROUP, formula.getRuleGroup());
+
+        DynamicRuleLoader dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+        dynamicRuleLoader.updateRules(rules);
+        FeeQuote matched = new FeeQuote("SH", 500, 2);
+        FeeQuote unmatched = new FeeQuote("SH", 100, 2);
+        assertEquals(1, dynamicRuleLoader.getKieBase(GROUP).execute(List.of(matched, unmatched), Map.of(), null, null));
+        assertEquals(0.01, matched.getRate());
+        assertEquals(0, unmatched.getRate());
+    }
+
+    /**
+     * 测试索引化决策表的匹配
+     * 验证:
+     * 1. 区间下界包含、上界不包含，空单元格不限
+     * 2. 多行匹配时取最上面的一行
+     */
+    @Test
+    void shouldMatchFirstRowByIndex() throws IOException {
+        IndexedDecisionTable table = IndexedDecisionTable.compile(GROUP, read("fee_table.csv"), InputType.CSV,
+                getClass().getClassLoader());
+        assertNotNull(table);
+        assertEquals(6, table.getRowCount());
+
+        assertEquals(0.003, rate(table, "SH", 5000, 10));
+        assertEquals(0.002, rate(table, "SH", 10000, 10));
+        assertEquals(0.0015, rate(table, "SH", 100000, 2000));
+        assertEquals(0.005, rate(table, "SH", 100000, 1000));
+        assertEquals(0.003, rate(table, "SH", 50, 10));
+        assertEquals(0.0025, rate(table, "SZ", 50, 10));
+        assertEquals(0.01, rate(table, "HK", 50, 10));
+        assertEquals(0.005, rate(table, "HK", 500, 10));
+        assertEquals(0.01, rate(table, null, 50, 10));
+
+        assertThrows(IllegalArgumentException.class, () -> table.match("not a fee"));
+    }
+
+    /**
+     * 测试索引化查找与生成的 DRL 执行结果一致，包括没有匹配行时不修改事实
+     */
+    @Test
+    void shouldMatchGeneratedDrl() throws IOException {
+        byte[] content = read("tier_fee.csv");
+        IndexedDecisionTable table = IndexedDecisionTable.compile(GROUP, content, InputType.CSV,
+                getClass().getClassLoader());
+        assertNotNull(table);
+
+        String drl = new SpreadsheetCompiler().compile(new ByteArrayInputStream(content), InputType.CSV);
+        DynamicRuleLoader dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+        dynamicRuleLoader.updateRules(List.of(new RuleDefinition("tier_fee", "tier_fee", drl, GROUP)));
+
+        for (double amount : new double[]{-1, 0, 9999.99, 10000, 50000, 100000, 999999999, 1000000000}) {
+            FeeQuote indexed = new FeeQuote("SH", amount, 1);
+            FeeQuote executed = new FeeQuote("SH", amount, 1);
+            boolean applied = table.apply(indexed);
+            int fired = dynamicRuleLoader.getKieBase(GROUP).execute(List.of(executed), Map.of(), null, null);
+
+            assertEquals(fired > 0, applied, "amount=" + amount);
+            assertEquals(executed, indexed, "amount=" + amount);
+        }
+    }
+
+    private double rate(IndexedDecisionTable table, String market, double amount, int quantity) {
+        FeeQuote quote = new FeeQuote(market, amount, quantity);
+        assertTrue(table.apply(quote));
+        return quote.getRate();
+    }
+
+    private byte[] read(String fileName) throws IOException {
+        try (InputStream inputStream = getClass().getClassLoader()
+                .getResourceAsStream("rules/" + GROUP + "/" + fileName)) {
+            assertNotNull(inputStream);
+            return inputStream.readAllBytes();
+        }
+    }
+}
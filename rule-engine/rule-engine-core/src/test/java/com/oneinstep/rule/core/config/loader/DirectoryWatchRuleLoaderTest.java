@@ -0,0 +1,141 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.config.RuleUpdateProperties;
+import com.oneinstep.rule.core.config.RuleWatchProperties;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectoryWatchRuleLoaderTest {
+
+    private static final String GROUP = "watchGroup";
+
+    @TempDir
+    Path rulesDir;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DynamicRuleLoader dynamicRuleLoader;
+
+    private RuleUpdateCoalescer coalescer;
+
+    private DirectoryWatchRuleLoader watchLoader;
+
+    @BeforeEach
+    void setUp() {
+        RuleUpdateProperties updateProperties = new RuleUpdateProperties();
+        updateProperties.setCoalesceWindowMs(100);
+        RuleWatchProperties watchProperties = new RuleWatchProperties();
+        watchProperties.setEnabled(true);
+        watchProperties.setDir(rulesDir.toString());
+        dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+        coalescer = new RuleUpdateCoalescer(dynamicRuleLoader, updateProperties);
+        watchLoader = new DirectoryWatchRuleLoader(dynamicRuleLoader, coalescer, watchProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchLoader.shutdown();
+        coalescer.shutdown();
+    }
+
+    /**
+     * 测试目录监听热加载
+     * 验证:
+     * 1. 启动时加载目录中的规则
+     * 2. 内容未变化的写入不触发更新
+     * 3. 修改和新增的规则文件、新增的规则组自动加载
+     */
+    @Test
+    void shouldReloadChangedFiles() throws Exception {
+        Path groupDir = Files.createDirectories(rulesDir.resolve(GROUP));
+        write(groupDir, "rule_a", 1);
+        Files.writeString(groupDir.resolve("notes.txt"), "ignored");
+
+        List<RuleDefinition> rules = watchLoader.loadRules();
+        assertEquals(1, rules.size());
+        assertEquals(GROUP, rules.getFirst().getRuleGroup());
+        assertEquals("rule_a", rules.getFirst().getRuleId());
+        dynamicRuleLoader.updateRules(rules);
+
+        // 相同内容重写，按摘要去重
+        write(groupDir, "rule_a", 1);
+        verify(eventPublisher, after(500).times(1)).publishEvent(any(RuleUpdateEvent.class));
+
+        write(groupDir, "rule_a", 2);
+        RuleUpdateLog updateLog = awaitUpdate(2);
+        assertTrue(updateLog.isSuccess());
+        assertEquals(List.of("rule_a"), updateLog.getUpdatedRuleIds());
+        assertNotNull(dynamicRuleLoader.getContainer(GROUP).getKieBase().getRule("rules." + GROUP, "rule_a_v2"));
+
+        write(groupDir, "rule_b", 1);
+        updateLog = awaitUpdate(3);
+        assertEquals(List.of("rule_b"), updateLog.getUpdatedRuleIds());
+        assertNotNull(dynamicRuleLoader.getContainer(GROUP).getKieBase().getRule("rules." + GROUP, "rule_a_v2"));
+
+        Path newGroupDir = Files.createDirectories(rulesDir.resolve("newGroup"));
+        Files.writeString(newGroupDir.resolve("rule_c.drl"), """
+                package rules.newGroup;
+
+                rule "rule_c"
+                when
+                    String()
+                then
+                end
+                """);
+        updateLog = awaitUpdate(4);
+        assertEquals("newGroup", updateLog.getRuleGroup());
+        assertNotNull(dynamicRuleLoader.getContainer("newGroup"));
+    }
+
+    /**
+     * 测试未启用时不加载
+     */
+    @Test
+    void shouldSkipWhenDisabled() throws IOException {
+        write(Files.createDirectories(rulesDir.resolve(GROUP)), "rule_a", 1);
+        RuleWatchProperties watchProperties = new RuleWatchProperties();
+        watchProperties.setDir(rulesDir.toString());
+
+        DirectoryWatchRuleLoader disabled = new DirectoryWatchRuleLoader(dynamicRuleLoader, coalescer, watchProperties);
+
+        assertTrue(disabled.loadRules().isEmpty());
+    }
+
+    private RuleUpdateLog awaitUpdate(int expectedEvents) {
+        ArgumentCaptor<RuleUpdateEvent> captor = ArgumentCaptor.forClass(RuleUpdateEvent.class);
+        verify(eventPublisher, timeout(10000).times(expectedEvents)).publishEvent(captor.capture());
+        return captor.getAllValues().getLast().getUpdateLog();
+    }
+
+    private void write(Path groupDir, String ruleId, int version) throws IOException {
+        Files.writeString(groupDir.resolve(ruleId + ".drl"), """
+                package rules.%s;
+
+                rule "%s_v%d"
+                when
+                    String()
+                then
+                end
+                """.formatted(GROUP, ruleId, version));
+    }
+}
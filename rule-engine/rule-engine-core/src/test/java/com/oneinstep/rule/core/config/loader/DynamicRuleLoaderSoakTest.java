@@ -0,0 +1,80 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热更新浸泡测试
+ * 反复重新加载规则，验证 KieRepository 不会随热更新增长，堆内存保持平稳
+ * 耗时较长且依赖 GC 统计，默认不运行，使用 mvn test -Psoak 运行
+ */
+@Tag("soak")
+class DynamicRuleLoaderSoakTest {
+
+    private static final String GROUP = "soakGroup";
+    private static final int WARMUP_RELOADS = 200;
+    private static final int RELOADS = 2000;
+    // 允许的堆增长上限，容忍 GC 统计误差
+    private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+
+    @Test
+    void heapShouldStayFlatAcrossThousandsOfReloads() {
+        DynamicRuleLoader loader = new DynamicRuleLoader(event -> {
+        });
+        KieServices kieServices = KieServices.Factory.get();
+
+        // 预热，排除类加载、JIT 等一次性开销
+        for (int i = 0; i < WARMUP_RELOADS; i++) {
+            loader.updateRules(List.of(rule(i)));
+        }
+        long baseline = usedHeapAfterGc();
+
+        ReleaseId previous = loader.getReleaseId(GROUP);
+        for (int i = WARMUP_RELOADS; i < WARMUP_RELOADS + RELOADS; i++) {
+            loader.updateRules(List.of(rule(i)));
+
+            ReleaseId current = loader.getReleaseId(GROUP);
+            assertNotEquals(previous, current, "Each reload should use a new ReleaseId");
+            assertNull(kieServices.getRepository().getKieModule(previous), "Retired KieModule should be removed");
+            assertNotNull(kieServices.getRepository().getKieModule(current));
+            previous = current;
+        }
+        long after = usedHeapAfterGc();
+
+        long growth = after - baseline;
+        assertTrue(growth < MAX_HEAP_GROWTH_BYTES,
+                String.format("Heap grew by %d KB across %d reloads", growth / 1024, RELOADS));
+    }
+
+    private long usedHeapAfterGc() {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private RuleDefinition rule(int version) {
+        String content = "package rules.soakGroup;\n"
+                + "rule \"soak_rule_" + version + "\"\n"
+                + "when\n"
+                + "    $s: String(this == \"v" + version + "\")\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition("soak_rule", "soak_rule", content, GROUP);
+    }
+}
@@ -0,0 +1,25 @@
+package com.oneinstep.rule.core.config.loader;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 决策表测试用事实
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeQuote {
+    private String market;
+    private double amount;
+    private int quantity;
+    private double rate;
+    private double minimum;
+
+    public FeeQuote(String market, double amount, int quantity) {
+        this.market = market;
+        this.amount = amount;
+        this.quantity = quantity;
+    }
+}
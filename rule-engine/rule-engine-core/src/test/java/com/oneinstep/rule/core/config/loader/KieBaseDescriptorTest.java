@@ -0,0 +1,109 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.impl.InternalRuleBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieContainer;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class KieBaseDescriptorTest {
+
+    private static final String GROUP = "testGroup";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DynamicRuleLoader dynamicRuleLoader;
+
+    @BeforeEach
+    void setUp() {
+        dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+    }
+
+    /**
+     * 测试描述解析
+     * 验证:
+     * 1. 会话类型和 drools.* 配置被分开保存
+     * 2. 未知属性和有状态的顺序模式被拒绝
+     */
+    @Test
+    void shouldParseAndValidateDescriptor() {
+        KieBaseDescriptor descriptor = KieBaseDescriptor.parse("""
+                rule.session=stateless
+                drools.sequential=true
+                drools.jittingThreshold=5
+                """);
+        assertEquals(KieBaseDescriptor.SessionType.STATELESS, descriptor.getSessionType());
+        assertEquals("5", descriptor.getProperties().getProperty("drools.jittingThreshold"));
+        assertFalse(descriptor.getProperties().containsKey("rule.session"));
+        assertFalse(descriptor.isDefault());
+
+        assertSame(KieBaseDescriptor.DEFAULT, KieBaseDescriptor.parse(" "));
+        assertThrows(IllegalArgumentException.class, () -> KieBaseDescriptor.parse("sequential=true"));
+        assertThrows(IllegalArgumentException.class, () -> KieBaseDescriptor.parse("drools.sequential=true"));
+    }
+
+    /**
+     * 测试无状态顺序模式的规则组
+     */
+    @Test
+    void shouldExecuteStatelessSequentialGroup() {
+        dynamicRuleLoader.updateDescriptor(GROUP, KieBaseDescriptor.parse("""
+                rule.session=stateless
+                drools.sequential=true
+                drools.equalityBehavior=equality
+                drools.jittingThreshold=5
+                """));
+        dynamicRuleLoader.updateRules(List.of(rule("rule_a"), rule("rule_b")));
+
+        GroupKieBase kieBase = dynamicRuleLoader.getKieBase(GROUP);
+        RuleBaseConfiguration configuration = ((InternalRuleBase) kieBase.kieBase()).getRuleBaseConfiguration();
+        assertTrue(configuration.isSequential());
+        assertEquals(RuleBaseConfiguration.AssertBehaviour.EQUALITY, configuration.getAssertBehaviour());
+        assertEquals(5, configuration.getJittingThreshold());
+
+        assertEquals(2, kieBase.execute(List.of("rule_a", "rule_b", "other"), Map.of(), null, null));
+        assertThrows(IllegalStateException.class,
+                () -> kieBase.execute(List.of("rule_a"), Map.of(), match -> true, null));
+    }
+
+    /**
+     * 测试更新描述后重新编译已加载的规则组
+     */
+    @Test
+    void shouldRebuildLoadedGroupWhenDescriptorChanges() {
+        dynamicRuleLoader.updateRules(List.of(rule("rule_a")));
+        KieContainer initialContainer = dynamicRuleLoader.getContainer(GROUP);
+        assertTrue(dynamicRuleLoader.getKieBase(GROUP).descriptor().isDefault());
+
+        dynamicRuleLoader.updateDescriptor(GROUP, KieBaseDescriptor.parse("drools.eventProcessingMode=stream"));
+
+        assertNotSame(initialContainer, dynamicRuleLoader.getContainer(GROUP));
+        GroupKieBase kieBase = dynamicRuleLoader.getKieBase(GROUP);
+        assertEquals(EventProcessingOption.STREAM,
+                ((InternalRuleBase) kieBase.kieBase()).getRuleBaseConfiguration().getEventProcessingMode());
+        assertEquals(1, kieBase.execute(List.of("rule_a"), Map.of(), null, null));
+    }
+
+    private RuleDefinition rule(String ruleId) {
+        String content = "package rules.testGroup;\n"
+                + "rule \"" + ruleId + "\"\n"
+                + "when\n"
+                + "    String(this == \"" + ruleId + "\")\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition(ruleId, ruleId, content, GROUP);
+    }
+}
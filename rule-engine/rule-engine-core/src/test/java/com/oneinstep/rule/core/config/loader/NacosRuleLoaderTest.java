@@ -0,0 +1,177 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.oneinstep.rule.core.config.RuleNacosProperties;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static com.oneinstep.rule.core.config.RuleConfigConstants.RULE_GROUP;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NacosRuleLoaderTest {
+
+    private static final String DATA_ID_A = "testGroup.rule_a";
+    private static final String DATA_ID_B = "testGroup.rule_b";
+
+    @TempDir
+    Path snapshotDir;
+
+    @Mock
+    private ConfigService configService;
+
+    @Mock
+    private DynamicRuleLoader dynamicRuleLoader;
+
+    @Mock
+    private RuleUpdateCoalescer ruleUpdateCoalescer;
+
+    private RuleNacosProperties properties;
+
+    private NacosRuleLoader nacosRuleLoader;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RuleNacosProperties();
+        properties.setSnapshotDir(snapshotDir.toString());
+        properties.setStartupWaitMs(2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nacosRuleLoader.shutdown();
+    }
+
+    /**
+     * 测试并发拉取
+     * 验证:
+     * 1. 多个 dataId 并发拉取，总耗时接近单次拉取耗时
+     * 2. 拉取成功的内容在规则组编译生效后写入快照
+     */
+    @Test
+    void shouldFetchAllDataIdsConcurrently() throws Exception {
+        when(configService.getConfig(anyString(), eq(RULE_GROUP), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return "nacos:" + invocation.getArgument(0);
+        });
+        nacosRuleLoader = new NacosRuleLoader(configService, dynamicRuleLoader, ruleUpdateCoalescer, properties);
+
+        long start = System.currentTimeMillis();
+        List<RuleDefinition> rules = nacosRuleLoader.loadRules();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(2, rules.size());
+        assertTrue(elapsed < 900, "Fetches should run concurrently, took " + elapsed + "ms");
+        assertFalse(Files.exists(snapshotDir.resolve(DATA_ID_A + ".drl")));
+
+        when(dynamicRuleLoader.getRules("testGroup")).thenReturn(rules.stream()
+                .collect(Collectors.toMap(RuleDefinition::getRuleId, rule -> rule)));
+        nacosRuleLoader.onRuleUpdate(updateEvent(true));
+        assertEquals("nacos:" + DATA_ID_A, Files.readString(snapshotDir.resolve(DATA_ID_A + ".drl")));
+        assertEquals("nacos:" + DATA_ID_B, Files.readString(snapshotDir.resolve(DATA_ID_B + ".drl")));
+    }
+
+    /**
+     * 测试启动编译失败
+     * 验证: 编译失败的内容不写入快照，已有快照保持不变
+     */
+    @Test
+    void shouldKeepSnapshotWhenStartupCompileFails() throws Exception {
+        Files.writeString(snapshotDir.resolve(DATA_ID_A + ".drl"), "snapshot:a");
+        when(configService.getConfig(anyString(), eq(RULE_GROUP), anyLong()))
+                .thenAnswer(invocation -> "broken:" + invocation.getArgument(0));
+        nacosRuleLoader = new NacosRuleLoader(configService, dynamicRuleLoader, ruleUpdateCoalescer, properties);
+
+        nacosRuleLoader.loadRules();
+        nacosRuleLoader.onRuleUpdate(updateEvent(false));
+
+        assertEquals("snapshot:a", Files.readString(snapshotDir.resolve(DATA_ID_A + ".drl")));
+        assertFalse(Files.exists(snapshotDir.resolve(DATA_ID_B + ".drl")));
+    }
+
+    /**
+     * 测试 Nacos 不可用时使用快照启动
+     */
+    @Test
+    void shouldBootFromSnapshotWhenNacosUnreachable() throws Exception {
+        Files.writeString(snapshotDir.resolve(DATA_ID_A + ".drl"), "snapshot:a");
+        when(configService.getConfig(anyString(), eq(RULE_GROUP), anyLong()))
+                .thenThrow(new NacosException(NacosException.SERVER_ERROR, "unreachable"));
+        nacosRuleLoader = new NacosRuleLoader(configService, dynamicRuleLoader, ruleUpdateCoalescer, properties);
+
+        List<RuleDefinition> rules = nacosRuleLoader.loadRules();
+
+        // 只有存在快照的规则被加载，其余规则使用本地配置
+        assertEquals(1, rules.size());
+        assertEquals("rule_a", rules.getFirst().getRuleId());
+        assertEquals("snapshot:a", rules.getFirst().getRuleContent());
+    }
+
+    /**
+     * 测试 Nacos 响应缓慢
+     * 验证:
+     * 1. 启动不等待 Nacos，直接使用快照
+     * 2. Nacos 返回后在后台对账，内容不同的规则触发更新
+     * 3. 更新编译生效后才刷新快照
+     */
+    @Test
+    void shouldBootFromSnapshotAndReconcileWhenNacosSlow() throws Exception {
+        properties.setStartupWaitMs(100);
+        Files.writeString(snapshotDir.resolve(DATA_ID_A + ".drl"), "snapshot:a");
+        Files.writeString(snapshotDir.resolve(DATA_ID_B + ".drl"), "snapshot:b");
+        when(configService.getConfig(anyString(), eq(RULE_GROUP), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            // rule_b 内容未变化，不需要更新
+            return DATA_ID_A.equals(invocation.getArgument(0)) ? "nacos:a" : "snapshot:b";
+        });
+        when(dynamicRuleLoader.whenInitialized()).thenReturn(CompletableFuture.completedFuture(null));
+        nacosRuleLoader = new NacosRuleLoader(configService, dynamicRuleLoader, ruleUpdateCoalescer, properties);
+
+        long start = System.currentTimeMillis();
+        List<RuleDefinition> rules = nacosRuleLoader.loadRules();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 800, "Startup should not wait for slow Nacos, took " + elapsed + "ms");
+        Map<String, String> contents = rules.stream()
+                .collect(Collectors.toMap(RuleDefinition::getRuleId, RuleDefinition::getRuleContent));
+        assertEquals(Map.of("rule_a", "snapshot:a", "rule_b", "snapshot:b"), contents);
+
+        // 后台对账只更新内容变化的规则
+        verify(ruleUpdateCoalescer, timeout(3000)).submit(argThat(rule ->
+                "rule_a".equals(rule.getRuleId()) && "nacos:a".equals(rule.getRuleContent())));
+        verify(ruleUpdateCoalescer, after(500).times(1)).submit(any());
+
+        // 更新编译失败时保留原快照，编译生效后刷新快照
+        nacosRuleLoader.onRuleUpdate(updateEvent(false));
+        assertEquals("snapshot:a", Files.readString(snapshotDir.resolve(DATA_ID_A + ".drl")));
+        when(dynamicRuleLoader.getRules("testGroup")).thenReturn(Map.of("rule_a", RuleDefinition.builder()
+                .ruleId("rule_a").ruleGroup("testGroup").ruleContent("nacos:a").build()));
+        nacosRuleLoader.onRuleUpdate(updateEvent(true));
+        assertEquals("nacos:a", Files.readString(snapshotDir.resolve(DATA_ID_A + ".drl")));
+    }
+
+    private RuleUpdateEvent updateEvent(boolean success) {
+        return new RuleUpdateEvent(this, "testGroup", RuleUpdateLog.builder()
+                .ruleGroup("testGroup")
+                .success(success)
+                .build());
+    }
+}
@@ -0,0 +1,98 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.config.RuleUpdateProperties;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieContainer;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuleUpdateCoalescerTest {
+
+    private static final String GROUP = "testGroup";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DynamicRuleLoader dynamicRuleLoader;
+
+    private RuleUpdateCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        RuleUpdateProperties properties = new RuleUpdateProperties();
+        properties.setCoalesceWindowMs(300);
+        dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+        coalescer = new RuleUpdateCoalescer(dynamicRuleLoader, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    /**
+     * 测试突发更新合并
+     * 验证:
+     * 1. 窗口内的多次更新只触发一次编译
+     * 2. 被覆盖和内容未变化的更新计入跳过数
+     * 3. 未变更的规则保留在新容器中
+     */
+    @Test
+    void shouldCoalesceBurstIntoSingleBuild() {
+        dynamicRuleLoader.updateRules(List.of(rule("rule1", 0), rule("rule2", 0)));
+        KieContainer initialContainer = dynamicRuleLoader.getContainer(GROUP);
+
+        // rule1 连续发布5个版本，rule2 内容未变化，rule3 连续发布4个版本
+        for (int version = 1; version <= 5; version++) {
+            coalescer.submit(rule("rule1", version));
+        }
+        coalescer.submit(rule("rule2", 0));
+        for (int version = 1; version <= 4; version++) {
+            coalescer.submit(rule("rule3", version));
+        }
+
+        ArgumentCaptor<RuleUpdateEvent> captor = ArgumentCaptor.forClass(RuleUpdateEvent.class);
+        verify(eventPublisher, timeout(5000).times(2)).publishEvent(captor.capture());
+        verify(eventPublisher, after(500).times(2)).publishEvent(any(RuleUpdateEvent.class));
+
+        RuleUpdateLog updateLog = captor.getAllValues().getLast().getUpdateLog();
+        assertTrue(updateLog.isSuccess());
+        assertEquals(List.of("rule1", "rule3"), updateLog.getUpdatedRuleIds());
+        assertEquals(10, updateLog.getCoalescedCount());
+        assertEquals(8, updateLog.getSkippedCount());
+
+        KieContainer newContainer = dynamicRuleLoader.getContainer(GROUP);
+        assertNotSame(initialContainer, newContainer);
+        List<String> ruleNames = newContainer.getKieBase().getKiePackage("rules.testGroup").getRules().stream()
+                .map(Rule::getName)
+                .sorted()
+                .toList();
+        assertEquals(List.of("rule1_v5", "rule2_v0", "rule3_v4"), ruleNames);
+    }
+
+    private RuleDefinition rule(String ruleId, int version) {
+        String name = ruleId + "_v" + version;
+        String content = "package rules.testGroup;\n"
+                + "rule \"" + name + "\"\n"
+                + "when\n"
+                + "    String(this == \"" + name + "\")\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition(ruleId, ruleId, content, GROUP);
+    }
+}
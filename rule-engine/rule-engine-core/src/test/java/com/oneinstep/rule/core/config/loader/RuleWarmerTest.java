@@ -0,0 +1,104 @@
+package com.oneinstep.rule.core.config.loader;
+
+import com.oneinstep.rule.core.config.RuleWarmupProperties;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleWarmupResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kie.api.runtime.KieContainer;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RuleWarmerTest {
+
+    private static final String GROUP = "testGroup";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RuleWarmupProperties properties;
+
+    private DynamicRuleLoader dynamicRuleLoader;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RuleWarmupProperties();
+        properties.setIterations(50);
+        dynamicRuleLoader = new DynamicRuleLoader(eventPublisher);
+        dynamicRuleLoader.updateRules(List.of(rule("rule_a"), rule("rule_b")));
+    }
+
+    /**
+     * 测试使用预热数据执行规则
+     */
+    @Test
+    void shouldRunConfiguredIterations() {
+        RuleWarmer ruleWarmer = new RuleWarmer(properties);
+
+        RuleWarmupResult result = ruleWarmer.warmUp(GROUP, dynamicRuleLoader.getKieBase(GROUP));
+
+        assertNotNull(result);
+        assertEquals(GROUP, result.getRuleGroup());
+        assertEquals(50, result.getExecutions());
+        assertTrue(result.getColdLatencyMicros() >= 0);
+        assertTrue(result.getWarmLatencyMicros() >= 0);
+    }
+
+    /**
+     * 测试没有预热数据或未启用预热时跳过
+     */
+    @Test
+    void shouldSkipWhenNoDataOrDisabled() {
+        RuleWarmer ruleWarmer = new RuleWarmer(properties);
+        GroupKieBase kieBase = dynamicRuleLoader.getKieBase(GROUP);
+
+        assertNull(ruleWarmer.warmUp("unknownGroup", kieBase));
+
+        properties.setEnabled(false);
+        assertNull(ruleWarmer.warmUp(GROUP, kieBase));
+    }
+
+    /**
+     * 测试新容器在预热完成后才生效
+     */
+    @Test
+    void shouldWarmUpBeforePublishingContainer() {
+        RuleWarmer ruleWarmer = mock(RuleWarmer.class);
+        DynamicRuleLoader loader = new DynamicRuleLoader(eventPublisher, ruleWarmer, null);
+        loader.updateRules(List.of(rule("rule_a")));
+        KieContainer initialContainer = loader.getContainer(GROUP);
+
+        List<KieContainer> visibleDuringWarmUp = new ArrayList<>();
+        when(ruleWarmer.warmUp(eq(GROUP), any(GroupKieBase.class))).thenAnswer(invocation -> {
+            visibleDuringWarmUp.add(loader.getContainer(GROUP));
+            return null;
+        });
+
+        loader.updateRules(List.of(rule("rule_b")));
+
+        // 预热期间请求仍使用旧容器
+        assertEquals(List.of(initialContainer), visibleDuringWarmUp);
+        verify(ruleWarmer).warmUp(GROUP, loader.getKieBase(GROUP));
+    }
+
+    private RuleDefinition rule(String ruleId) {
+        String content = "package rules.testGroup;\n"
+                + "rule \"" + ruleId + "\"\n"
+                + "when\n"
+                + "    String(this == \"" + ruleId + "\")\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition(ruleId, ruleId, content, GROUP);
+    }
+}
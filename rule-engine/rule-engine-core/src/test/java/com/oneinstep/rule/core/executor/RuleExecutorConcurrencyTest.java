@@ -1,13 +1,15 @@
 package com.oneinstep.rule.core.executor;
 
 import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.GroupKieBase;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
 import com.oneinstep.rule.core.model.RuleExecutionContext;
 import com.oneinstep.rule.core.model.RuleExecutionResult;
 import com.oneinstep.rule.core.service.RuleExecutionLogService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.kie.api.runtime.KieContainer;
+import org.kie.api.KieBase;
 import org.kie.api.runtime.KieSession;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -36,7 +38,7 @@ class RuleExecutorConcurrencyTest {
     private DynamicRuleLoader ruleLoader;
 
     @Mock
-    private KieContainer kieContainer;
+    private KieBase kieBase;
 
     @Mock
     private KieSession kieSession;
@@ -58,8 +60,8 @@ class RuleExecutorConcurrencyTest {
     @Test
     void testConcurrentExecution() throws InterruptedException {
         // 配置mock对象的行为
-        when(ruleLoader.getContainer(anyString())).thenReturn(kieContainer);
-        when(kieContainer.newKieSession()).thenReturn(kieSession);
+        when(ruleLoader.getKieBase(anyString())).thenReturn(new GroupKieBase(kieBase, KieBaseDescriptor.DEFAULT));
+        when(kieBase.newKieSession()).thenReturn(kieSession);
         when(kieSession.fireAllRules(any())).thenReturn(1);
 
         // 准备测试数据
@@ -103,8 +105,8 @@ class RuleExecutorConcurrencyTest {
         assertEquals(threadCount * iterationsPerThread, successCount.get(), "All executions should be successful");
 
         // 验证调用次数
-        verify(ruleLoader, times(threadCount * iterationsPerThread)).getContainer(anyString());
-        verify(kieContainer, times(threadCount * iterationsPerThread)).newKieSession();
+        verify(ruleLoader, times(threadCount * iterationsPerThread)).getKieBase(anyString());
+        verify(kieBase, times(threadCount * iterationsPerThread)).newKieSession();
         verify(kieSession, times(threadCount * iterationsPerThread)).fireAllRules(any());
     }
 
@@ -118,7 +120,7 @@ class RuleExecutorConcurrencyTest {
     @Test
     void testConcurrentExecutionWithErrors() throws InterruptedException {
         // Mock抛出异常
-        when(ruleLoader.getContainer(anyString())).thenThrow(new RuntimeException("Test error"));
+        when(ruleLoader.getKieBase(anyString())).thenThrow(new RuntimeException("Test error"));
 
         // 准备测试数据
         int threadCount = 5;
@@ -157,7 +159,7 @@ class RuleExecutorConcurrencyTest {
         });
 
         // 验证调用次数
-        verify(ruleLoader, times(threadCount)).getContainer(anyString());
+        verify(ruleLoader, times(threadCount)).getKieBase(anyString());
     }
 
     /**
@@ -169,8 +171,8 @@ class RuleExecutorConcurrencyTest {
     @Test
     void testResourceCleanup() throws InterruptedException {
         // 配置mock对象的行为
-        when(ruleLoader.getContainer(anyString())).thenReturn(kieContainer);
-        when(kieContainer.newKieSession()).thenReturn(kieSession);
+        when(ruleLoader.getKieBase(anyString())).thenReturn(new GroupKieBase(kieBase, KieBaseDescriptor.DEFAULT));
+        when(kieBase.newKieSession()).thenReturn(kieSession);
         when(kieSession.fireAllRules(any())).thenReturn(1);
 
         int iterations = 50;
@@ -199,7 +201,7 @@ class RuleExecutorConcurrencyTest {
         }
 
         // 验证资源释放
-        verify(ruleLoader, times(iterations)).getContainer(any());
+        verify(ruleLoader, times(iterations)).getKieBase(any());
         verify(kieSession, times(iterations)).close();
     }
 } 
\ No newline at end of file
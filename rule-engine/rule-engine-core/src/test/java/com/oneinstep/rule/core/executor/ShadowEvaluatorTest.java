@@ -0,0 +1,196 @@
+package com.oneinstep.rule.core.executor;
+
+import com.oneinstep.rule.core.config.RuleShadowProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.ShadowCandidate;
+import com.oneinstep.rule.core.event.RuleUpdateEvent;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleExecutionContext;
+import com.oneinstep.rule.core.model.ShadowReport;
+import com.oneinstep.rule.core.service.RuleExecutionLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kie.api.runtime.KieContainer;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShadowEvaluatorTest {
+
+    private static final String GROUP = "testGroup";
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RuleExecutionLogService logService;
+
+    private RuleShadowProperties properties;
+
+    private DynamicRuleLoader ruleLoader;
+
+    private ShadowEvaluator shadowEvaluator;
+
+    private RuleExecutor ruleExecutor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RuleShadowProperties();
+        properties.setEnabled(true);
+        properties.setSampleRate(1.0);
+        properties.setMinSamples(20);
+        // 测试中不校验延迟退化
+        properties.setMaxLatencyRegression(100);
+        ruleLoader = new DynamicRuleLoader(eventPublisher, null, properties);
+        shadowEvaluator = new ShadowEvaluator(ruleLoader, properties);
+        ruleExecutor = new RuleExecutor(logService, ruleLoader, shadowEvaluator);
+
+        ruleLoader.updateRules(List.of(rule("rule_a", "a")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        shadowEvaluator.shutdown();
+    }
+
+    /**
+     * 测试影子模式下的更新编译为候选版本，不替换生效版本
+     */
+    @Test
+    void shouldStageCandidateWithoutReplacingActive() {
+        KieContainer activeContainer = ruleLoader.getContainer(GROUP);
+
+        ruleLoader.applyChanges(GROUP, List.of(rule("rule_a", "b")), 1, 0);
+
+        assertSame(activeContainer, ruleLoader.getContainer(GROUP));
+        ShadowCandidate candidate = ruleLoader.getCandidate(GROUP);
+        assertNotNull(candidate);
+        assertEquals(List.of("rule_a"), candidate.getUpdatedRuleIds());
+
+        ArgumentCaptor<RuleUpdateEvent> captor = ArgumentCaptor.forClass(RuleUpdateEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertTrue(captor.getValue().getUpdateLog().isShadow());
+        assertEquals(candidate.getReleaseId().getVersion(), captor.getValue().getUpdateLog().getVersion());
+    }
+
+    /**
+     * 测试结果差异的记录和手动提升
+     * 验证:
+     * 1. 采样的执行在候选版本上重放并记录差异
+     * 2. 存在差异时不能按阈值提升，强制提升后候选版本生效
+     */
+    @Test
+    void shouldRecordDiffsAndPromoteByApi() {
+        ruleLoader.applyChanges(GROUP, List.of(rule("rule_a", "b")), 1, 0);
+        KieContainer candidateContainer = ruleLoader.getCandidate(GROUP).getContainer();
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(ruleExecutor.execute(context("a")).isSuccess());
+        }
+        await(() -> shadowEvaluator.getReport(GROUP).getSamples() == 30);
+
+        ShadowReport report = shadowEvaluator.getReport(GROUP);
+        assertEquals(30, report.getDiffs());
+        assertEquals(0, report.getErrors());
+        assertFalse(report.isPromotable());
+        assertEquals(1, report.getRecentDiffs().getFirst().getActiveRulesExecuted());
+        assertEquals(0, report.getRecentDiffs().getFirst().getCandidateRulesExecuted());
+
+        assertThrows(IllegalStateException.class, () -> shadowEvaluator.promote(GROUP, false));
+        assertTrue(shadowEvaluator.promote(GROUP, true));
+        assertSame(candidateContainer, ruleLoader.getContainer(GROUP));
+        assertNull(ruleLoader.getCandidate(GROUP));
+    }
+
+    /**
+     * 测试候选版本满足阈值后自动提升
+     */
+    @Test
+    void shouldAutoPromoteWhenThresholdsMet() {
+        properties.setAutoPromote(true);
+        // 只修改规则名称，执行结果一致
+        ruleLoader.applyChanges(GROUP, List.of(rule("rule_a_v2", "a", "rule_a")), 1, 0);
+        KieContainer candidateContainer = ruleLoader.getCandidate(GROUP).getContainer();
+
+        for (int i = 0; i < 100 && ruleLoader.getCandidate(GROUP) != null; i++) {
+            ruleExecutor.execute(context("a"));
+        }
+        await(() -> ruleLoader.getCandidate(GROUP) == null);
+
+        assertSame(candidateContainer, ruleLoader.getContainer(GROUP));
+    }
+
+    /**
+     * 测试候选版本重放不修改生效版本的全局变量
+     */
+    @Test
+    void shouldReplayWithCopiedGlobals() {
+        ruleLoader.updateRules(List.of(globalRule("rule_a")));
+        ruleLoader.applyChanges(GROUP, List.of(globalRule("rule_a_v2")), 1, 0);
+
+        List<String> hits = new ArrayList<>();
+        RuleExecutionContext context = context("a");
+        context.setGlobal("hits", hits);
+        assertTrue(ruleExecutor.execute(context).isSuccess());
+        await(() -> shadowEvaluator.getReport(GROUP).getSamples() == 1);
+
+        assertEquals(0, shadowEvaluator.getReport(GROUP).getErrors());
+        assertEquals(List.of("rule_a"), hits);
+    }
+
+    private RuleExecutionContext context(String value) {
+        return RuleExecutionContext.builder()
+                .ruleGroup(GROUP)
+                .facts(new ArrayList<>(List.of(value)))
+                .build();
+    }
+
+    private void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for shadow evaluation");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private RuleDefinition rule(String ruleId, String value) {
+        return rule(ruleId, value, ruleId);
+    }
+
+    private RuleDefinition rule(String ruleName, String value, String ruleId) {
+        String content = "package rules.testGroup;\n"
+                + "rule \"" + ruleName + "\"\n"
+                + "when\n"
+                + "    String(this == \"" + value + "\")\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition(ruleId, ruleName, content, GROUP);
+    }
+
+    private RuleDefinition globalRule(String ruleName) {
+        String content = "package rules.testGroup;\n"
+                + "global java.util.List hits;\n"
+                + "rule \"" + ruleName + "\"\n"
+                + "when\n"
+                + "    String(this == \"a\")\n"
+                + "then\n"
+                + "    hits.add(\"" + ruleName + "\");\n"
+                + "end\n";
+        return new RuleDefinition("rule_a", ruleName, content, GROUP);
+    }
+}
@@ -0,0 +1,21 @@
+package com.oneinstep.rule.core.executor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.kie.api.definition.type.Role;
+import org.kie.api.definition.type.Timestamp;
+
+/**
+ * 事件流测试用事件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Role(Role.Type.EVENT)
+@Timestamp("eventTime")
+public class StreamEvent {
+    private String account;
+    private double amount;
+    private long eventTime;
+}
@@ -0,0 +1,134 @@
+package com.oneinstep.rule.core.executor;
+
+import com.oneinstep.rule.core.config.RuleStreamProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamSessionManagerTest {
+
+    private static final String GROUP = "streamGroup";
+    private static final String PLAIN_GROUP = "plainGroup";
+
+    private static final String RULE = """
+            package rules.streamGroup;
+
+            import com.oneinstep.rule.core.executor.StreamEvent;
+            import com.oneinstep.rule.core.executor.StreamWindow;
+
+            rule "open_window"
+            when
+                StreamEvent($account: account) from entry-point "events"
+                not StreamWindow(account == $account) from entry-point "windows"
+            then
+                drools.getEntryPoint("windows").insert(new StreamWindow($account));
+            end
+
+            rule "update_window"
+                no-loop true
+            when
+                $window: StreamWindow($account: account) from entry-point "windows"
+                accumulate(StreamEvent(account == $account, $amount: amount) over window:time(1h) from entry-point "events";
+                           $count: count(), $total: sum($amount))
+            then
+                modify($window) { setCount($count.intValue()), setTotal($total.doubleValue()) }
+            end
+
+            query "window" (String $account)
+                $window: StreamWindow(account == $account) from entry-point "windows"
+            end
+            """;
+
+    private DynamicRuleLoader ruleLoader;
+
+    private StreamSessionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        ruleLoader = new DynamicRuleLoader(event -> {
+        });
+        ruleLoader.updateDescriptor(GROUP, KieBaseDescriptor.parse("drools.eventProcessingMode=stream"));
+        ruleLoader.updateRules(List.of(new RuleDefinition("window_rule", "window_rule", RULE, GROUP)));
+
+        RuleStreamProperties properties = new RuleStreamProperties();
+        properties.setGroups(List.of(GROUP, PLAIN_GROUP));
+        properties.setClockType("pseudo");
+        manager = new StreamSessionManager(ruleLoader, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    /**
+     * 测试滑动窗口聚合
+     * 验证:
+     * 1. 窗口内的事件数和金额在引擎内增量维护
+     * 2. 伪时钟推进后过期事件移出窗口
+     * 3. 规则组热更新后事件迁移到新会话，窗口继续生效
+     */
+    @Test
+    void shouldMaintainSlidingWindowAcrossReloads() {
+        insert("A", 100);
+        insert("A", 200);
+        insert("B", 50);
+        manager.advanceTime(GROUP, 30, TimeUnit.MINUTES);
+        insert("A", 300);
+
+        assertWindow("A", 3, 600);
+        assertWindow("B", 1, 50);
+
+        manager.advanceTime(GROUP, 31, TimeUnit.MINUTES);
+        assertWindow("A", 1, 300);
+        assertWindow("B", 0, 0);
+
+        // 重新编译规则组，窗口中剩余的事件迁移到新会话
+        ruleLoader.updateRules(List.of(new RuleDefinition("window_rule", "window_rule", RULE, GROUP)));
+        assertWindow("A", 1, 300);
+
+        manager.advanceTime(GROUP, 30, TimeUnit.MINUTES);
+        assertWindow("A", 0, 0);
+    }
+
+    /**
+     * 测试非 stream 模式的规则组被拒绝
+     */
+    @Test
+    void shouldRejectNonStreamGroup() {
+        ruleLoader.updateRules(List.of(new RuleDefinition("plain_rule", "plain_rule",
+                "package rules.plainGroup;\nrule \"plain_rule\" when String() then end\n", PLAIN_GROUP)));
+
+        // 配置为事件流的规则组必须使用 stream 模式
+        assertThrows(IllegalStateException.class,
+                () -> manager.insert(PLAIN_GROUP, "events", new StreamEvent("A", 1, 0)));
+        // 未配置为事件流的规则组
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.insert("otherGroup", "events", new StreamEvent("A", 1, 0)));
+    }
+
+    private void insert(String account, double amount) {
+        manager.insert(GROUP, "events", new StreamEvent(account, amount, manager.getCurrentTime(GROUP)));
+    }
+
+    private void assertWindow(String account, int count, double total) {
+        List<StreamWindow> windows = manager.query(GROUP, "window", row -> {
+            StreamWindow window = (StreamWindow) row.get("$window");
+            StreamWindow copy = new StreamWindow(window.getAccount());
+            copy.setCount(window.getCount());
+            copy.setTotal(window.getTotal());
+            return copy;
+        }, account);
+        assertEquals(1, windows.size());
+        assertEquals(count, windows.getFirst().getCount());
+        assertEquals(total, windows.getFirst().getTotal(), 0.001);
+    }
+}
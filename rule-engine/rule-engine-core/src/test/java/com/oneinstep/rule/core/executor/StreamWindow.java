@@ -0,0 +1,19 @@
+package com.oneinstep.rule.core.executor;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 事件流测试用窗口聚合
+ */
+@Data
+@NoArgsConstructor
+public class StreamWindow {
+    private String account;
+    private int count;
+    private double total;
+
+    public StreamWindow(String account) {
+        this.account = account;
+    }
+}
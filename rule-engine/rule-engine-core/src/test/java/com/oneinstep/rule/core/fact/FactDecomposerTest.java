@@ -0,0 +1,101 @@
+package com.oneinstep.rule.core.fact;
+
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactDecomposerTest {
+
+    private static final String GROUP = "decomposeGroup";
+
+    /**
+     * 测试拆分结果
+     * 验证:
+     * 1. 值类型元素只生成 FactEntry，对象元素本身也被插入并继续拆分
+     * 2. FactEntry 保留所属对象、名称和键
+     * 3. 没有标记字段的事实原样返回
+     */
+    @Test
+    void shouldDecomposeAnnotatedCollections() {
+        Portfolio child = new Portfolio("child");
+        child.getWeights().put("600000", 0.6);
+        Portfolio root = new Portfolio("root");
+        root.getWeights().put("000001", 0.2);
+        root.getChildren().add(child);
+
+        List<Object> facts = new ArrayList<>(FactDecomposer.decompose(List.of(root, "other")));
+
+        // root, other, 2 个权重, 1 个子组合及其 FactEntry
+        assertEquals(6, facts.size());
+        assertTrue(facts.contains(child));
+        FactEntry weight = entries(facts).stream()
+                .filter(entry -> entry.getOwner() == child)
+                .findFirst()
+                .orElseThrow();
+        assertEquals("weights", weight.getName());
+        assertEquals("600000", weight.getKey());
+        assertEquals(0.6, weight.getValue());
+        FactEntry subPortfolio = entries(facts).stream()
+                .filter(entry -> entry.getValue() == child)
+                .findFirst()
+                .orElseThrow();
+        assertSame(root, subPortfolio.getOwner());
+        assertEquals("subPortfolio", subPortfolio.getName());
+        assertEquals(0, subPortfolio.getKey());
+
+        List<Object> plain = List.of("a", 1);
+        assertSame(plain, FactDecomposer.decompose(plain));
+    }
+
+    /**
+     * 测试规则组配置 rule.decompose 后，规则直接匹配拆分出的元素
+     */
+    @Test
+    void shouldMatchDecomposedFactsInRules() {
+        DynamicRuleLoader ruleLoader = new DynamicRuleLoader(event -> {
+        });
+        ruleLoader.updateDescriptor(GROUP, KieBaseDescriptor.parse("rule.decompose=true"));
+        ruleLoader.updateRules(List.of(new RuleDefinition("concentration", "concentration", """
+                package rules.decomposeGroup;
+
+                import com.oneinstep.rule.core.fact.FactEntry;
+                import com.oneinstep.rule.core.fact.Portfolio;
+
+                rule "concentration"
+                when
+                    $code: String()
+                    $portfolio: Portfolio()
+                    FactEntry(owner == $portfolio, name == "weights", key == $code, value > 0.5)
+                then
+                    $portfolio.setFlagged(true);
+                end
+                """, GROUP)));
+
+        Portfolio child = new Portfolio("child");
+        child.getWeights().put("600000", 0.6);
+        Portfolio root = new Portfolio("root");
+        root.getWeights().put("600000", 0.4);
+        root.getChildren().add(child);
+
+        int fired = ruleLoader.getKieBase(GROUP).execute(List.of(root, "600000"), Map.of(), null, null);
+
+        assertEquals(1, fired);
+        assertTrue(child.isFlagged());
+        assertFalse(root.isFlagged());
+    }
+
+    private static List<FactEntry> entries(Collection<Object> facts) {
+        return facts.stream()
+                .filter(FactEntry.class::isInstance)
+                .map(FactEntry.class::cast)
+                .toList();
+    }
+}
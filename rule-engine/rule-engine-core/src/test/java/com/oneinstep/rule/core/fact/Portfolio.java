@@ -0,0 +1,30 @@
+package com.oneinstep.rule.core.fact;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事实拆分测试用事实
+ */
+@Data
+@NoArgsConstructor
+public class Portfolio {
+    private String id;
+
+    @Decompose
+    private Map<String, Double> weights = new LinkedHashMap<>();
+
+    @Decompose("subPortfolio")
+    private List<Portfolio> children = new ArrayList<>();
+
+    private boolean flagged;
+
+    public Portfolio(String id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,18 @@
+package com.oneinstep.rule.core.replay;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 重放测试用事实
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayFact {
+    private String account;
+    private double amount;
+    private boolean approved;
+    private String reason;
+}
@@ -0,0 +1,167 @@
+package com.oneinstep.rule.core.replay;
+
+import com.oneinstep.rule.core.config.RuleLogProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.executor.RuleExecutor;
+import com.oneinstep.rule.core.model.ReplayReport;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleExecutionContext;
+import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.service.RuleExecutionLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleReplayHarnessTest {
+
+    private static final String GROUP = "replayGroup";
+
+    @TempDir
+    Path tempDir;
+
+    private RuleExecutionLogService logService;
+
+    private Path logFile;
+
+    @BeforeEach
+    void setUp() {
+        RuleLogProperties logProperties = new RuleLogProperties();
+        logProperties.setLogDir(tempDir.toString());
+        logService = new RuleExecutionLogService(logProperties);
+        logFile = tempDir.resolve(logProperties.getExecutionLogFile());
+
+        // 使用 v1 规则记录 20 次真实执行
+        DynamicRuleLoader ruleLoader = new DynamicRuleLoader(event -> {
+        });
+        ruleLoader.updateRules(rules(1000));
+        RuleExecutor ruleExecutor = new RuleExecutor(logService, ruleLoader);
+        for (int i = 0; i < 20; i++) {
+            ReplayFact fact = new ReplayFact("A" + i, i * 100.0, false, null);
+            RuleExecutionContext context = RuleExecutionContext.builder()
+                    .ruleGroup(GROUP)
+                    .facts(new ArrayList<>(List.of(fact)))
+                    .build();
+            assertTrue(ruleExecutor.execute(context).isSuccess());
+        }
+
+        // 旧格式的输入无法重放
+        logService.logExecution(RuleExecutionLog.builder()
+                .id("legacy")
+                .ruleId("approve_small")
+                .ruleGroup(GROUP)
+                .executeTime(LocalDateTime.now())
+                .executeDuration(1L)
+                .success(true)
+                .inputData("[{\"account\":\"legacy\",\"amount\":1.0}]")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        logService.close();
+    }
+
+    /**
+     * 测试相同规则版本重放
+     * 验证:
+     * 1. 按执行合并日志，旧格式记录被跳过
+     * 2. 多线程、多轮重放的执行次数和延迟统计
+     * 3. 结果与记录一致
+     */
+    @Test
+    void shouldReplaySameVersionWithoutDiffs() throws Exception {
+        ReplayReport report = RuleReplayHarness.builder()
+                .ruleGroup(GROUP)
+                .rules(rules(1000))
+                .threads(4)
+                .iterations(5)
+                .build()
+                .replay(logFile);
+
+        assertEquals(20, report.getRecords());
+        assertEquals(1, report.getSkipped());
+        assertEquals(100, report.getExecutions());
+        assertEquals(0, report.getErrors());
+        assertEquals(0, report.getDiffs());
+        assertTrue(report.isClean());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getP50Micros() <= report.getP99Micros());
+        assertTrue(report.getP99Micros() <= report.getMaxMicros());
+    }
+
+    /**
+     * 测试规则变更后报告结果差异
+     */
+    @Test
+    void shouldReportDiffsForChangedRules() throws Exception {
+        // 阈值从 1000 改为 500，金额在 (500, 1000] 之间的 5 次执行结果不同
+        ReplayReport report = RuleReplayHarness.builder()
+                .ruleGroup(GROUP)
+                .rules(rules(500))
+                .threads(2)
+                .build()
+                .replay(logFile);
+
+        assertEquals(20, report.getExecutions());
+        assertEquals(5, report.getDiffs());
+        assertFalse(report.isClean());
+        assertEquals(5, report.getDiffSamples().size());
+        assertTrue(report.getDiffSamples().getFirst().getRecordedOutput().contains("\"reason\":\"small\""));
+        assertTrue(report.getDiffSamples().getFirst().getReplayOutput().contains("\"reason\":\"large\""));
+    }
+
+    /**
+     * 测试分批重放
+     * 验证: 批次和未结束执行数很小时，结果与一次性重放一致，差异样本数受限
+     */
+    @Test
+    void shouldReplayInSmallBatches() throws Exception {
+        ReplayReport report = RuleReplayHarness.builder()
+                .ruleGroup(GROUP)
+                .rules(rules(500))
+                .threads(3)
+                .iterations(2)
+                .batchSize(3)
+                .maxOpenExecutions(2)
+                .maxDiffSamples(2)
+                .build()
+                .replay(logFile);
+
+        assertEquals(20, report.getRecords());
+        assertEquals(1, report.getSkipped());
+        assertEquals(40, report.getExecutions());
+        assertEquals(5, report.getDiffs());
+        assertEquals(2, report.getDiffSamples().size());
+        assertTrue(report.getP99Micros() <= report.getMaxMicros());
+    }
+
+    private List<RuleDefinition> rules(int threshold) {
+        String header = "package rules.replayGroup;\n"
+                + "import com.oneinstep.rule.core.replay.ReplayFact;\n";
+        String approve = header
+                + "rule \"approve_small\"\n"
+                + "when\n"
+                + "    $f: ReplayFact(amount <= " + threshold + ", reason == null)\n"
+                + "then\n"
+                + "    $f.setApproved(true);\n"
+                + "    $f.setReason(\"small\");\n"
+                + "end\n";
+        String flag = header
+                + "rule \"flag_large\"\n"
+                + "when\n"
+                + "    $f: ReplayFact(amount > " + threshold + ", reason == null)\n"
+                + "then\n"
+                + "    $f.setReason(\"large\");\n"
+                + "end\n";
+        return List.of(new RuleDefinition("approve_small", "approve_small", approve, GROUP),
+                new RuleDefinition("flag_large", "flag_large", flag, GROUP));
+    }
+}
@@ -2,6 +2,7 @@ package com.oneinstep.rule.core.service;
 
 import com.oneinstep.rule.core.config.RuleLogProperties;
 import com.oneinstep.rule.core.model.RuleExecutionLog;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,6 +47,12 @@ class RuleExecutionLogServiceTest {
         logService = new RuleExecutionLogService(logProperties);
     }
 
+    @AfterEach
+    void tearDown() {
+        // 临时目录删除前落盘
+        logService.close();
+    }
+
     @Test
     void testLogExecution() throws IOException {
         // 准备测试数据
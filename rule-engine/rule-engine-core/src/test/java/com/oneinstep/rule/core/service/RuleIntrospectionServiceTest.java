@@ -0,0 +1,122 @@
+package com.oneinstep.rule.core.service;
+
+import com.oneinstep.rule.core.config.RuleStreamProperties;
+import com.oneinstep.rule.core.config.loader.DynamicRuleLoader;
+import com.oneinstep.rule.core.config.loader.KieBaseDescriptor;
+import com.oneinstep.rule.core.executor.StreamEvent;
+import com.oneinstep.rule.core.executor.StreamSessionManager;
+import com.oneinstep.rule.core.model.RuleDefinition;
+import com.oneinstep.rule.core.model.RuleNetworkReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleIntrospectionServiceTest {
+
+    private static final String GROUP = "networkGroup";
+    private static final String STREAM_GROUP = "streamGroup";
+
+    private DynamicRuleLoader ruleLoader;
+
+    private StreamSessionManager streamSessionManager;
+
+    private RuleIntrospectionService introspectionService;
+
+    @BeforeEach
+    void setUp() {
+        ruleLoader = new DynamicRuleLoader(event -> {
+        });
+        RuleStreamProperties properties = new RuleStreamProperties();
+        properties.setGroups(List.of(STREAM_GROUP));
+        properties.setClockType("pseudo");
+        streamSessionManager = new StreamSessionManager(ruleLoader, properties);
+        introspectionService = new RuleIntrospectionService(ruleLoader, streamSessionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamSessionManager.shutdown();
+    }
+
+    /**
+     * 测试网络统计
+     * 验证:
+     * 1. 相同的约束在规则之间共享节点
+     * 2. 连接更多模式的规则关联更多节点，排在最前
+     * 3. 报告包含版本、编译时间和内存估算
+     */
+    @Test
+    void shouldReportNodeSharingAndFootprint() {
+        ruleLoader.updateRules(List.of(
+                rule("small_a", "String(length > 3)"),
+                rule("small_b", "String(length > 3)"),
+                rule("large", "String(length > 3)\n    $i: Integer(this > 1)\n    Long(this > $i)\n    Double(this > 0)")));
+
+        RuleNetworkReport report = introspectionService.inspect(GROUP);
+
+        assertNotNull(report);
+        assertEquals("1.0.1", report.getVersion());
+        assertNotNull(report.getCompileTime());
+        assertEquals(3, report.getRuleCount());
+        assertEquals(3, report.getNodeCountByType().get("RuleTerminalNode"));
+        assertTrue(report.getNodeCountByType().get("JoinNode") >= 2);
+        assertTrue(report.getSharedNodeCount() > 0);
+        assertTrue(report.getSharingRatio() > 1);
+        assertEquals("large", report.getLargestRules().keySet().iterator().next());
+        assertTrue(report.getKieBaseBytes() > 0);
+        assertTrue(report.getSessionBytes() > 0);
+        assertNull(report.getStreamSessionBytes());
+
+        assertNull(introspectionService.inspect("unknownGroup"));
+        assertEquals(1, introspectionService.inspectAll().size());
+    }
+
+    /**
+     * 测试事件流会话的占用随窗口中的事件增长
+     */
+    @Test
+    void shouldEstimateStreamSession() {
+        ruleLoader.updateDescriptor(STREAM_GROUP, KieBaseDescriptor.parse("drools.eventProcessingMode=stream"));
+        ruleLoader.updateRules(List.of(new RuleDefinition("count_rule", "count_rule", """
+                package rules.streamGroup;
+
+                import com.oneinstep.rule.core.executor.StreamEvent;
+
+                rule "count_rule"
+                when
+                    accumulate(StreamEvent() over window:time(1h) from entry-point "events"; $count: count())
+                then
+                end
+                """, STREAM_GROUP)));
+
+        insert(10);
+        RuleNetworkReport small = introspectionService.inspect(STREAM_GROUP);
+        insert(1000);
+        RuleNetworkReport large = introspectionService.inspect(STREAM_GROUP);
+
+        assertEquals(10, small.getStreamSessionFactCount());
+        assertEquals(1010, large.getStreamSessionFactCount());
+        assertTrue(large.getStreamSessionBytes() > small.getStreamSessionBytes());
+    }
+
+    private void insert(int count) {
+        for (int i = 0; i < count; i++) {
+            streamSessionManager.insert(STREAM_GROUP, "events",
+                    new StreamEvent("A", i, streamSessionManager.getCurrentTime(STREAM_GROUP)));
+        }
+    }
+
+    private RuleDefinition rule(String ruleId, String conditions) {
+        String content = "package rules." + GROUP + ";\n"
+                + "rule \"" + ruleId + "\"\n"
+                + "when\n"
+                + "    " + conditions + "\n"
+                + "then\n"
+                + "end\n";
+        return new RuleDefinition(ruleId, ruleId, content, GROUP);
+    }
+}
@@ -0,0 +1,165 @@
+package com.oneinstep.rule.core.store;
+
+import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.model.RuleLogPage;
+import com.oneinstep.rule.core.model.RuleLogQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLogStoreTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(SegmentedLogStore.toEpochMillis(BASE_TIME));
+
+    private SegmentedLogStore<RuleExecutionLog> store;
+
+    @BeforeEach
+    void setUp() {
+        store = openStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    /**
+     * 测试过滤和分页
+     * 验证:
+     * 1. 已落盘数据块和内存缓冲中的记录都能被查询到
+     * 2. 按规则组、规则ID、是否成功过滤
+     * 3. 结果按时间倒序分页
+     */
+    @Test
+    void shouldFilterAndPageAcrossBlocks() {
+        // 95 条记录，块大小为 10，最后 5 条留在内存缓冲中
+        for (int i = 0; i < 95; i++) {
+            store.append(createLog(i, i % 2 == 0 ? "groupA" : "groupB", "rule" + (i % 3), i % 5 != 0));
+        }
+
+        RuleLogQuery query = RuleLogQuery.builder()
+                .ruleGroup("groupA")
+                .success(false)
+                .size(3)
+                .build();
+        RuleLogPage<RuleExecutionLog> firstPage = store.query(query, log -> !log.isSuccess());
+        // groupA 且失败: i 为 10 的倍数，共 10 条
+        assertEquals(List.of("90", "80", "70"), ids(firstPage));
+        assertTrue(firstPage.isHasMore());
+
+        query.setPage(3);
+        RuleLogPage<RuleExecutionLog> lastPage = store.query(query, log -> !log.isSuccess());
+        assertEquals(List.of("0"), ids(lastPage));
+        assertFalse(lastPage.isHasMore());
+
+        RuleLogQuery byRule = RuleLogQuery.builder()
+                .ruleId("rule1")
+                .from(BASE_TIME.plusSeconds(10))
+                .to(BASE_TIME.plusSeconds(20))
+                .build();
+        assertEquals(List.of("19", "16", "13", "10"), ids(store.query(byRule, log -> true)));
+    }
+
+    /**
+     * 测试分段轮转、重新打开和过期清理
+     */
+    @Test
+    void shouldRotateReopenAndPurgeSegments() throws IOException {
+        // 每小时写入一批，共 4 个分段，轮转时清理超过保留时长(2小时)的分段，第一个分段被清理
+        for (int hour = 0; hour < 4; hour++) {
+            clock.set(SegmentedLogStore.toEpochMillis(BASE_TIME.plusHours(hour)));
+            for (int i = 0; i < 15; i++) {
+                store.append(createLog(hour * 100 + i, "groupA", "rule1", true));
+            }
+        }
+        store.close();
+        assertEquals(3, countFiles(".seg"));
+        assertEquals(3, countFiles(".idx"));
+
+        // 重新打开后已落盘的记录仍可查询
+        store = openStore();
+        RuleLogQuery query = RuleLogQuery.builder().size(100).build();
+        assertEquals(45, store.query(query, log -> true).getItems().size());
+
+        // 写入新分段时再次清理，只保留最近的分段
+        clock.set(SegmentedLogStore.toEpochMillis(BASE_TIME.plusHours(5)));
+        store.append(createLog(500, "groupA", "rule1", true));
+        store.flush();
+        assertEquals(2, countFiles(".seg"));
+        assertEquals(16, store.query(query, log -> true).getItems().size());
+    }
+
+    /**
+     * 测试追加后修改记录
+     * 验证: 记录在追加时序列化，之后的修改不影响缓冲中和已落盘的日志
+     */
+    @Test
+    void shouldKeepRecordAsAppended() {
+        RuleExecutionLog buffered = createLog(1, "groupA", "rule1", true);
+        store.append(buffered);
+        buffered.setSuccess(false);
+        buffered.setErrorMessage("changed");
+
+        RuleLogQuery query = RuleLogQuery.builder().build();
+        RuleExecutionLog stored = store.query(query, log -> true).getItems().getFirst();
+        assertTrue(stored.isSuccess());
+        assertNull(stored.getErrorMessage());
+
+        store.flush();
+        buffered.setRuleGroup("groupB");
+        assertEquals(1, store.query(RuleLogQuery.builder().ruleGroup("groupA").build(), log -> true)
+                .getItems().size());
+        assertTrue(store.query(query, log -> true).getItems().getFirst().isSuccess());
+    }
+
+    private SegmentedLogStore<RuleExecutionLog> openStore() {
+        return new SegmentedLogStore<>(tempDir, RuleExecutionLog.class,
+                LogRecordIndexer.of(
+                        log -> SegmentedLogStore.toEpochMillis(log.getExecuteTime()),
+                        RuleExecutionLog::getRuleGroup,
+                        log -> Collections.singletonList(log.getRuleId())),
+                Duration.ofHours(1), Duration.ofHours(2), 10, null, clock::get);
+    }
+
+    private RuleExecutionLog createLog(int seq, String group, String ruleId, boolean success) {
+        return RuleExecutionLog.builder()
+                .id(String.valueOf(seq))
+                .ruleGroup(group)
+                .ruleId(ruleId)
+                .executeTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get()), ZoneId.systemDefault())
+                        .plusSeconds(seq % 100))
+                .executeDuration(1L)
+                .success(success)
+                .build();
+    }
+
+    private List<String> ids(RuleLogPage<RuleExecutionLog> page) {
+        return page.getItems().stream().map(RuleExecutionLog::getId).toList();
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.oneinstep.rule.demo.controller;
 
+import com.alibaba.fastjson2.JSON;
 import com.oneinstep.rule.demo.model.trade.RiskCheckResult;
 import com.oneinstep.rule.demo.service.RiskControlService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 风险控制接口
@@ -18,6 +36,9 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class RiskControlController {
 
+    // 读取但尚未检查完成的订单上限
+    private static final int MAX_PENDING_ORDERS = 10_000;
+
     private final RiskControlService riskControlService;
 
     /**
@@ -31,5 +52,85 @@ public class RiskControlController {
         log.info("Checking trade risk for order: {}", request.getOrder().getOrderId());
         return riskControlService.checkTradeRisk(request.getOrder(), request.getAccount());
     }
-}
 
+    /**
+     * 批量检查交易风险
+     * 请求体为 NDJSON，每行一个风险检查请求；同一账户以第一次提供的账户信息为准，账户信息不晚于该账户的第一笔订单。
+     * 请求体边读取边检查，同一账户的订单按顺序计入交易窗口，不同账户并行检查，
+     * 结果按完成顺序以 NDJSON 逐行返回，通过 orderId 与订单对应。
+     * 读取但尚未检查完成的订单达到 {@link #MAX_PENDING_ORDERS} 时暂停读取；
+     * 开始返回结果后遇到无效的行时只能中断响应
+     *
+     * @param body 请求体
+     * @return 检查结果流
+     */
+    @PostMapping(value = "/check-batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody checkTradeRiskBatch(InputStream body) {
+        // 在响应线程中读取请求并写出已完成的结果，每块写完后刷新，调用方不必等待整批完成
+        return out -> {
+            BlockingQueue<List<RiskCheckResult>> completed = new LinkedBlockingQueue<>();
+            RiskControlService.RiskCheckBatch batch = riskControlService.openBatch(completed::add);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            int orders = 0;
+            int written = 0;
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    RiskCheckRequest request = JSON.parseObject(line, RiskCheckRequest.class);
+                    if (request == null || request.getOrder() == null) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing order: " + line);
+                    }
+                    try {
+                        batch.add(request.getOrder(), request.getAccount());
+                    } catch (IllegalArgumentException e) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+                    }
+                    orders++;
+
+                    List<List<RiskCheckResult>> ready = new ArrayList<>();
+                    completed.drainTo(ready);
+                    for (List<RiskCheckResult> results : ready) {
+                        written += write(out, results);
+                    }
+                    // 检查跟不上读取时等待检查完成
+                    while (batch.pending() >= MAX_PENDING_ORDERS) {
+                        written += write(out, completed.poll(100, TimeUnit.MILLISECONDS));
+                    }
+                }
+                log.info("Checking trade risk for batch of {} orders", orders);
+
+                CompletableFuture<Void> completion = batch.complete();
+                while (written < orders) {
+                    List<RiskCheckResult> results = completed.poll(100, TimeUnit.MILLISECONDS);
+                    if (results == null && completion.isCompletedExceptionally()) {
+                        completion.join();
+                    }
+                    written += write(out, results);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    /**
+     * 写出一块检查结果并刷新
+     *
+     * @return 写出的结果数
+     */
+    private static int write(OutputStream out, List<RiskCheckResult> results) throws IOException {
+        if (results == null) {
+            return 0;
+        }
+        for (RiskCheckResult result : results) {
+            out.write(JSON.toJSONBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        return results.size();
+    }
+}
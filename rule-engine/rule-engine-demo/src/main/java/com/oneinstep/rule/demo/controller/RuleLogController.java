@@ -0,0 +1,80 @@
+package com.oneinstep.rule.demo.controller;
+
+import com.oneinstep.rule.core.model.RuleExecutionLog;
+import com.oneinstep.rule.core.model.RuleLogPage;
+import com.oneinstep.rule.core.model.RuleLogQuery;
+import com.oneinstep.rule.core.model.RuleUpdateLog;
+import com.oneinstep.rule.core.service.RuleExecutionLogService;
+import com.oneinstep.rule.core.service.RuleUpdateLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * 规则日志查询接口
+ * 例如查询 riskControl 组最近一小时的失败记录：
+ * GET /api/rule-logs/executions?group=riskControl&success=false&lastMinutes=60
+ */
+@RestController
+@RequestMapping("/api/rule-logs")
+@RequiredArgsConstructor
+public class RuleLogController {
+
+    private final RuleExecutionLogService executionLogService;
+    private final RuleUpdateLogService updateLogService;
+
+    /**
+     * 查询规则执行日志
+     */
+    @GetMapping("/executions")
+    public RuleLogPage<RuleExecutionLog> queryExecutions(
+            @RequestParam(required = false) String group,
+            @RequestParam(required = false) String ruleId,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer lastMinutes,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return executionLogService.query(buildQuery(group, ruleId, success, from, to, lastMinutes, page, size));
+    }
+
+    /**
+     * 查询规则更新日志
+     */
+    @GetMapping("/updates")
+    public RuleLogPage<RuleUpdateLog> queryUpdates(
+            @RequestParam(required = false) String group,
+            @RequestParam(required = false) String ruleId,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer lastMinutes,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return updateLogService.query(buildQuery(group, ruleId, success, from, to, lastMinutes, page, size));
+    }
+
+    private RuleLogQuery buildQuery(String group, String ruleId, Boolean success,
+                                    LocalDateTime from, LocalDateTime to, Integer lastMinutes,
+                                    int page, int size) {
+        // lastMinutes 优先于 from
+        if (lastMinutes != null) {
+            from = LocalDateTime.now().minusMinutes(lastMinutes);
+        }
+        return RuleLogQuery.builder()
+                .ruleGroup(group)
+                .ruleId(ruleId)
+                .success(success)
+                .from(from)
+                .to(to)
+                .page(page)
+                .size(Math.min(size, 1000))
+                .build();
+    }
+}
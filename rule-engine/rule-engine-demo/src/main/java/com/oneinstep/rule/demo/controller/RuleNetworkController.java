@@ -0,0 +1,44 @@
+package com.oneinstep.rule.demo.controller;
+
+import com.oneinstep.rule.core.model.RuleNetworkReport;
+import com.oneinstep.rule.core.service.RuleIntrospectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 规则网络检查接口
+ * 查看各规则组 Rete 网络的节点数、节点共享情况和估算的内存占用，例如：
+ * GET /api/rule-network
+ * GET /api/rule-network/riskControl
+ * 统计需要遍历整个 KieBase，不要频繁调用
+ */
+@RestController
+@RequestMapping("/api/rule-network")
+@RequiredArgsConstructor
+public class RuleNetworkController {
+
+    private final RuleIntrospectionService introspectionService;
+
+    /**
+     * 查看所有已加载的规则组
+     */
+    @GetMapping
+    public List<RuleNetworkReport> inspectAll() {
+        return introspectionService.inspectAll();
+    }
+
+    /**
+     * 查看单个规则组
+     */
+    @GetMapping("/{group}")
+    public ResponseEntity<RuleNetworkReport> inspect(@PathVariable String group) {
+        RuleNetworkReport report = introspectionService.inspect(group);
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.notFound().build();
+    }
+}
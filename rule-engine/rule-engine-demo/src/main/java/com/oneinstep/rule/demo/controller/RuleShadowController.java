@@ -0,0 +1,60 @@
+package com.oneinstep.rule.demo.controller;
+
+import com.oneinstep.rule.core.executor.ShadowEvaluator;
+import com.oneinstep.rule.core.model.ShadowReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 影子候选版本管理接口
+ * 例如查看 riskControl 组候选版本的评估报告：
+ * GET /api/rule-shadow/riskControl
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/rule-shadow")
+@RequiredArgsConstructor
+public class RuleShadowController {
+
+    private final ShadowEvaluator shadowEvaluator;
+
+    /**
+     * 查看候选版本的评估报告
+     */
+    @GetMapping("/{group}")
+    public ResponseEntity<ShadowReport> report(@PathVariable String group) {
+        ShadowReport report = shadowEvaluator.getReport(group);
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 提升候选版本，force=true 时忽略阈值
+     */
+    @PostMapping("/{group}/promote")
+    public ResponseEntity<String> promote(@PathVariable String group,
+                                          @RequestParam(defaultValue = "false") boolean force) {
+        try {
+            boolean promoted = shadowEvaluator.promote(group, force);
+            log.info("Promote shadow candidate for group: {}, force: {}, promoted: {}", group, force, promoted);
+            return promoted ? ResponseEntity.ok("promoted") : ResponseEntity.status(409).body("candidate changed");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 丢弃候选版本
+     */
+    @DeleteMapping("/{group}")
+    public ResponseEntity<Void> discard(@PathVariable String group) {
+        return shadowEvaluator.discard(group) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.oneinstep.rule.demo.model.trade;
 
+import com.oneinstep.rule.core.fact.Decompose;
 import lombok.Builder;
 import lombok.Data;
 
@@ -14,9 +15,11 @@ public class Account {
     private double balance;                // 账户余额
     private int dailyTradeCount;          // 当日交易次数
 
+    @Decompose
     @Builder.Default
     private Map<String, Position> positions = new ConcurrentHashMap<>();  // 持仓信息
 
+    @Decompose
     @Builder.Default
     private Map<String, Double> stockPositions = new ConcurrentHashMap<>();  // 股票持仓比例
 
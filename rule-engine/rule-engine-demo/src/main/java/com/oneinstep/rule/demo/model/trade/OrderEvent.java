@@ -0,0 +1,38 @@
+package com.oneinstep.rule.demo.model.trade;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.kie.api.definition.type.Role;
+import org.kie.api.definition.type.Timestamp;
+
+/**
+ * 订单事件
+ * 风控检查通过的订单作为事件插入 riskControl 组的事件流会话，用于维护滑动窗口
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Role(Role.Type.EVENT)
+@Timestamp("eventTime")
+public class OrderEvent {
+    private String orderId;        // 订单ID
+    private String accountId;      // 账户ID
+    private String stockCode;      // 股票代码
+    private String type;           // 订单类型(BUY/SELL)
+    private double amount;         // 订单金额
+    private long eventTime;        // 事件时间(毫秒)
+
+    public static OrderEvent of(Order order, long eventTime) {
+        return OrderEvent.builder()
+                .orderId(order.getOrderId())
+                .accountId(order.getAccountId())
+                .stockCode(order.getStockCode())
+                .type(order.getType())
+                .amount(order.getAmount())
+                .eventTime(eventTime)
+                .build();
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 @Data
 @Builder
 public class RiskCheckResult {
+    private String orderId;          // 订单ID，规则按订单ID关联订单和检查结果
     @Builder.Default
     private List<RiskViolation> violations = new ArrayList<>();
     private boolean passed;
@@ -0,0 +1,24 @@
+package com.oneinstep.rule.demo.model.trade;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 账户级别对应的交易限额
+ * 限额由决策表 rules/riskControl/trade_limit.csv 按账户级别填充，风控检查时作为事实插入
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeLimit {
+    private String level;                // 账户级别
+    private double singleTradeLimit;     // 单笔交易限额
+    private double dailyNotionalLimit;   // 24小时累计交易限额
+
+    public TradeLimit(String level) {
+        this.level = level;
+    }
+}
@@ -0,0 +1,26 @@
+package com.oneinstep.rule.demo.model.trade;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 账户交易滑动窗口
+ * 由事件流会话中的规则按账户增量维护，风控检查时为每笔订单复制一份作为事实插入，
+ * 复制的窗口包含同一次检查中排在该订单之前的订单
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeWindow {
+    private String accountId;      // 账户ID
+    private String orderId;        // 风控检查时窗口对应的订单ID，事件流会话中的窗口为空
+    private int tradeCount;        // 窗口内交易次数
+    private double notional;       // 窗口内交易金额
+
+    public TradeWindow(String accountId) {
+        this.accountId = accountId;
+    }
+}
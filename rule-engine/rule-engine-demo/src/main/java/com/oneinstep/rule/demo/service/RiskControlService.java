@@ -1,66 +1,408 @@
 package com.oneinstep.rule.demo.service;
 
+import com.oneinstep.rule.core.decisiontable.DecisionTableRegistry;
 import com.oneinstep.rule.core.executor.RuleExecutor;
+import com.oneinstep.rule.core.executor.StreamSessionManager;
 import com.oneinstep.rule.core.model.RuleExecutionContext;
 import com.oneinstep.rule.core.model.RuleExecutionResult;
 import com.oneinstep.rule.demo.model.trade.Account;
 import com.oneinstep.rule.demo.model.trade.Order;
+import com.oneinstep.rule.demo.model.trade.OrderEvent;
 import com.oneinstep.rule.demo.model.trade.RiskCheckResult;
+import com.oneinstep.rule.demo.model.trade.TradeLimit;
+import com.oneinstep.rule.demo.model.trade.TradeWindow;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.oneinstep.rule.demo.constants.RuleGroupConstants.RULE_GROUP_RISK_CONTROL;
 
+/**
+ * 风险控制服务
+ * riskControl 组配置为事件流规则组时，交易次数和交易金额由事件流会话中的滑动窗口实时维护，
+ * 检查时读取账户的窗口快照作为事实，检查通过的订单作为事件写回窗口；
+ * 未配置时使用调用方提供的 Account.dailyTradeCount。
+ * 账户级别对应的交易限额由索引化的决策表 trade_limit 直接查出，不经过规则匹配。
+ * 同一账户的多笔订单依次计入交易窗口，结果与逐笔检查相同；批量检查时同一账户的订单在一次规则执行中检查，
+ * 账户相关的事实只插入一次。
+ * 同一账户的窗口读取、规则执行和通过订单的事件写入持有账户锁完成，并发的检查请求不会读到同一个窗口而同时通过
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RiskControlService {
 
+    // 订单事件和交易窗口所在的 entry point，以及查询名，见 trade_window_rule.drl
+    private static final String TRADE_EVENTS = "trade-events";
+    private static final String TRADE_WINDOW_QUERY = "tradeWindow";
+    // 交易限额决策表，见 trade_limit.csv
+    private static final String TRADE_LIMIT_TABLE = "trade_limit";
+    // 批量检查时一次规则执行包含的最多订单数
+    private static final int BATCH_CHUNK_SIZE = 50;
+    // 账户锁的数量，账户按ID散列到其中一把锁
+    private static final int ACCOUNT_LOCK_STRIPES = 256;
+
     private final RuleExecutor ruleExecutor;
+    private final StreamSessionManager streamSessionManager;
+    private final DecisionTableRegistry decisionTableRegistry;
+
+    // 账户锁，同一账户的检查串行执行
+    private final ReentrantLock[] accountLocks = Stream.generate(ReentrantLock::new)
+            .limit(ACCOUNT_LOCK_STRIPES)
+            .toArray(ReentrantLock[]::new);
+
+    // 批量检查的执行线程，规则执行以计算为主，线程数与 CPU 核数一致
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                private final AtomicInteger threadIndex = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "risk-batch-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
     public RiskCheckResult checkTradeRisk(Order order, Account account) {
-        // 创建风险检查结果对象
-        RiskCheckResult result = RiskCheckResult.builder()
+        return new AccountRisk(account).check(List.of(order)).getFirst();
+    }
+
+    /**
+     * 批量检查
+     * 订单按账户分组，每个账户的订单按 {@link #BATCH_CHUNK_SIZE} 分块，同一账户的块依次执行，不同账户的块并行执行，
+     * 每块完成后立即回调，先完成的结果不必等待整批检查完成
+     *
+     * @param orders   订单，orderId 不能重复
+     * @param accounts 订单所属的账户 key: 账户ID
+     * @param onChunk  每块完成后的回调，会被多个线程同时调用
+     * @return 全部检查完成后完成的 Future
+     * @throws IllegalArgumentException orderId 重复或订单的账户不存在
+     */
+    public CompletableFuture<Void> checkTradeRiskBatch(List<Order> orders, Map<String, Account> accounts,
+                                                      Consumer<List<RiskCheckResult>> onChunk) {
+        Set<String> orderIds = new HashSet<>();
+        for (Order order : orders) {
+            if (!orderIds.add(order.getOrderId())) {
+                throw new IllegalArgumentException("Duplicate orderId in batch: " + order.getOrderId());
+            }
+            if (!accounts.containsKey(order.getAccountId())) {
+                throw new IllegalArgumentException("Account not found for order: " + order.getOrderId());
+            }
+        }
+
+        RiskCheckBatch batch = openBatch(onChunk);
+        for (Order order : orders) {
+            batch.add(order, accounts.get(order.getAccountId()));
+        }
+        return batch.complete();
+    }
+
+    /**
+     * 开始流式批量检查，订单逐笔加入，不需要事先读取全部订单
+     *
+     * @param onChunk 每块完成后的回调，会被多个线程同时调用
+     * @return 批量检查
+     */
+    public RiskCheckBatch openBatch(Consumer<List<RiskCheckResult>> onChunk) {
+        return new RiskCheckBatch(onChunk);
+    }
+
+    /**
+     * 依次检查同一账户的多笔订单
+     * 账户和交易限额只查询和插入一次，每笔订单插入一份交易窗口，其中包含排在它之前的订单，
+     * 规则按 orderId 关联订单、交易窗口和检查结果。
+     * 一次规则执行假定前面的订单都能通过，有订单未通过时，其后的订单按实际通过的订单重新执行，
+     * 多数订单通过时只需执行一次
+     *
+     * @param account 账户
+     * @param window  账户的交易窗口快照，通过检查的订单计入其中
+     * @param orders  账户的订单，orderId 不能重复
+     * @return 各订单的检查结果，与订单顺序一致
+     */
+    private List<RiskCheckResult> checkTradeRisk(Account account, TradeWindow window, List<Order> orders) {
+        List<RiskCheckResult> results = new ArrayList<>(orders.size());
+        try {
+            TradeLimit limit = getTradeLimit(account);
+            while (results.size() < orders.size()) {
+                List<Order> remaining = orders.subList(results.size(), orders.size());
+                List<RiskCheckResult> checked = execute(account, window, limit, remaining);
+                for (int i = 0; i < checked.size(); i++) {
+                    Order order = remaining.get(i);
+                    RiskCheckResult result = checked.get(i);
+                    results.add(result);
+                    log.info("Risk check completed for order: {}, passed: {}", order.getOrderId(), result.isPassed());
+                    if (!result.isPassed()) {
+                        // 其后的订单按本订单通过检查，需要重新执行
+                        log.warn("Risk violations: {}", result.getViolations());
+                        break;
+                    }
+
+                    // 检查通过的订单计入交易窗口
+                    window.setTradeCount(window.getTradeCount() + 1);
+                    window.setNotional(window.getNotional() + order.getAmount());
+                    if (streamSessionManager.isStreamGroup(RULE_GROUP_RISK_CONTROL)) {
+                        streamSessionManager.insert(RULE_GROUP_RISK_CONTROL, TRADE_EVENTS, OrderEvent.of(order,
+                                streamSessionManager.getCurrentTime(RULE_GROUP_RISK_CONTROL)));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error checking trade risk", e);
+            results.addAll(failed(orders.subList(results.size(), orders.size()), e));
+        }
+        return results;
+    }
+
+    /**
+     * 在一次规则执行中检查订单，规则直接修改插入的结果对象
+     *
+     * @throws IllegalStateException 规则执行失败
+     */
+    private List<RiskCheckResult> execute(Account account, TradeWindow window, TradeLimit limit, List<Order> orders) {
+        List<RiskCheckResult> results = orders.stream().map(RiskControlService::newResult).toList();
+        List<Object> facts = new ArrayList<>(orders.size() * 3 + 2);
+        facts.add(account);
+        facts.add(limit);
+        int tradeCount = window.getTradeCount();
+        double notional = window.getNotional();
+        for (Order order : orders) {
+            facts.add(order);
+            facts.add(TradeWindow.builder()
+                    .accountId(account.getId())
+                    .orderId(order.getOrderId())
+                    .tradeCount(tradeCount)
+                    .notional(notional)
+                    .build());
+            tradeCount++;
+            notional += order.getAmount();
+        }
+        facts.addAll(results);
+        RuleExecutionContext context = RuleExecutionContext.builder()
+                .ruleGroup(RULE_GROUP_RISK_CONTROL)
+                .facts(facts)
+                .build();
+        // 执行风险控制规则
+        RuleExecutionResult ruleExecutionResult = ruleExecutor.execute(context);
+        if (!ruleExecutionResult.isSuccess()) {
+            throw new IllegalStateException(ruleExecutionResult.getErrorMessage());
+        }
+        return results;
+    }
+
+    private static List<RiskCheckResult> failed(List<Order> orders, Exception e) {
+        return orders.stream().map(order -> {
+            RiskCheckResult result = newResult(order);
+            result.addViolation("系统错误", e.getMessage());
+            return result;
+        }).toList();
+    }
+
+    private static RiskCheckResult newResult(Order order) {
+        return RiskCheckResult.builder()
+                .orderId(order.getOrderId())
                 .passed(true)
                 .build();
+    }
 
-        try {
-            RuleExecutionContext context = RuleExecutionContext.builder()
-                    .ruleGroup(RULE_GROUP_RISK_CONTROL)
-                    .facts(List.of(order, result, account))
+    /**
+     * 关闭批量检查线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * 按账户级别查决策表得到交易限额，没有匹配的级别时限额为 0
+     */
+    private TradeLimit getTradeLimit(Account account) {
+        TradeLimit limit = new TradeLimit(account.getLevel());
+        decisionTableRegistry.find(RULE_GROUP_RISK_CONTROL, TRADE_LIMIT_TABLE)
+                .ifPresent(table -> table.apply(limit));
+        return limit;
+    }
+
+    /**
+     * 获取账户交易窗口的快照
+     * 事件流会话中的窗口会被并发修改，复制后再用于检查
+     */
+    private TradeWindow getTradeWindow(Account account) {
+        if (!streamSessionManager.isStreamGroup(RULE_GROUP_RISK_CONTROL)) {
+            return TradeWindow.builder()
+                    .accountId(account.getId())
+                    .tradeCount(account.getDailyTradeCount())
                     .build();
-            // 执行风险控制规则
-            RuleExecutionResult ruleExecutionResult = ruleExecutor.execute(context);
+        }
+        List<TradeWindow> windows = streamSessionManager.query(RULE_GROUP_RISK_CONTROL, TRADE_WINDOW_QUERY, row -> {
+            TradeWindow window = (TradeWindow) row.get("$window");
+            return TradeWindow.builder()
+                    .accountId(window.getAccountId())
+                    .tradeCount(window.getTradeCount())
+                    .notional(window.getNotional())
+                    .build();
+        }, account.getId());
+        return windows.isEmpty() ? new TradeWindow(account.getId()) : windows.getFirst();
+    }
 
-            if (!ruleExecutionResult.isSuccess()) {
-                result.addViolation("系统错误", ruleExecutionResult.getErrorMessage());
-                return result;
-            }
+    /**
+     * 流式批量检查
+     * 订单按账户缓存，满 {@link #BATCH_CHUNK_SIZE} 笔时立即提交检查，只保留未提交和检查中的订单。
+     * 同一账户的块依次执行，后一块使用前一块检查后的交易窗口；不同账户的块并行执行。
+     * add 和 complete 应在同一个线程中调用
+     */
+    public final class RiskCheckBatch {
 
-            if (ruleExecutionResult.getFacts() != null) {
-                ruleExecutionResult.getFacts().forEach(fact -> {
-                    if (fact instanceof RiskCheckResult r) {
-                        result.setPassed(r.isPassed());
-                        result.setViolations(r.getViolations());
-                    }
-                });
-            }
+        private final Consumer<List<RiskCheckResult>> onChunk;
+
+        // 已出现的账户 key: 账户ID
+        private final Map<String, AccountRisk> accounts = new HashMap<>();
+
+        // 已加入、尚未检查完成的订单数
+        private final AtomicInteger pending = new AtomicInteger();
 
-            log.info("Risk check completed for order: {}, passed: {}",
-                    order.getOrderId(), result.isPassed());
+        // 回调抛出的第一个异常
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
 
-            if (!result.isPassed()) {
-                log.warn("Risk violations: {}", result.getViolations());
+        private int orders;
+
+        private int chunks;
+
+        private RiskCheckBatch(Consumer<List<RiskCheckResult>> onChunk) {
+            this.onChunk = onChunk;
+        }
+
+        /**
+         * 加入一笔订单
+         *
+         * @param order   订单，同一账户未提交的订单中 orderId 不能重复
+         * @param account 账户信息，可以为空；同一账户以第一次提供的为准，订单之前必须提供过其账户
+         * @throws IllegalArgumentException orderId 重复或订单的账户不存在
+         */
+        public void add(Order order, Account account) {
+            if (account != null) {
+                accounts.computeIfAbsent(account.getId(), id -> new AccountRisk(account));
+            }
+            AccountRisk accountRisk = accounts.get(order.getAccountId());
+            if (accountRisk == null) {
+                throw new IllegalArgumentException("Account not found for order: " + order.getOrderId());
             }
+            if (!accountRisk.orderIds.add(order.getOrderId())) {
+                throw new IllegalArgumentException("Duplicate orderId in batch: " + order.getOrderId());
+            }
+            accountRisk.orders.add(order);
+            pending.incrementAndGet();
+            orders++;
+            if (accountRisk.orders.size() >= BATCH_CHUNK_SIZE) {
+                submit(accountRisk);
+            }
+        }
 
-        } catch (Exception e) {
-            log.error("Error checking trade risk", e);
-            result.addViolation("系统错误", e.getMessage());
+        /**
+         * 已加入、尚未检查完成的订单数
+         */
+        public int pending() {
+            return pending.get();
+        }
+
+        /**
+         * 提交各账户剩余的订单
+         *
+         * @return 全部检查完成后完成的 Future，回调抛出异常时以该异常完成
+         */
+        public CompletableFuture<Void> complete() {
+            accounts.values().stream().filter(accountRisk -> !accountRisk.orders.isEmpty()).forEach(this::submit);
+            log.info("Checking {} orders of {} accounts in {} chunks", orders, accounts.size(), chunks);
+            return CompletableFuture.allOf(accounts.values().stream()
+                            .map(accountRisk -> accountRisk.tail)
+                            .toArray(CompletableFuture[]::new))
+                    .thenRun(() -> {
+                        if (failure.get() != null) {
+                            throw failure.get();
+                        }
+                    });
+        }
+
+        /**
+         * 提交账户未提交的订单，排在该账户上一块之后执行
+         */
+        private void submit(AccountRisk accountRisk) {
+            List<Order> chunk = accountRisk.orders;
+            accountRisk.orders = new ArrayList<>();
+            accountRisk.orderIds.clear();
+            accountRisk.tail = accountRisk.tail.thenRunAsync(() -> {
+                try {
+                    onChunk.accept(accountRisk.check(chunk));
+                } catch (RuntimeException e) {
+                    log.error("Failed to handle risk check results", e);
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pending.addAndGet(-chunk.size());
+                }
+            }, batchExecutor);
+            chunks++;
+        }
+    }
+
+    /**
+     * 一个账户的风控检查，依次检查的订单共用交易窗口
+     */
+    private final class AccountRisk {
+
+        private final Account account;
+
+        // 批量检查中未提交的订单
+        private List<Order> orders = new ArrayList<>();
+
+        private final Set<String> orderIds = new HashSet<>();
+
+        // 最后提交的块，后提交的块在其完成后执行
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        // 交易窗口，之后计入已通过的订单，只在持有账户锁时访问
+        // 事件流规则组每次检查重新读取，包含其他请求写入的订单；否则首次检查时由账户信息创建
+        private TradeWindow window;
+
+        private AccountRisk(Account account) {
+            this.account = account;
         }
 
-        return result;
+        /**
+         * 持有账户锁读取交易窗口、检查订单并写入通过的订单
+         */
+        private List<RiskCheckResult> check(List<Order> chunk) {
+            ReentrantLock lock = accountLocks[Math.floorMod(account.getId().hashCode(), ACCOUNT_LOCK_STRIPES)];
+            lock.lock();
+            try {
+                if (window == null || streamSessionManager.isStreamGroup(RULE_GROUP_RISK_CONTROL)) {
+                    try {
+                        window = getTradeWindow(account);
+                    } catch (Exception e) {
+                        log.error("Error reading trade window of account: {}", account.getId(), e);
+                        return failed(chunk, e);
+                    }
+                }
+                return checkTradeRisk(account, window, chunk);
+            } finally {
+                lock.unlock();
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.oneinstep.rule.demo.service;
+
+import com.oneinstep.rule.core.RuleEngine;
+import com.oneinstep.rule.core.config.RuleStreamProperties;
+import com.oneinstep.rule.core.executor.RuleExecutor;
+import com.oneinstep.rule.core.executor.StreamSessionManager;
+import com.oneinstep.rule.demo.model.trade.Account;
+import com.oneinstep.rule.demo.model.trade.Order;
+import com.oneinstep.rule.demo.model.trade.RiskCheckResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.oneinstep.rule.demo.constants.RuleGroupConstants.RULE_GROUP_RISK_CONTROL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiskControlServiceTest {
+
+    private static final String ACCOUNT_ID = "A1";
+
+    private RuleEngine engine;
+
+    private StreamSessionManager streamSessionManager;
+
+    private RiskControlService service;
+
+    @BeforeEach
+    void setUp() {
+        engine = RuleEngine.builder().build();
+        engine.load(RULE_GROUP_RISK_CONTROL);
+        RuleStreamProperties streamProperties = new RuleStreamProperties();
+        streamProperties.setGroups(List.of(RULE_GROUP_RISK_CONTROL));
+        streamProperties.setClockType("pseudo");
+        streamSessionManager = new StreamSessionManager(engine.getRuleLoader(), streamProperties);
+        service = new RiskControlService(new RuleExecutor(null, engine.getRuleLoader()), streamSessionManager,
+                engine.getDecisionTables());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        streamSessionManager.shutdown();
+        engine.close();
+    }
+
+    /**
+     * 测试一篮子订单不能拆分绕过滚动交易金额限制
+     * 验证:
+     * 1. 每笔都低于单笔限额，前5笔累计 45万 通过检查
+     * 2. 第6笔累计 54万 超过普通账户的 50万 限额，未通过
+     * 3. 未通过的订单不计入窗口，之后的小额订单按实际通过的金额检查
+     * 4. 通过的订单写入事件流会话的交易窗口，之后的检查读到累计金额
+     */
+    @Test
+    void shouldRejectBasketOverRollingNotionalLimit() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            orders.add(order("O" + i, 90_000));
+        }
+        orders.add(order("O7", 40_000));
+
+        Map<String, RiskCheckResult> results = checkBatch(orders);
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(results.get("O" + i).isPassed(), "O" + i + ": " + results.get("O" + i).getViolations());
+        }
+        RiskCheckResult rejected = results.get("O6");
+        assertFalse(rejected.isPassed());
+        assertEquals(1, rejected.getViolations().size());
+        assertTrue(rejected.getViolations().toString().contains("累计交易金额超限"), rejected.getViolations().toString());
+        assertTrue(results.get("O7").isPassed(), results.get("O7").getViolations().toString());
+
+        // 窗口中已有 49万，单笔检查也不能超过限额
+        assertFalse(service.checkTradeRisk(order("O8", 20_000), account()).isPassed());
+        assertTrue(service.checkTradeRisk(order("O9", 10_000), account()).isPassed());
+    }
+
+    /**
+     * 测试交易次数跨块累计
+     * 55笔订单分为两块依次检查，第二块使用第一块检查后的交易窗口，前50笔通过，之后的超过次数限制
+     */
+    @Test
+    void shouldCountTradesAcrossChunks() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i <= 55; i++) {
+            orders.add(order("O" + i, 1_000));
+        }
+
+        Map<String, RiskCheckResult> results = checkBatch(orders);
+
+        assertEquals(55, results.size());
+        for (int i = 1; i <= 50; i++) {
+            assertTrue(results.get("O" + i).isPassed(), "O" + i + ": " + results.get("O" + i).getViolations());
+        }
+        for (int i = 51; i <= 55; i++) {
+            assertFalse(results.get("O" + i).isPassed());
+            assertTrue(results.get("O" + i).getViolations().toString().contains("当日交易次数超限"));
+        }
+    }
+
+    /**
+     * 测试同一账户的并发单笔检查
+     * 多个线程同时检查，每笔都低于单笔限额，通过的订单累计金额和交易次数仍不超过限额
+     */
+    @Test
+    void shouldHoldLimitsUnderConcurrentChecks() throws Exception {
+        // 50万限额下 9万的订单最多通过5笔
+        assertEquals(5, checkConcurrently(12, 90_000));
+        // 已有5笔，交易次数达到50笔后不再通过
+        assertEquals(45, checkConcurrently(60, 100));
+    }
+
+    /**
+     * 多个线程同时开始检查同一账户的订单
+     *
+     * @return 通过的订单数
+     */
+    private long checkConcurrently(int count, double amount) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<RiskCheckResult>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Order order = order(UUID.randomUUID().toString(), amount);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return service.checkTradeRisk(order, account());
+                }));
+            }
+            start.countDown();
+            long passed = 0;
+            for (Future<RiskCheckResult> future : futures) {
+                if (future.get(30, TimeUnit.SECONDS).isPassed()) {
+                    passed++;
+                }
+            }
+            return passed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, RiskCheckResult> checkBatch(List<Order> orders) throws Exception {
+        Map<String, RiskCheckResult> results = new ConcurrentHashMap<>();
+        service.checkTradeRiskBatch(orders, Map.of(ACCOUNT_ID, account()),
+                        chunk -> chunk.forEach(result -> results.put(result.getOrderId(), result)))
+                .get(30, TimeUnit.SECONDS);
+        return results;
+    }
+
+    private static Order order(String orderId, double amount) {
+        return Order.builder()
+                .orderId(orderId)
+                .accountId(ACCOUNT_ID)
+                .stockCode("600000")
+                .type("BUY")
+                .price(10)
+                .quantity(amount / 10)
+                .build();
+    }
+
+    private static Account account() {
+        return Account.builder()
+                .id(ACCOUNT_ID)
+                .level("普通账户")
+                .balance(10_000_000)
+                .build();
+    }
+}
@@ -4,20 +4,6 @@ CREATE DATABASE IF NOT EXISTS sharding_demo;
 USE sharding_demo;
 -- 删除模版表
 DROP TABLE IF EXISTS event_log_template;
--- 删除 1 到 12 月的表
-DROP TABLE IF EXISTS event_log_202501;
-DROP TABLE IF EXISTS event_log_202502;
-DROP TABLE IF EXISTS event_log_202503;
-DROP TABLE IF EXISTS event_log_202504;
-DROP TABLE IF EXISTS event_log_202505;
-DROP TABLE IF EXISTS event_log_202506;
-DROP TABLE IF EXISTS event_log_202507;
-DROP TABLE IF EXISTS event_log_202508;
-DROP TABLE IF EXISTS event_log_202509;
-DROP TABLE IF EXISTS event_log_202510;
-DROP TABLE IF EXISTS event_log_202511;
-DROP TABLE IF EXISTS event_log_202512;
-
 -- 创建模版表
 CREATE TABLE IF NOT EXISTS event_log_template
 (
@@ -31,14 +17,19 @@ CREATE TABLE IF NOT EXISTS event_log_template
     INDEX `idx_create_time` (`create_time`) USING BTREE
 ) COMMENT = '事件日志表' COLLATE = 'utf8mb4_general_ci'
                          ENGINE = InnoDB;
--- 使用存储过程 创建 1 到 12 月的表
+-- 使用存储过程 重新创建 2025-01 到 2027-12 的月表，与 shardingsphere.yml 中的 actualDataNodes 一致
 DELIMITER // DROP PROCEDURE IF EXISTS create_event_log_tables;
 CREATE PROCEDURE create_event_log_tables()
 BEGIN
-    DECLARE i INT DEFAULT 1;
-    WHILE i <= 12
+    DECLARE m DATE DEFAULT '2025-01-01';
+    WHILE m <= '2027-12-01'
         DO
-            SET @table_name = CONCAT('event_log_2025', LPAD(i, 2, '0'));
+            SET @table_name = CONCAT('event_log_', DATE_FORMAT(m, '%Y%m'));
+            SET @drop_table_sql = CONCAT('DROP TABLE IF EXISTS ', @table_name);
+            PREPARE stmt
+                FROM @drop_table_sql;
+            EXECUTE stmt;
+            DEALLOCATE PREPARE stmt;
             SET @create_table_sql = CONCAT(
                     'CREATE TABLE IF NOT EXISTS ',
                     @table_name,
@@ -48,7 +39,7 @@ BEGIN
                 FROM @create_table_sql;
             EXECUTE stmt;
             DEALLOCATE PREPARE stmt;
-            SET i = i + 1;
+            SET m = DATE_ADD(m, INTERVAL 1 MONTH);
         END WHILE;
 END //
 DELIMITER ;
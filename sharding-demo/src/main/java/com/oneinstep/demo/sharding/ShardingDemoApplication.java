@@ -5,15 +5,34 @@ import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 // 扫描 Mapper 接口
 @MapperScan("com.oneinstep.demo.sharding.mapper")
+// 定时维护月表
+@EnableScheduling
 public class ShardingDemoApplication {
 
+    /**
+     * 主键生成器名称，与 {@link com.oneinstep.demo.sharding.domain.EventLog} 的 @Id 配置一致
+     */
+    public static final String ID_GENERATOR = "snowflakeIdGenerator";
+
     public static void main(String[] args) {
-        KeyGeneratorFactory.register("snowflakeIdGenerator", new SnowflakeIdGenerator());
         SpringApplication.run(ShardingDemoApplication.class, args);
     }
 
+    /**
+     * 雪花算法ID生成器
+     * 注册到 MyBatis-Flex 用于插入时生成主键，批量导入等直接生成ID的场景注入同一个实例，保证ID不重复
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator();
+        KeyGeneratorFactory.register(ID_GENERATOR, idGenerator);
+        return idGenerator;
+    }
+
 }
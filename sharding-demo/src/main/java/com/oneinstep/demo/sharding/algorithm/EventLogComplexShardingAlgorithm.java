@@ -1,55 +1,46 @@
 package com.oneinstep.demo.sharding.algorithm;
 
+import com.google.common.collect.Range;
 import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingAlgorithm;
 import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 事件日志复合分片算法
  * 支持按ID和时间进行分片路由，实现按月分表
+ * <p>
+ * 首次路由时根据可用表名预先计算每张月表的起止时间(毫秒时间戳和 LocalDateTime)，按开始时间排序，
+ * 之后按ID或时间路由只需二分查找，不再格式化日期、解析表名。可用表名变化时重新计算。
  */
 @Slf4j
 public class EventLogComplexShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
 
-    // 表后缀日期格式：yyyyMM
-    private static final String SUFFIX_PATTERN = "yyyyMM";
+    // 表后缀长度：yyyyMM
+    private static final int SUFFIX_LENGTH = 6;
     // 创建时间字段名
     private static final String CREATE_TIME_COLUMN = "create_time";
     // ID字段名
     private static final String ID_COLUMN = "id";
 
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
     /**
-     * 检查时间是否在有效范围内
-     * 根据实际表名推断有效时间范围
+     * 当前可用表的路由表，只在可用表名变化时替换
      */
-    private boolean isTimeInRange(LocalDateTime dateTime, Collection<String> availableTargetNames) {
-        if (availableTargetNames.isEmpty()) {
-            return false;
-        }
-
-        // 从可用表名中提取最小和最大年月
-        int minYearMonth = Integer.MAX_VALUE;
-        int maxYearMonth = Integer.MIN_VALUE;
-
-        for (String tableName : availableTargetNames) {
-            String yearMonth = tableName.substring(tableName.length() - 6); // 提取后6位年月
-            int yearMonthInt = Integer.parseInt(yearMonth);
-            minYearMonth = Math.min(minYearMonth, yearMonthInt);
-            maxYearMonth = Math.max(maxYearMonth, yearMonthInt);
-        }
-
-        // 将日期转换为年月格式
-        int dateYearMonth = Integer.parseInt(dateTime.format(DateTimeFormatter.ofPattern(SUFFIX_PATTERN)));
-
-        return dateYearMonth >= minYearMonth && dateYearMonth <= maxYearMonth;
-    }
+    private volatile MonthTables monthTables = MonthTables.EMPTY;
 
     /**
      * 执行分片路由
@@ -61,60 +52,63 @@ public class EventLogComplexShardingAlgorithm implements ComplexKeysShardingAlgo
     @Override
     public Collection<String> doSharding(Collection<String> availableTargetNames,
                                          ComplexKeysShardingValue<Comparable<?>> shardingValue) {
-        Collection<String> result = new LinkedHashSet<>();
+        MonthTables tables = getMonthTables(availableTargetNames);
         Map<String, Collection<Comparable<?>>> columnMap = shardingValue.getColumnNameAndShardingValuesMap();
+        Map<String, Range<Comparable<?>>> rangeMap = shardingValue.getColumnNameAndRangeValuesMap();
 
         // 1. 如果有 ID，《优先》使用 ID 中的时间戳信息路由
         // 因为ID中包含了生成时间信息，可以直接定位到具体的分片表
         if (columnMap.containsKey(ID_COLUMN)) {
             Collection<Comparable<?>> ids = columnMap.get(ID_COLUMN);
+            if (ids.size() == 1) {
+                return Collections.singleton(routeById(tables, shardingValue, ids.iterator().next()));
+            }
+            Collection<String> result = new LinkedHashSet<>();
             for (Comparable<?> idObj : ids) {
-                long id = ((Number) idObj).longValue();
-                // 从雪花算法ID中提取年月信息
-                String yearMonth = SnowflakeIdGenerator.extractYearMonth(id);
-                log.debug("Routing by ID: {}, extracted yearMonth: {}", id, yearMonth);
-                // 构造目标表名：逻辑表名_年月
-                result.add(shardingValue.getLogicTableName() + "_" + yearMonth);
+                result.add(routeById(tables, shardingValue, idObj));
             }
             return result;
         }
 
-        // 2. 处理 create_time 路由
+        // 2. ID 范围同样按ID中的时间戳定位，数据实际所在的表由ID决定，优先于 create_time
+        if (rangeMap.containsKey(ID_COLUMN)) {
+            Range<Comparable<?>> range = rangeMap.get(ID_COLUMN);
+            int from = range.hasLowerBound() ? tables.ceilingIndex(
+                    SnowflakeIdGenerator.extractTimestamp(((Number) range.lowerEndpoint()).longValue())) : 0;
+            int to = range.hasUpperBound() ? tables.floorIndex(
+                    SnowflakeIdGenerator.extractTimestamp(((Number) range.upperEndpoint()).longValue()))
+                    : tables.names.length - 1;
+            return from > to ? availableTargetNames : Arrays.asList(tables.names).subList(from, to + 1);
+        }
+
+        // 3. 处理 create_time 路由
         if (columnMap.containsKey(CREATE_TIME_COLUMN)) {
-            Collection<Comparable<?>> createTimes = columnMap.get(CREATE_TIME_COLUMN);
-            for (Comparable<?> time : createTimes) {
+            Collection<String> result = new LinkedHashSet<>();
+            for (Comparable<?> time : columnMap.get(CREATE_TIME_COLUMN)) {
                 LocalDateTime dateTime = (LocalDateTime) time;
-                // 检查时间是否在有效范围内
-                if (!isTimeInRange(dateTime, availableTargetNames)) {
+                int index = tables.indexOf(dateTime);
+                if (index < 0) {
                     log.warn("Create time {} is out of available table range", dateTime);
                     continue;
                 }
-                String suffix = dateTime.format(DateTimeFormatter.ofPattern(SUFFIX_PATTERN));
-                result.add(shardingValue.getLogicTableName() + "_" + suffix);
+                result.add(tables.names[index]);
             }
             return result.isEmpty() ? availableTargetNames : result;
         }
 
-        // 3. 处理范围查询
-        Map<String, com.google.common.collect.Range<Comparable<?>>> rangeMap = shardingValue.getColumnNameAndRangeValuesMap();
+        // 4. 处理范围查询，二分查找起止月份，中间的表依次加入
         if (rangeMap.containsKey(CREATE_TIME_COLUMN)) {
-            com.google.common.collect.Range<Comparable<?>> range = rangeMap.get(CREATE_TIME_COLUMN);
-            LocalDateTime start = (LocalDateTime) range.lowerEndpoint();
-            LocalDateTime end = (LocalDateTime) range.upperEndpoint();
-
-            // 遍历范围内的每个月份
-            LocalDateTime current = start;
-            while (!current.isAfter(end)) {
-                if (isTimeInRange(current, availableTargetNames)) {
-                    String suffix = current.format(DateTimeFormatter.ofPattern(SUFFIX_PATTERN));
-                    result.add(shardingValue.getLogicTableName() + "_" + suffix);
-                }
-                current = current.plusMonths(1).withDayOfMonth(1);
+            Range<Comparable<?>> range = rangeMap.get(CREATE_TIME_COLUMN);
+            int from = range.hasLowerBound() ? tables.ceilingIndex((LocalDateTime) range.lowerEndpoint()) : 0;
+            int to = range.hasUpperBound() ? tables.floorIndex((LocalDateTime) range.upperEndpoint())
+                    : tables.names.length - 1;
+            if (from > to) {
+                return availableTargetNames;
             }
-            return result.isEmpty() ? availableTargetNames : result;
+            return Arrays.asList(tables.names).subList(from, to + 1);
         }
 
-        // 4. 如果没有分片条件，返回所有可用表
+        // 5. 如果没有分片条件，返回所有可用表
         // 这种情况应该避免，因为会导致全表扫描
         return availableTargetNames;
     }
@@ -124,4 +118,237 @@ public class EventLogComplexShardingAlgorithm implements ComplexKeysShardingAlgo
         // 使用基于类的分片策略
         return "CLASS_BASED";
     }
-}
\ No newline at end of file
+
+    /**
+     * 按ID中的时间戳路由，路由表中没有对应的表时按年月拼接表名
+     */
+    private String routeById(MonthTables tables, ComplexKeysShardingValue<Comparable<?>> shardingValue,
+                             Comparable<?> idObj) {
+        long id = ((Number) idObj).longValue();
+        int index = tables.indexOf(SnowflakeIdGenerator.extractTimestamp(id));
+        if (index >= 0) {
+            return tables.names[index];
+        }
+        // 从雪花算法ID中提取年月信息
+        String yearMonth = SnowflakeIdGenerator.extractYearMonth(id);
+        log.debug("Routing by ID: {}, extracted yearMonth: {}", id, yearMonth);
+        // 构造目标表名：逻辑表名_年月
+        return shardingValue.getLogicTableName() + "_" + yearMonth;
+    }
+
+    /**
+     * 获取可用表名对应的路由表
+     * 同一个集合对象直接复用，不同的集合对象内容相同时也复用，只在表名变化时重新计算
+     */
+    private MonthTables getMonthTables(Collection<String> availableTargetNames) {
+        MonthTables tables = monthTables;
+        if (tables.source == availableTargetNames) {
+            return tables;
+        }
+        if (!tables.matches(availableTargetNames)) {
+            tables = MonthTables.of(availableTargetNames);
+            log.info("Rebuilt month table index with {} tables", tables.names.length);
+        } else {
+            tables = tables.withSource(availableTargetNames);
+        }
+        monthTables = tables;
+        return tables;
+    }
+
+    /**
+     * 按开始时间排序的月表
+     * 第 i 张表覆盖 [startMillis[i], endMillis[i])，同时保存 LocalDateTime 形式的边界，按时间路由时不需要时区换算
+     */
+    private static final class MonthTables {
+
+        static final MonthTables EMPTY = new MonthTables(null, Set.of(), new String[0], new long[0], new long[0],
+                new LocalDateTime[0], new LocalDateTime[0]);
+
+        /**
+         * 计算路由表使用的可用表名集合
+         */
+        final Collection<String> source;
+        /**
+         * 全部可用表名，包括后缀不是年月的表
+         */
+        final Set<String> sourceNames;
+        final String[] names;
+        final long[] startMillis;
+        final long[] endMillis;
+        final LocalDateTime[] startTimes;
+        final LocalDateTime[] endTimes;
+
+        private MonthTables(Collection<String> source, Set<String> sourceNames, String[] names, long[] startMillis,
+                            long[] endMillis, LocalDateTime[] startTimes, LocalDateTime[] endTimes) {
+            this.source = source;
+            this.sourceNames = sourceNames;
+            this.names = names;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.startTimes = startTimes;
+            this.endTimes = endTimes;
+        }
+
+        static MonthTables of(Collection<String> availableTargetNames) {
+            List<Map.Entry<YearMonth, String>> months = new ArrayList<>(availableTargetNames.size());
+            for (String tableName : availableTargetNames) {
+                YearMonth month = parseSuffix(tableName);
+                if (month != null) {
+                    months.add(Map.entry(month, tableName.intern()));
+                }
+            }
+            months.sort(Map.Entry.comparingByKey());
+
+            int size = months.size();
+            String[] names = new String[size];
+            long[] startMillis = new long[size];
+            long[] endMillis = new long[size];
+            LocalDateTime[] startTimes = new LocalDateTime[size];
+            LocalDateTime[] endTimes = new LocalDateTime[size];
+            for (int i = 0; i < size; i++) {
+                YearMonth month = months.get(i).getKey();
+                names[i] = months.get(i).getValue();
+                startTimes[i] = month.atDay(1).atStartOfDay();
+                endTimes[i] = month.plusMonths(1).atDay(1).atStartOfDay();
+                startMillis[i] = startTimes[i].atZone(ZONE).toInstant().toEpochMilli();
+                endMillis[i] = endTimes[i].atZone(ZONE).toInstant().toEpochMilli();
+            }
+            return new MonthTables(availableTargetNames, Set.copyOf(availableTargetNames), names,
+                    startMillis, endMillis, startTimes, endTimes);
+        }
+
+        MonthTables withSource(Collection<String> availableTargetNames) {
+            return new MonthTables(availableTargetNames, sourceNames, names, startMillis, endMillis,
+                    startTimes, endTimes);
+        }
+
+        /**
+         * 表名集合是否与计算路由表时相同
+         */
+        boolean matches(Collection<String> availableTargetNames) {
+            if (source == null || availableTargetNames.size() != sourceNames.size()) {
+                return false;
+            }
+            for (String tableName : availableTargetNames) {
+                if (!sourceNames.contains(tableName)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 时间戳所在的表，没有时返回 -1
+         */
+        int indexOf(long millis) {
+            int low = 0;
+            int high = startMillis.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (millis < startMillis[mid]) {
+                    high = mid - 1;
+                } else if (millis >= endMillis[mid]) {
+                    low = mid + 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 开始时间不晚于 millis 的最后一张表，没有时返回 -1
+         */
+        int floorIndex(long millis) {
+            int low = 0;
+            int high = startMillis.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (millis < startMillis[mid]) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * 结束时间晚于 millis 的第一张表
+         */
+        int ceilingIndex(long millis) {
+            int low = 0;
+            int high = endMillis.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (millis < endMillis[mid]) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 时间所在的表，没有时返回 -1
+         */
+        int indexOf(LocalDateTime dateTime) {
+            int index = floorIndex(dateTime);
+            return index >= 0 && dateTime.isBefore(endTimes[index]) ? index : -1;
+        }
+
+        /**
+         * 开始时间不晚于 dateTime 的最后一张表，没有时返回 -1
+         */
+        int floorIndex(LocalDateTime dateTime) {
+            int low = 0;
+            int high = startTimes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (dateTime.isBefore(startTimes[mid])) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * 结束时间晚于 dateTime 的第一张表，即包含或晚于 dateTime 的第一张表
+         */
+        int ceilingIndex(LocalDateTime dateTime) {
+            int low = 0;
+            int high = endTimes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (dateTime.isBefore(endTimes[mid])) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 解析表名的年月后缀，不是年月时返回 null
+         */
+        private static YearMonth parseSuffix(String tableName) {
+            if (tableName.length() < SUFFIX_LENGTH) {
+                return null;
+            }
+            int value = 0;
+            for (int i = tableName.length() - SUFFIX_LENGTH; i < tableName.length(); i++) {
+                char c = tableName.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            }
+            int month = value % 100;
+            return month >= 1 && month <= 12 ? YearMonth.of(value / 100, month) : null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.oneinstep.demo.sharding.archive;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 月表归档文件格式
+ * <pre>
+ * 文件头: magic(int) version(int)
+ * 行组:   id | create_time | update_time | event_type | deleted | status | event_content，每列单独 Deflate 压缩
+ * 索引:   行组数(int)，每个行组的 {@link RowGroup}
+ * 文件尾: 索引位置(long) magic(int)
+ * </pre>
+ * 列的编码：
+ * - id、create_time 按行差分后写 zigzag 变长整数，数据按 (create_time, id) 排序，差值很小
+ * - update_time 写与 create_time 的差值
+ * - event_type、deleted、status 写 zigzag 变长整数
+ * - event_content 写 UTF-8 字节数和内容
+ * <p>
+ * 时间按 UTC 换算为毫秒，与时区无关，读取时还原为相同的 LocalDateTime。
+ */
+final class EventLogArchiveFormat {
+
+    static final int MAGIC = 0x45564C41;
+
+    static final int VERSION = 1;
+
+    static final int ID = 0;
+    static final int CREATE_TIME = 1;
+    static final int UPDATE_TIME = 2;
+    static final int EVENT_TYPE = 3;
+    static final int DELETED = 4;
+    static final int STATUS = 5;
+    static final int EVENT_CONTENT = 6;
+
+    static final int COLUMNS = 7;
+
+    /**
+     * 文件尾字节数
+     */
+    static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+
+    private EventLogArchiveFormat() {
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,310 @@
+package com.oneinstep.demo.sharding.archive;
+
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.query.EventLogCriteria;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.oneinstep.demo.sharding.archive.EventLogArchiveFormat.*;
+
+/**
+ * 归档文件读取
+ * <p>
+ * 打开时把行组索引读入内存，查询时按索引跳过不可能包含结果的行组，
+ * 读取行组时先解压 id、create_time、event_type、deleted 判断是否有符合条件的行，再解压其余的列。
+ * 读取使用按位置读，多个线程可以同时查询同一个文件。
+ */
+final class EventLogArchiveReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final List<RowGroup> rowGroups;
+
+    private EventLogArchiveReader(FileChannel channel, List<RowGroup> rowGroups) {
+        this.channel = channel;
+        this.rowGroups = rowGroups;
+    }
+
+    static EventLogArchiveReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < Integer.BYTES * 2 + TRAILER_LENGTH) {
+                throw new IOException("Archive file is truncated: " + file);
+            }
+            ByteBuffer header = read(channel, 0, Integer.BYTES * 2);
+            ByteBuffer trailer = read(channel, size - TRAILER_LENGTH, TRAILER_LENGTH);
+            long indexOffset = trailer.getLong();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) {
+                throw new IOException("Not an event log archive file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported archive version " + version + ": " + file);
+            }
+
+            ByteBuffer index = read(channel, indexOffset, (int) (size - TRAILER_LENGTH - indexOffset));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(index.array()));
+            int count = in.readInt();
+            List<RowGroup> rowGroups = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long offset = in.readLong();
+                int rows = in.readInt();
+                int[] columnLengths = new int[COLUMNS];
+                int[] rawLengths = new int[COLUMNS];
+                for (int column = 0; column < COLUMNS; column++) {
+                    columnLengths[column] = in.readInt();
+                    rawLengths[column] = in.readInt();
+                }
+                rowGroups.add(new RowGroup(offset, rows, columnLengths, rawLengths, in.readLong(), in.readLong(),
+                        in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+            }
+            return new EventLogArchiveReader(channel, List.copyOf(rowGroups));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 文件中的行数，包括已逻辑删除的数据
+     */
+    long rows() {
+        long rows = 0;
+        for (RowGroup rowGroup : rowGroups) {
+            rows += rowGroup.rows();
+        }
+        return rows;
+    }
+
+    /**
+     * 按 (create_time, id) 顺序读取符合条件且未删除的数据，条件与月表查询相同
+     *
+     * @param criteria 查询条件
+     * @param after    上一批的最后一条数据，从其后开始读取，为空时从头读取
+     * @param limit    行数
+     */
+    List<EventLog> read(EventLogCriteria criteria, EventLog after, int limit) throws IOException {
+        long startTime = criteria.getStartTime() != null ? toMillis(criteria.getStartTime()) : Long.MIN_VALUE;
+        long endTime = criteria.getEndTime() != null ? toMillis(criteria.getEndTime()) : Long.MAX_VALUE;
+        Integer eventType = criteria.getEventType();
+        long afterTime = after != null ? toMillis(after.getCreateTime()) : Long.MIN_VALUE;
+        long afterId = after != null ? after.getId() : Long.MIN_VALUE;
+
+        List<EventLog> result = new ArrayList<>(Math.min(limit, 1024));
+        for (RowGroup rowGroup : rowGroups) {
+            if (result.size() >= limit || rowGroup.minCreateTime() > endTime) {
+                break;
+            }
+            // 行组中最大的 (create_time, id) 不晚于游标，或时间、类型不在范围内
+            if (compare(rowGroup.maxCreateTime(), rowGroup.lastId(), afterTime, afterId) <= 0
+                    || rowGroup.maxCreateTime() < startTime
+                    || eventType != null && (eventType < rowGroup.minEventType() || eventType > rowGroup.maxEventType())) {
+                continue;
+            }
+
+            Columns columns = new Columns(rowGroup, read(channel, rowGroup.offset(), rowGroup.length()).array());
+            long[] ids = columns.deltas(ID);
+            long[] createTimes = columns.deltas(CREATE_TIME);
+            long[] eventTypes = columns.values(EVENT_TYPE);
+            long[] deleted = columns.values(DELETED);
+            List<Integer> matched = new ArrayList<>();
+            for (int row = 0; row < rowGroup.rows() && result.size() + matched.size() < limit; row++) {
+                if (deleted[row] == 0
+                        && createTimes[row] >= startTime && createTimes[row] <= endTime
+                        && (eventType == null || eventTypes[row] == eventType)
+                        && compare(createTimes[row], ids[row], afterTime, afterId) > 0) {
+                    matched.add(row);
+                }
+            }
+            if (matched.isEmpty()) {
+                continue;
+            }
+
+            long[] updateTimes = columns.values(UPDATE_TIME);
+            long[] statuses = columns.values(STATUS);
+            String[] contents = columns.strings(EVENT_CONTENT, matched);
+            for (int row : matched) {
+                EventLog eventLog = new EventLog();
+                eventLog.setId(ids[row]);
+                eventLog.setEventType((int) eventTypes[row]);
+                eventLog.setEventContent(contents[row]);
+                eventLog.setDeleted(0);
+                eventLog.setStatus((int) statuses[row]);
+                eventLog.setCreateTime(toDateTime(createTimes[row]));
+                eventLog.setUpdateTime(toDateTime(createTimes[row] + updateTimes[row]));
+                result.add(eventLog);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按ID读取未删除的数据，只解压ID范围包含该ID的行组
+     *
+     * @return 不存在或已删除时返回 null
+     */
+    EventLog get(long id) throws IOException {
+        for (RowGroup rowGroup : rowGroups) {
+            if (id < rowGroup.minId() || id > rowGroup.maxId()) {
+                continue;
+            }
+            Columns columns = new Columns(rowGroup, read(channel, rowGroup.offset(), rowGroup.length()).array());
+            long[] ids = columns.deltas(ID);
+            for (int row = 0; row < ids.length; row++) {
+                if (ids[row] != id) {
+                    continue;
+                }
+                if (columns.values(DELETED)[row] != 0) {
+                    return null;
+                }
+                long createTime = columns.deltas(CREATE_TIME)[row];
+                EventLog eventLog = new EventLog();
+                eventLog.setId(id);
+                eventLog.setEventType((int) columns.values(EVENT_TYPE)[row]);
+                eventLog.setEventContent(columns.strings(EVENT_CONTENT, List.of(row))[row]);
+                eventLog.setDeleted(0);
+                eventLog.setStatus((int) columns.values(STATUS)[row]);
+                eventLog.setCreateTime(toDateTime(createTime));
+                eventLog.setUpdateTime(toDateTime(createTime + columns.values(UPDATE_TIME)[row]));
+                return eventLog;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int compare(long createTime, long id, long otherCreateTime, long otherId) {
+        int result = Long.compare(createTime, otherCreateTime);
+        return result != 0 ? result : Long.compare(id, otherId);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * 一个行组的压缩数据，按需解压各列
+     */
+    private static final class Columns {
+
+        private final RowGroup rowGroup;
+
+        private final byte[] data;
+
+        Columns(RowGroup rowGroup, byte[] data) {
+            this.rowGroup = rowGroup;
+            this.data = data;
+        }
+
+        /**
+         * 差分编码的列，还原为原始值
+         */
+        long[] deltas(int column) throws IOException {
+            long[] values = values(column);
+            for (int i = 1; i < values.length; i++) {
+                values[i] += values[i - 1];
+            }
+            return values;
+        }
+
+        long[] values(int column) throws IOException {
+            Cursor cursor = new Cursor(inflate(column));
+            long[] values = new long[rowGroup.rows()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cursor.readLong();
+            }
+            return values;
+        }
+
+        /**
+         * 字符串列，只创建指定行的字符串
+         *
+         * @param rows 需要的行，升序
+         */
+        String[] strings(int column, List<Integer> rows) throws IOException {
+            Cursor cursor = new Cursor(inflate(column));
+            String[] values = new String[rowGroup.rows()];
+            int next = 0;
+            for (int row = 0; row < values.length && next < rows.size(); row++) {
+                int length = (int) cursor.readLong();
+                if (row == rows.get(next)) {
+                    values[row] = new String(cursor.bytes, cursor.position, length, StandardCharsets.UTF_8);
+                    next++;
+                }
+                cursor.position += length;
+            }
+            return values;
+        }
+
+        private byte[] inflate(int column) throws IOException {
+            int offset = (int) (rowGroup.columnOffset(column) - rowGroup.offset());
+            byte[] raw = new byte[rowGroup.rawLengths()[column]];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data, offset, rowGroup.columnLengths()[column]);
+                int size = 0;
+                while (size < raw.length) {
+                    int inflated = inflater.inflate(raw, size, raw.length - size);
+                    if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("Corrupted archive column " + column);
+                    }
+                    size += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted archive column " + column, e);
+            } finally {
+                inflater.end();
+            }
+            return raw;
+        }
+    }
+
+    /**
+     * 变长整数读取位置
+     */
+    private static final class Cursor {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
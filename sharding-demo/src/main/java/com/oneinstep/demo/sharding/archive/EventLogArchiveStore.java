@@ -0,0 +1,224 @@
+package com.oneinstep.demo.sharding.archive;
+
+import com.oneinstep.demo.sharding.config.EventLogArchiveProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import com.oneinstep.demo.sharding.query.EventLogCriteria;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事件日志归档文件
+ * <p>
+ * 很少查询的旧月表移出数据节点后导出到本地文件再删除，释放 InnoDB 的缓冲池和索引空间。
+ * 文件按 (create_time, id) 排序分为行组，每列单独压缩，格式见 {@link EventLogArchiveFormat}。
+ * <p>
+ * 启动时加载目录中已有的归档文件，归档的月份注册到 {@link EventLogShards}，
+ * 跨月查询读到归档月份时从文件读取，条件和顺序与月表查询相同。
+ */
+@Slf4j
+@Component
+public class EventLogArchiveStore {
+
+    private static final String FILE_PREFIX = "event_log_";
+
+    private static final String FILE_SUFFIX = ".evla";
+
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String COLUMNS = "id, event_type, event_content, create_time, update_time, deleted, status";
+
+    private static final RowMapper<EventLog> ROW_MAPPER = (rs, rowNum) -> {
+        EventLog eventLog = new EventLog();
+        eventLog.setId(rs.getLong("id"));
+        eventLog.setEventType(rs.getInt("event_type"));
+        eventLog.setEventContent(rs.getString("event_content"));
+        eventLog.setCreateTime(rs.getTimestamp("create_time").toLocalDateTime());
+        eventLog.setUpdateTime(rs.getTimestamp("update_time").toLocalDateTime());
+        eventLog.setDeleted(rs.getInt("deleted"));
+        eventLog.setStatus(rs.getInt("status"));
+        return eventLog;
+    };
+
+    private final Path directory;
+
+    private final int rowGroupRows;
+
+    private final EventLogShards shards;
+
+    /**
+     * 已打开的归档文件
+     */
+    private final Map<YearMonth, EventLogArchiveReader> readers = new ConcurrentHashMap<>();
+
+    public EventLogArchiveStore(EventLogArchiveProperties properties, EventLogShards shards) throws IOException {
+        this.directory = Path.of(properties.getDirectory());
+        this.rowGroupRows = properties.getRowGroupRows();
+        this.shards = shards;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                YearMonth month = parseMonth(file);
+                if (month != null) {
+                    readers.put(month, EventLogArchiveReader.open(file));
+                }
+            }
+        }
+        shards.updateArchived(readers.keySet());
+        if (!readers.isEmpty()) {
+            log.info("Loaded {} event log archive files from {}", readers.size(), directory);
+        }
+    }
+
+    /**
+     * 月份是否已归档
+     */
+    public boolean contains(YearMonth month) {
+        return readers.containsKey(month);
+    }
+
+    /**
+     * 导出一个月的数据到归档文件
+     * 按 (create_time, id) 分批读取，每批写入一个行组，写完后核对行数，再替换为正式文件。
+     * 导出完成后该月的查询从文件读取，调用方随后可以删除表。
+     * 导出期间写入的数据不会进入归档文件，调用方应先把表移出数据节点并重命名，不再有写入后再导出。
+     *
+     * @param jdbcTemplate 表所在数据源
+     * @param month        月份
+     * @param tableName    保存该月数据的表
+     * @return 导出的行数，已归档时返回 -1
+     */
+    public synchronized long export(JdbcTemplate jdbcTemplate, YearMonth month, String tableName) {
+        if (contains(month)) {
+            return -1;
+        }
+        Path file = path(month);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long rows;
+            try (EventLogArchiveWriter writer = new EventLogArchiveWriter(temp)) {
+                String firstSql = "SELECT " + COLUMNS + " FROM " + tableName + " ORDER BY create_time, id LIMIT ?";
+                String nextSql = "SELECT " + COLUMNS + " FROM " + tableName
+                        + " WHERE create_time > ? OR (create_time = ? AND id > ?) ORDER BY create_time, id LIMIT ?";
+                List<EventLog> batch = jdbcTemplate.query(firstSql, ROW_MAPPER, rowGroupRows);
+                while (!batch.isEmpty()) {
+                    writer.write(batch);
+                    if (batch.size() < rowGroupRows) {
+                        break;
+                    }
+                    EventLog last = batch.getLast();
+                    Timestamp lastTime = Timestamp.valueOf(last.getCreateTime());
+                    batch = jdbcTemplate.query(nextSql, ROW_MAPPER, lastTime, lastTime, last.getId(), rowGroupRows);
+                }
+                rows = writer.rows();
+            }
+
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tableName, Long.class);
+            if (count == null || count != rows) {
+                throw new IllegalStateException("Exported " + rows + " rows from " + tableName + " but found " + count);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            readers.put(month, EventLogArchiveReader.open(file));
+            shards.updateArchived(readers.keySet());
+            log.info("Exported {} rows from {} to {}", rows, tableName, file);
+            return rows;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to export " + tableName, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 按 (create_time, id) 顺序读取归档月份的数据
+     *
+     * @param month    月份
+     * @param criteria 查询条件
+     * @param after    上一批的最后一条数据，从其后开始读取，为空时从头读取
+     * @param limit    行数
+     */
+    public List<EventLog> read(YearMonth month, EventLogCriteria criteria, EventLog after, int limit) {
+        EventLogArchiveReader reader = readers.get(month);
+        if (reader == null) {
+            return List.of();
+        }
+        try {
+            return reader.read(criteria, after, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read event log archive of " + month, e);
+        }
+    }
+
+    /**
+     * 按ID读取归档的数据
+     *
+     * @return 所在月份没有归档、数据不存在或已删除时返回 null
+     */
+    public EventLog get(long id) {
+        YearMonth month = YearMonth.from(SnowflakeIdGenerator.extractDateTime(id));
+        EventLogArchiveReader reader = readers.get(month);
+        if (reader == null) {
+            return null;
+        }
+        try {
+            return reader.get(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read event log archive of " + month, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (EventLogArchiveReader reader : readers.values()) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("Failed to close event log archive", e);
+            }
+        }
+        readers.clear();
+    }
+
+    private Path path(YearMonth month) {
+        return directory.resolve(FILE_PREFIX + month.format(SUFFIX_FORMATTER) + FILE_SUFFIX);
+    }
+
+    private static YearMonth parseMonth(Path file) {
+        String name = file.getFileName().toString();
+        String suffix = name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length());
+        try {
+            return YearMonth.parse(suffix, SUFFIX_FORMATTER);
+        } catch (DateTimeParseException e) {
+            log.warn("Ignored unknown archive file {}", file);
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.oneinstep.demo.sharding.archive;
+
+import com.oneinstep.demo.sharding.domain.EventLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+import static com.oneinstep.demo.sharding.archive.EventLogArchiveFormat.*;
+
+/**
+ * 归档文件写入
+ * 每次 {@link #write(List)} 写入一个行组，调用方保证所有数据按 (create_time, id) 排序，关闭时写入索引
+ */
+final class EventLogArchiveWriter implements Closeable {
+
+    private final FileChannel channel;
+
+    private final Deflater deflater = new Deflater();
+
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+
+    private long position;
+
+    private long rows;
+
+    EventLogArchiveWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2).putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(header);
+    }
+
+    /**
+     * 写入一个行组
+     *
+     * @param eventLogs 按 (create_time, id) 排序的数据
+     */
+    void write(List<EventLog> eventLogs) throws IOException {
+        if (eventLogs.isEmpty()) {
+            return;
+        }
+        ColumnBuffer[] columns = new ColumnBuffer[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnBuffer();
+        }
+
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        int minEventType = Integer.MAX_VALUE;
+        int maxEventType = Integer.MIN_VALUE;
+        long previousId = 0;
+        long previousCreateTime = 0;
+        for (EventLog eventLog : eventLogs) {
+            long id = eventLog.getId();
+            long createTime = toMillis(eventLog.getCreateTime());
+            long updateTime = eventLog.getUpdateTime() != null ? toMillis(eventLog.getUpdateTime()) : createTime;
+            int eventType = Objects.requireNonNullElse(eventLog.getEventType(), 0);
+            columns[ID].writeLong(id - previousId);
+            columns[CREATE_TIME].writeLong(createTime - previousCreateTime);
+            columns[UPDATE_TIME].writeLong(updateTime - createTime);
+            columns[EVENT_TYPE].writeLong(eventType);
+            columns[DELETED].writeLong(Objects.requireNonNullElse(eventLog.getDeleted(), 0));
+            columns[STATUS].writeLong(Objects.requireNonNullElse(eventLog.getStatus(), 0));
+            columns[EVENT_CONTENT].writeString(Objects.requireNonNullElse(eventLog.getEventContent(), ""));
+            previousId = id;
+            previousCreateTime = createTime;
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+            minEventType = Math.min(minEventType, eventType);
+            maxEventType = Math.max(maxEventType, eventType);
+        }
+
+        int[] columnLengths = new int[COLUMNS];
+        int[] rawLengths = new int[COLUMNS];
+        long offset = position;
+        for (int i = 0; i < COLUMNS; i++) {
+            rawLengths[i] = columns[i].size();
+            byte[] compressed = compress(columns[i].bytes(), rawLengths[i]);
+            columnLengths[i] = compressed.length;
+            writeFully(ByteBuffer.wrap(compressed));
+        }
+        EventLog first = eventLogs.getFirst();
+        EventLog last = eventLogs.getLast();
+        rowGroups.add(new RowGroup(offset, eventLogs.size(), columnLengths, rawLengths,
+                toMillis(first.getCreateTime()), toMillis(last.getCreateTime()), last.getId(),
+                minId, maxId, minEventType, maxEventType));
+        rows += eventLogs.size();
+    }
+
+    /**
+     * 已写入的行数
+     */
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * 写入索引和文件尾并刷盘
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(index);
+            out.writeInt(rowGroups.size());
+            for (RowGroup rowGroup : rowGroups) {
+                out.writeLong(rowGroup.offset());
+                out.writeInt(rowGroup.rows());
+                for (int i = 0; i < COLUMNS; i++) {
+                    out.writeInt(rowGroup.columnLengths()[i]);
+                    out.writeInt(rowGroup.rawLengths()[i]);
+                }
+                out.writeLong(rowGroup.minCreateTime());
+                out.writeLong(rowGroup.maxCreateTime());
+                out.writeLong(rowGroup.lastId());
+                out.writeLong(rowGroup.minId());
+                out.writeLong(rowGroup.maxId());
+                out.writeInt(rowGroup.minEventType());
+                out.writeInt(rowGroup.maxEventType());
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            writeFully(ByteBuffer.wrap(index.toByteArray()));
+            channel.force(true);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private byte[] compress(byte[] raw, int length) {
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, length / 2)];
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            size += deflater.deflate(buffer, size, buffer.length - size);
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    /**
+     * 一列的未压缩数据
+     */
+    private static final class ColumnBuffer {
+
+        private byte[] bytes = new byte[256];
+
+        private int size;
+
+        void writeLong(long value) {
+            // zigzag 编码后按7位一组写入
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(utf8.length);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.oneinstep.demo.sharding.archive;
+
+/**
+ * 行组索引
+ * 行组内的数据按 (create_time, id) 排序，每列单独压缩，记录每列的位置和 create_time、id、event_type 的取值范围，
+ * 查询时只读取和解压可能包含结果的行组
+ *
+ * @param offset         行组在文件中的位置
+ * @param rows           行数
+ * @param columnLengths  每列压缩后的字节数，按 {@link EventLogArchiveFormat} 中的列顺序
+ * @param rawLengths     每列压缩前的字节数
+ * @param minCreateTime  最小创建时间，毫秒
+ * @param maxCreateTime  最大创建时间，毫秒，即最后一行的创建时间
+ * @param lastId         最后一行的ID，与 maxCreateTime 组成行组中最大的 (create_time, id)
+ * @param minId          最小ID
+ * @param maxId          最大ID
+ * @param minEventType   最小事件类型
+ * @param maxEventType   最大事件类型
+ */
+record RowGroup(long offset, int rows, int[] columnLengths, int[] rawLengths,
+                long minCreateTime, long maxCreateTime, long lastId,
+                long minId, long maxId, int minEventType, int maxEventType) {
+
+    /**
+     * 列在行组中的位置
+     */
+    long columnOffset(int column) {
+        long position = offset;
+        for (int i = 0; i < column; i++) {
+            position += columnLengths[i];
+        }
+        return position;
+    }
+
+    /**
+     * 行组的总字节数
+     */
+    int length() {
+        int length = 0;
+        for (int columnLength : columnLengths) {
+            length += columnLength;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,193 @@
+package com.oneinstep.demo.sharding.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.oneinstep.demo.sharding.archive.EventLogArchiveStore;
+import com.oneinstep.demo.sharding.config.EventLogCacheProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import com.oneinstep.demo.sharding.service.EventLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按ID查询事件日志的缓存
+ * <p>
+ * 缓存未命中时从数据库读取并放入缓存，按条数限制容量。
+ * 数据所在的表由ID中的时间戳决定：批量查询时只读取未命中的ID，按月份分组，每组只查询一张月表，
+ * 已归档的月份从归档文件读取，不存在的月份不查询。
+ * <p>
+ * 修改和删除数据后调用 {@link #invalidate(Collection)} 或 {@link #invalidateCreatedBetween}，
+ * 在事务中调用时提交或回滚后再失效一次，避免事务提交前读到的旧数据重新进入缓存。
+ * 读取数据库期间发生失效时，读到的数据放入缓存后立即移除。
+ * <p>
+ * 返回的对象是缓存中的实例，调用方不应修改。
+ */
+@Slf4j
+@Component
+public class EventLogCache {
+
+    private final EventLogService eventLogService;
+
+    private final EventLogShards shards;
+
+    private final EventLogArchiveStore archiveStore;
+
+    private final Cache<Long, EventLog> cache;
+
+    /**
+     * 失效次数，读取数据库前后不一致时说明期间有数据被修改
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EventLogCache(EventLogService eventLogService, EventLogShards shards, EventLogArchiveStore archiveStore,
+                         EventLogCacheProperties properties) {
+        this.eventLogService = eventLogService;
+        this.shards = shards;
+        this.archiveStore = archiveStore;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWriteSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 按ID查询
+     *
+     * @return 不存在或已删除时返回 null
+     */
+    public EventLog get(long id) {
+        EventLog eventLog = cache.getIfPresent(id);
+        if (eventLog != null) {
+            return eventLog;
+        }
+        List<EventLog> loaded = getAll(List.of(id));
+        return loaded.isEmpty() ? null : loaded.getFirst();
+    }
+
+    /**
+     * 批量按ID查询
+     *
+     * @param ids ID，重复的ID只返回一次
+     * @return 按 ids 的顺序返回存在的数据
+     */
+    public List<EventLog> getAll(Collection<Long> ids) {
+        Map<Long, EventLog> found = new HashMap<>(ids.size() * 2);
+        Map<YearMonth, List<Long>> missing = new TreeMap<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            EventLog eventLog = cache.getIfPresent(id);
+            if (eventLog != null) {
+                found.put(id, eventLog);
+            } else {
+                missing.computeIfAbsent(YearMonth.from(SnowflakeIdGenerator.extractDateTime(id)),
+                        month -> new ArrayList<>()).add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long version = invalidations.get();
+            List<EventLog> loaded = new ArrayList<>();
+            for (Map.Entry<YearMonth, List<Long>> entry : missing.entrySet()) {
+                loaded.addAll(load(entry.getKey(), entry.getValue()));
+            }
+            for (EventLog eventLog : loaded) {
+                cache.put(eventLog.getId(), eventLog);
+                found.put(eventLog.getId(), eventLog);
+            }
+            // 读取期间有数据失效，读到的可能是旧数据
+            if (invalidations.get() != version) {
+                loaded.forEach(eventLog -> cache.invalidate(eventLog.getId()));
+            }
+        }
+
+        List<EventLog> result = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            EventLog eventLog = found.get(id);
+            if (eventLog != null) {
+                result.add(eventLog);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 修改或删除数据后使缓存失效
+     */
+    public void invalidate(Collection<Long> ids) {
+        Runnable invalidation = () -> {
+            invalidations.incrementAndGet();
+            cache.invalidateAll(ids);
+        };
+        invalidation.run();
+        afterCompletion(invalidation);
+    }
+
+    /**
+     * 按创建时间删除数据后使缓存失效
+     *
+     * @param startTime 开始时间(包含)
+     * @param endTime   结束时间(包含)
+     */
+    public void invalidateCreatedBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        Runnable invalidation = () -> {
+            invalidations.incrementAndGet();
+            cache.asMap().values().removeIf(eventLog -> !eventLog.getCreateTime().isBefore(startTime)
+                    && !eventLog.getCreateTime().isAfter(endTime));
+        };
+        invalidation.run();
+        afterCompletion(invalidation);
+    }
+
+    /**
+     * 查询一个月份中的数据
+     *
+     * @param month 月份，由ID中的时间戳决定
+     * @param ids   该月份的ID
+     */
+    List<EventLog> load(YearMonth month, List<Long> ids) {
+        if (shards.isArchived(month)) {
+            List<EventLog> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                EventLog eventLog = archiveStore.get(id);
+                if (eventLog != null) {
+                    result.add(eventLog);
+                }
+            }
+            return result;
+        }
+        if (!shards.getMonths().contains(month)) {
+            log.debug("No event log table for {}, skipped {} ids", month, ids.size());
+            return List.of();
+        }
+        // 只有ID条件，由分片算法按ID路由到这张月表
+        QueryWrapper queryWrapper = QueryWrapper.create().where(EventLog::getId).in(ids);
+        return eventLogService.list(queryWrapper);
+    }
+
+    private static void afterCompletion(Runnable invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
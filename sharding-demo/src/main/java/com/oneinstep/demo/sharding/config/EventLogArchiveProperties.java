@@ -0,0 +1,24 @@
+package com.oneinstep.demo.sharding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事件日志归档文件配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "event-log.archive")
+public class EventLogArchiveProperties {
+
+    /**
+     * 归档文件目录，每个月一个文件
+     */
+    private String directory = "data/event-log-archive";
+
+    /**
+     * 每个行组的行数，行组是查询时读取和解压的最小单位
+     */
+    private int rowGroupRows = 8192;
+}
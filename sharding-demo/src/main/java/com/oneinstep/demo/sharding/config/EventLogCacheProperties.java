@@ -0,0 +1,24 @@
+package com.oneinstep.demo.sharding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事件日志按ID查询的缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "event-log.cache")
+public class EventLogCacheProperties {
+
+    /**
+     * 最多缓存的条数，超过后淘汰最近最少使用的数据
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * 写入缓存后的过期秒数，兜底绕过本服务的修改
+     */
+    private long expireAfterWriteSeconds = 600;
+}
@@ -0,0 +1,34 @@
+package com.oneinstep.demo.sharding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事件日志批量写入配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "event-log.ingest")
+public class EventLogIngestProperties {
+
+    /**
+     * 缓冲区最多容纳的行数，写满后新的请求等待或被拒绝
+     */
+    private int bufferRows = 100_000;
+
+    /**
+     * 每次写入的最大行数，达到后立即写入
+     */
+    private int batchRows = 5_000;
+
+    /**
+     * 第一条数据进入缓冲区后最多等待的毫秒数，到期后即使不足 batchRows 也写入
+     */
+    private long flushIntervalMs = 20;
+
+    /**
+     * 缓冲区已满时请求最多等待的毫秒数，超时后拒绝
+     */
+    private long acceptTimeoutMs = 1_000;
+}
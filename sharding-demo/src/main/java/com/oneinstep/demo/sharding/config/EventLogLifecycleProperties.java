@@ -0,0 +1,58 @@
+package com.oneinstep.demo.sharding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事件日志月表生命周期配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "event-log.lifecycle")
+public class EventLogLifecycleProperties {
+
+    /**
+     * 是否维护月表，关闭时使用 shardingsphere.yml 中配置的数据节点
+     * 默认关闭：开启后保留期之前的月表会移出数据节点，写入这些月份的数据(如 /batchInsertTest 写入全年)会失败
+     */
+    private boolean enabled = false;
+
+    /**
+     * 执行时间，cron 表达式，启动完成后也会执行一次
+     */
+    private String cron = "0 0 1 * * *";
+
+    /**
+     * 提前创建的月数，当前月之后的月表
+     */
+    private int monthsAhead = 2;
+
+    /**
+     * 保留的月数，包括当前月，更早的月表从数据节点中移除
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * 保留期之前的月表的处理方式，默认只重命名，删除数据的 EXPORT 和 DROP 需要显式配置
+     */
+    private RetireAction retireAction = RetireAction.RENAME;
+
+    public enum RetireAction {
+
+        /**
+         * 重命名为 event_log_exporting_yyyyMM 后导出到归档文件，核对行数后删除，查询时从归档文件读取
+         */
+        EXPORT,
+
+        /**
+         * 重命名为 event_log_archive_yyyyMM，不再查询
+         */
+        RENAME,
+
+        /**
+         * 删除
+         */
+        DROP
+    }
+}
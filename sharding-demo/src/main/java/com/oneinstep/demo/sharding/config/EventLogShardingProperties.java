@@ -0,0 +1,35 @@
+package com.oneinstep.demo.sharding.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 事件日志分表配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "event-log.sharding")
+public class EventLogShardingProperties {
+
+    /**
+     * 第一张月表，格式：yyyyMM，与 shardingsphere.yml 中的 actualDataNodes 保持一致
+     * 开启月表生命周期维护时由维护任务替换
+     */
+    private String firstMonth = "202501";
+
+    /**
+     * 最后一张月表，格式：yyyyMM
+     */
+    private String lastMonth = "202712";
+
+    /**
+     * 跨月查询时同时执行的分表查询数，所有请求共享，应小于连接池大小
+     */
+    private int queryParallelism = 8;
+
+    /**
+     * 跨月查询时每张表每次读取的行数
+     */
+    private int fetchSize = 500;
+}
@@ -1,32 +1,82 @@
 package com.oneinstep.demo.sharding.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mybatisflex.core.query.QueryWrapper;
+import com.oneinstep.demo.sharding.cache.EventLogCache;
 import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.BackfillIdGenerator;
 import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import com.oneinstep.demo.sharding.ingest.EventLogIngester;
+import com.oneinstep.demo.sharding.query.EventLogCriteria;
+import com.oneinstep.demo.sharding.query.EventLogPage;
+import com.oneinstep.demo.sharding.query.ShardedEventLogQueryExecutor;
 import com.oneinstep.demo.sharding.service.EventLogService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/event-logs")
 @Slf4j
 public class EventLogController {
 
-    private static final LocalDateTime START_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
-    private static final LocalDateTime END_TIME = LocalDateTime.of(2025, 12, 31, 23, 59, 59);
+    // 分页查询每页最大行数
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 测试数据使用的机器ID，与在线服务的 WORKER_ID 区分
+     */
+    private static final long TEST_DATA_WORKER_ID = 1023;
 
     private final EventLogService eventLogService;
 
-    public EventLogController(EventLogService eventLogService) {
+    private final ShardedEventLogQueryExecutor shardedQueryExecutor;
+
+    private final EventLogIngester eventLogIngester;
+
+    private final EventLogCache eventLogCache;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 逐条写出时不刷新输出流，由 JsonGenerator 的缓冲区攒满后写出
+     */
+    private final ObjectWriter rowWriter;
+
+    /**
+     * 测试数据的ID生成器，时间窗口为2025年全年，多次调用不会生成重复的ID
+     */
+    private final BackfillIdGenerator testDataIdGenerator = new BackfillIdGenerator(TEST_DATA_WORKER_ID,
+            LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0));
+
+    public EventLogController(EventLogService eventLogService, ShardedEventLogQueryExecutor shardedQueryExecutor,
+                              EventLogIngester eventLogIngester, EventLogCache eventLogCache,
+                              ObjectMapper objectMapper) {
         this.eventLogService = eventLogService;
+        this.shardedQueryExecutor = shardedQueryExecutor;
+        this.eventLogIngester = eventLogIngester;
+        this.eventLogCache = eventLogCache;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
@@ -35,7 +85,6 @@ public class EventLogController {
     @PostMapping("/batchInsertTest")
     public List<EventLog> batchInsertTest() {
         List<EventLog> logs = new ArrayList<>();
-        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator();
 
         // 创建测试数据，从2025-01-01开始，到2025-12-31结束，每天插入1条数据
         for (int i = 0; i < 365; i++) {
@@ -45,7 +94,7 @@ public class EventLogController {
             eventLog.setCreateTime(createTime);
 
             // 根据创建时间生成ID
-            long id = idGenerator.generateWithTime(createTime);
+            long id = testDataIdGenerator.nextId(createTime);
             eventLog.setId(id);
 
             eventLog.setEventType(1);
@@ -66,12 +115,29 @@ public class EventLogController {
         return logs;
     }
 
+    /**
+     * 批量写入
+     * 与其他请求合并后按月表批量插入，一个请求的数据全部写入或全部不写入，写入完成后返回生成的ID；
+     * 创建时间与ID中的时间不在同一个月时返回 400，缓冲区已满时返回 429，调用方应降速重试
+     */
+    @PostMapping("/ingest")
+    public CompletableFuture<List<Long>> ingest(@RequestBody List<EventLog> eventLogs) {
+        try {
+            return eventLogIngester.submit(eventLogs)
+                    .thenApply(ignored -> eventLogs.stream().map(EventLog::getId).toList());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * 按时间范围查询
+     * 各月表并行查询，按创建时间归并后以 JSON 数组流式返回
      */
     @GetMapping("/query")
-    @Transactional(readOnly = true)
-    public List<EventLog> queryByTimeRange(
+    public ResponseEntity<StreamingResponseBody> queryByTimeRange(
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startTime,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endTime) {
 
@@ -82,12 +148,11 @@ public class EventLogController {
          * 2. between 操作符能让 ShardingSphere 精确计算需要查询的分片
          * 3. 而 > 和 < 这样的操作符会使 ShardingSphere 无法准确判断分片范围，可能导致查询所有分片
          */
-        QueryWrapper queryWrapper = QueryWrapper.create()
-                .where(EventLog::getCreateTime)
-                .between(startTime.atStartOfDay(), endTime.plusDays(1).atStartOfDay().minusSeconds(1))
-                .orderBy(EventLog::getCreateTime, true);
-
-        return eventLogService.list(queryWrapper);
+        EventLogCriteria criteria = EventLogCriteria.builder()
+                .startTime(startTime.atStartOfDay())
+                .endTime(endTime.plusDays(1).atStartOfDay().minusSeconds(1))
+                .build();
+        return streamJson(criteria);
     }
 
     /**
@@ -101,14 +166,11 @@ public class EventLogController {
 
     /**
      * 根据ID查询
+     * 先查缓存，未命中时按ID中的时间戳查询对应的月表
      */
     @GetMapping("/{id}")
     public EventLog getById(@PathVariable Long id) {
-        QueryWrapper queryWrapper = QueryWrapper.create()
-                .where(EventLog::getId).eq(id)
-                .and(EventLog::getCreateTime)
-                .between(START_TIME, END_TIME);
-        return eventLogService.getOne(queryWrapper);
+        return eventLogCache.get(id);
     }
 
     /**
@@ -120,24 +182,24 @@ public class EventLogController {
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startTime,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endTime) {
 
+        LocalDateTime start = startTime.atStartOfDay();
+        LocalDateTime end = endTime.plusDays(1).atStartOfDay().minusSeconds(1);
         QueryWrapper queryWrapper = QueryWrapper.create()
                 .where(EventLog::getCreateTime)
-                .between(startTime.atStartOfDay(), endTime.plusDays(1).atStartOfDay().minusSeconds(1));
+                .between(start, end);
 
         eventLogService.remove(queryWrapper);
+        eventLogCache.invalidateCreatedBetween(start, end);
         return "ok";
     }
 
     /**
      * 批量查询
+     * 先查缓存，未命中的ID按月份分组，每组只查询一张月表
      */
     @PostMapping("/batch-query")
     public List<EventLog> batchQuery(@RequestBody List<Long> ids) {
-        QueryWrapper queryWrapper = QueryWrapper.create()
-                .where(EventLog::getId).in(ids)
-                .and(EventLog::getCreateTime)
-                .between(START_TIME, END_TIME);
-        return eventLogService.list(queryWrapper);
+        return eventLogCache.getAll(ids);
     }
 
     /**
@@ -151,10 +213,11 @@ public class EventLogController {
         eventLog.setUpdateTime(LocalDateTime.now());
 
         boolean success = eventLogService.updateById(eventLog);
+        eventLogCache.invalidate(List.of(id));
         if (!success) {
             throw new RuntimeException("Update failed, record not found: " + id);
         }
-        return eventLogService.getById(id);
+        return eventLogCache.get(id);
     }
 
     /**
@@ -168,33 +231,86 @@ public class EventLogController {
         eventLogs.forEach(log -> log.setUpdateTime(now));
 
         eventLogService.updateBatch(eventLogs);
+        eventLogCache.invalidate(eventLogs.stream().map(EventLog::getId).toList());
         return eventLogs;
     }
 
     /**
      * 条件查询
+     * 与按时间范围查询相同，以 JSON 数组流式返回
      */
     @GetMapping("/search")
-    public List<EventLog> search(
+    public ResponseEntity<StreamingResponseBody> search(
             @RequestParam(required = false) Integer eventType,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startTime,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endTime) {
 
-        QueryWrapper queryWrapper = QueryWrapper.create();
-
-        // 添加事件类型条件
-        if (eventType != null) {
-            queryWrapper.where(EventLog::getEventType).eq(eventType);
-        }
+        EventLogCriteria.EventLogCriteriaBuilder criteria = EventLogCriteria.builder().eventType(eventType);
 
         // 添加时间范围条件
         if (startTime != null && endTime != null) {
-            queryWrapper.and(EventLog::getCreateTime)
-                    .between(startTime.atStartOfDay(), endTime.plusDays(1).atStartOfDay().minusSeconds(1));
+            criteria.startTime(startTime.atStartOfDay())
+                    .endTime(endTime.plusDays(1).atStartOfDay().minusSeconds(1));
         }
+        return streamJson(criteria.build());
+    }
 
-        queryWrapper.orderBy(EventLog::getCreateTime, true);
-        return eventLogService.list(queryWrapper);
+    /**
+     * 游标分页查询
+     * 第一页不传游标，之后传入上一页返回的 nextCursorTime 和 nextCursorId
+     */
+    @GetMapping("/page")
+    public EventLogPage page(
+            @RequestParam(required = false) Integer eventType,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorTime,
+            @RequestParam(required = false) Long cursorId,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((cursorTime == null) != (cursorId == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursorTime and cursorId must be given together");
+        }
+
+        EventLogCriteria criteria = EventLogCriteria.builder()
+                .eventType(eventType)
+                .startTime(startTime != null ? startTime.atStartOfDay() : null)
+                .endTime(endTime != null ? endTime.plusDays(1).atStartOfDay().minusSeconds(1) : null)
+                .build();
+        return shardedQueryExecutor.page(criteria, cursorTime, cursorId, size);
+    }
+
+    /**
+     * 以 JSON 数组流式写出跨月查询结果，内存占用与结果数量无关
+     * <p>
+     * 提交响应前先读取每张月表的第一批数据，此时查询失败返回 500。
+     * 开始写出后查询失败时不写出数组结尾，也不关闭输出流，异常交给容器处理：
+     * 响应已提交，Tomcat 直接关闭连接(HTTP/1.1 不发送结束分块，HTTP/2 重置流)，
+     * 客户端收到的是不完整的响应，而不是格式正确但被截断的数组。
+     */
+    private ResponseEntity<StreamingResponseBody> streamJson(EventLogCriteria criteria) {
+        ShardedEventLogQueryExecutor.MergedStream rows = shardedQueryExecutor.open(criteria);
+        StreamingResponseBody body = outputStream -> {
+            try (rows) {
+                // 失败时不能关闭生成器，关闭会自动补全数组结尾并关闭输出流
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                generator.writeStartArray();
+                rows.forEachRemaining(eventLog -> {
+                    try {
+                        rowWriter.writeValue(generator, eventLog);
+                    } catch (IOException e) {
+                        // 客户端断开，停止查询
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.close();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
 }
@@ -0,0 +1,278 @@
+package com.oneinstep.demo.sharding.generator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.EPOCH;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_WORKER_ID;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.SEQUENCE_BITS;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.TIMESTAMP_SHIFT;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.WORKER_SHIFT;
+
+/**
+ * 历史数据回填ID生成器
+ * <p>
+ * 按指定时间生成ID，ID结构与 {@link SnowflakeIdGenerator} 一致，可以按ID中的时间路由到对应的月表。
+ * 与 {@link SnowflakeIdGenerator#generateWithTime(LocalDateTime)} 不同，每个毫秒单独维护序列号，
+ * 同一时间导入大量数据也不会生成重复的ID，也不影响在线生成器的状态。
+ * <p>
+ * 实现方式：
+ * - 毫秒 -> 下一个可用的 相对时间戳 << 12 | 序列号，保存在开放寻址的 long 数组中，不装箱
+ * - 某一毫秒的序列号用完后顺延到下一毫秒，已用完的毫秒指向后面第一个有空余序列号的毫秒，查找时压缩路径
+ * - 顺延不会跨月，也不会超出时间窗口，保证ID与数据的时间落在同一张月表
+ * <p>
+ * 时间窗口的结束时间不能晚于当前时间，避免与在线生成的ID重复；多个导入任务并行时应使用不同的机器ID。
+ */
+@Slf4j
+public class BackfillIdGenerator {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * 每毫秒的序列号数量
+     */
+    private static final long SEQUENCE_COUNT = 1L << SEQUENCE_BITS;
+
+    private final long workerId;
+
+    /**
+     * 时间窗口 [from, to)，相对时间戳
+     */
+    private final long from;
+    private final long to;
+
+    /**
+     * 每毫秒下一个可用的状态
+     */
+    private final MillisCounters counters = new MillisCounters();
+
+    /**
+     * 最近使用的月份范围 [monthStart, monthEnd)，相对时间戳
+     */
+    private long monthStart = Long.MAX_VALUE;
+    private long monthEnd = Long.MIN_VALUE;
+
+    /**
+     * @param workerId 机器ID，0 ~ 1023，建议与在线服务使用的机器ID区分
+     * @param from     时间窗口开始时间(包含)
+     * @param to       时间窗口结束时间(不包含)，不能晚于当前时间
+     */
+    public BackfillIdGenerator(long workerId, LocalDateTime from, LocalDateTime to) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID);
+        }
+        long fromMillis = from.atZone(ZONE).toInstant().toEpochMilli();
+        long toMillis = to.atZone(ZONE).toInstant().toEpochMilli();
+        if (fromMillis < EPOCH || fromMillis >= toMillis) {
+            throw new IllegalArgumentException("Invalid backfill window: [" + from + ", " + to + ")");
+        }
+        if (toMillis > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("Backfill window must end before now: " + to);
+        }
+        this.workerId = workerId;
+        this.from = fromMillis - EPOCH;
+        this.to = toMillis - EPOCH;
+        log.info("BackfillIdGenerator initialized with workerId: {}, window: [{}, {})", workerId, from, to);
+    }
+
+    /**
+     * 按指定时间生成ID
+     *
+     * @param dateTime 数据的时间
+     * @return 生成的ID
+     */
+    public long nextId(LocalDateTime dateTime) {
+        return nextId(dateTime.atZone(ZONE).toInstant().toEpochMilli());
+    }
+
+    /**
+     * 按指定时间生成ID
+     *
+     * @param epochMillis 数据的时间戳(毫秒)
+     * @return 生成的ID
+     */
+    public synchronized long nextId(long epochMillis) {
+        long state = nextState(checkWindow(epochMillis));
+        counters.put(state >>> SEQUENCE_BITS, state + 1);
+        return toId(state);
+    }
+
+    /**
+     * 按指定时间批量生成ID，同一毫秒内的序列号连续分配
+     *
+     * @param epochMillis 数据的时间戳(毫秒)
+     * @param n           ID数量
+     * @return 单调递增的ID
+     */
+    public synchronized long[] nextIds(long epochMillis, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        long millis = checkWindow(epochMillis);
+        long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            long state = nextState(millis);
+            long ms = state >>> SEQUENCE_BITS;
+            int count = (int) Math.min(n - filled, ((ms + 1) << SEQUENCE_BITS) - state);
+            for (int i = 0; i < count; i++) {
+                ids[filled++] = toId(state + i);
+            }
+            counters.put(ms, state + count);
+            millis = ms;
+        }
+        return ids;
+    }
+
+    /**
+     * 已记录序列号的毫秒数
+     */
+    public synchronized int trackedMillis() {
+        return counters.size();
+    }
+
+    /**
+     * 校验时间在窗口内，返回相对时间戳
+     */
+    private long checkWindow(long epochMillis) {
+        long millis = epochMillis - EPOCH;
+        if (millis < from || millis >= to) {
+            throw new IllegalArgumentException("Timestamp " + epochMillis + " is out of backfill window");
+        }
+        return millis;
+    }
+
+    /**
+     * 查找不早于 millis 的第一个可用状态
+     * 顺延超出所在月份或时间窗口时抛出异常
+     */
+    private long nextState(long millis) {
+        if (millis < monthStart || millis >= monthEnd) {
+            updateMonth(millis);
+        }
+
+        long ms = millis;
+        long state = stateOf(ms);
+        while (state >>> SEQUENCE_BITS != ms) {
+            ms = state >>> SEQUENCE_BITS;
+            if (ms >= monthEnd || ms >= to) {
+                throw new IllegalStateException("Sequence exhausted at " + Instant.ofEpochMilli(millis + EPOCH)
+                        + ", no spare millisecond before the end of month or backfill window");
+            }
+            state = stateOf(ms);
+        }
+
+        // 压缩路径，已用完的毫秒直接指向找到的毫秒
+        for (long current = millis; current != ms; ) {
+            long next = counters.get(current) >>> SEQUENCE_BITS;
+            counters.put(current, state);
+            current = next;
+        }
+        return state;
+    }
+
+    /**
+     * 毫秒的下一个可用状态，新的毫秒序列号从0或1开始，避免低位总是偶数
+     */
+    private long stateOf(long ms) {
+        long state = counters.get(ms);
+        return state != MillisCounters.ABSENT ? state
+                : (ms << SEQUENCE_BITS) | ThreadLocalRandom.current().nextLong(0, 2);
+    }
+
+    private void updateMonth(long millis) {
+        YearMonth month = YearMonth.from(Instant.ofEpochMilli(millis + EPOCH).atZone(ZONE));
+        monthStart = month.atDay(1).atStartOfDay(ZONE).toInstant().toEpochMilli() - EPOCH;
+        monthEnd = month.plusMonths(1).atDay(1).atStartOfDay(ZONE).toInstant().toEpochMilli() - EPOCH;
+    }
+
+    private long toId(long state) {
+        return ((state >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_SHIFT)
+                | (state & (SEQUENCE_COUNT - 1));
+    }
+
+    /**
+     * 毫秒 -> 状态 的开放寻址哈希表，线性探测，键和值都是非负的 long
+     */
+    private static final class MillisCounters {
+
+        static final long ABSENT = -1L;
+
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private long[] keys = newTable(1 << 16);
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == ABSENT) {
+                    return ABSENT;
+                }
+            }
+        }
+
+        void put(long key, long value) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    values[i] = value;
+                    return;
+                }
+                if (k == ABSENT) {
+                    keys[i] = key;
+                    values[i] = value;
+                    if (++size > keys.length * LOAD_FACTOR) {
+                        resize();
+                    }
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = newTable(oldKeys.length << 1);
+            values = new long[oldKeys.length << 1];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != ABSENT) {
+                    int i = index(oldKeys[j], mask);
+                    while (keys[i] != ABSENT) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, ABSENT);
+            return table;
+        }
+    }
+}
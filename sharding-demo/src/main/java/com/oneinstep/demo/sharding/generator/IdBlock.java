@@ -0,0 +1,103 @@
+package com.oneinstep.demo.sharding.generator;
+
+import java.util.function.LongConsumer;
+
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_SEQUENCE;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.SEQUENCE_BITS;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.TIMESTAMP_SHIFT;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.WORKER_SHIFT;
+
+/**
+ * 一次预留的连续ID段
+ * <p>
+ * 只保存起始的 时间戳 << 12 | 序列号 和数量，不逐个保存ID。
+ * 段内的ID按序列号连续递增，序列号用完后进入下一毫秒，跨毫秒时ID不连续(中间隔着机器ID位)，但保持单调递增。
+ */
+public final class IdBlock {
+
+    /**
+     * 机器ID
+     */
+    private final long workerId;
+
+    /**
+     * 第一个ID的 相对时间戳 << 12 | 序列号
+     */
+    private final long firstState;
+
+    /**
+     * ID数量
+     */
+    private final int size;
+
+    IdBlock(long workerId, long firstState, int size) {
+        this.workerId = workerId;
+        this.firstState = firstState;
+        this.size = size;
+    }
+
+    /**
+     * ID数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取第 index 个ID
+     *
+     * @param index 下标，从0开始
+     * @return ID
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return toId(firstState + index);
+    }
+
+    /**
+     * 第一个ID
+     */
+    public long first() {
+        return get(0);
+    }
+
+    /**
+     * 最后一个ID
+     */
+    public long last() {
+        return get(size - 1);
+    }
+
+    /**
+     * 依次处理段内的ID
+     */
+    public void forEach(LongConsumer consumer) {
+        for (long state = firstState, end = firstState + size; state < end; state++) {
+            consumer.accept(toId(state));
+        }
+    }
+
+    /**
+     * 展开为数组
+     */
+    public long[] toArray() {
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = toId(firstState + i);
+        }
+        return ids;
+    }
+
+    private long toId(long state) {
+        return ((state >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_SHIFT)
+                | (state & MAX_SEQUENCE);
+    }
+
+    @Override
+    public String toString() {
+        return "IdBlock{first=" + first() + ", last=" + last() + ", size=" + size + "}";
+    }
+}
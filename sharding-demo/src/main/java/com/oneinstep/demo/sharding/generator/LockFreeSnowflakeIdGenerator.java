@@ -0,0 +1,191 @@
+package com.oneinstep.demo.sharding.generator;
+
+import com.mybatisflex.core.keygen.IKeyGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.EPOCH;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_BACKWARD_MS;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_RESERVE;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_SEQUENCE;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.MAX_WORKER_ID;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.SEQUENCE_BITS;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.TIMESTAMP_SHIFT;
+import static com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator.WORKER_SHIFT;
+
+/**
+ * 无锁雪花算法ID生成器
+ * <p>
+ * ID结构与 {@link SnowflakeIdGenerator} 完全一致(41位时间戳 + 10位机器ID + 12位序列号)，
+ * {@link SnowflakeIdGenerator#extractYearMonth(long)} 和分片算法可以直接使用。
+ * <p>
+ * 实现方式：
+ * - 上次的相对时间戳和序列号打包在一个 long 中：|-- 时间戳(41) --|-- 序列号(12) --|，通过 CAS 整体更新
+ * - 同一毫秒内状态加一即序列号自增，序列号用完时进位到时间戳，即借用下一毫秒，不需要等待
+ * - 时钟回拨时沿用上次的时间戳继续递增，保证ID单调递增
+ * - 分配后的时间戳领先系统时钟超过 {@link SnowflakeIdGenerator#MAX_BACKWARD_MS} 时挂起线程等待时钟追上，
+ *   {@link #nextId()} 和 {@link #reserve(int)} 使用相同的判断
+ * - 上次的时间戳领先系统时钟超过 {@link #MAX_CLOCK_LEAD_MS}，即时钟回拨超过 MAX_BACKWARD_MS 时抛出异常，不长时间等待
+ * <p>
+ * 多线程并发生成时没有锁竞争，CAS 失败的线程直接用最新状态重试。
+ */
+@Slf4j
+public class LockFreeSnowflakeIdGenerator implements IKeyGenerator {
+
+    /**
+     * 上次的时间戳最多领先系统时钟的毫秒数
+     * 借用序列号最多领先 MAX_BACKWARD_MS，再加上可以容忍的时钟回拨 MAX_BACKWARD_MS
+     */
+    static final long MAX_CLOCK_LEAD_MS = MAX_BACKWARD_MS * 2;
+
+    /**
+     * 当前机器ID
+     */
+    private final long workerId;
+
+    /**
+     * 系统时钟(毫秒)
+     */
+    private final LongSupplier clock;
+
+    /**
+     * 上次生成ID的状态：相对时间戳 << 12 | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public LockFreeSnowflakeIdGenerator() {
+        this(SnowflakeIdGenerator.initWorkerId());
+    }
+
+    /**
+     * 使用指定的机器ID
+     *
+     * @param workerId 机器ID，0 ~ 1023
+     */
+    public LockFreeSnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    /**
+     * 使用指定的机器ID和时钟，用于测试时钟回拨
+     *
+     * @param workerId 机器ID，0 ~ 1023
+     * @param clock    返回当前时间戳(毫秒)
+     */
+    LockFreeSnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+        log.info("LockFreeSnowflakeIdGenerator initialized with workerId: {}", workerId);
+    }
+
+    /**
+     * 生成下一个ID (MyBatis-Flex接口实现)
+     *
+     * @param entity 实体对象
+     * @param column 列名
+     * @return 生成的ID
+     */
+    @Override
+    public Object generate(Object entity, String column) {
+        return nextId();
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 生成的ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long timestamp = clock.getAsLong() - EPOCH;
+
+            // 新的毫秒序列号从0或1开始，避免低位总是偶数；
+            // 同一毫秒、已借用的毫秒或时钟回拨时序列号自增，用完时进位到下一毫秒
+            long next = timestamp > current >>> SEQUENCE_BITS
+                    ? (timestamp << SEQUENCE_BITS) | ThreadLocalRandom.current().nextLong(0, 2)
+                    : current + 1;
+            if ((next >>> SEQUENCE_BITS) - timestamp > MAX_BACKWARD_MS) {
+                awaitClock(current, next, timestamp);
+                continue;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return toId(next);
+            }
+        }
+    }
+
+    /**
+     * 预留一段连续的ID
+     * 一次 CAS 分配 n 个序列号，序列号不够时进位到后续毫秒，与 {@link #nextId()} 生成的ID不会重复
+     *
+     * @param n ID数量，1 ~ {@link SnowflakeIdGenerator#MAX_RESERVE}
+     * @return ID段
+     */
+    public IdBlock reserve(int n) {
+        if (n <= 0 || n > MAX_RESERVE) {
+            throw new IllegalArgumentException("n must be between 1 and " + MAX_RESERVE);
+        }
+        while (true) {
+            long current = state.get();
+            long timestamp = clock.getAsLong() - EPOCH;
+
+            long first = timestamp > current >>> SEQUENCE_BITS
+                    ? (timestamp << SEQUENCE_BITS) | ThreadLocalRandom.current().nextLong(0, 2)
+                    : current + 1;
+            long last = first + n - 1;
+            if ((last >>> SEQUENCE_BITS) - timestamp > MAX_BACKWARD_MS) {
+                awaitClock(current, last, timestamp);
+                continue;
+            }
+
+            if (state.compareAndSet(current, last)) {
+                return new IdBlock(workerId, first, n);
+            }
+        }
+    }
+
+    /**
+     * 当前机器ID
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 分配后领先系统时钟过多，挂起到时钟追上为止，调用方醒来后重新读取状态和时钟
+     * 上次的时间戳已领先超过 {@link #MAX_CLOCK_LEAD_MS} 时说明时钟回拨过多，抛出异常
+     *
+     * @param current   上次的状态
+     * @param allocated 分配后的状态
+     * @param timestamp 当前相对时间戳
+     */
+    private void awaitClock(long current, long allocated, long timestamp) {
+        long backward = (current >>> SEQUENCE_BITS) - timestamp;
+        if (backward > MAX_CLOCK_LEAD_MS) {
+            String message = String.format("Clock moved backwards, last timestamp is %d ms ahead", backward);
+            log.error(message);
+            throw new IllegalStateException(message);
+        }
+        long waitMillis = (allocated >>> SEQUENCE_BITS) - timestamp - MAX_BACKWARD_MS;
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+
+    /**
+     * 将状态组装为ID：时间戳 + 机器ID + 序列号
+     */
+    private long toId(long state) {
+        return ((state >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_SHIFT)
+                | (state & MAX_SEQUENCE);
+    }
+}
@@ -37,46 +37,51 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
      * 基准时间戳 (2022-01-01 00:00:00)
      * 用于计算相对时间戳，避免时间戳位数过大
      */
-    private static final long EPOCH = 1640995200000L;
+    static final long EPOCH = 1640995200000L;
 
     /**
      * 机器ID位数 (10位)
      * 可以部署在1024个节点上
      */
-    private static final long WORKER_ID_BITS = 10L;
+    static final long WORKER_ID_BITS = 10L;
 
     /**
      * 序列号位数 (12位)
      * 每毫秒可以生成4096个ID
      */
-    private static final long SEQUENCE_BITS = 12L;
+    static final long SEQUENCE_BITS = 12L;
 
     // ====== 位运算相关常量 ======
     /**
      * 最大机器ID = 1023 (2^10 - 1)
      */
-    private static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+    static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
 
     /**
      * 最大序列号 = 4095 (2^12 - 1)
      */
-    private static final long MAX_SEQUENCE = ~(-1L << SEQUENCE_BITS);
+    static final long MAX_SEQUENCE = ~(-1L << SEQUENCE_BITS);
 
     /**
      * 机器ID左移位数 (12)
      */
-    private static final long WORKER_SHIFT = SEQUENCE_BITS;
+    static final long WORKER_SHIFT = SEQUENCE_BITS;
 
     /**
      * 时间戳左移位数 (22)
      */
-    private static final long TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+    static final long TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
 
     // ====== 时钟回拨处理相关配置 ======
     /**
      * 最大容忍的时钟回拨毫秒数
      */
-    private static final long MAX_BACKWARD_MS = 10L;
+    static final long MAX_BACKWARD_MS = 10L;
+
+    /**
+     * 单次预留的最大ID数量，预留后时间戳最多领先 MAX_BACKWARD_MS 毫秒
+     */
+    public static final int MAX_RESERVE = (int) ((MAX_SEQUENCE + 1) * MAX_BACKWARD_MS);
 
     /**
      * 时钟回拨时的自旋次数
@@ -128,20 +133,7 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
         }
 
         try {
-            long currentTimestamp = getCurrentTimestamp();
-
-            // 处理时钟回拨
-            if (currentTimestamp < lastTimestamp) {
-                long offset = lastTimestamp - currentTimestamp;
-                if (offset <= MAX_BACKWARD_MS) {
-                    spinWaitForClockBack(offset);
-                    currentTimestamp = getCurrentTimestamp();
-                } else {
-                    String message = String.format("Clock moved backwards by %d ms", offset);
-                    log.error(message);
-                    throw new RuntimeException(message);
-                }
-            }
+            long currentTimestamp = getCheckedTimestamp();
 
             // 同一毫秒内序列号自增
             if (currentTimestamp == lastTimestamp) {
@@ -168,9 +160,40 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
         }
     }
 
+    /**
+     * 预留一段连续的ID
+     * 一次状态变更分配 n 个序列号，当前毫秒的序列号不够时继续使用后续毫秒的序列号，不逐毫秒等待，
+     * 适合批量插入一次获取大量ID。预留后的时间戳可能领先系统时钟，之后的 {@link #generate} 按时钟回拨等待时钟追上，
+     * 因此单次预留的数量不超过 {@link #MAX_RESERVE}，领先时间不超过 {@link #MAX_BACKWARD_MS}
+     *
+     * @param n ID数量，1 ~ {@link #MAX_RESERVE}
+     * @return ID段
+     */
+    public synchronized IdBlock reserve(int n) {
+        if (n <= 0 || n > MAX_RESERVE) {
+            throw new IllegalArgumentException("n must be between 1 and " + MAX_RESERVE);
+        }
+        if (!initialized) {
+            throw new IllegalStateException("SnowflakeIdGenerator not initialized");
+        }
+
+        long currentTimestamp = getCheckedTimestamp();
+
+        // 第一个ID的 相对时间戳 << 12 | 序列号，同一毫秒内接着上次的序列号
+        long firstState = currentTimestamp == lastTimestamp
+                ? (((lastTimestamp - EPOCH) << SEQUENCE_BITS) | sequence) + 1
+                : ((currentTimestamp - EPOCH) << SEQUENCE_BITS) | ThreadLocalRandom.current().nextLong(0, 2);
+        // 序列号用完时进位到时间戳
+        long lastState = firstState + n - 1;
+
+        lastTimestamp = (lastState >>> SEQUENCE_BITS) + EPOCH;
+        sequence = lastState & MAX_SEQUENCE;
+        return new IdBlock(workerId, firstState, n);
+    }
+
     /**
      * 根据指定时间生成ID
-     * 用于测试或特殊场景
+     * 用于测试或特殊场景，同一时间生成多个ID会重复，批量导入历史数据使用 {@link BackfillIdGenerator}
      *
      * @param dateTime 指定的时间
      * @return 生成的ID
@@ -184,8 +207,8 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
             // 转换为毫秒时间戳
             long timestamp = dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
 
-            // 使用随机序列号
-            sequence = ThreadLocalRandom.current().nextLong(0, 2);
+            // 使用随机序列号，不修改在线生成的序列号
+            long sequence = ThreadLocalRandom.current().nextLong(0, 2);
 
             // 组装ID：时间戳 + 机器ID + 序列号
             return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
@@ -205,13 +228,32 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
      * @return 时间戳对应的LocalDateTime
      */
     public static LocalDateTime extractDateTime(long id) {
-        // 提取时间戳部分并还原
-        long timestamp = (id >> TIMESTAMP_SHIFT) + EPOCH;
-        return Instant.ofEpochMilli(timestamp)
+        return Instant.ofEpochMilli(extractTimestamp(id))
                 .atZone(ZoneId.systemDefault())
                 .toLocalDateTime();
     }
 
+    /**
+     * 从ID中提取毫秒时间戳
+     *
+     * @param id 雪花算法生成的ID
+     * @return 生成ID时的毫秒时间戳
+     */
+    public static long extractTimestamp(long id) {
+        // 提取时间戳部分并还原
+        return (id >> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 指定时间生成的最小ID，用于按时间换算ID范围
+     *
+     * @param dateTime 时间
+     * @return 该毫秒内机器ID和序列号都为0的ID
+     */
+    public static long minId(LocalDateTime dateTime) {
+        return (dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - EPOCH) << TIMESTAMP_SHIFT;
+    }
+
     /**
      * 从ID中提取年月信息
      *
@@ -225,11 +267,32 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
 
     // ====== 内部工具方法 ======
 
+    /**
+     * 获取当前时间戳，处理时钟回拨
+     * 回拨不超过 {@link #MAX_BACKWARD_MS} 时等待时钟追上，否则抛出异常
+     */
+    private long getCheckedTimestamp() {
+        long currentTimestamp = getCurrentTimestamp();
+        if (currentTimestamp < lastTimestamp) {
+            long offset = lastTimestamp - currentTimestamp;
+            if (offset <= MAX_BACKWARD_MS) {
+                spinWaitForClockBack(offset);
+                // 睡眠精度不足时补足剩余的等待，保证不早于上次的时间戳
+                currentTimestamp = waitForNextMillis(lastTimestamp - 1);
+            } else {
+                String message = String.format("Clock moved backwards by %d ms", offset);
+                log.error(message);
+                throw new RuntimeException(message);
+            }
+        }
+        return currentTimestamp;
+    }
+
     /**
      * 初始化workerId
      * 支持多种策略：环境变量 -> MAC地址 -> 随机数
      */
-    private long initWorkerId() {
+    static long initWorkerId() {
         // 1. 优先使用环境变量
         String workerIdStr = System.getenv("WORKER_ID");
         if (workerIdStr != null) {
@@ -262,7 +325,7 @@ public class SnowflakeIdGenerator implements IKeyGenerator {
     /**
      * 基于MAC地址生成workerId
      */
-    private long generateWorkerIdFromMac() throws SocketException {
+    private static long generateWorkerIdFromMac() throws SocketException {
         Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
         while (interfaces.hasMoreElements()) {
             NetworkInterface network = interfaces.nextElement();
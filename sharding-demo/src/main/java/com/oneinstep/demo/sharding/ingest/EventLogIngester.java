@@ -0,0 +1,320 @@
+package com.oneinstep.demo.sharding.ingest;
+
+import com.oneinstep.demo.sharding.config.EventLogIngestProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.IdBlock;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件日志批量写入
+ * <p>
+ * 请求先进入缓冲区，由单独的写入线程合并多个请求一起写入(组提交)：
+ * - 缓冲的行数达到 batchRows，或第一条数据等待超过 flushIntervalMs 时写入
+ * - 按ID中的时间戳分组，每张月表执行一次 JDBC 批量插入，驱动开启 rewriteBatchedStatements 后改写为多行 INSERT，
+ * 而不是由 ShardingSphere 拆成每张表的多条小语句
+ * - 一批请求在一个事务中写入，所有月表在同一个数据源中，提交后请求才完成；
+ * 写入失败时回滚，再把每个请求在单独的事务中重试，每个请求的数据全部写入或全部不写入，只有写入失败的请求失败
+ * <p>
+ * 缓冲区按行数限制容量，写满后新请求最多等待 acceptTimeoutMs，仍没有空间时拒绝，由调用方降速重试。
+ * <p>
+ * 没有ID的数据在进入缓冲区时一次预留一段ID，创建时间为空时使用ID中的时间。
+ * 跨月查询按ID范围限定月表，创建时间与ID中的时间不在同一个月的数据查不到，这样的请求直接拒绝；
+ * 历史数据应由调用方按创建时间生成ID(如 {@link com.oneinstep.demo.sharding.generator.BackfillIdGenerator})，
+ * 保证数据写入创建时间所在的月表。
+ */
+@Slf4j
+@Component
+public class EventLogIngester {
+
+    private static final String INSERT_SQL = "INSERT INTO event_log "
+            + "(id, event_type, event_content, create_time, update_time, deleted, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SnowflakeIdGenerator idGenerator;
+
+    private final EventLogIngestProperties properties;
+
+    /**
+     * 等待写入的请求
+     */
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 缓冲区剩余的行数
+     */
+    private final Semaphore capacity;
+
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    public EventLogIngester(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            SnowflakeIdGenerator idGenerator, EventLogIngestProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idGenerator = idGenerator;
+        this.properties = properties;
+        this.capacity = new Semaphore(properties.getBufferRows());
+        this.flusher = new Thread(this::runFlusher, "event-log-ingest");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 提交数据
+     *
+     * @param eventLogs 事件日志，没有ID的数据会生成ID
+     * @return 数据写入后完成
+     * @throws IllegalArgumentException   行数超过缓冲区容量，或创建时间与ID中的时间不在同一个月
+     * @throws RejectedExecutionException 缓冲区已满或已停止
+     */
+    public CompletableFuture<Void> submit(List<EventLog> eventLogs) {
+        if (eventLogs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (eventLogs.size() > properties.getBufferRows()) {
+            throw new IllegalArgumentException("At most " + properties.getBufferRows() + " rows per request");
+        }
+        if (!running) {
+            throw new RejectedExecutionException("Event log ingester is stopped");
+        }
+
+        try {
+            if (!capacity.tryAcquire(eventLogs.size(), properties.getAcceptTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Event log ingest buffer is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for ingest buffer", e);
+        }
+
+        try {
+            prepare(eventLogs);
+        } catch (RuntimeException e) {
+            capacity.release(eventLogs.size());
+            throw e;
+        }
+        Pending pending = new Pending(eventLogs);
+        queue.add(pending);
+        return pending.future;
+    }
+
+    /**
+     * 停止接收新的数据，写入缓冲区中剩余的数据
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停止前刚进入队列的请求
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Event log ingester is stopped"));
+        }
+    }
+
+    /**
+     * 补全ID和默认值，校验创建时间与ID在同一个月
+     */
+    private void prepare(List<EventLog> eventLogs) {
+        int missingIds = 0;
+        for (EventLog eventLog : eventLogs) {
+            if (eventLog.getId() == null) {
+                missingIds++;
+            }
+        }
+        if (missingIds > 0) {
+            IdBlock ids = idGenerator.reserve(Math.min(missingIds, SnowflakeIdGenerator.MAX_RESERVE));
+            int index = 0;
+            for (EventLog eventLog : eventLogs) {
+                if (eventLog.getId() != null) {
+                    continue;
+                }
+                if (index == ids.size()) {
+                    missingIds -= ids.size();
+                    ids = idGenerator.reserve(Math.min(missingIds, SnowflakeIdGenerator.MAX_RESERVE));
+                    index = 0;
+                }
+                eventLog.setId(ids.get(index++));
+            }
+        }
+
+        for (EventLog eventLog : eventLogs) {
+            LocalDateTime idTime = SnowflakeIdGenerator.extractDateTime(eventLog.getId());
+            if (eventLog.getCreateTime() == null) {
+                eventLog.setCreateTime(idTime);
+            } else if (!YearMonth.from(eventLog.getCreateTime()).equals(YearMonth.from(idTime))) {
+                throw new IllegalArgumentException("Create time " + eventLog.getCreateTime() + " of event log "
+                        + eventLog.getId() + " is not in the month of its id, historical rows need ids generated "
+                        + "from their create time");
+            }
+            if (eventLog.getUpdateTime() == null) {
+                eventLog.setUpdateTime(eventLog.getCreateTime());
+            }
+            if (eventLog.getEventType() == null) {
+                eventLog.setEventType(1);
+            }
+            if (eventLog.getEventContent() == null) {
+                eventLog.setEventContent("");
+            }
+            if (eventLog.getDeleted() == null) {
+                eventLog.setDeleted(0);
+            }
+            if (eventLog.getStatus() == null) {
+                eventLog.setStatus(0);
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (running || !queue.isEmpty()) {
+            List<Pending> batch = new ArrayList<>();
+            try {
+                Pending first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int rows = first.eventLogs.size();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+                while (rows < properties.getBatchRows()) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = running && remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.eventLogs.size();
+                }
+            } catch (InterruptedException e) {
+                // 停止时中断等待，继续写入已取出和剩余的数据
+                log.debug("Event log ingester interrupted, running: {}", running);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中写入一批请求，失败时逐个请求重试，完成或失败后通知请求并归还缓冲区
+     */
+    private void flush(List<Pending> batch) {
+        try {
+            write(batch);
+            batch.forEach(pending -> complete(pending, null));
+            log.debug("Flushed {} requests", batch.size());
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Failed to insert {} event logs", batch.getFirst().eventLogs.size(), e);
+                complete(batch.getFirst(), e);
+                return;
+            }
+            log.warn("Failed to flush {} requests together, retrying each request", batch.size(), e);
+        }
+
+        for (Pending pending : batch) {
+            try {
+                write(List.of(pending));
+                complete(pending, null);
+            } catch (RuntimeException e) {
+                log.error("Failed to insert {} event logs", pending.eventLogs.size(), e);
+                complete(pending, e);
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中按月表分组写入
+     */
+    private void write(List<Pending> requests) {
+        Map<YearMonth, List<EventLog>> tables = new TreeMap<>();
+        for (Pending pending : requests) {
+            for (EventLog eventLog : pending.eventLogs) {
+                YearMonth month = YearMonth.from(SnowflakeIdGenerator.extractDateTime(eventLog.getId()));
+                tables.computeIfAbsent(month, key -> new ArrayList<>()).add(eventLog);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> tables.values().forEach(this::insert));
+    }
+
+    private void complete(Pending pending, RuntimeException failure) {
+        capacity.release(pending.eventLogs.size());
+        if (failure != null) {
+            pending.future.completeExceptionally(failure);
+        } else {
+            pending.future.complete(null);
+        }
+    }
+
+    /**
+     * 一张月表的数据作为一个批次写入
+     */
+    private void insert(List<EventLog> eventLogs) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                EventLog eventLog = eventLogs.get(i);
+                ps.setLong(1, eventLog.getId());
+                ps.setInt(2, eventLog.getEventType());
+                ps.setString(3, eventLog.getEventContent());
+                ps.setTimestamp(4, Timestamp.valueOf(eventLog.getCreateTime()));
+                ps.setTimestamp(5, Timestamp.valueOf(eventLog.getUpdateTime()));
+                ps.setInt(6, eventLog.getDeleted());
+                ps.setInt(7, eventLog.getStatus());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return eventLogs.size();
+            }
+        });
+    }
+
+    /**
+     * 一个请求的数据
+     */
+    private static final class Pending {
+
+        private final List<EventLog> eventLogs;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Pending(List<EventLog> eventLogs) {
+            this.eventLogs = eventLogs;
+        }
+    }
+}
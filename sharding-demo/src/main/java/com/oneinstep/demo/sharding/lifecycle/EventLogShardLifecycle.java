@@ -0,0 +1,195 @@
+package com.oneinstep.demo.sharding.lifecycle;
+
+import com.oneinstep.demo.sharding.archive.EventLogArchiveStore;
+import com.oneinstep.demo.sharding.config.EventLogLifecycleProperties;
+import com.oneinstep.demo.sharding.config.EventLogLifecycleProperties.RetireAction;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 事件日志月表生命周期
+ * <p>
+ * 启动完成后和每天定时执行：
+ * - 按 event_log_template 创建保留期内和未来 monthsAhead 个月缺少的月表
+ * - 将 ShardingSphere 中 event_log 的数据节点替换为这些月表，没有分片条件的查询只扫描保留期内的表
+ * - 保留期之前的月表先从数据节点中移除，再按 retireAction 处理：
+ * 重命名为 event_log_archive_yyyyMM(默认)、导出到归档文件后删除或直接删除
+ * <p>
+ * 新表先创建再加入数据节点，旧表先移出数据节点再处理，路由到的表总是存在。
+ * 导出时先把月表重命名为 event_log_exporting_yyyyMM，移出数据节点前已路由的写入不会再写进正在导出的表，
+ * 导出并核对行数后才删除；导出失败的表保留，下次执行时重试。从移出数据节点到导出完成，该月的数据查询不到。
+ * 提前创建的月数应覆盖两次执行的间隔，保证跨月时新数据写入的表已经存在。
+ */
+@Slf4j
+@Component
+public class EventLogShardLifecycle {
+
+    private static final String TEMPLATE_TABLE = "event_log_template";
+
+    private static final String ARCHIVE_PREFIX = "event_log_archive_";
+
+    private static final String EXPORTING_PREFIX = "event_log_exporting_";
+
+    private static final Pattern MONTH_TABLE = Pattern.compile("event_log_(\\d{4})(\\d{2})");
+
+    private static final Pattern EXPORTING_TABLE = Pattern.compile(EXPORTING_PREFIX + "(\\d{4})(\\d{2})");
+
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_TABLES_SQL = "SELECT table_name FROM information_schema.tables "
+            + "WHERE table_schema = DATABASE() AND table_name LIKE 'event\\_log\\_%'";
+
+    private final EventLogShardRule shardRule;
+
+    private final EventLogShards shards;
+
+    private final EventLogArchiveStore archiveStore;
+
+    private final EventLogLifecycleProperties properties;
+
+    public EventLogShardLifecycle(EventLogShardRule shardRule, EventLogShards shards,
+                                  EventLogArchiveStore archiveStore, EventLogLifecycleProperties properties) {
+        this.shardRule = shardRule;
+        this.shards = shards;
+        this.archiveStore = archiveStore;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * 按当前月份维护月表，失败时记录日志，下次执行时重试
+     */
+    @Scheduled(cron = "${event-log.lifecycle.cron:0 0 1 * * *}")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            maintain(YearMonth.now());
+        } catch (RuntimeException e) {
+            log.error("Failed to maintain event log tables", e);
+        }
+    }
+
+    /**
+     * 维护月表
+     *
+     * @param current 当前月份
+     * @return 启用的月份，按时间排序
+     */
+    synchronized List<YearMonth> maintain(YearMonth current) {
+        YearMonth first = current.minusMonths(Math.max(properties.getRetentionMonths(), 1) - 1L);
+        YearMonth last = current.plusMonths(Math.max(properties.getMonthsAhead(), 0));
+        JdbcTemplate jdbcTemplate = shardRule.storageJdbcTemplate();
+        List<String> tables = jdbcTemplate.queryForList(LIST_TABLES_SQL, String.class);
+        TreeSet<YearMonth> existing = months(tables, MONTH_TABLE);
+
+        // 1. 创建缺少的月表，已存在的更晚的月表保持启用
+        TreeSet<YearMonth> active = new TreeSet<>(existing.tailSet(first));
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!existing.contains(month)) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName(month) + " LIKE " + TEMPLATE_TABLE);
+                log.info("Created event log table {}", tableName(month));
+            }
+            active.add(month);
+        }
+
+        // 2. 更新数据节点，保留期之前的月表不再路由
+        List<YearMonth> months = new ArrayList<>(active);
+        shardRule.updateDataNodes(months);
+        shards.update(months);
+
+        // 3. 处理保留期之前的月表
+        for (YearMonth month : existing.headSet(first)) {
+            try {
+                retire(jdbcTemplate, month);
+            } catch (RuntimeException e) {
+                log.error("Failed to retire event log table {}", tableName(month), e);
+            }
+        }
+
+        // 4. 重试之前导出失败的表
+        if (properties.getRetireAction() == RetireAction.EXPORT) {
+            for (YearMonth month : months(tables, EXPORTING_TABLE)) {
+                try {
+                    export(jdbcTemplate, month);
+                } catch (RuntimeException e) {
+                    log.error("Failed to export event log table {}", EXPORTING_PREFIX + suffix(month), e);
+                }
+            }
+        }
+        return months;
+    }
+
+    private void retire(JdbcTemplate jdbcTemplate, YearMonth month) {
+        String tableName = tableName(month);
+        switch (properties.getRetireAction()) {
+            case RENAME -> {
+                String archiveName = ARCHIVE_PREFIX + suffix(month);
+                jdbcTemplate.execute("RENAME TABLE " + tableName + " TO " + archiveName);
+                log.info("Renamed event log table {} to {}", tableName, archiveName);
+            }
+            case EXPORT -> {
+                jdbcTemplate.execute("RENAME TABLE " + tableName + " TO " + EXPORTING_PREFIX + suffix(month));
+                export(jdbcTemplate, month);
+            }
+            case DROP -> {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + tableName);
+                log.info("Dropped event log table {}", tableName);
+            }
+        }
+    }
+
+    /**
+     * 导出已重命名的表，核对行数后删除
+     */
+    private void export(JdbcTemplate jdbcTemplate, YearMonth month) {
+        String exportingName = EXPORTING_PREFIX + suffix(month);
+        archiveStore.export(jdbcTemplate, month, exportingName);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + exportingName);
+        log.info("Dropped exported event log table {}", exportingName);
+    }
+
+    /**
+     * 表名中的月份
+     */
+    private static TreeSet<YearMonth> months(List<String> tables, Pattern pattern) {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        for (String tableName : tables) {
+            Matcher matcher = pattern.matcher(tableName.toLowerCase());
+            if (!matcher.matches()) {
+                continue;
+            }
+            int month = Integer.parseInt(matcher.group(2));
+            if (month >= 1 && month <= 12) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), month));
+            }
+        }
+        return months;
+    }
+
+    private static String tableName(YearMonth month) {
+        return EventLogShardRule.LOGIC_TABLE + "_" + suffix(month);
+    }
+
+    private static String suffix(YearMonth month) {
+        return month.format(SUFFIX_FORMATTER);
+    }
+}
@@ -0,0 +1,170 @@
+package com.oneinstep.demo.sharding.lifecycle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shardingsphere.driver.jdbc.core.connection.ShardingSphereConnection;
+import org.apache.shardingsphere.infra.config.rule.RuleConfiguration;
+import org.apache.shardingsphere.infra.metadata.database.ShardingSphereDatabase;
+import org.apache.shardingsphere.infra.metadata.database.resource.unit.StorageUnit;
+import org.apache.shardingsphere.mode.manager.ContextManager;
+import org.apache.shardingsphere.sharding.api.config.ShardingRuleConfiguration;
+import org.apache.shardingsphere.sharding.api.config.rule.ShardingTableRuleConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * event_log 分片规则
+ * <p>
+ * 通过 ShardingSphere 的 ContextManager 在运行时修改 event_log 的数据节点，
+ * 修改后新的路由只包含列出的月表，没有分片条件的查询也只扫描这些表。
+ * 建表、删表等 DDL 直接在数据节点所在的数据源上执行，不经过 ShardingSphere 路由。
+ */
+@Slf4j
+@Component
+public class EventLogShardRule {
+
+    /**
+     * 逻辑表名
+     */
+    static final String LOGIC_TABLE = "event_log";
+
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DataSource dataSource;
+
+    private volatile ContextManager contextManager;
+
+    private volatile String databaseName;
+
+    public EventLogShardRule(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 数据节点所在数据源的 JdbcTemplate，用于执行 DDL
+     */
+    public JdbcTemplate storageJdbcTemplate() {
+        String dataSourceName = dataSourceName(tableRule(shardingRule()).getActualDataNodes());
+        StorageUnit storageUnit = contextManager().getStorageUnits(databaseName).get(dataSourceName);
+        if (storageUnit == null) {
+            throw new IllegalStateException("Storage unit " + dataSourceName + " not found");
+        }
+        return new JdbcTemplate(storageUnit.getDataSource());
+    }
+
+    /**
+     * 将 event_log 的数据节点替换为指定的月表，与当前配置相同时不修改
+     *
+     * @param months 月份，按时间排序
+     */
+    public synchronized void updateDataNodes(List<YearMonth> months) {
+        if (months.isEmpty()) {
+            throw new IllegalArgumentException("At least one month is required");
+        }
+        ShardingRuleConfiguration current = shardingRule();
+        ShardingTableRuleConfiguration currentTable = tableRule(current);
+        String actualDataNodes = dataNodes(dataSourceName(currentTable.getActualDataNodes()), months);
+        if (actualDataNodes.equals(currentTable.getActualDataNodes())) {
+            return;
+        }
+
+        ShardingTableRuleConfiguration table = new ShardingTableRuleConfiguration(LOGIC_TABLE, actualDataNodes);
+        table.setDatabaseShardingStrategy(currentTable.getDatabaseShardingStrategy());
+        table.setTableShardingStrategy(currentTable.getTableShardingStrategy());
+        table.setKeyGenerateStrategy(currentTable.getKeyGenerateStrategy());
+        table.setAuditStrategy(currentTable.getAuditStrategy());
+        List<ShardingTableRuleConfiguration> tables = new ArrayList<>(current.getTables().size());
+        for (ShardingTableRuleConfiguration each : current.getTables()) {
+            tables.add(each == currentTable ? table : each);
+        }
+
+        ShardingRuleConfiguration altered = new ShardingRuleConfiguration();
+        altered.setTables(tables);
+        altered.setAutoTables(current.getAutoTables());
+        altered.setBindingTableGroups(current.getBindingTableGroups());
+        altered.setDefaultDatabaseShardingStrategy(current.getDefaultDatabaseShardingStrategy());
+        altered.setDefaultTableShardingStrategy(current.getDefaultTableShardingStrategy());
+        altered.setDefaultKeyGenerateStrategy(current.getDefaultKeyGenerateStrategy());
+        altered.setDefaultAuditStrategy(current.getDefaultAuditStrategy());
+        altered.setDefaultShardingColumn(current.getDefaultShardingColumn());
+        altered.setShardingAlgorithms(current.getShardingAlgorithms());
+        altered.setKeyGenerators(current.getKeyGenerators());
+        altered.setAuditors(current.getAuditors());
+        altered.setShardingCache(current.getShardingCache());
+        try {
+            contextManager().getPersistServiceFacade().getMetaDataManagerPersistService()
+                    .alterRuleConfiguration(databaseName, altered);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to update data nodes of " + LOGIC_TABLE, e);
+        }
+        log.info("Updated data nodes of {}: {}", LOGIC_TABLE, actualDataNodes);
+    }
+
+    /**
+     * 数据节点表达式，逐个列出月表，如: ds0.event_log_202512,ds0.event_log_202601
+     * 不使用 ${202512..202601} 这样的行表达式，跨年时会包含不存在的月份
+     */
+    static String dataNodes(String dataSourceName, Collection<YearMonth> months) {
+        return months.stream()
+                .map(month -> dataSourceName + "." + LOGIC_TABLE + "_" + month.format(SUFFIX_FORMATTER))
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * 数据节点表达式中的数据源名称
+     */
+    static String dataSourceName(String actualDataNodes) {
+        int index = actualDataNodes.indexOf('.');
+        if (index <= 0) {
+            throw new IllegalStateException("Unsupported data nodes of " + LOGIC_TABLE + ": " + actualDataNodes);
+        }
+        return actualDataNodes.substring(0, index).trim();
+    }
+
+    private ShardingRuleConfiguration shardingRule() {
+        ShardingSphereDatabase database = contextManager().getDatabase(databaseName);
+        for (RuleConfiguration each : database.getRuleMetaData().getConfigurations()) {
+            if (each instanceof ShardingRuleConfiguration shardingRule) {
+                return shardingRule;
+            }
+        }
+        throw new IllegalStateException("Sharding rule not found in database " + databaseName);
+    }
+
+    private static ShardingTableRuleConfiguration tableRule(ShardingRuleConfiguration shardingRule) {
+        for (ShardingTableRuleConfiguration each : shardingRule.getTables()) {
+            if (LOGIC_TABLE.equalsIgnoreCase(each.getLogicTable())) {
+                return each;
+            }
+        }
+        throw new IllegalStateException("Sharding table rule of " + LOGIC_TABLE + " not found");
+    }
+
+    /**
+     * 从连接中获取 ShardingSphere 的 ContextManager，数据源没有公开的获取方法
+     */
+    private ContextManager contextManager() {
+        ContextManager manager = contextManager;
+        if (manager != null) {
+            return manager;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            ShardingSphereConnection shardingConnection = connection.unwrap(ShardingSphereConnection.class);
+            databaseName = shardingConnection.getCurrentDatabaseName();
+            manager = shardingConnection.getContextManager();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Data source is not a ShardingSphere data source", e);
+        }
+        contextManager = manager;
+        return manager;
+    }
+}
@@ -0,0 +1,29 @@
+package com.oneinstep.demo.sharding.query;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 跨月查询条件
+ */
+@Getter
+@Builder
+public class EventLogCriteria {
+
+    /**
+     * 事件类型，为空时不限制
+     */
+    private final Integer eventType;
+
+    /**
+     * 创建时间下限(包含)，为空时不限制
+     */
+    private final LocalDateTime startTime;
+
+    /**
+     * 创建时间上限(包含)，为空时不限制
+     */
+    private final LocalDateTime endTime;
+}
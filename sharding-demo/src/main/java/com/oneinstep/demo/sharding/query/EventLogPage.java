@@ -0,0 +1,37 @@
+package com.oneinstep.demo.sharding.query;
+
+import com.oneinstep.demo.sharding.domain.EventLog;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 下一页的游标为本页最后一条数据的 (create_time, id)，没有更多数据时为空
+ */
+@Getter
+@AllArgsConstructor
+public class EventLogPage {
+
+    /**
+     * 本页数据，按 (create_time, id) 排序
+     */
+    private final List<EventLog> records;
+
+    /**
+     * 是否还有下一页
+     */
+    private final boolean hasMore;
+
+    /**
+     * 下一页游标：创建时间
+     */
+    private final LocalDateTime nextCursorTime;
+
+    /**
+     * 下一页游标：ID
+     */
+    private final Long nextCursorId;
+}
@@ -0,0 +1,128 @@
+package com.oneinstep.demo.sharding.query;
+
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 事件日志的月表
+ * 按月份顺序保存当前存在的分表，跨月查询时按月份逐表执行
+ * <p>
+ * 启动时使用配置的月份范围，开启月表生命周期维护后由
+ * {@link com.oneinstep.demo.sharding.lifecycle.EventLogShardLifecycle} 替换为当前启用的月表
+ * <p>
+ * 已导出到归档文件的月份单独保存，跨月查询同时包含月表和归档的月份，同一个月两者都有时从归档文件读取
+ */
+@Component
+public class EventLogShards {
+
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * 按时间排序的月份
+     */
+    private volatile List<YearMonth> months;
+
+    /**
+     * 已归档的月份
+     */
+    private volatile Set<YearMonth> archivedMonths = Set.of();
+
+    /**
+     * 月表和归档的全部月份，按时间排序
+     */
+    private volatile List<YearMonth> queryMonths;
+
+    public EventLogShards(EventLogShardingProperties properties) {
+        YearMonth first = YearMonth.parse(properties.getFirstMonth(), SUFFIX_FORMATTER);
+        YearMonth last = YearMonth.parse(properties.getLastMonth(), SUFFIX_FORMATTER);
+        List<YearMonth> list = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            list.add(month);
+        }
+        this.months = List.copyOf(list);
+        this.queryMonths = this.months;
+    }
+
+    /**
+     * 月表的全部月份
+     */
+    public List<YearMonth> getMonths() {
+        return months;
+    }
+
+    /**
+     * 替换全部月份
+     *
+     * @param months 当前启用的月份
+     */
+    public synchronized void update(Collection<YearMonth> months) {
+        this.months = months.stream().sorted().distinct().toList();
+        this.queryMonths = merge(this.months, archivedMonths);
+    }
+
+    /**
+     * 替换已归档的月份
+     *
+     * @param months 已导出到归档文件的月份
+     */
+    public synchronized void updateArchived(Collection<YearMonth> months) {
+        this.archivedMonths = Set.copyOf(months);
+        this.queryMonths = merge(this.months, archivedMonths);
+    }
+
+    /**
+     * 月份是否从归档文件读取
+     */
+    public boolean isArchived(YearMonth month) {
+        return archivedMonths.contains(month);
+    }
+
+    /**
+     * 与时间范围有交集的月份，包括已归档的月份，按时间排序
+     *
+     * @param startTime 开始时间(包含)，为空时不限制
+     * @param endTime   结束时间(包含)，为空时不限制
+     */
+    public List<YearMonth> months(LocalDateTime startTime, LocalDateTime endTime) {
+        YearMonth from = startTime != null ? YearMonth.from(startTime) : null;
+        YearMonth to = endTime != null ? YearMonth.from(endTime) : null;
+        List<YearMonth> result = new ArrayList<>();
+        for (YearMonth month : queryMonths) {
+            if ((from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to))) {
+                result.add(month);
+            }
+        }
+        return result;
+    }
+
+    private static List<YearMonth> merge(List<YearMonth> months, Set<YearMonth> archivedMonths) {
+        if (archivedMonths.isEmpty()) {
+            return months;
+        }
+        return Stream.concat(months.stream(), archivedMonths.stream()).sorted().distinct().toList();
+    }
+
+    /**
+     * 月表中的最小ID，数据所在的表由ID中的时间戳决定
+     */
+    public static long minId(YearMonth month) {
+        return SnowflakeIdGenerator.minId(month.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * 月表中的最大ID
+     */
+    public static long maxId(YearMonth month) {
+        return minId(month.plusMonths(1)) - 1;
+    }
+}
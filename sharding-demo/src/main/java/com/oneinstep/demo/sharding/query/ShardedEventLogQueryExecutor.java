@@ -0,0 +1,333 @@
+package com.oneinstep.demo.sharding.query;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.oneinstep.demo.sharding.archive.EventLogArchiveStore;
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import com.oneinstep.demo.sharding.service.EventLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * 跨月查询执行器
+ * <p>
+ * 每张月表在单独的虚拟线程中按 (create_time, id) 顺序分批读取，查询条件带上该月的ID范围，
+ * 由分片算法路由到唯一的一张表。各表的结果按 (create_time, id) 多路归并后依次交给调用方，
+ * 不在内存中汇总整个时间范围的数据：每张表最多缓存一批已读取的数据，内存占用只与表数和每批行数有关。
+ * <p>
+ * 每批读取完成后立即归还连接，同时执行的查询数由 {@link EventLogShardingProperties#getQueryParallelism()} 限制，
+ * 调用方消费慢时读取线程阻塞在队列上，不占用连接。
+ * <p>
+ * {@link #open(EventLogCriteria)} 返回前已读取每张表的第一批数据，调用方可以在开始输出之前发现查询失败。
+ * <p>
+ * 游标分页按月份顺序逐表读取，只查询能包含下一页数据的一两张表。
+ * <p>
+ * 已归档的月份从 {@link EventLogArchiveStore} 读取，条件和顺序与月表相同，调用方不需要区分。
+ */
+@Slf4j
+@Component
+public class ShardedEventLogQueryExecutor {
+
+    /**
+     * 跨月查询结果的顺序
+     */
+    public static final Comparator<EventLog> ORDER = Comparator.comparing(EventLog::getCreateTime)
+            .thenComparing(EventLog::getId);
+
+    private final EventLogService eventLogService;
+
+    private final EventLogShards shards;
+
+    private final EventLogArchiveStore archiveStore;
+
+    private final int fetchSize;
+
+    /**
+     * 同时执行的分表查询数
+     */
+    private final Semaphore permits;
+
+    public ShardedEventLogQueryExecutor(EventLogService eventLogService, EventLogShards shards,
+                                        EventLogArchiveStore archiveStore, EventLogShardingProperties properties) {
+        this.eventLogService = eventLogService;
+        this.shards = shards;
+        this.archiveStore = archiveStore;
+        this.fetchSize = properties.getFetchSize();
+        this.permits = new Semaphore(properties.getQueryParallelism());
+    }
+
+    /**
+     * 按 (create_time, id) 顺序依次处理符合条件的数据
+     *
+     * @param criteria 查询条件
+     * @param consumer 处理每条数据，抛出异常时停止查询
+     */
+    public void stream(EventLogCriteria criteria, Consumer<EventLog> consumer) {
+        try (MergedStream rows = open(criteria)) {
+            rows.forEachRemaining(consumer);
+        }
+    }
+
+    /**
+     * 开始跨月查询，返回前等待每张表的第一批数据
+     * <p>
+     * 任何一张表的第一批读取失败时直接抛出异常，调用方可以在写出任何数据之前报告错误；
+     * 之后的批次失败时由 {@link MergedStream#forEachRemaining(Consumer)} 抛出异常。
+     *
+     * @param criteria 查询条件
+     * @return 归并后的结果，使用完后需要关闭
+     */
+    public MergedStream open(EventLogCriteria criteria) {
+        List<YearMonth> months = shards.months(criteria.getStartTime(), criteria.getEndTime());
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<ShardCursor> cursors = months.stream().map(month -> new ShardCursor(month, criteria)).toList();
+            cursors.forEach(cursor -> executor.execute(cursor::fetch));
+
+            PriorityQueue<ShardCursor> heads = new PriorityQueue<>(Math.max(cursors.size(), 1),
+                    Comparator.comparing(ShardCursor::head, ORDER));
+            for (ShardCursor cursor : cursors) {
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            return new MergedStream(executor, heads);
+        } catch (RuntimeException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+    }
+
+    /**
+     * 游标分页
+     * <p>
+     * 游标是上一页最后一条数据的 (create_time, id)，ID决定了数据所在的表：
+     * 从该表中游标之后的数据开始，不够一页时按月份顺序继续读取后面的表，后面的表从头读取。
+     * 每张表按 (create_time, id) 排序，数据的ID与创建时间在同一个月时，整体顺序与按 (create_time, id) 排序一致。
+     *
+     * @param criteria   查询条件
+     * @param cursorTime 游标：创建时间，第一页为空
+     * @param cursorId   游标：ID，第一页为空
+     * @param size       每页行数
+     * @return 本页数据和下一页的游标
+     */
+    public EventLogPage page(EventLogCriteria criteria, LocalDateTime cursorTime, Long cursorId, int size) {
+        EventLog after = null;
+        YearMonth cursorMonth = null;
+        if (cursorId != null) {
+            after = new EventLog();
+            after.setCreateTime(cursorTime);
+            after.setId(cursorId);
+            cursorMonth = YearMonth.from(SnowflakeIdGenerator.extractDateTime(cursorId));
+        }
+
+        // 多取一条判断是否还有下一页
+        List<EventLog> records = new ArrayList<>(size + 1);
+        for (YearMonth month : shards.months(criteria.getStartTime(), criteria.getEndTime())) {
+            if (cursorMonth != null && month.isBefore(cursorMonth)) {
+                continue;
+            }
+            EventLog from = month.equals(cursorMonth) ? after : null;
+            records.addAll(fetch(month, criteria, from, size + 1 - records.size()));
+            if (records.size() > size) {
+                break;
+            }
+        }
+
+        if (records.size() <= size) {
+            return new EventLogPage(records, false, null, null);
+        }
+        List<EventLog> page = new ArrayList<>(records.subList(0, size));
+        EventLog last = page.getLast();
+        return new EventLogPage(page, true, last.getCreateTime(), last.getId());
+    }
+
+    /**
+     * 按 (create_time, id) 顺序查询一张月表，已归档的月份读取归档文件
+     *
+     * @param month    月份
+     * @param criteria 查询条件
+     * @param after    上一批的最后一条数据，从其后开始查询，为空时从头查询
+     * @param limit    行数
+     */
+    List<EventLog> fetch(YearMonth month, EventLogCriteria criteria, EventLog after, int limit) {
+        if (shards.isArchived(month)) {
+            return archiveStore.read(month, criteria, after, limit);
+        }
+
+        // ID范围将查询限定在这张月表
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .where(EventLog::getId).between(EventLogShards.minId(month), EventLogShards.maxId(month));
+
+        if (criteria.getEventType() != null) {
+            queryWrapper.and(EventLog::getEventType).eq(criteria.getEventType());
+        }
+        if (criteria.getStartTime() != null && criteria.getEndTime() != null) {
+            queryWrapper.and(EventLog::getCreateTime).between(criteria.getStartTime(), criteria.getEndTime());
+        } else if (criteria.getStartTime() != null) {
+            queryWrapper.and(EventLog::getCreateTime).ge(criteria.getStartTime());
+        } else if (criteria.getEndTime() != null) {
+            queryWrapper.and(EventLog::getCreateTime).le(criteria.getEndTime());
+        }
+        if (after != null) {
+            // (create_time, id) > (?, ?)
+            queryWrapper.and((Consumer<QueryWrapper>) wrapper -> wrapper
+                    .where(EventLog::getCreateTime).gt(after.getCreateTime())
+                    .or(EventLog::getCreateTime).eq(after.getCreateTime())
+                    .and(EventLog::getId).gt(after.getId()));
+        }
+
+        queryWrapper.orderBy(EventLog::getCreateTime, true)
+                .orderBy(EventLog::getId, true)
+                .limit(limit);
+        return eventLogService.list(queryWrapper);
+    }
+
+    /**
+     * 已开始的跨月查询，每张表的第一批数据已经读取完成
+     */
+    public final class MergedStream implements AutoCloseable {
+
+        private final ExecutorService executor;
+
+        private final PriorityQueue<ShardCursor> heads;
+
+        private MergedStream(ExecutorService executor, PriorityQueue<ShardCursor> heads) {
+            this.executor = executor;
+            this.heads = heads;
+        }
+
+        /**
+         * 按 (create_time, id) 顺序依次处理剩余的数据
+         *
+         * @param consumer 处理每条数据，抛出异常时停止查询
+         */
+        public void forEachRemaining(Consumer<EventLog> consumer) {
+            while (!heads.isEmpty()) {
+                ShardCursor cursor = heads.poll();
+                consumer.accept(cursor.head());
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        }
+
+        /**
+         * 提前结束时中断仍在读取的线程
+         */
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 一批数据，last 表示这张表已经读完
+     */
+    private record Page(List<EventLog> rows, boolean last, RuntimeException error) {
+    }
+
+    /**
+     * 一张月表的读取进度
+     * 读取线程执行 {@link #fetch()}，归并线程执行 {@link #advance()}，通过容量为1的队列交接，读取线程最多领先一批
+     */
+    private final class ShardCursor {
+
+        private final YearMonth month;
+
+        private final EventLogCriteria criteria;
+
+        private final BlockingQueue<Page> pages = new ArrayBlockingQueue<>(1);
+
+        private Iterator<EventLog> rows = Collections.emptyIterator();
+
+        private boolean last;
+
+        private EventLog head;
+
+        ShardCursor(YearMonth month, EventLogCriteria criteria) {
+            this.month = month;
+            this.criteria = criteria;
+        }
+
+        /**
+         * 分批读取直到表中没有更多数据
+         */
+        void fetch() {
+            EventLog after = null;
+            try {
+                while (true) {
+                    List<EventLog> batch;
+                    permits.acquire();
+                    try {
+                        batch = ShardedEventLogQueryExecutor.this.fetch(month, criteria, after, fetchSize);
+                    } finally {
+                        permits.release();
+                    }
+                    boolean lastPage = batch.size() < fetchSize;
+                    pages.put(new Page(batch, lastPage, null));
+                    if (lastPage) {
+                        return;
+                    }
+                    after = batch.getLast();
+                }
+            } catch (InterruptedException e) {
+                // 查询已结束
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to query event logs of {}", month, e);
+                try {
+                    pages.put(new Page(List.of(), true, e));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * 移动到下一条数据，没有更多数据时返回 false
+         */
+        boolean advance() {
+            while (!rows.hasNext()) {
+                if (last) {
+                    head = null;
+                    return false;
+                }
+                Page page;
+                try {
+                    page = pages.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while querying event logs of " + month, e);
+                }
+                if (page.error() != null) {
+                    throw new IllegalStateException("Failed to query event logs of " + month, page.error());
+                }
+                rows = page.rows().iterator();
+                last = page.last();
+            }
+            head = rows.next();
+            return true;
+        }
+
+        EventLog head() {
+            return head;
+        }
+    }
+}
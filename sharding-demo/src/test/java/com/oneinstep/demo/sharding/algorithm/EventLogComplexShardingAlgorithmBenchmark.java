@@ -0,0 +1,86 @@
+package com.oneinstep.demo.sharding.algorithm;
+
+import com.google.common.collect.Range;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件日志分片算法基准测试
+ * 48 张月表下按ID、创建时间和时间范围路由的耗时，配合 -prof gc 查看每次路由的内存分配
+ * <p>
+ * 运行方式：在 IDE 中运行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogComplexShardingAlgorithmBenchmark {
+
+    private final EventLogComplexShardingAlgorithm algorithm = new EventLogComplexShardingAlgorithm();
+
+    private final Collection<String> tables = new ArrayList<>();
+
+    private final ComplexKeysShardingValue<Comparable<?>> byId;
+
+    private final ComplexKeysShardingValue<Comparable<?>> byCreateTime;
+
+    private final ComplexKeysShardingValue<Comparable<?>> byRange;
+
+    public EventLogComplexShardingAlgorithmBenchmark() {
+        for (int year = 2025; year <= 2028; year++) {
+            for (int month = 1; month <= 12; month++) {
+                tables.add(String.format("event_log_%d%02d", year, month));
+            }
+        }
+        LocalDateTime time = LocalDateTime.of(2027, 7, 15, 10, 0);
+        long id = new SnowflakeIdGenerator().generateWithTime(time);
+        byId = EventLogComplexShardingAlgorithmTest.byValues(Map.of("id", List.of(id)));
+        byCreateTime = EventLogComplexShardingAlgorithmTest.byValues(Map.of("create_time", List.of(time)));
+        byRange = EventLogComplexShardingAlgorithmTest.byRange(Range.closed(time, time.plusMonths(3)));
+    }
+
+    @Benchmark
+    public Collection<String> routeById() {
+        return algorithm.doSharding(tables, byId);
+    }
+
+    @Benchmark
+    public Collection<String> routeByCreateTime() {
+        return algorithm.doSharding(tables, byCreateTime);
+    }
+
+    @Benchmark
+    public Collection<String> routeByRange() {
+        return algorithm.doSharding(tables, byRange);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EventLogComplexShardingAlgorithmBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
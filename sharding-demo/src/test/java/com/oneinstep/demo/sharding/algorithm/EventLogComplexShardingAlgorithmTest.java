@@ -0,0 +1,103 @@
+package com.oneinstep.demo.sharding.algorithm;
+
+import com.google.common.collect.Range;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogComplexShardingAlgorithmTest {
+
+    private static final String LOGIC_TABLE = "event_log";
+
+    private final EventLogComplexShardingAlgorithm algorithm = new EventLogComplexShardingAlgorithm();
+
+    /**
+     * 按ID、创建时间和时间范围路由到对应的月表，忽略后缀不是年月的表
+     */
+    @Test
+    void shouldRouteByIdAndTime() {
+        List<String> tables = tables(2025, 2026);
+        tables.add("event_log_202513");
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        long id = generator.generateWithTime(LocalDateTime.of(2025, 3, 31, 23, 59, 59));
+
+        assertEquals(List.of("event_log_202503"), List.copyOf(algorithm.doSharding(tables,
+                byValues(Map.of("id", List.of(id, id))))));
+        assertEquals(List.of("event_log_202504", "event_log_202601"), List.copyOf(algorithm.doSharding(tables,
+                byValues(Map.of("create_time", List.of(LocalDateTime.of(2025, 4, 1, 0, 0),
+                        LocalDateTime.of(2026, 1, 31, 23, 59)))))));
+        assertEquals(List.of("event_log_202511", "event_log_202512", "event_log_202601"),
+                List.copyOf(algorithm.doSharding(tables, byRange(Range.closed(
+                        LocalDateTime.of(2025, 11, 30, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0))))));
+        assertEquals(List.of("event_log_202611", "event_log_202612"),
+                List.copyOf(algorithm.doSharding(tables, byRange(Range.atLeast(LocalDateTime.of(2026, 11, 2, 0, 0))))));
+
+        // ID范围按ID中的时间戳路由，优先于创建时间
+        Range<Long> idRange = Range.closed(SnowflakeIdGenerator.minId(LocalDateTime.of(2026, 2, 1, 0, 0)),
+                SnowflakeIdGenerator.minId(LocalDateTime.of(2026, 3, 1, 0, 0)) - 1);
+        assertEquals(List.of("event_log_202602"), List.copyOf(algorithm.doSharding(tables,
+                byValuesAndRange(Map.of("create_time", List.of(LocalDateTime.of(2025, 4, 1, 0, 0))),
+                        Map.of("id", idRange)))));
+
+        // 超出范围时返回全部表
+        assertSame(tables, algorithm.doSharding(tables,
+                byValues(Map.of("create_time", List.of(LocalDateTime.of(2024, 12, 31, 0, 0))))));
+        assertSame(tables, algorithm.doSharding(tables,
+                byRange(Range.closed(LocalDateTime.of(2030, 1, 1, 0, 0), LocalDateTime.of(2030, 2, 1, 0, 0)))));
+    }
+
+    /**
+     * 可用表变化后重新计算路由表
+     */
+    @Test
+    void shouldRefreshWhenTablesChange() {
+        LocalDateTime time = LocalDateTime.of(2027, 6, 15, 0, 0);
+        List<String> tables = tables(2025, 2026);
+        assertSame(tables, algorithm.doSharding(tables, byValues(Map.of("create_time", List.of(time)))));
+
+        // 内容相同的新集合复用路由表
+        assertEquals(List.of("event_log_202506"), List.copyOf(algorithm.doSharding(tables(2025, 2026),
+                byValues(Map.of("create_time", List.of(time.minusYears(2)))))));
+
+        List<String> extended = tables(2025, 2027);
+        assertEquals(List.of("event_log_202706"), List.copyOf(algorithm.doSharding(extended,
+                byValues(Map.of("create_time", List.of(time))))));
+        long id = new SnowflakeIdGenerator().generateWithTime(time);
+        assertEquals(List.of("event_log_202706"), List.copyOf(algorithm.doSharding(extended,
+                byValues(Map.of("id", List.of(id))))));
+    }
+
+    private static List<String> tables(int fromYear, int toYear) {
+        List<String> tables = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            for (int month = 1; month <= 12; month++) {
+                tables.add(String.format("%s_%d%02d", LOGIC_TABLE, year, month));
+            }
+        }
+        return tables;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ComplexKeysShardingValue<Comparable<?>> byValues(Map<String, ? extends Collection<?>> values) {
+        return new ComplexKeysShardingValue<>(LOGIC_TABLE, (Map) values, Map.of());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ComplexKeysShardingValue<Comparable<?>> byValuesAndRange(Map<String, ? extends Collection<?>> values,
+                                                                    Map<String, ? extends Range<?>> ranges) {
+        return new ComplexKeysShardingValue<>(LOGIC_TABLE, (Map) values, (Map) ranges);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static ComplexKeysShardingValue<Comparable<?>> byRange(Range<LocalDateTime> range) {
+        return new ComplexKeysShardingValue<>(LOGIC_TABLE, Map.of(), (Map) Map.of("create_time", range));
+    }
+}
@@ -0,0 +1,193 @@
+package com.oneinstep.demo.sharding.archive;
+
+import com.oneinstep.demo.sharding.config.EventLogArchiveProperties;
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.BackfillIdGenerator;
+import com.oneinstep.demo.sharding.query.EventLogCriteria;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import com.oneinstep.demo.sharding.query.ShardedEventLogQueryExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogArchiveStoreTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    private static final String TABLE = "event_log_exporting_202503";
+
+    @TempDir
+    Path directory;
+
+    private final List<EventLog> table = new ArrayList<>();
+
+    private EventLogShards shards;
+
+    private EventLogArchiveStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalDateTime base = MONTH.atDay(1).atStartOfDay();
+        BackfillIdGenerator generator = new BackfillIdGenerator(1, base, base.plusMonths(1).minusSeconds(1));
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // 秒级时间，部分数据创建时间相同
+            LocalDateTime createTime = base.plusSeconds(random.nextInt(60 * 60 * 24 * 30));
+            EventLog eventLog = new EventLog();
+            eventLog.setId(generator.nextId(createTime));
+            eventLog.setEventType(1 + random.nextInt(3));
+            eventLog.setEventContent(i % 7 == 0 ? "" : "事件-" + i);
+            eventLog.setCreateTime(createTime);
+            eventLog.setUpdateTime(createTime.plusMinutes(random.nextInt(100)));
+            eventLog.setDeleted(i % 50 == 0 ? 1 : 0);
+            eventLog.setStatus(random.nextInt(4));
+            table.add(eventLog);
+        }
+
+        EventLogShardingProperties shardingProperties = new EventLogShardingProperties();
+        shardingProperties.setFirstMonth("202504");
+        shardingProperties.setLastMonth("202512");
+        shards = new EventLogShards(shardingProperties);
+        store = new EventLogArchiveStore(properties(), shards);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    /**
+     * 导出后按条件分批读取，结果与月表查询一致
+     */
+    @Test
+    void shouldReadExportedMonthLikeTable() {
+        assertEquals(table.size(), store.export(new TableJdbcTemplate(table), MONTH, TABLE));
+        assertTrue(store.contains(MONTH));
+        assertTrue(shards.isArchived(MONTH));
+        assertEquals(MONTH, shards.months(null, LocalDateTime.of(2025, 4, 30, 0, 0)).getFirst());
+        assertEquals(-1, store.export(new TableJdbcTemplate(table), MONTH, TABLE));
+
+        EventLogCriteria criteria = EventLogCriteria.builder()
+                .eventType(2)
+                .startTime(LocalDateTime.of(2025, 3, 5, 0, 0))
+                .endTime(LocalDateTime.of(2025, 3, 20, 12, 0))
+                .build();
+        List<EventLog> expected = table.stream()
+                .filter(eventLog -> eventLog.getDeleted() == 0 && eventLog.getEventType() == 2)
+                .filter(eventLog -> !eventLog.getCreateTime().isBefore(criteria.getStartTime())
+                        && !eventLog.getCreateTime().isAfter(criteria.getEndTime()))
+                .sorted(ShardedEventLogQueryExecutor.ORDER)
+                .toList();
+
+        List<EventLog> result = new ArrayList<>();
+        EventLog after = null;
+        while (true) {
+            List<EventLog> batch = store.read(MONTH, criteria, after, 37);
+            result.addAll(batch);
+            if (batch.size() < 37) {
+                break;
+            }
+            after = batch.getLast();
+        }
+        assertEquals(expected, result);
+    }
+
+    /**
+     * 重启后加载已有的归档文件，按ID读取，已删除的数据不返回
+     */
+    @Test
+    void shouldReloadArchiveAndGetById() throws Exception {
+        store.export(new TableJdbcTemplate(table), MONTH, TABLE);
+        store.close();
+
+        EventLogShards reloadedShards = new EventLogShards(new EventLogShardingProperties());
+        store = new EventLogArchiveStore(properties(), reloadedShards);
+        assertTrue(reloadedShards.isArchived(MONTH));
+
+        for (EventLog eventLog : table.subList(0, 200)) {
+            EventLog found = store.get(eventLog.getId());
+            if (eventLog.getDeleted() == 1) {
+                assertNull(found);
+            } else {
+                assertEquals(eventLog, found);
+            }
+        }
+        assertNull(store.get(table.getFirst().getId() + 1_000_000));
+        assertEquals(table.size() - table.size() / 50,
+                store.read(MONTH, EventLogCriteria.builder().build(), null, Integer.MAX_VALUE).size());
+    }
+
+    /**
+     * 导出的行数与月表不一致时不生成归档文件
+     */
+    @Test
+    void shouldDiscardArchiveWhenRowCountMismatch() throws Exception {
+        TableJdbcTemplate jdbcTemplate = new TableJdbcTemplate(table);
+        jdbcTemplate.count = table.size() + 1L;
+        assertThrows(IllegalStateException.class, () -> store.export(jdbcTemplate, MONTH, TABLE));
+        assertFalse(store.contains(MONTH));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private EventLogArchiveProperties properties() {
+        EventLogArchiveProperties properties = new EventLogArchiveProperties();
+        properties.setDirectory(directory.toString());
+        properties.setRowGroupRows(256);
+        return properties;
+    }
+
+    /**
+     * 用内存中的数据代替月表，按 (create_time, id) 分批返回
+     */
+    private static class TableJdbcTemplate extends JdbcTemplate {
+
+        private final List<EventLog> rows;
+
+        private long count;
+
+        TableJdbcTemplate(List<EventLog> rows) {
+            this.rows = rows.stream().sorted(ShardedEventLogQueryExecutor.ORDER).toList();
+            this.count = rows.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            int limit = (Integer) args[args.length - 1];
+            EventLog after = null;
+            if (args.length > 1) {
+                after = new EventLog();
+                after.setCreateTime(((Timestamp) args[0]).toLocalDateTime());
+                after.setId((Long) args[2]);
+            }
+            EventLog cursor = after;
+            return (List<T>) rows.stream()
+                    .filter(eventLog -> cursor == null || ShardedEventLogQueryExecutor.ORDER.compare(eventLog, cursor) > 0)
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return (T) Long.valueOf(count);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.oneinstep.demo.sharding.cache;
+
+import com.oneinstep.demo.sharding.archive.EventLogArchiveStore;
+import com.oneinstep.demo.sharding.config.EventLogCacheProperties;
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.BackfillIdGenerator;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventLogCacheTest {
+
+    private final BackfillIdGenerator generator = new BackfillIdGenerator(1,
+            LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2025, 12, 31, 0, 0));
+
+    private final EventLogShards shards = shards();
+
+    private final EventLogArchiveStore archiveStore = mock(EventLogArchiveStore.class);
+
+    private final InMemoryCache cache = new InMemoryCache();
+
+    /**
+     * 批量查询只读取未命中的ID，按月份分组，每组查询一次
+     */
+    @Test
+    void shouldLoadOnlyMissingIdsGroupedByMonth() {
+        EventLog march = cache.add(LocalDateTime.of(2025, 3, 10, 8, 0));
+        EventLog march2 = cache.add(LocalDateTime.of(2025, 3, 20, 8, 0));
+        EventLog june = cache.add(LocalDateTime.of(2025, 6, 1, 0, 0));
+        long absent = generator.nextId(LocalDateTime.of(2025, 7, 1, 0, 0));
+
+        assertEquals(march, cache.get(march.getId()));
+        assertEquals(List.of(YearMonth.of(2025, 3)), List.copyOf(cache.loads.keySet()));
+        cache.loads.clear();
+
+        List<EventLog> result = cache.getAll(List.of(june.getId(), march.getId(), absent, march2.getId(), june.getId()));
+        assertEquals(List.of(june, march, march2), result);
+        assertEquals(Map.of(YearMonth.of(2025, 3), List.of(march2.getId()),
+                YearMonth.of(2025, 6), List.of(june.getId()),
+                YearMonth.of(2025, 7), List.of(absent)), cache.loads);
+        cache.loads.clear();
+
+        // 全部命中时不查询
+        assertEquals(List.of(march, march2, june), cache.getAll(List.of(march.getId(), march2.getId(), june.getId())));
+        assertTrue(cache.loads.isEmpty());
+    }
+
+    /**
+     * 修改和删除后重新读取
+     */
+    @Test
+    void shouldReloadAfterInvalidation() {
+        EventLog march = cache.add(LocalDateTime.of(2025, 3, 10, 8, 0));
+        EventLog june = cache.add(LocalDateTime.of(2025, 6, 1, 0, 0));
+        cache.getAll(List.of(march.getId(), june.getId()));
+        cache.loads.clear();
+
+        cache.invalidate(List.of(march.getId()));
+        cache.getAll(List.of(march.getId(), june.getId()));
+        assertEquals(Map.of(YearMonth.of(2025, 3), List.of(march.getId())), cache.loads);
+        cache.loads.clear();
+
+        cache.invalidateCreatedBetween(LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 6, 30, 23, 59, 59));
+        cache.getAll(List.of(march.getId(), june.getId()));
+        assertEquals(Map.of(YearMonth.of(2025, 6), List.of(june.getId())), cache.loads);
+    }
+
+    /**
+     * 读取期间数据被修改时，读到的旧数据不留在缓存中
+     */
+    @Test
+    void shouldNotKeepStaleValueLoadedDuringInvalidation() {
+        EventLog march = cache.add(LocalDateTime.of(2025, 3, 10, 8, 0));
+        cache.onLoad = () -> cache.invalidate(List.of(march.getId()));
+        assertEquals(march, cache.get(march.getId()));
+
+        cache.onLoad = null;
+        cache.loads.clear();
+        cache.get(march.getId());
+        assertEquals(Set.of(YearMonth.of(2025, 3)), cache.loads.keySet());
+    }
+
+    /**
+     * 已归档的月份从归档文件读取，没有月表的月份不查询
+     */
+    @Test
+    void shouldRouteArchivedAndUnknownMonths() {
+        shards.updateArchived(List.of(YearMonth.of(2024, 6)));
+        EventLogCache routing = new EventLogCache(null, shards, archiveStore, new EventLogCacheProperties());
+        long archivedId = generator.nextId(LocalDateTime.of(2024, 6, 15, 0, 0));
+        long unknownId = generator.nextId(LocalDateTime.of(2024, 8, 15, 0, 0));
+        EventLog archived = new EventLog();
+        archived.setId(archivedId);
+        when(archiveStore.get(archivedId)).thenReturn(archived);
+
+        assertEquals(List.of(archived), routing.getAll(List.of(archivedId, unknownId)));
+        assertEquals(archived, routing.get(archivedId));
+        verify(archiveStore, times(1)).get(archivedId);
+        verify(archiveStore, never()).get(unknownId);
+    }
+
+    private static EventLogShards shards() {
+        EventLogShardingProperties properties = new EventLogShardingProperties();
+        properties.setFirstMonth("202501");
+        properties.setLastMonth("202512");
+        return new EventLogShards(properties);
+    }
+
+    /**
+     * 用内存中的数据代替月表查询，记录每次查询的月份和ID
+     */
+    private class InMemoryCache extends EventLogCache {
+
+        private final Map<Long, EventLog> rows = new HashMap<>();
+
+        private final Map<YearMonth, List<Long>> loads = new HashMap<>();
+
+        private Runnable onLoad;
+
+        InMemoryCache() {
+            super(null, shards, archiveStore, new EventLogCacheProperties());
+        }
+
+        EventLog add(LocalDateTime createTime) {
+            EventLog eventLog = new EventLog();
+            eventLog.setId(generator.nextId(createTime));
+            eventLog.setCreateTime(createTime);
+            rows.put(eventLog.getId(), eventLog);
+            return eventLog;
+        }
+
+        @Override
+        List<EventLog> load(YearMonth month, List<Long> ids) {
+            loads.put(month, List.copyOf(ids));
+            if (onLoad != null) {
+                onLoad.run();
+            }
+            List<EventLog> result = new ArrayList<>();
+            for (Long id : ids) {
+                if (rows.containsKey(id)) {
+                    result.add(rows.get(id));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.oneinstep.demo.sharding.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oneinstep.demo.sharding.cache.EventLogCache;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.ingest.EventLogIngester;
+import com.oneinstep.demo.sharding.query.ShardedEventLogQueryExecutor;
+import com.oneinstep.demo.sharding.service.EventLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EventLogControllerTest {
+
+    private ShardedEventLogQueryExecutor queryExecutor;
+
+    private EventLogController controller;
+
+    @BeforeEach
+    void setUp() {
+        queryExecutor = mock(ShardedEventLogQueryExecutor.class);
+        controller = new EventLogController(mock(EventLogService.class), queryExecutor,
+                mock(EventLogIngester.class), mock(EventLogCache.class), new ObjectMapper());
+    }
+
+    /**
+     * 某个月的第一批读取失败时，在提交响应之前抛出异常
+     */
+    @Test
+    void shouldFailBeforeResponseWhenFirstBatchFails() {
+        when(queryExecutor.open(any())).thenThrow(new IllegalStateException("Failed to query event logs of 2025-03"));
+
+        assertThrows(IllegalStateException.class, () -> controller.search(1, null, null));
+    }
+
+    /**
+     * 开始写出后某个月读取失败时，异常抛给容器，不写出数组结尾，也不关闭输出流
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldLeaveResponseUnterminatedWhenStreamingFails() {
+        ShardedEventLogQueryExecutor.MergedStream rows = mock(ShardedEventLogQueryExecutor.MergedStream.class);
+        doAnswer(invocation -> {
+            Consumer<EventLog> consumer = invocation.getArgument(0);
+            EventLog eventLog = new EventLog();
+            eventLog.setId(1L);
+            consumer.accept(eventLog);
+            throw new IllegalStateException("Failed to query event logs of 2025-03");
+        }).when(rows).forEachRemaining(any());
+        when(queryExecutor.open(any())).thenReturn(rows);
+
+        StreamingResponseBody body = controller.search(1, null, null).getBody();
+        TrackingOutputStream out = new TrackingOutputStream();
+        assertThrows(IllegalStateException.class, () -> body.writeTo(out));
+
+        assertFalse(out.toString(StandardCharsets.UTF_8).endsWith("]"));
+        assertFalse(out.closed);
+        verify(rows).close();
+    }
+
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.oneinstep.demo.sharding.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillIdGeneratorTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    /**
+     * 同一时间生成大量ID不重复，序列号用完后顺延到后续毫秒，
+     * 顺延的毫秒已有的ID和之后在该毫秒生成的ID也不重复
+     */
+    @Test
+    void shouldSpillIntoFollowingMillis() {
+        BackfillIdGenerator generator = new BackfillIdGenerator(5, FROM, TO);
+        long time = toMillis(LocalDateTime.of(2024, 1, 15, 12, 0));
+        Set<Long> ids = new HashSet<>();
+
+        long[] batch = generator.nextIds(time, 100_000);
+        for (int i = 0; i < batch.length; i++) {
+            assertTrue(i == 0 || batch[i] > batch[i - 1]);
+            assertTrue(ids.add(batch[i]));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(generator.nextId(time)));
+            assertTrue(ids.add(generator.nextId(time + 5)));
+            assertTrue(ids.add(generator.nextId(time + 30)));
+        }
+        assertTrue(ids.add(generator.nextId(time - 1)));
+
+        assertEquals(130_001, ids.size());
+        for (long id : ids) {
+            assertEquals(5, (id >> SnowflakeIdGenerator.WORKER_SHIFT) & SnowflakeIdGenerator.MAX_WORKER_ID);
+            assertEquals("202401", SnowflakeIdGenerator.extractYearMonth(id));
+        }
+    }
+
+    /**
+     * 顺延不跨月，ID始终路由到数据所在的月表
+     */
+    @Test
+    void shouldNotSpillAcrossMonth() {
+        BackfillIdGenerator generator = new BackfillIdGenerator(5, FROM, TO);
+        long lastMillis = toMillis(LocalDateTime.of(2024, 2, 1, 0, 0)) - 1;
+
+        long[] ids = generator.nextIds(lastMillis, 4000);
+        assertEquals("202401", SnowflakeIdGenerator.extractYearMonth(ids[ids.length - 1]));
+        assertThrows(IllegalStateException.class, () -> generator.nextIds(lastMillis, 200));
+        assertEquals("202402", SnowflakeIdGenerator.extractYearMonth(generator.nextId(lastMillis + 1)));
+
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(toMillis(TO)));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId(FROM.minusNanos(1_000_000)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BackfillIdGenerator(5, FROM, LocalDateTime.now().plusDays(1)));
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
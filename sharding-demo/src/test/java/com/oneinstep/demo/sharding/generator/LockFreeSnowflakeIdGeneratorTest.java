@@ -0,0 +1,175 @@
+package com.oneinstep.demo.sharding.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockFreeSnowflakeIdGeneratorTest {
+
+    /**
+     * 多线程并发生成的ID不重复，且每个线程内单调递增
+     */
+    @Test
+    void shouldGenerateUniqueIdsUnderContention() throws Exception {
+        LockFreeSnowflakeIdGenerator generator = new LockFreeSnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 16;
+        int perThread = 50_000;
+
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long last = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        long id = generator.nextId();
+                        if (id <= last || !ids.add(id)) {
+                            return false;
+                        }
+                        last = id;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    /**
+     * 并发预留与单个生成交替进行，所有ID不重复
+     */
+    @Test
+    void shouldReserveWithoutOverlap() throws Exception {
+        LockFreeSnowflakeIdGenerator generator = new LockFreeSnowflakeIdGenerator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int rounds = 200;
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    int count = 0;
+                    for (int i = 0; i < rounds; i++) {
+                        IdBlock block = generator.reserve(1 + i * 37 % 5000);
+                        long last = 0;
+                        for (long id : block.toArray()) {
+                            if (id <= last || !ids.add(id)) {
+                                return -1;
+                            }
+                            last = id;
+                        }
+                        if (!ids.add(generator.nextId())) {
+                            return -1;
+                        }
+                        count += block.size() + 1;
+                    }
+                    return count;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                int count = future.get();
+                assertTrue(count > 0);
+                total += count;
+            }
+            assertEquals(total, ids.size());
+        }
+    }
+
+    /**
+     * 时钟回拨不超过容忍范围时继续递增，回拨过多时抛出异常
+     */
+    @Test
+    void shouldHandleClockRollback() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        LockFreeSnowflakeIdGenerator generator = new LockFreeSnowflakeIdGenerator(5, clock::get);
+        long id = generator.nextId();
+
+        clock.addAndGet(-SnowflakeIdGenerator.MAX_BACKWARD_MS);
+        long next = generator.nextId();
+        assertTrue(next > id);
+        assertTrue(generator.reserve(100).toArray()[0] > next);
+
+        clock.addAndGet(-1000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalStateException.class, () -> generator.reserve(100));
+    }
+
+    /**
+     * 领先时钟过多时挂起等待，nextId 与 reserve 允许的领先时间相同，时钟追上后继续生成
+     */
+    @Test
+    void shouldWaitForClockWhenTooFarAhead() throws Exception {
+        long start = System.currentTimeMillis();
+        AtomicLong clock = new AtomicLong(start);
+        LockFreeSnowflakeIdGenerator generator = new LockFreeSnowflakeIdGenerator(5, clock::get);
+        // 预留后领先时钟 MAX_BACKWARD_MS 毫秒附近
+        long[] reserved = generator.reserve(SnowflakeIdGenerator.MAX_RESERVE).toArray();
+        assertTrue(leadMillis(reserved[reserved.length - 1], start) <= SnowflakeIdGenerator.MAX_BACKWARD_MS);
+
+        int count = (int) SnowflakeIdGenerator.MAX_SEQUENCE + 2;
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<Long> last = executor.submit(() -> {
+                long id = 0;
+                for (int i = 0; i < count; i++) {
+                    id = generator.nextId();
+                }
+                return id;
+            });
+            assertThrows(TimeoutException.class, () -> last.get(200, TimeUnit.MILLISECONDS));
+
+            clock.addAndGet(2);
+            long id = last.get(5, TimeUnit.SECONDS);
+            assertTrue(id > reserved[reserved.length - 1]);
+            assertTrue(leadMillis(id, clock.get()) <= SnowflakeIdGenerator.MAX_BACKWARD_MS);
+        }
+    }
+
+    /**
+     * ID中的时间戳领先指定时间的毫秒数
+     */
+    private static long leadMillis(long id, long epochMillis) {
+        return (id >>> SnowflakeIdGenerator.TIMESTAMP_SHIFT) + SnowflakeIdGenerator.EPOCH - epochMillis;
+    }
+
+    /**
+     * ID结构与标准实现一致，可以提取时间和机器ID
+     */
+    @Test
+    void shouldKeepStandardLayout() {
+        LockFreeSnowflakeIdGenerator generator = new LockFreeSnowflakeIdGenerator(1023);
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+        long id = generator.nextId();
+        LocalDateTime after = LocalDateTime.now().plusSeconds(1);
+
+        assertTrue(id > 0);
+        assertEquals(1023, (id >> SnowflakeIdGenerator.WORKER_SHIFT) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        LocalDateTime dateTime = SnowflakeIdGenerator.extractDateTime(id);
+        assertFalse(dateTime.isBefore(before));
+        assertFalse(dateTime.isAfter(after));
+        // 月份取自ID中的时间戳，生成前后跨月时为其中之一
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMM");
+        assertEquals(dateTime.format(formatter), SnowflakeIdGenerator.extractYearMonth(id));
+        assertTrue(List.of(before.format(formatter), after.format(formatter))
+                .contains(SnowflakeIdGenerator.extractYearMonth(id)));
+        assertThrows(IllegalArgumentException.class, () -> new LockFreeSnowflakeIdGenerator(1024));
+    }
+}
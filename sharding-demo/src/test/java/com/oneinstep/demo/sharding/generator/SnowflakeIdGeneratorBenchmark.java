@@ -0,0 +1,59 @@
+package com.oneinstep.demo.sharding.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法ID生成器基准测试
+ * 对比 synchronized 实现与 CAS 实现在 1 ~ 64 个线程下的吞吐量，
+ * 单线程吞吐量受每毫秒 4096 个序列号限制，多线程下主要比较锁竞争的开销。
+ * <p>
+ * 运行方式：在 IDE 中运行 main 方法，依次以各线程数运行全部基准
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    private final SnowflakeIdGenerator synchronizedGenerator = new SnowflakeIdGenerator();
+
+    private final LockFreeSnowflakeIdGenerator lockFreeGenerator = new LockFreeSnowflakeIdGenerator(1);
+
+    @Benchmark
+    public Object synchronizedGenerate() {
+        return synchronizedGenerator.generate(null, null);
+    }
+
+    @Benchmark
+    public long lockFreeGenerate() {
+        return lockFreeGenerator.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(SnowflakeIdGeneratorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.oneinstep.demo.sharding.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    /**
+     * 预留的ID段跨越多个毫秒时单调递增，与前后单个生成的ID不重复
+     */
+    @Test
+    void shouldReserveContiguousBlock() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        Set<Long> ids = new HashSet<>();
+        long before = (Long) generator.generate(null, null);
+        ids.add(before);
+
+        IdBlock block = generator.reserve(SnowflakeIdGenerator.MAX_RESERVE);
+        long[] reserved = block.toArray();
+
+        assertEquals(SnowflakeIdGenerator.MAX_RESERVE, block.size());
+        assertEquals(reserved[0], block.first());
+        assertEquals(reserved[reserved.length - 1], block.last());
+        assertTrue(block.first() > before);
+        for (int i = 0; i < reserved.length; i++) {
+            assertEquals(reserved[i], block.get(i));
+            assertTrue(i == 0 || reserved[i] > reserved[i - 1]);
+            assertTrue(ids.add(reserved[i]));
+        }
+        assertTrue(SnowflakeIdGenerator.extractDateTime(block.last())
+                .isAfter(SnowflakeIdGenerator.extractDateTime(block.first())));
+
+        // 预留领先系统时钟，之后生成的ID等待时钟追上而不是抛出异常
+        for (int i = 0; i < 10_000; i++) {
+            long id = (Long) generator.generate(null, null);
+            assertTrue(id > block.last());
+            assertTrue(ids.add(id));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> block.get(block.size()));
+        assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.reserve(SnowflakeIdGenerator.MAX_RESERVE + 1));
+    }
+}
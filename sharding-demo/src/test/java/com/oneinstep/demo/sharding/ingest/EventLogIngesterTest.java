@@ -0,0 +1,249 @@
+package com.oneinstep.demo.sharding.ingest;
+
+import com.oneinstep.demo.sharding.config.EventLogIngestProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventLogIngesterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator();
+
+    /**
+     * 每次批量插入写入的ID
+     */
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * 当前事务中写入、尚未提交的ID，只在写入线程中访问
+     */
+    private final List<Long> uncommitted = new ArrayList<>();
+
+    /**
+     * 已提交的ID
+     */
+    private final Set<Long> committed = ConcurrentHashMap.newKeySet();
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            committed.addAll(uncommitted);
+            uncommitted.clear();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            uncommitted.clear();
+        }
+    });
+
+    private EventLogIngester ingester;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        doAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            List<Long> ids = new ArrayList<>();
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(set -> ids.add(set.getArgument(1))).when(ps).setLong(eq(1), anyLong());
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            batches.add(ids);
+            uncommitted.addAll(ids);
+            return new int[ids.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingester.shutdown();
+    }
+
+    /**
+     * 多个请求合并写入，每张月表一个批次，没有ID的数据生成ID
+     */
+    @Test
+    void shouldGroupRowsByMonth() throws Exception {
+        ingester = new EventLogIngester(jdbcTemplate, transactionTemplate, idGenerator, properties(1000, 200));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        Set<Long> expected = new HashSet<>();
+        for (int request = 0; request < 5; request++) {
+            List<EventLog> eventLogs = new ArrayList<>();
+            for (int month = 1; month <= 3; month++) {
+                LocalDateTime time = LocalDateTime.of(2025, month, 1 + request, 0, 0);
+                eventLogs.add(eventLog(idGenerator.generateWithTime(time), time));
+            }
+            eventLogs.add(eventLog(null, null));
+            futures.add(ingester.submit(eventLogs));
+            eventLogs.forEach(eventLog -> expected.add(eventLog.getId()));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(20, expected.size());
+        assertEquals(expected, batches.stream().flatMap(List::stream).collect(HashSet::new, Set::add, Set::addAll));
+        for (List<Long> batch : batches) {
+            assertEquals(1, batch.stream().map(id -> YearMonth.from(SnowflakeIdGenerator.extractDateTime(id)))
+                    .distinct().count());
+        }
+        // 合并写入，批次数远小于请求数 * 表数
+        assertTrue(batches.size() < 20);
+    }
+
+    /**
+     * 写入未完成时缓冲区已满，新请求被拒绝；某张表写入失败时相关请求失败
+     */
+    @Test
+    void shouldRejectWhenBufferFullAndReportFailures() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        LocalDateTime failedMonth = LocalDateTime.of(2025, 2, 1, 0, 0);
+        doAnswer(invocation -> {
+            blocked.await();
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doThrow(new IllegalStateException("insert failed"))
+                    .when(ps).setLong(eq(1), longThat(id -> id >= SnowflakeIdGenerator.minId(failedMonth)));
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            return new int[setter.getBatchSize()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        ingester = new EventLogIngester(jdbcTemplate, transactionTemplate, idGenerator, properties(10, 5));
+
+        LocalDateTime january = LocalDateTime.of(2025, 1, 1, 0, 0);
+        CompletableFuture<Void> first = ingester.submit(rows(january, 6));
+        CompletableFuture<Void> second = ingester.submit(rows(failedMonth, 4));
+        assertThrows(RejectedExecutionException.class, () -> ingester.submit(rows(january, 1)));
+        assertThrows(IllegalArgumentException.class, () -> ingester.submit(rows(january, 11)));
+
+        blocked.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("insert failed", failure.getCause().getMessage());
+
+        // 写入后归还缓冲区
+        ingester.submit(rows(january, 10)).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 每个请求的数据在一个事务中写入
+     * 同一批中一个请求的某张月表写入失败时整批回滚，逐个请求重试，失败请求的其他月份也不会提交
+     */
+    @Test
+    void shouldWriteEachRequestAtomically() throws Exception {
+        LocalDateTime failedMonth = LocalDateTime.of(2025, 2, 1, 0, 0);
+        doAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            List<Long> ids = new ArrayList<>();
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(set -> {
+                long id = set.getArgument(1);
+                if (id >= SnowflakeIdGenerator.minId(failedMonth)) {
+                    throw new IllegalStateException("insert failed");
+                }
+                return ids.add(id);
+            }).when(ps).setLong(eq(1), anyLong());
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            uncommitted.addAll(ids);
+            return new int[ids.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        ingester = new EventLogIngester(jdbcTemplate, transactionTemplate, idGenerator, properties(1000, 100));
+
+        LocalDateTime january = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<EventLog> mixed = rows(january, 2);
+        mixed.addAll(rows(failedMonth, 2));
+        List<EventLog> valid = rows(january.plusDays(1), 3);
+        CompletableFuture<Void> failed = ingester.submit(mixed);
+        CompletableFuture<Void> succeeded = ingester.submit(valid);
+
+        succeeded.get(5, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("insert failed", failure.getCause().getMessage());
+        assertEquals(valid.stream().map(EventLog::getId).collect(Collectors.toSet()), committed);
+    }
+
+    /**
+     * 创建时间与ID中的时间不在同一个月时拒绝，没有创建时间时使用ID中的时间
+     */
+    @Test
+    void shouldRejectCreateTimeOutsideIdMonth() throws Exception {
+        ingester = new EventLogIngester(jdbcTemplate, transactionTemplate, idGenerator, properties(10, 5));
+
+        LocalDateTime january = LocalDateTime.of(2025, 1, 1, 0, 0);
+        assertThrows(IllegalArgumentException.class, () -> ingester.submit(List.of(eventLog(null, january))));
+        long februaryId = idGenerator.generateWithTime(january.plusMonths(1));
+        assertThrows(IllegalArgumentException.class, () -> ingester.submit(List.of(eventLog(februaryId, january))));
+
+        EventLog current = eventLog(null, null);
+        List<EventLog> eventLogs = new ArrayList<>(rows(january, 9));
+        eventLogs.add(current);
+        ingester.submit(eventLogs).get(5, TimeUnit.SECONDS);
+        assertEquals(SnowflakeIdGenerator.extractDateTime(current.getId()), current.getCreateTime());
+        assertEquals(10, committed.size());
+    }
+
+    private List<EventLog> rows(LocalDateTime time, int count) {
+        List<EventLog> eventLogs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime createTime = time.plusMinutes(i);
+            eventLogs.add(eventLog(idGenerator.generateWithTime(createTime), createTime));
+        }
+        return eventLogs;
+    }
+
+    private static EventLog eventLog(Long id, LocalDateTime createTime) {
+        EventLog eventLog = new EventLog();
+        eventLog.setId(id);
+        eventLog.setCreateTime(createTime);
+        eventLog.setEventContent("ingest");
+        return eventLog;
+    }
+
+    private static EventLogIngestProperties properties(int bufferRows, int batchRows) {
+        EventLogIngestProperties properties = new EventLogIngestProperties();
+        properties.setBufferRows(bufferRows);
+        properties.setBatchRows(batchRows);
+        properties.setFlushIntervalMs(50);
+        properties.setAcceptTimeoutMs(100);
+        return properties;
+    }
+}
@@ -0,0 +1,137 @@
+package com.oneinstep.demo.sharding.lifecycle;
+
+import com.oneinstep.demo.sharding.archive.EventLogArchiveStore;
+import com.oneinstep.demo.sharding.config.EventLogLifecycleProperties;
+import com.oneinstep.demo.sharding.config.EventLogLifecycleProperties.RetireAction;
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.query.EventLogShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventLogShardLifecycleTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final EventLogShardRule shardRule = mock(EventLogShardRule.class);
+
+    private final EventLogArchiveStore archiveStore = mock(EventLogArchiveStore.class);
+
+    private final EventLogLifecycleProperties properties = new EventLogLifecycleProperties();
+
+    /**
+     * 数据库中的表
+     */
+    private List<String> tables;
+
+    private EventLogShards shards;
+
+    private EventLogShardLifecycle lifecycle;
+
+    @BeforeEach
+    void setUp() {
+        // 数据库中已有 2025 年的月表
+        tables = new ArrayList<>(List.of("event_log_template", "event_log_archive_202412"));
+        for (int month = 1; month <= 12; month++) {
+            tables.add(String.format("event_log_2025%02d", month));
+        }
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(tables);
+        when(shardRule.storageJdbcTemplate()).thenReturn(jdbcTemplate);
+
+        properties.setMonthsAhead(2);
+        properties.setRetentionMonths(12);
+        shards = new EventLogShards(new EventLogShardingProperties());
+        lifecycle = new EventLogShardLifecycle(shardRule, shards, archiveStore, properties);
+    }
+
+    @Test
+    void shouldCreateUpcomingAndRenameExpiredTables() {
+        // 默认不维护月表，开启后只重命名不删除数据
+        assertFalse(properties.isEnabled());
+        assertEquals(RetireAction.RENAME, properties.getRetireAction());
+        List<YearMonth> months = lifecycle.maintain(YearMonth.of(2026, 10));
+
+        List<YearMonth> expected = new ArrayList<>();
+        for (YearMonth month = YearMonth.of(2025, 11); !month.isAfter(YearMonth.of(2026, 12)); month = month.plusMonths(1)) {
+            expected.add(month);
+        }
+        assertEquals(expected, months);
+        assertEquals(expected, shards.getMonths());
+
+        // 新表先创建再加入数据节点，旧表先移出数据节点再重命名
+        InOrder inOrder = inOrder(jdbcTemplate, shardRule);
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS event_log_202601 LIKE event_log_template");
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS event_log_202612 LIKE event_log_template");
+        inOrder.verify(shardRule).updateDataNodes(expected);
+        inOrder.verify(jdbcTemplate).execute("RENAME TABLE event_log_202501 TO event_log_archive_202501");
+        inOrder.verify(jdbcTemplate).execute("RENAME TABLE event_log_202510 TO event_log_archive_202510");
+
+        verify(jdbcTemplate, times(12)).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate, times(10)).execute(startsWith("RENAME TABLE"));
+        verify(jdbcTemplate, never()).execute(contains("event_log_202511 "));
+        verifyNoInteractions(archiveStore);
+    }
+
+    @Test
+    void shouldExportExpiredTablesAfterRemovingFromDataNodes() {
+        properties.setRetireAction(RetireAction.EXPORT);
+        properties.setRetentionMonths(3);
+        // 上次导出失败留下的表，本次重试
+        tables.add("event_log_exporting_202412");
+        // 导出失败的表保留，不删除
+        when(archiveStore.export(jdbcTemplate, YearMonth.of(2025, 9), "event_log_exporting_202509"))
+                .thenThrow(new IllegalStateException("disk full"));
+
+        List<YearMonth> months = lifecycle.maintain(YearMonth.of(2025, 12));
+
+        assertEquals(List.of(YearMonth.of(2025, 10), YearMonth.of(2025, 11), YearMonth.of(2025, 12),
+                YearMonth.of(2026, 1), YearMonth.of(2026, 2)), months);
+        // 先移出数据节点，再重命名、导出，核对行数后删除
+        InOrder inOrder = inOrder(shardRule, jdbcTemplate, archiveStore);
+        inOrder.verify(shardRule).updateDataNodes(months);
+        inOrder.verify(jdbcTemplate).execute("RENAME TABLE event_log_202501 TO event_log_exporting_202501");
+        inOrder.verify(archiveStore).export(jdbcTemplate, YearMonth.of(2025, 1), "event_log_exporting_202501");
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE IF EXISTS event_log_exporting_202501");
+        inOrder.verify(archiveStore).export(jdbcTemplate, YearMonth.of(2024, 12), "event_log_exporting_202412");
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE IF EXISTS event_log_exporting_202412");
+
+        verify(jdbcTemplate, times(9)).execute(startsWith("RENAME TABLE"));
+        verify(jdbcTemplate, times(9)).execute(startsWith("DROP TABLE IF EXISTS event_log_exporting_"));
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS event_log_exporting_202509");
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE IF EXISTS event_log_2025"));
+    }
+
+    @Test
+    void shouldDropExpiredTablesWithoutArchive() {
+        properties.setRetireAction(RetireAction.DROP);
+        properties.setRetentionMonths(3);
+        // 一张表删除失败不影响其他表
+        doThrow(new IllegalStateException("locked")).when(jdbcTemplate).execute("DROP TABLE IF EXISTS event_log_202502");
+
+        List<YearMonth> months = lifecycle.maintain(YearMonth.of(2025, 12));
+
+        assertEquals(List.of(YearMonth.of(2025, 10), YearMonth.of(2025, 11), YearMonth.of(2025, 12),
+                YearMonth.of(2026, 1), YearMonth.of(2026, 2)), months);
+        verify(jdbcTemplate, times(9)).execute(startsWith("DROP TABLE IF EXISTS event_log_2025"));
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS event_log_202509");
+        verify(jdbcTemplate, never()).execute(startsWith("RENAME TABLE"));
+        verify(jdbcTemplate, times(2)).execute(startsWith("CREATE TABLE"));
+    }
+
+    @Test
+    void shouldListMonthsInDataNodes() {
+        assertEquals("ds0.event_log_202512,ds0.event_log_202601",
+                EventLogShardRule.dataNodes("ds0", List.of(YearMonth.of(2025, 12), YearMonth.of(2026, 1))));
+        assertEquals("ds0", EventLogShardRule.dataSourceName("ds0.event_log_${202501..202512}"));
+        assertEquals("ds0", EventLogShardRule.dataSourceName("ds0.event_log_${2025..2027}${['01','12']}"));
+    }
+}
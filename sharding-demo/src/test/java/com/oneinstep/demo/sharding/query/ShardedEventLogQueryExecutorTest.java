@@ -0,0 +1,206 @@
+package com.oneinstep.demo.sharding.query;
+
+import com.oneinstep.demo.sharding.config.EventLogShardingProperties;
+import com.oneinstep.demo.sharding.domain.EventLog;
+import com.oneinstep.demo.sharding.generator.BackfillIdGenerator;
+import com.oneinstep.demo.sharding.generator.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedEventLogQueryExecutorTest {
+
+    /**
+     * 各月表分批读取后按 (create_time, id) 归并，包括 create_time 与ID所在月份不一致的数据
+     */
+    @Test
+    void shouldMergeShardsInOrder() {
+        InMemoryExecutor executor = new InMemoryExecutor(properties(7, 3));
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        BackfillIdGenerator generator = new BackfillIdGenerator(1, base, base.plusYears(1));
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime createTime = base.plusMinutes(ThreadLocalRandom.current().nextInt(60 * 24 * 180));
+            // 部分数据的ID时间与创建时间不在同一个月
+            LocalDateTime idTime = i % 10 == 0 ? createTime.plusMonths(1) : createTime;
+            executor.add(generator.nextId(idTime), createTime, i % 3);
+        }
+
+        List<EventLog> result = new ArrayList<>();
+        executor.stream(EventLogCriteria.builder().eventType(1).build(), result::add);
+
+        List<EventLog> expected = executor.all().stream()
+                .filter(eventLog -> eventLog.getEventType() == 1)
+                .sorted(ShardedEventLogQueryExecutor.ORDER)
+                .toList();
+        assertEquals(expected, result);
+        assertTrue(executor.fetches.get() > executor.shards.size());
+    }
+
+    /**
+     * 游标分页依次返回全部数据，每页只查询游标所在的表和之后必要的表
+     */
+    @Test
+    void shouldPageThroughMonthsInOrder() {
+        InMemoryExecutor executor = new InMemoryExecutor(properties(100, 4));
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        BackfillIdGenerator generator = new BackfillIdGenerator(1, base, base.plusYears(1));
+        for (int i = 0; i < 300; i++) {
+            // 2月没有数据
+            LocalDateTime createTime = base.plusHours(ThreadLocalRandom.current().nextInt(24 * 120));
+            if (createTime.getMonthValue() != 2) {
+                executor.add(generator.nextId(createTime), createTime, 1);
+            }
+        }
+        EventLogCriteria criteria = EventLogCriteria.builder()
+                .startTime(base)
+                .endTime(LocalDateTime.of(2025, 6, 30, 23, 59, 59))
+                .build();
+
+        List<EventLog> result = new ArrayList<>();
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        while (true) {
+            executor.fetches.set(0);
+            EventLogPage page = executor.page(criteria, cursorTime, cursorId, 7);
+            assertTrue(page.getRecords().size() <= 7);
+            assertTrue(executor.fetches.get() <= 3);
+            result.addAll(page.getRecords());
+            if (!page.isHasMore()) {
+                break;
+            }
+            assertEquals(7, page.getRecords().size());
+            cursorTime = page.getNextCursorTime();
+            cursorId = page.getNextCursorId();
+        }
+
+        assertEquals(executor.all().stream().sorted(ShardedEventLogQueryExecutor.ORDER).toList(), result);
+    }
+
+    /**
+     * 调用方抛出异常时停止查询
+     */
+    @Test
+    void shouldStopWhenConsumerFails() {
+        InMemoryExecutor executor = new InMemoryExecutor(properties(2, 2));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime time = LocalDateTime.of(2025, 1 + i % 12, 1, 0, 0).plusHours(i);
+            executor.add(generator.generateWithTime(time), time, 1);
+        }
+
+        AtomicInteger consumed = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> executor.stream(EventLogCriteria.builder().build(),
+                eventLog -> {
+                    if (consumed.incrementAndGet() == 10) {
+                        throw new IllegalStateException("client closed");
+                    }
+                }));
+        assertEquals(10, consumed.get());
+    }
+
+    /**
+     * 某张表的第一批读取失败时，开始查询就抛出异常，调用方还没有收到任何数据
+     */
+    @Test
+    void shouldFailOnOpenWhenFirstBatchFails() {
+        InMemoryExecutor executor = shardsWithFailure(true);
+
+        assertThrows(IllegalStateException.class, () -> executor.open(EventLogCriteria.builder().build()));
+    }
+
+    /**
+     * 某张表之后的批次读取失败时，开始查询成功，处理部分数据后抛出异常
+     */
+    @Test
+    void shouldFailWhileStreamingWhenLaterBatchFails() {
+        InMemoryExecutor executor = shardsWithFailure(false);
+
+        AtomicInteger consumed = new AtomicInteger();
+        try (ShardedEventLogQueryExecutor.MergedStream rows = executor.open(EventLogCriteria.builder().build())) {
+            assertThrows(IllegalStateException.class, () -> rows.forEachRemaining(eventLog -> consumed.incrementAndGet()));
+        }
+        assertTrue(consumed.get() > 0);
+        assertTrue(consumed.get() < executor.all().size());
+    }
+
+    /**
+     * 每个月10条数据，3月的第一批或之后的批次读取失败
+     */
+    private static InMemoryExecutor shardsWithFailure(boolean firstBatch) {
+        InMemoryExecutor executor = new InMemoryExecutor(properties(4, 2));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        for (int i = 0; i < 120; i++) {
+            LocalDateTime time = LocalDateTime.of(2025, 1 + i % 12, 1, 0, 0).plusHours(i);
+            executor.add(generator.generateWithTime(time), time, 1);
+        }
+        executor.failMonth = YearMonth.of(2025, 3);
+        executor.failFirstBatch = firstBatch;
+        return executor;
+    }
+
+    private static EventLogShardingProperties properties(int fetchSize, int parallelism) {
+        EventLogShardingProperties properties = new EventLogShardingProperties();
+        properties.setFirstMonth("202501");
+        properties.setLastMonth("202512");
+        properties.setFetchSize(fetchSize);
+        properties.setQueryParallelism(parallelism);
+        return properties;
+    }
+
+    /**
+     * 用内存中的数据代替分表查询
+     */
+    private static class InMemoryExecutor extends ShardedEventLogQueryExecutor {
+
+        private final Map<YearMonth, List<EventLog>> shards = new HashMap<>();
+
+        private final AtomicInteger fetches = new AtomicInteger();
+
+        /**
+         * 读取失败的月份，failFirstBatch 为 true 时第一批失败，否则之后的批次失败
+         */
+        private YearMonth failMonth;
+        private boolean failFirstBatch;
+
+        InMemoryExecutor(EventLogShardingProperties properties) {
+            super(null, new EventLogShards(properties), null, properties);
+        }
+
+        void add(long id, LocalDateTime createTime, int eventType) {
+            EventLog eventLog = new EventLog();
+            eventLog.setId(id);
+            eventLog.setCreateTime(createTime);
+            eventLog.setEventType(eventType);
+            shards.computeIfAbsent(YearMonth.from(SnowflakeIdGenerator.extractDateTime(id)), month -> new ArrayList<>())
+                    .add(eventLog);
+        }
+
+        List<EventLog> all() {
+            return shards.values().stream().flatMap(List::stream).toList();
+        }
+
+        @Override
+        List<EventLog> fetch(YearMonth month, EventLogCriteria criteria, EventLog after, int limit) {
+            fetches.incrementAndGet();
+            if (month.equals(failMonth) && (after == null) == failFirstBatch) {
+                throw new IllegalStateException("Connection reset while querying " + month);
+            }
+            return shards.getOrDefault(month, List.of()).stream()
+                    .filter(eventLog -> criteria.getEventType() == null
+                            || criteria.getEventType().equals(eventLog.getEventType()))
+                    .filter(eventLog -> after == null || ShardedEventLogQueryExecutor.ORDER.compare(eventLog, after) > 0)
+                    .sorted(ShardedEventLogQueryExecutor.ORDER)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}